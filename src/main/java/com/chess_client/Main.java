@@ -8,7 +8,9 @@ import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
 import com.chess_client.controllers.LoginController;
+import com.chess_client.services.ApiClient;
 import com.chess_client.services.AuthService;
+import com.chess_client.tasks.BackgroundTasks;
 
 public class Main extends Application {
     @Override
@@ -27,12 +29,26 @@ public class Main extends Application {
         stage.setOnCloseRequest(event -> {
             // Gọi logout đồng bộ khi đóng cửa sổ bằng dấu X
             AuthService.signOutSync();
+            if (Boolean.getBoolean("API_STATS")) {
+                printStats();
+            }
             Platform.exit();
             System.exit(0);
         });
         stage.show();
     }
 
+    /**
+     * Thống kê task nền, độ trễ API, cache và ngắt mạch; chỉ in khi chạy với -DAPI_STATS=true.
+     */
+    private static void printStats() {
+        System.out.println("Task nền khi thoát: " + BackgroundTasks.getSummary()
+                + " " + BackgroundTasks.getInFlightTasks());
+        System.out.println(ApiClient.getLatencyReport());
+        System.out.println(ApiClient.getResponseCache().getReport());
+        System.out.println(ApiClient.getCircuitBreaker().getReport());
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -7,6 +7,7 @@ import com.chess_client.admin.models.UserRow;
 import com.chess_client.admin.utils.ComponentInjector;
 import com.chess_client.admin.utils.TableSetupHelper;
 import com.chess_client.services.AuthService;
+import com.chess_client.tasks.TaskScope;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -82,8 +83,6 @@ public class AdminController {
     private TableColumn<GameRow, String> colGameStatus;
     private TableColumn<GameRow, String> colWinner;
 
-    private ObservableList<GameRow> gameList = FXCollections.observableArrayList();
-
     // ==================== TAB XẾP HẠNG ====================
     private TableView<RankingRow> tblRankings;
     private TableColumn<RankingRow, Integer> colRank;
@@ -102,6 +101,7 @@ public class AdminController {
     private UserTabHandler userTabHandler;
     private GameTabHandler gameTabHandler;
     private RankingTabHandler rankingTabHandler;
+    private TaskScope tasks;
 
     @FXML
     public void initialize() {
@@ -112,13 +112,15 @@ public class AdminController {
         // Load views first to inject components
         loadViews();
 
-        // Initialize handlers after views are loaded (lblStats is injected)
-        statsHandler = new StatsHandler(lblStats);
-        userTabHandler = new UserTabHandler(userList,
+        // Initialize handlers after views are loaded (lblStats is injected).
+        // Mọi task nền của các tab dùng chung một scope, tự hủy khi rời màn hình admin
+        tasks = TaskScope.forScreen("admin", btnLogout);
+        statsHandler = new StatsHandler(tasks, lblStats);
+        userTabHandler = new UserTabHandler(tasks, userList,
                 (type, msg) -> showAlert(type, type == Alert.AlertType.ERROR ? "Lỗi" : "Thông báo", msg),
                 statsHandler::loadSystemStats);
-        gameTabHandler = new GameTabHandler(gameList, msg -> showAlert(Alert.AlertType.ERROR, "Lỗi", msg));
-        rankingTabHandler = new RankingTabHandler(rankingList, msg -> showAlert(Alert.AlertType.ERROR, "Lỗi", msg));
+        gameTabHandler = new GameTabHandler(tasks, msg -> showAlert(Alert.AlertType.ERROR, "Lỗi", msg));
+        rankingTabHandler = new RankingTabHandler(tasks, rankingList, msg -> showAlert(Alert.AlertType.ERROR, "Lỗi", msg));
 
         // Setup tables
         setupUserTable();
@@ -334,7 +336,7 @@ public class AdminController {
                 colGameMode,
                 colGameStatus,
                 colWinner);
-        tblGames.setItems(gameList);
+        TableSetupHelper.bindPagedList(tblGames, gameTabHandler.getGames());
     }
 
     private void setupRankingTable() {
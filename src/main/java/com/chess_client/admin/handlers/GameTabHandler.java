@@ -1,14 +1,11 @@
 package com.chess_client.admin.handlers;
 
 import com.chess_client.admin.models.GameRow;
+import com.chess_client.admin.utils.VirtualPagedList;
 import com.chess_client.services.AdminService;
-import javafx.application.Platform;
-import javafx.collections.ObservableList;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.chess_client.services.ApiException;
+import com.chess_client.tasks.TaskScope;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -16,12 +13,23 @@ import java.util.function.Consumer;
  */
 public class GameTabHandler {
 
-    private final ObservableList<GameRow> gameList;
-    private final Consumer<String> showAlert;
+    private static final int PAGE_SIZE = 100;
+    private static final int PREFETCH_PAGES = 2; // Số trang tải trước mỗi bên vùng đang xem
+    private static final int CACHED_PAGES = 20;  // Số trang giữ trong bộ nhớ
+    private static final int PARALLEL_PAGES = 4; // Số trang tải cùng lúc
 
-    public GameTabHandler(ObservableList<GameRow> gameList, Consumer<String> showAlert) {
-        this.gameList = gameList;
-        this.showAlert = showAlert;
+    private final VirtualPagedList<GameRow> games;
+
+    public GameTabHandler(TaskScope tasks, Consumer<String> showAlert) {
+        this.games = new VirtualPagedList<>(tasks, "load-games", PAGE_SIZE, PREFETCH_PAGES, CACHED_PAGES,
+                PARALLEL_PAGES, error -> showAlert.accept(ApiException.describe(error)));
+    }
+
+    /**
+     * Danh sách trận đấu cho bảng; chỉ các trang gần vùng đang xem được tải.
+     */
+    public VirtualPagedList<GameRow> getGames() {
+        return games;
     }
 
     public void loadGames(String status) {
@@ -30,63 +38,6 @@ public class GameTabHandler {
         }
 
         String finalStatus = status;
-        new Thread(() -> {
-            try {
-                Platform.runLater(() -> gameList.clear());
-                int page = 1;
-                boolean hasMore = true;
-                int maxPages = 10; // Limit to prevent memory issues
-
-                // Load games by paginating through pages (with limit)
-                while (hasMore && page <= maxPages) {
-                    JSONObject result = AdminService.getAllGames(page, 100, finalStatus); // Reduced page size
-
-                    if (result.has("statusCode") && result.getInt("statusCode") == 200) {
-                        JSONArray games = result.getJSONArray("games");
-
-                        if (games.length() == 0) {
-                            hasMore = false;
-                        } else {
-                            // Collect games for this page
-                            List<GameRow> pageGames = new ArrayList<>();
-                            for (int i = 0; i < games.length(); i++) {
-                                JSONObject game = games.getJSONObject(i);
-                                pageGames.add(new GameRow(
-                                        game.getInt("id"),
-                                        game.optString("white_display_name", game.optString("white_username", "N/A")),
-                                        game.optString("black_display_name", game.optString("black_username", "N/A")),
-                                        game.getString("mode"),
-                                        game.getString("status"),
-                                        game.optString("winner_display_name",
-                                                game.optString("winner_username", "Hòa"))));
-                            }
-
-                            // Update UI on JavaFX thread
-                            Platform.runLater(() -> gameList.addAll(pageGames));
-
-                            // Check if there are more pages
-                            if (result.has("pagination")) {
-                                JSONObject pagination = result.getJSONObject("pagination");
-                                int currentPage = pagination.getInt("page");
-                                int totalPages = pagination.getInt("totalPages");
-                                if (currentPage >= totalPages) {
-                                    hasMore = false;
-                                } else {
-                                    page++;
-                                }
-                            } else {
-                                hasMore = false;
-                            }
-                        }
-                    } else {
-                        hasMore = false;
-                        Platform.runLater(() -> showAlert.accept(
-                                result.optString("message", "Không thể tải danh sách trận đấu")));
-                    }
-                }
-            } catch (Exception e) {
-                Platform.runLater(() -> showAlert.accept("Lỗi kết nối: " + e.getMessage()));
-            }
-        }).start();
+        games.load(page -> AdminService.getGamesAsync(page, PAGE_SIZE, finalStatus));
     }
 }
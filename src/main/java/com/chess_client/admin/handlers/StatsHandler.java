@@ -1,7 +1,9 @@
 package com.chess_client.admin.handlers;
 
 import com.chess_client.services.AdminService;
-import javafx.application.Platform;
+import com.chess_client.services.ApiClient;
+import com.chess_client.services.ApiException;
+import com.chess_client.tasks.TaskScope;
 import javafx.scene.control.Label;
 import org.json.JSONObject;
 
@@ -10,9 +12,11 @@ import org.json.JSONObject;
  */
 public class StatsHandler {
 
+    private final TaskScope tasks;
     private final Label lblStats;
 
-    public StatsHandler(Label lblStats) {
+    public StatsHandler(TaskScope tasks, Label lblStats) {
+        this.tasks = tasks;
         this.lblStats = lblStats;
     }
 
@@ -21,36 +25,23 @@ public class StatsHandler {
             return; // Label not yet injected
         }
 
-        new Thread(() -> {
-            try {
-                JSONObject result = AdminService.getSystemStats();
-
-                Platform.runLater(() -> {
-                    if (lblStats == null)
-                        return; // Double check
-
-                    if (result.has("statusCode") && result.getInt("statusCode") == 200) {
-                        JSONObject users = result.getJSONObject("users");
-
-                        int totalUsers = users.getInt("total");
-                        int onlineUsers = users.getInt("online");
-                        int admins = users.getInt("admins");
-                        int normalUsers = totalUsers - admins;
-
-                        String statsText = String.format("Người chơi online: %d/%d", onlineUsers, normalUsers);
-
-                        lblStats.setText(statsText);
-                    } else {
-                        lblStats.setText("Không thể tải thống kê");
-                    }
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> {
-                    if (lblStats != null) {
-                        lblStats.setText("Lỗi khi tải thống kê");
-                    }
-                });
+        tasks.whenComplete("load-stats", AdminService.getSystemStatsAsync(), result -> {
+            JSONObject users = result.getJSONObject("users");
+
+            int totalUsers = users.getInt("total");
+            int onlineUsers = users.getInt("online");
+            int admins = users.getInt("admins");
+            int normalUsers = totalUsers - admins;
+
+            String statsText = String.format("Người chơi online: %d/%d", onlineUsers, normalUsers);
+
+            lblStats.setText(statsText);
+        }, error -> {
+            if (ApiClient.unwrap(error) instanceof ApiException) {
+                lblStats.setText("Không thể tải thống kê");
+            } else {
+                lblStats.setText("Lỗi khi tải thống kê");
             }
-        }).start();
+        });
     }
 }
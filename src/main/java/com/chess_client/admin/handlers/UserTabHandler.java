@@ -2,13 +2,12 @@ package com.chess_client.admin.handlers;
 
 import com.chess_client.admin.models.UserRow;
 import com.chess_client.services.AdminService;
-import javafx.application.Platform;
+import com.chess_client.services.ApiException;
+import com.chess_client.tasks.TaskScope;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 import java.util.Optional;
 import java.util.function.BiConsumer;
@@ -18,14 +17,16 @@ import java.util.function.BiConsumer;
  */
 public class UserTabHandler {
 
+    private final TaskScope tasks;
     private final ObservableList<UserRow> userList;
     private final BiConsumer<Alert.AlertType, String> showAlert;
     private final Runnable refreshStats;
     private int currentPage = 1;
     private int limit = 20;
 
-    public UserTabHandler(ObservableList<UserRow> userList, BiConsumer<Alert.AlertType, String> showAlert,
-            Runnable refreshStats) {
+    public UserTabHandler(TaskScope tasks, ObservableList<UserRow> userList,
+            BiConsumer<Alert.AlertType, String> showAlert, Runnable refreshStats) {
+        this.tasks = tasks;
         this.userList = userList;
         this.showAlert = showAlert;
         this.refreshStats = refreshStats;
@@ -37,37 +38,15 @@ public class UserTabHandler {
             currentPage = 1;
         }
 
-        new Thread(() -> {
-            try {
-                JSONObject result = AdminService.getAllUsers(currentPage, limit, search);
-
-                Platform.runLater(() -> {
-                    if (result.has("statusCode") && result.getInt("statusCode") == 200) {
-                        userList.clear();
-                        JSONArray users = result.getJSONArray("users");
-
-                        for (int i = 0; i < users.length(); i++) {
-                            JSONObject user = users.getJSONObject(i);
-                            // Chỉ hiển thị user thường, không hiển thị admin
-                            if ("user".equals(user.optString("role", ""))) {
-                                userList.add(new UserRow(
-                                        user.getInt("id"),
-                                        user.getString("username"),
-                                        user.optString("display_name", ""),
-                                        user.optString("email", ""),
-                                        user.optString("phone", ""),
-                                        user.optString("status", "active")));
-                            }
-                        }
-                    } else {
-                        showAlert.accept(Alert.AlertType.ERROR,
-                                result.optString("message", "Không thể tải danh sách người dùng"));
-                    }
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> showAlert.accept(Alert.AlertType.ERROR, "Lỗi kết nối: " + e.getMessage()));
+        tasks.whenComplete("load-users", AdminService.getUsersAsync(currentPage, limit, search), page -> {
+            userList.clear();
+            for (UserRow user : page.getItems()) {
+                // Chỉ hiển thị user thường, không hiển thị admin
+                if ("user".equals(user.getRole())) {
+                    userList.add(user);
+                }
             }
-        }).start();
+        }, error -> showAlert.accept(Alert.AlertType.ERROR, ApiException.describe(error)));
     }
 
     public void handleEditUser(UserRow user) {
@@ -109,28 +88,19 @@ public class UserTabHandler {
                 return;
             }
 
-            new Thread(() -> {
-                JSONObject updateResult = AdminService.updateUser(
-                        user.getId(),
-                        displayName,
-                        email,
-                        phone,
-                        null,
-                        null);
-
-                Platform.runLater(() -> {
-                    if (updateResult.has("statusCode") && updateResult.getInt("statusCode") == 200) {
+            tasks.whenComplete("update-user", AdminService.updateUserAsync(
+                    user.getId(),
+                    displayName,
+                    email,
+                    phone,
+                    null,
+                    null), updateResult -> {
                         showAlert.accept(Alert.AlertType.INFORMATION, "Đã cập nhật người dùng thành công");
                         loadUsers("");
                         if (refreshStats != null) {
                             refreshStats.run();
                         }
-                    } else {
-                        showAlert.accept(Alert.AlertType.ERROR,
-                                updateResult.optString("message", "Không thể cập nhật"));
-                    }
-                });
-            }).start();
+                    }, error -> showAlert.accept(Alert.AlertType.ERROR, ApiException.describe(error)));
         }
     }
 
@@ -142,22 +112,13 @@ public class UserTabHandler {
 
         Optional<ButtonType> result = confirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            new Thread(() -> {
-                JSONObject deleteResult = AdminService.deleteUser(user.getId());
-
-                Platform.runLater(() -> {
-                    if (deleteResult.has("statusCode") && deleteResult.getInt("statusCode") == 200) {
-                        showAlert.accept(Alert.AlertType.INFORMATION, "Đã xóa người dùng thành công");
-                        loadUsers("");
-                        if (refreshStats != null) {
-                            refreshStats.run();
-                        }
-                    } else {
-                        showAlert.accept(Alert.AlertType.ERROR,
-                                deleteResult.optString("message", "Không thể xóa người dùng"));
-                    }
-                });
-            }).start();
+            tasks.whenComplete("delete-user", AdminService.deleteUserAsync(user.getId()), deleteResult -> {
+                showAlert.accept(Alert.AlertType.INFORMATION, "Đã xóa người dùng thành công");
+                loadUsers("");
+                if (refreshStats != null) {
+                    refreshStats.run();
+                }
+            }, error -> showAlert.accept(Alert.AlertType.ERROR, ApiException.describe(error)));
         }
     }
 
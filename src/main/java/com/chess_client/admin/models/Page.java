@@ -0,0 +1,46 @@
+package com.chess_client.admin.models;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả của API admin có phân trang
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final int page;
+    private final int totalPages;
+    private final int totalItems;
+
+    public Page(List<T> items, int page, int totalPages, int totalItems) {
+        this.items = items;
+        this.page = page;
+        this.totalPages = totalPages;
+        this.totalItems = totalItems;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * Tổng số dòng của mọi trang; -1 nếu server không cho biết.
+     */
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    /**
+     * Còn trang sau không (trang rỗng coi như đã hết).
+     */
+    public boolean hasNext() {
+        return !items.isEmpty() && page < totalPages;
+    }
+}
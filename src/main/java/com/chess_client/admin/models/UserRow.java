@@ -10,15 +10,17 @@ public class UserRow {
     private final String email;
     private final String phone;
     private final String status;
+    private final String role;
 
     public UserRow(Integer id, String username, String displayName, String email,
-            String phone, String status) {
+            String phone, String status, String role) {
         this.id = id;
         this.username = username;
         this.displayName = displayName;
         this.email = email;
         this.phone = phone;
         this.status = status;
+        this.role = role;
     }
 
     public Integer getId() {
@@ -44,5 +46,8 @@ public class UserRow {
     public String getStatus() {
         return status;
     }
-}
 
+    public String getRole() {
+        return role;
+    }
+}
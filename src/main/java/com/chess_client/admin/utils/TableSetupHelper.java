@@ -84,6 +84,17 @@ public class TableSetupHelper {
         colWinner.setCellValueFactory(new PropertyValueFactory<>("winner"));
     }
 
+    /**
+     * Gắn danh sách tải theo trang vào bảng. Tắt sắp xếp theo cột vì sắp xếp phía client
+     * phải đọc mọi dòng; thứ tự hiển thị là thứ tự server trả về.
+     */
+    public static <T> void bindPagedList(TableView<T> table, VirtualPagedList<T> rows) {
+        for (TableColumn<T, ?> column : table.getColumns()) {
+            column.setSortable(false);
+        }
+        table.setItems(rows);
+    }
+
     public static void setupRankingTable(
             TableView<RankingRow> tblRankings,
             TableColumn<RankingRow, Integer> colRank,
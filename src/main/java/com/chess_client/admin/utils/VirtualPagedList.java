@@ -0,0 +1,222 @@
+package com.chess_client.admin.utils;
+
+import com.chess_client.admin.models.Page;
+import com.chess_client.tasks.TaskScope;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Danh sách (items của TableView) cho một API có phân trang, chỉ giữ các trang gần vùng
+ * đang xem.
+ *
+ * size() là tổng số dòng phía server, nhưng TableView chỉ gọi get() cho các dòng đang hiển
+ * thị. get() của dòng chưa tải trả về null (dòng trống) và yêu cầu tải trang chứa nó cùng
+ * {@code margin} trang mỗi bên; trang về thì các dòng của nó được báo thay đổi để bảng vẽ
+ * lại. Chỉ giữ tối đa {@code cachedPages} trang: trang lâu không được xem nhất bị bỏ (LRU)
+ * và được tải lại khi cuộn quay về, nên duyệt một triệu trận đấu cũng chỉ tốn bộ nhớ cho
+ * vài trang. Trang đã ra khỏi vùng cần tải mà chưa về thì bị hủy.
+ *
+ * Không sửa được từ phía client (thêm/xóa/sắp xếp); thứ tự là thứ tự của server.
+ * Mọi trạng thái chỉ được dùng trên thread JavaFX.
+ */
+public class VirtualPagedList<T> extends ObservableListBase<T> {
+
+    /**
+     * Lấy một trang (đánh số từ 1) của danh sách.
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        CompletableFuture<Page<T>> fetch(int page);
+    }
+
+    private final TaskScope tasks;
+    private final String taskName;
+    private final int pageSize;
+    private final int margin;
+    private final int maxInFlight;
+    private final Consumer<Throwable> onError;
+
+    // Trang đã tải, theo thứ tự truy cập: phần tử đầu là trang lâu không xem nhất
+    private final Map<Integer, List<T>> cache;
+    private final Map<Integer, CompletableFuture<Page<T>>> inFlight = new HashMap<>();
+    // Trang cần tải nhưng chưa gửi, trang ưu tiên hơn đứng trước
+    private final Set<Integer> wanted = new LinkedHashSet<>();
+
+    private PageFetcher<T> fetcher;
+    private int size;
+    private int totalPages = 1;
+    private int lastPage = 1;
+    private boolean failed;
+
+    /**
+     * @param margin      số trang tải trước mỗi bên trang đang xem
+     * @param cachedPages số trang tối đa giữ trong bộ nhớ (ít nhất là vùng đang xem)
+     * @param maxInFlight số trang tải cùng lúc
+     */
+    public VirtualPagedList(TaskScope tasks, String taskName, int pageSize, int margin, int cachedPages,
+            int maxInFlight, Consumer<Throwable> onError) {
+        this.tasks = tasks;
+        this.taskName = taskName;
+        this.pageSize = pageSize;
+        this.margin = margin;
+        this.maxInFlight = maxInFlight;
+        this.onError = onError;
+        int capacity = Math.max(cachedPages, 2 * margin + 2);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Bỏ mọi dòng đang có và tải lại từ trang đầu bằng {@code fetcher}.
+     */
+    public void load(PageFetcher<T> fetcher) {
+        this.fetcher = fetcher;
+        for (CompletableFuture<Page<T>> future : inFlight.values()) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        wanted.clear();
+        cache.clear();
+        failed = false;
+        totalPages = 1;
+        lastPage = 1;
+        resize(0);
+        // Trang đầu cho biết tổng số dòng
+        want(1);
+        fill();
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / pageSize + 1;
+        List<T> rows = cache.get(page);
+        if (page != lastPage || rows == null) {
+            showPage(page);
+        }
+        int offset = index % pageSize;
+        return rows != null && offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Người dùng đang xem {@code page}: hủy các trang ở xa, tải trang này rồi các trang
+     * hai bên, gần trước xa sau.
+     */
+    private void showPage(int page) {
+        lastPage = page;
+        Iterator<Map.Entry<Integer, CompletableFuture<Page<T>>>> it = inFlight.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, CompletableFuture<Page<T>>> entry = it.next();
+            if (Math.abs(entry.getKey() - page) > margin) {
+                entry.getValue().cancel(true);
+                it.remove();
+            }
+        }
+        wanted.clear();
+        want(page);
+        for (int distance = 1; distance <= margin; distance++) {
+            want(page + distance);
+            want(page - distance);
+        }
+        fill();
+    }
+
+    private void want(int page) {
+        if (page >= 1 && page <= totalPages && !cache.containsKey(page) && !inFlight.containsKey(page)) {
+            wanted.add(page);
+        }
+    }
+
+    private void fill() {
+        Iterator<Integer> it = wanted.iterator();
+        while (!failed && inFlight.size() < maxInFlight && it.hasNext()) {
+            int page = it.next();
+            it.remove();
+            request(page);
+        }
+    }
+
+    private void request(int page) {
+        CompletableFuture<Page<T>> future = fetcher.fetch(page);
+        inFlight.put(page, future);
+        tasks.whenComplete(taskName, future, result -> {
+            // Đã bị hủy hoặc danh sách đã được tải lại từ đầu
+            if (!inFlight.remove(page, future)) {
+                return;
+            }
+            arrived(page, result);
+            // Giờ đã biết tổng số trang: tải tiếp các trang quanh vùng đang xem
+            showPage(lastPage);
+        }, error -> {
+            if (!inFlight.remove(page, future)) {
+                return;
+            }
+            // Chỉ báo lỗi một lần; tải lại (load) để thử tiếp
+            if (!failed) {
+                failed = true;
+                onError.accept(error);
+            }
+        });
+    }
+
+    private void arrived(int page, Page<T> result) {
+        List<T> rows = result.getItems();
+        totalPages = Math.max(1, result.getTotalPages());
+        int total = result.getTotalItems() >= 0 ? result.getTotalItems() : totalPages * pageSize;
+        if (page >= totalPages) {
+            total = (page - 1) * pageSize + rows.size();
+        } else if (rows.isEmpty()) {
+            // Dữ liệu bị xóa bớt từ lúc biết tổng số: coi như hết tại đây
+            total = Math.min(total, (page - 1) * pageSize);
+        }
+        if (rows.isEmpty()) {
+            totalPages = Math.max(1, Math.min(totalPages, page - 1));
+        }
+        cache.keySet().removeIf(cached -> cached > totalPages);
+        cache.put(page, rows);
+        resize(total);
+
+        int from = (page - 1) * pageSize;
+        int to = Math.min(size, from + rows.size());
+        if (from < to) {
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, null));
+            endChange();
+        }
+    }
+
+    private void resize(int newSize) {
+        int oldSize = size;
+        if (newSize == oldSize) {
+            return;
+        }
+        size = newSize;
+        beginChange();
+        if (newSize > oldSize) {
+            nextAdd(oldSize, newSize);
+        } else {
+            nextRemove(newSize, Collections.nCopies(oldSize - newSize, null));
+        }
+        endChange();
+    }
+}
@@ -0,0 +1,111 @@
+package com.chess_client.archive;
+
+import com.chess_client.models.Piece;
+
+/**
+ * Điều kiện lọc khi truy vấn GameArchive: khoảng thời gian, đối thủ, kết quả.
+ * Các trường để trống (null) nghĩa là không lọc theo trường đó.
+ */
+public class ArchiveFilter {
+
+    /**
+     * Kết quả theo góc nhìn người chơi.
+     */
+    public enum Outcome {
+        WIN, LOSS, DRAW
+    }
+
+    private long fromTime = Long.MIN_VALUE;
+    private long toTime = Long.MAX_VALUE;
+    private String opponent;
+    private ArchivedGame.Result result;
+    private Outcome outcome;
+
+    public static ArchiveFilter all() {
+        return new ArchiveFilter();
+    }
+
+    /**
+     * Chỉ lấy các ván có thời điểm trong [fromTime, toTime) (epoch millis).
+     */
+    public ArchiveFilter between(long fromTime, long toTime) {
+        this.fromTime = fromTime;
+        this.toTime = toTime;
+        return this;
+    }
+
+    /**
+     * Lọc theo tên đối thủ (không phân biệt hoa thường).
+     * Với ván nhập từ PGN (không rõ người chơi cầm quân nào) thì khớp cả hai bên.
+     */
+    public ArchiveFilter opponent(String opponent) {
+        this.opponent = opponent;
+        return this;
+    }
+
+    public ArchiveFilter result(ArchivedGame.Result result) {
+        this.result = result;
+        return this;
+    }
+
+    public ArchiveFilter outcome(Outcome outcome) {
+        this.outcome = outcome;
+        return this;
+    }
+
+    public String getOpponent() {
+        return opponent;
+    }
+
+    int opponentHash() {
+        return GameArchive.nameHash(opponent);
+    }
+
+    /**
+     * Kiểm tra nhanh dựa trên các trường trong index (chưa cần đọc bản ghi).
+     */
+    boolean matchesIndex(long timestamp, int whiteHash, int blackHash, int resultOrdinal, Piece.Color playerColor) {
+        if (timestamp < fromTime || timestamp >= toTime) {
+            return false;
+        }
+        if (result != null && result.ordinal() != resultOrdinal) {
+            return false;
+        }
+        if (outcome != null && outcomeOf(resultOrdinal, playerColor) != outcome) {
+            return false;
+        }
+        if (opponent != null) {
+            int hash = opponentHash();
+            if (playerColor == null) {
+                return hash == whiteHash || hash == blackHash;
+            }
+            return hash == (playerColor == Piece.Color.WHITE ? blackHash : whiteHash);
+        }
+        return true;
+    }
+
+    /**
+     * Kiểm tra lại trên tên hai bên trong bản ghi (loại trường hợp trùng hash tên).
+     */
+    boolean matchesNames(String whiteName, String blackName, Piece.Color playerColor) {
+        if (opponent == null) {
+            return true;
+        }
+        if (playerColor == null) {
+            return opponent.equalsIgnoreCase(whiteName) || opponent.equalsIgnoreCase(blackName);
+        }
+        return opponent.equalsIgnoreCase(playerColor == Piece.Color.WHITE ? blackName : whiteName);
+    }
+
+    private static Outcome outcomeOf(int resultOrdinal, Piece.Color playerColor) {
+        ArchivedGame.Result result = ArchivedGame.Result.values()[resultOrdinal];
+        if (result == ArchivedGame.Result.DRAW) {
+            return Outcome.DRAW;
+        }
+        if (playerColor == null || result == ArchivedGame.Result.UNKNOWN) {
+            return null;
+        }
+        boolean whiteWon = result == ArchivedGame.Result.WHITE_WINS;
+        return whiteWon == (playerColor == Piece.Color.WHITE) ? Outcome.WIN : Outcome.LOSS;
+    }
+}
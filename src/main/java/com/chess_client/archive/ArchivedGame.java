@@ -0,0 +1,186 @@
+package com.chess_client.archive;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.pgn.PgnGame;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Một ván cờ đã lưu trong GameArchive.
+ * Nước đi được giữ ở dạng mã 16 bit (Move.toCode()) để tiết kiệm bộ nhớ.
+ */
+public class ArchivedGame {
+
+    /**
+     * Kết quả ván đấu theo màu quân.
+     */
+    public enum Result {
+        WHITE_WINS, BLACK_WINS, DRAW, UNKNOWN;
+
+        public static Result of(Piece.Color winner) {
+            if (winner == null) {
+                return DRAW;
+            }
+            return winner == Piece.Color.WHITE ? WHITE_WINS : BLACK_WINS;
+        }
+
+        public String toPgn() {
+            return switch (this) {
+                case WHITE_WINS -> PgnGame.WHITE_WINS;
+                case BLACK_WINS -> PgnGame.BLACK_WINS;
+                case DRAW -> PgnGame.DRAW;
+                case UNKNOWN -> PgnGame.UNKNOWN;
+            };
+        }
+
+        public static Result fromPgn(String result) {
+            if (PgnGame.WHITE_WINS.equals(result)) return WHITE_WINS;
+            if (PgnGame.BLACK_WINS.equals(result)) return BLACK_WINS;
+            if (PgnGame.DRAW.equals(result)) return DRAW;
+            return UNKNOWN;
+        }
+    }
+
+    private final long timestamp;
+    private final String gameId;
+    private final String event;
+    private final String whiteName;
+    private final String blackName;
+    private final Piece.Color playerColor; // null nếu là ván nhập từ ngoài (PGN)
+    private final Result result;
+    private final String startFen; // null = thế cờ ban đầu
+    private final short[] moveCodes;
+
+    public ArchivedGame(long timestamp, String gameId, String event, String whiteName, String blackName,
+            Piece.Color playerColor, Result result, String startFen, short[] moveCodes) {
+        this.timestamp = timestamp;
+        this.gameId = gameId;
+        this.event = event;
+        this.whiteName = whiteName;
+        this.blackName = blackName;
+        this.playerColor = playerColor;
+        this.result = result;
+        this.startFen = startFen;
+        this.moveCodes = moveCodes;
+    }
+
+    /**
+     * Tạo bản ghi từ lịch sử nước đi của GameController.
+     */
+    public static ArchivedGame fromMoves(long timestamp, String gameId, String event, String whiteName,
+            String blackName, Piece.Color playerColor, Result result, String startFen, List<Move> history) {
+        short[] codes = new short[history.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (short) history.get(i).toCode();
+        }
+        return new ArchivedGame(timestamp, gameId, event, whiteName, blackName, playerColor, result, startFen, codes);
+    }
+
+    /**
+     * Tạo bản ghi từ một ván PGN (nước đi SAN được kiểm tra và mã hóa lại).
+     *
+     * @throws IllegalArgumentException nếu ván có nước không hợp lệ
+     */
+    public static ArchivedGame fromPgn(PgnGame pgn, long timestamp) {
+        String fen = pgn.getTag("FEN");
+        return fromMoves(timestamp, pgn.getTag("GameId"), pgn.getTag("Event"),
+                pgn.getTag("White"), pgn.getTag("Black"), null,
+                Result.fromPgn(pgn.getResult()), fen == null || fen.isBlank() ? null : fen, pgn.toMoves());
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public String getWhiteName() {
+        return whiteName;
+    }
+
+    public String getBlackName() {
+        return blackName;
+    }
+
+    public Piece.Color getPlayerColor() {
+        return playerColor;
+    }
+
+    /**
+     * Tên đối thủ theo góc nhìn người chơi (null nếu ván không phải của người chơi).
+     */
+    public String getOpponentName() {
+        if (playerColor == null) {
+            return null;
+        }
+        return playerColor == Piece.Color.WHITE ? blackName : whiteName;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    public int getMoveCount() {
+        return moveCodes.length;
+    }
+
+    public int getMoveCode(int ply) {
+        return moveCodes[ply] & 0xFFFF;
+    }
+
+    short[] moveCodes() {
+        return moveCodes;
+    }
+
+    /**
+     * Dựng lại danh sách Move bằng cách đi lại các nước trên bàn cờ riêng.
+     */
+    public List<Move> toMoves() {
+        Board board = startFen == null ? new Board() : Board.fromFen(startFen);
+        List<Move> moves = new ArrayList<>(moveCodes.length);
+        for (short code : moveCodes) {
+            Move move = Move.fromCode(code & 0xFFFF, board);
+            if (move.getPieceMoved() == null) {
+                break; // Dữ liệu không khớp thế cờ
+            }
+            board.movePiece(move);
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    /**
+     * Xuất ván ra PgnGame (sinh lại SAN).
+     */
+    public PgnGame toPgn() {
+        PgnGame pgn = PgnGame.fromMoves(startFen, toMoves());
+        if (event != null) {
+            pgn.setTag("Event", event);
+        }
+        pgn.setTag("Date", DateTimeFormatter.ofPattern("yyyy.MM.dd")
+                .format(Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault())));
+        pgn.setTag("White", whiteName != null ? whiteName : "?");
+        pgn.setTag("Black", blackName != null ? blackName : "?");
+        if (gameId != null) {
+            pgn.setTag("GameId", gameId);
+        }
+        pgn.setResult(result.toPgn());
+        return pgn;
+    }
+}
@@ -0,0 +1,438 @@
+package com.chess_client.archive;
+
+import com.chess_client.models.Piece;
+import com.chess_client.pgn.PgnWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Kho lưu trữ các ván đã chơi trên máy, gồm 2 file trong thư mục archive:
+ * - games.seg: file chỉ ghi thêm (append-only), mỗi ván là một bản ghi nhị phân gọn
+ * (thời điểm, kết quả, tên người chơi, mã nước đi 16 bit).
+ * - games.idx: index kích thước cố định 32 byte/ván (offset, thời điểm, hash tên hai
+ * bên, kết quả...), dùng để lọc và phân trang mà không cần đọc bản ghi.
+ *
+ * Khi mở chỉ cần đọc kích thước file (không quét dữ liệu) nên khởi động nhanh kể cả
+ * với hàng trăm nghìn ván. Việc đọc dùng memory-mapped file.
+ *
+ * Thứ tự ghi: bản ghi trước, index sau. Nếu app tắt đột ngột giữa chừng, phần bản ghi
+ * thừa ở cuối games.seg sẽ bị cắt bỏ ở lần mở tiếp theo.
+ */
+public class GameArchive implements Closeable {
+
+    private static final String DEFAULT_DIR = "game_archive";
+    private static final String SEGMENT_FILE = "games.seg";
+    private static final String INDEX_FILE = "games.idx";
+
+    private static final int INDEX_ENTRY_SIZE = 32;
+    private static final short RECORD_MAGIC = (short) 0xC6A1;
+    private static final byte RECORD_VERSION = 1;
+    private static final int RECORD_HEADER_SIZE = 4 + 2 + 1; // length + magic + version
+
+    private static final byte COLOR_WHITE = 0;
+    private static final byte COLOR_BLACK = 1;
+    private static final byte COLOR_NONE = 2;
+
+    private static GameArchive defaultArchive;
+
+    private final FileChannel segment;
+    private final FileChannel index;
+    private long segmentSize;
+    private int count;
+
+    private MappedByteBuffer indexMap;
+    private MappedByteBuffer segmentMap;
+
+    private GameArchive(FileChannel segment, FileChannel index) throws IOException {
+        this.segment = segment;
+        this.index = index;
+        recover();
+    }
+
+    /**
+     * Kho mặc định của ứng dụng (thư mục game_archive cạnh offline_results.json).
+     */
+    public static synchronized GameArchive getDefault() throws IOException {
+        if (defaultArchive == null) {
+            defaultArchive = open(Paths.get(DEFAULT_DIR));
+        }
+        return defaultArchive;
+    }
+
+    public static GameArchive open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel segment = FileChannel.open(dir.resolve(SEGMENT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(dir.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new GameArchive(segment, index);
+    }
+
+    /**
+     * Đồng bộ 2 file sau khi mở: bỏ entry index dở dang và dữ liệu thừa ở cuối segment.
+     */
+    private void recover() throws IOException {
+        long indexSize = index.size();
+        count = (int) (indexSize / INDEX_ENTRY_SIZE);
+        if (indexSize % INDEX_ENTRY_SIZE != 0) {
+            index.truncate((long) count * INDEX_ENTRY_SIZE);
+        }
+
+        segmentSize = 0;
+        if (count > 0) {
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            readFully(index, entry, (long) (count - 1) * INDEX_ENTRY_SIZE);
+            long lastOffset = entry.getLong(0);
+
+            ByteBuffer lengthBuf = ByteBuffer.allocate(4);
+            if (lastOffset + 4 <= segment.size()) {
+                readFully(segment, lengthBuf, lastOffset);
+                segmentSize = lastOffset + lengthBuf.getInt(0);
+            }
+            if (segmentSize == 0 || segmentSize > segment.size()) {
+                // Bản ghi cuối bị hỏng -> bỏ entry cuối
+                count--;
+                index.truncate((long) count * INDEX_ENTRY_SIZE);
+                segmentSize = lastOffset;
+            }
+        }
+        if (segment.size() > segmentSize) {
+            segment.truncate(segmentSize);
+        }
+    }
+
+    // ===================== GHI =====================
+
+    /**
+     * Ghi thêm một ván vào cuối kho.
+     *
+     * @return số thứ tự của ván trong kho (0 = ván cũ nhất)
+     */
+    public synchronized int append(ArchivedGame game) throws IOException {
+        byte[] gameId = utf8(game.getGameId());
+        byte[] event = utf8(game.getEvent());
+        byte[] white = utf8(game.getWhiteName());
+        byte[] black = utf8(game.getBlackName());
+        byte[] fen = utf8(game.getStartFen());
+        short[] codes = game.moveCodes();
+
+        int length = RECORD_HEADER_SIZE + 8 + 1 + 1
+                + stringSize(gameId) + stringSize(event) + stringSize(white) + stringSize(black) + stringSize(fen)
+                + 2 + codes.length * 2;
+
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length);
+        record.putShort(RECORD_MAGIC);
+        record.put(RECORD_VERSION);
+        record.putLong(game.getTimestamp());
+        record.put((byte) game.getResult().ordinal());
+        record.put(colorCode(game.getPlayerColor()));
+        putString(record, gameId);
+        putString(record, event);
+        putString(record, white);
+        putString(record, black);
+        putString(record, fen);
+        record.putShort((short) codes.length);
+        for (short code : codes) {
+            record.putShort(code);
+        }
+        record.flip();
+
+        long offset = segmentSize;
+        writeFully(segment, record, offset);
+        segment.force(false);
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+        entry.putLong(offset);
+        entry.putLong(game.getTimestamp());
+        entry.putInt(nameHash(game.getWhiteName()));
+        entry.putInt(nameHash(game.getBlackName()));
+        entry.putShort((short) codes.length);
+        entry.put((byte) game.getResult().ordinal());
+        entry.put(colorCode(game.getPlayerColor()));
+        entry.putInt(0); // dự phòng
+        entry.flip();
+        writeFully(index, entry, (long) count * INDEX_ENTRY_SIZE);
+
+        segmentSize = offset + length;
+        return count++;
+    }
+
+    // ===================== ĐỌC =====================
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Đọc ván theo số thứ tự (0 = cũ nhất).
+     */
+    public synchronized ArchivedGame get(int position) throws IOException {
+        if (position < 0 || position >= count) {
+            throw new IndexOutOfBoundsException("Không có ván số " + position);
+        }
+        ensureIndexMapped();
+        return readRecord(indexMap.getLong(position * INDEX_ENTRY_SIZE));
+    }
+
+    /**
+     * Lấy một trang ván đấu, mới nhất trước.
+     *
+     * @param offset số ván bỏ qua (tính từ ván mới nhất)
+     * @param limit  số ván tối đa trả về
+     */
+    public List<ArchivedGame> list(int offset, int limit) throws IOException {
+        return query(ArchiveFilter.all(), offset, limit);
+    }
+
+    /**
+     * Lấy một trang ván đấu thỏa điều kiện lọc, mới nhất trước.
+     * Việc lọc và bỏ qua {@code offset} chạy trên index đã map; chỉ các ván nằm trong trang
+     * mới được giải mã cả bản ghi. Khi lọc theo đối thủ, ván khớp hash tên được đọc thêm
+     * riêng phần tên để loại trường hợp hai tên trùng hash.
+     */
+    public synchronized List<ArchivedGame> query(ArchiveFilter filter, int offset, int limit) throws IOException {
+        List<ArchivedGame> page = new ArrayList<>(Math.min(Math.max(limit, 0), 256));
+        if (count == 0 || limit <= 0) {
+            return page;
+        }
+        ensureIndexMapped();
+
+        int skipped = 0;
+        for (int i = count - 1; i >= 0 && page.size() < limit; i--) {
+            if (!matchesIndex(filter, i)) {
+                continue;
+            }
+            long recordOffset = indexMap.getLong(i * INDEX_ENTRY_SIZE);
+            if (filter.getOpponent() != null && !matchesNames(filter, recordOffset)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(readRecord(recordOffset));
+        }
+        return page;
+    }
+
+    /**
+     * Đếm số ván thỏa điều kiện (để tính tổng số trang).
+     * Chỉ dùng index nên có thể lệch nếu hai tên khác nhau trùng hash (rất hiếm).
+     */
+    public synchronized int count(ArchiveFilter filter) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        ensureIndexMapped();
+        int matched = 0;
+        for (int i = 0; i < count; i++) {
+            if (matchesIndex(filter, i)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Duyệt toàn bộ kho theo thứ tự ghi (cũ nhất trước), bắt đầu từ vị trí from.
+     */
+    public void forEach(int from, Consumer<ArchivedGame> action) throws IOException {
+        int end = size();
+        for (int i = Math.max(0, from); i < end; i++) {
+            action.accept(get(i));
+        }
+    }
+
+    /**
+     * Xuất toàn bộ kho ra file PGN.
+     */
+    public void exportPgn(Path file) throws IOException {
+        try (PgnWriter writer = new PgnWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            int end = size();
+            for (int i = 0; i < end; i++) {
+                writer.write(get(i).toPgn());
+            }
+        }
+    }
+
+    private boolean matchesIndex(ArchiveFilter filter, int position) {
+        int base = position * INDEX_ENTRY_SIZE;
+        return filter.matchesIndex(
+                indexMap.getLong(base + 8),
+                indexMap.getInt(base + 16),
+                indexMap.getInt(base + 20),
+                indexMap.get(base + 26),
+                colorFromCode(indexMap.get(base + 27)));
+    }
+
+    private ArchivedGame readRecord(long offset) throws IOException {
+        ByteBuffer buf = recordBuffer(offset);
+        long timestamp = buf.getLong();
+        ArchivedGame.Result result = ArchivedGame.Result.values()[buf.get()];
+        Piece.Color playerColor = colorFromCode(buf.get());
+        String gameId = getString(buf);
+        String event = getString(buf);
+        String white = getString(buf);
+        String black = getString(buf);
+        String fen = getString(buf);
+        short[] codes = new short[buf.getShort() & 0xFFFF];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = buf.getShort();
+        }
+        return new ArchivedGame(timestamp, gameId, event, white, black, playerColor, result, fen, codes);
+    }
+
+    /**
+     * Chỉ đọc tên hai bên trong bản ghi (không giải mã FEN, nước đi) để kiểm tra lọc đối thủ.
+     */
+    private boolean matchesNames(ArchiveFilter filter, long offset) throws IOException {
+        ByteBuffer buf = recordBuffer(offset);
+        buf.position(buf.position() + 8 + 1); // timestamp + kết quả
+        Piece.Color playerColor = colorFromCode(buf.get());
+        skipString(buf); // gameId
+        skipString(buf); // event
+        String white = getString(buf);
+        String black = getString(buf);
+        return filter.matchesNames(white, black, playerColor);
+    }
+
+    /**
+     * Buffer đặt tại phần dữ liệu của bản ghi (sau length, magic, version).
+     */
+    private ByteBuffer recordBuffer(long offset) throws IOException {
+        ByteBuffer buf;
+        if (ensureSegmentMapped()) {
+            buf = segmentMap.duplicate();
+            buf.position((int) offset);
+        } else {
+            // Segment quá lớn để map một lần (> 2GB) -> đọc theo vị trí
+            ByteBuffer lengthBuf = ByteBuffer.allocate(4);
+            readFully(segment, lengthBuf, offset);
+            buf = ByteBuffer.allocate(lengthBuf.getInt(0));
+            readFully(segment, buf, offset);
+            buf.flip();
+        }
+
+        buf.getInt(); // length
+        if (buf.getShort() != RECORD_MAGIC) {
+            throw new IOException("Dữ liệu kho ván đấu bị hỏng tại offset " + offset);
+        }
+        buf.get(); // version
+        return buf;
+    }
+
+    private void ensureIndexMapped() throws IOException {
+        long needed = (long) count * INDEX_ENTRY_SIZE;
+        if (indexMap == null || indexMap.capacity() < needed) {
+            indexMap = index.map(FileChannel.MapMode.READ_ONLY, 0, needed);
+        }
+    }
+
+    private boolean ensureSegmentMapped() throws IOException {
+        if (segmentSize > Integer.MAX_VALUE) {
+            return false;
+        }
+        if (segmentMap == null || segmentMap.capacity() < segmentSize) {
+            segmentMap = segment.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        indexMap = null;
+        segmentMap = null;
+        segment.close();
+        index.close();
+        synchronized (GameArchive.class) {
+            if (defaultArchive == this) {
+                defaultArchive = null;
+            }
+        }
+    }
+
+    // ===================== HELPERS =====================
+
+    static int nameHash(String name) {
+        return name == null ? 0 : name.toLowerCase(Locale.ROOT).hashCode();
+    }
+
+    private static byte colorCode(Piece.Color color) {
+        if (color == null) {
+            return COLOR_NONE;
+        }
+        return color == Piece.Color.WHITE ? COLOR_WHITE : COLOR_BLACK;
+    }
+
+    private static Piece.Color colorFromCode(byte code) {
+        return switch (code) {
+            case COLOR_WHITE -> Piece.Color.WHITE;
+            case COLOR_BLACK -> Piece.Color.BLACK;
+            default -> null;
+        };
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] bytes) {
+        return 2 + (bytes == null ? 0 : Math.min(bytes.length, Short.MAX_VALUE));
+    }
+
+    private static void putString(ByteBuffer buf, byte[] bytes) {
+        if (bytes == null) {
+            buf.putShort((short) -1);
+            return;
+        }
+        int length = Math.min(bytes.length, Short.MAX_VALUE);
+        buf.putShort((short) length);
+        buf.put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        short length = buf.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer buf) {
+        short length = buf.getShort();
+        if (length > 0) {
+            buf.position(buf.position() + length);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, position + buf.position());
+            if (read < 0) {
+                throw new IOException("Kho ván đấu bị cắt cụt");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf, position + buf.position());
+        }
+    }
+}
@@ -0,0 +1,635 @@
+package com.chess_client.archive;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Zobrist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index thế cờ trên toàn bộ GameArchive (dùng cho opening explorer):
+ * khóa Zobrist -> số ván, thắng/hòa/thua, các nước đi tiếp theo.
+ *
+ * Dữ liệu trên đĩa là một bảng các dòng 32 byte (khóa, mã nước đi tiếp, số ván,
+ * trắng thắng, hòa, đen thắng) sắp xếp theo (khóa, mã nước), đọc qua memory-mapped
+ * file nên tra cứu chỉ là một lần tìm kiếm nhị phân.
+ *
+ * Ván mới được thêm tăng dần: các lượt đi qua thế cờ được gom vào bộ đệm trong bộ nhớ
+ * (vẫn tra cứu được), đủ lớn thì trộn một lượt với bảng cũ ra file thế hệ mới
+ * (positions-N.tbl). Header lưu số ván archive đã nằm trong bảng, phần chưa ghi sẽ
+ * được index lại từ archive ở lần update() sau nên không mất dữ liệu khi tắt app.
+ *
+ * Mọi thao tác ghi (update, flush, close) nối tiếp nhau qua updateLock; khóa của đối tượng
+ * chỉ giữ khi đọc/đổi trạng thái, việc trộn và ghi file chạy ngoài khóa nên lookup() không
+ * phải chờ. Sau close(), lookup() trả thống kê rỗng.
+ */
+public class PositionIndex implements Closeable {
+
+    private static final String DEFAULT_DIR = "game_archive";
+    private static final String FILE_PREFIX = "positions-";
+    private static final String FILE_SUFFIX = ".tbl";
+
+    private static final int MAGIC = 0x504F5358; // "POSX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ROW_SIZE = 32;
+
+    /** Mã nước đi dành cho thế cờ cuối ván (không có nước đi tiếp) */
+    static final int NO_MOVE = 0xFFFF;
+
+    // Ngưỡng ghi bộ đệm xuống đĩa
+    private static final int FLUSH_VISITS = 1 << 22;
+    private static final int FLUSH_GAMES = 64;
+
+    private static final int RESULT_UNKNOWN = ArchivedGame.Result.UNKNOWN.ordinal();
+
+    private static PositionIndex defaultIndex;
+
+    private final Path dir;
+    private final Object updateLock = new Object();
+
+    // Bảng đã ghi
+    private long generation;
+    private Path tableFile;
+    private MappedByteBuffer table;
+    private int tableRows;
+    private long gamesIndexed;
+    private boolean closed;
+
+    // Bộ đệm: mỗi phần tử là một lần ván đi qua thế cờ, packed = (mã nước << 2) | kết quả
+    private long[] pendingKeys = new long[1024];
+    private int[] pendingPacked = new int[1024];
+    private int pendingVisits;
+    private int pendingGames;
+    private boolean pendingSorted = true;
+
+    private PositionIndex(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Index mặc định, nằm cùng thư mục với GameArchive.getDefault().
+     */
+    public static synchronized PositionIndex getDefault() throws IOException {
+        if (defaultIndex == null) {
+            defaultIndex = open(Paths.get(DEFAULT_DIR));
+        }
+        return defaultIndex;
+    }
+
+    public static PositionIndex open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        PositionIndex index = new PositionIndex(dir);
+        index.loadLatestTable();
+        return index;
+    }
+
+    /**
+     * Chọn file bảng có thế hệ mới nhất còn đọc được, dọn các file cũ.
+     */
+    private void loadLatestTable() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort((a, b) -> Long.compare(generationOf(b), generationOf(a)));
+
+        for (Path file : files) {
+            MappedByteBuffer map = table == null && generationOf(file) >= 0 ? mapTable(file) : null;
+            if (map != null) {
+                table = map;
+                gamesIndexed = map.getLong(8);
+                tableRows = (int) map.getLong(16);
+                generation = generationOf(file);
+                tableFile = file;
+            } else {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Map file bảng và kiểm tra header; null nếu file hỏng.
+     */
+    private static MappedByteBuffer mapTable(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION
+                    || HEADER_SIZE + map.getLong(16) * ROW_SIZE != size) {
+                return null;
+            }
+            return map;
+        } catch (IOException e) {
+            System.err.println("Không đọc được bảng thế cờ " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ===================== CẬP NHẬT =====================
+
+    /**
+     * Index các ván trong archive chưa có trong index (gọi sau mỗi lần archive.append()).
+     * Việc đi lại các nước chạy ngoài khóa nên tra cứu không bị chặn lâu.
+     *
+     * @return số ván vừa được thêm
+     */
+    public int update(GameArchive archive) throws IOException {
+        synchronized (updateLock) {
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Index thế cờ đã đóng");
+                }
+                if (gamesIndexed + pendingGames > archive.size()) {
+                    reset(); // Archive đã bị xóa/làm lại -> index lại từ đầu
+                }
+            }
+
+            int added = 0;
+            long[] keys = new long[256];
+            int[] packed = new int[256];
+            for (long next = nextGame(); next < archive.size(); next = nextGame()) {
+                ArchivedGame game = archive.get((int) next);
+                if (game.getMoveCount() + 1 > keys.length) {
+                    keys = new long[game.getMoveCount() + 1];
+                    packed = new int[keys.length];
+                }
+                int visits;
+                try {
+                    visits = collectVisits(game, keys, packed);
+                } catch (RuntimeException e) {
+                    visits = 0; // Dữ liệu ván lỗi -> chỉ tính là đã index
+                }
+
+                boolean full;
+                synchronized (this) {
+                    addVisits(keys, packed, visits);
+                    pendingGames++;
+                    full = pendingVisits >= FLUSH_VISITS;
+                }
+                if (full) {
+                    flush();
+                }
+                added++;
+            }
+
+            boolean full;
+            synchronized (this) {
+                full = pendingGames >= FLUSH_GAMES;
+            }
+            if (full) {
+                flush();
+            }
+            return added;
+        }
+    }
+
+    private synchronized long nextGame() {
+        return gamesIndexed + pendingGames;
+    }
+
+    /**
+     * Đi lại ván và ghi lại các thế cờ đi qua (mỗi thế cờ tính một lần mỗi ván).
+     * Mảng phải chứa được ít nhất getMoveCount() + 1 phần tử.
+     *
+     * @return số lượt ghi được
+     */
+    private static int collectVisits(ArchivedGame game, long[] keys, int[] packed) {
+        int moveCount = game.getMoveCount();
+
+        int result = game.getResult().ordinal();
+        Board board = game.getStartFen() == null ? new Board() : Board.fromFen(game.getStartFen());
+        int count = 0;
+        for (int ply = 0; ply <= moveCount; ply++) {
+            long key = Zobrist.hash(board);
+            int code = ply < moveCount ? game.getMoveCode(ply) : NO_MOVE;
+
+            boolean seen = false;
+            for (int i = 0; i < count && !seen; i++) {
+                seen = keys[i] == key;
+            }
+            if (!seen) {
+                keys[count] = key;
+                packed[count] = (code << 2) | result;
+                count++;
+            }
+
+            if (ply < moveCount) {
+                Move move = Move.fromCode(code, board);
+                if (move.getPieceMoved() == null) {
+                    break; // Mã nước không khớp thế cờ
+                }
+                board.movePiece(move);
+            }
+        }
+        return count;
+    }
+
+    private void addVisits(long[] keys, int[] packed, int count) {
+        if (pendingVisits + count > pendingKeys.length) {
+            int capacity = Math.max(pendingKeys.length * 2, pendingVisits + count);
+            pendingKeys = Arrays.copyOf(pendingKeys, capacity);
+            pendingPacked = Arrays.copyOf(pendingPacked, capacity);
+        }
+        System.arraycopy(keys, 0, pendingKeys, pendingVisits, count);
+        System.arraycopy(packed, 0, pendingPacked, pendingVisits, count);
+        pendingVisits += count;
+        pendingSorted = count == 0 && pendingSorted;
+    }
+
+    /**
+     * Trộn bộ đệm với bảng hiện tại ra file thế hệ mới rồi chuyển sang dùng file đó.
+     *
+     * Giữ updateLock nên không ai thêm vào bộ đệm hay đổi bảng trong lúc trộn; việc trộn
+     * chỉ đọc nên chạy ngoài khóa của đối tượng, lookup() vẫn dùng bảng cũ và bộ đệm cho
+     * tới khi bảng mới được gắn vào.
+     */
+    public void flush() throws IOException {
+        synchronized (updateLock) {
+            MappedByteBuffer oldTable;
+            int oldRows;
+            long[] keys;
+            int[] packedVisits;
+            int visits;
+            long indexed;
+            long newGeneration;
+            synchronized (this) {
+                if (pendingGames == 0 || closed) {
+                    return;
+                }
+                sortPending();
+                oldTable = table;
+                oldRows = tableRows;
+                keys = pendingKeys;
+                packedVisits = pendingPacked;
+                visits = pendingVisits;
+                indexed = gamesIndexed + pendingGames;
+                newGeneration = generation + 1;
+            }
+
+            Path newFile = dir.resolve(FILE_PREFIX + newGeneration + FILE_SUFFIX);
+            writeMerged(newFile, oldTable, oldRows, keys, packedVisits, visits, indexed);
+            MappedByteBuffer map = mapTable(newFile);
+            if (map == null) {
+                throw new IOException("Không ghi được bảng thế cờ " + newFile);
+            }
+
+            Path oldFile;
+            synchronized (this) {
+                oldFile = tableFile;
+                table = map;
+                tableRows = (int) map.getLong(16);
+                gamesIndexed = indexed;
+                generation = newGeneration;
+                tableFile = newFile;
+                pendingVisits = 0;
+                pendingGames = 0;
+                pendingSorted = true;
+            }
+            if (oldFile != null) {
+                deleteQuietly(oldFile); // Trên Windows có thể thất bại khi còn map -> dọn ở lần mở sau
+            }
+        }
+    }
+
+    /**
+     * Ghi {@code table} (đã sắp xếp) trộn với {@code visits} lượt đầu của bộ đệm (đã sắp
+     * xếp) ra {@code file}.
+     */
+    private static void writeMerged(Path file, MappedByteBuffer table, int tableRows, long[] pendingKeys,
+            int[] pendingPacked, int pendingVisits, long gamesIndexed) throws IOException {
+        int rows = 0;
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+            out.position(HEADER_SIZE); // Header ghi sau cùng, khi đã biết số dòng
+
+            int t = 0;
+            int p = 0;
+            int[] counts = new int[4];
+            while (t < tableRows || p < pendingVisits) {
+                long key;
+                int code;
+                int cmp;
+                if (t >= tableRows) {
+                    cmp = 1;
+                } else if (p >= pendingVisits) {
+                    cmp = -1;
+                } else {
+                    cmp = compare(rowKey(table, t), rowCode(table, t), pendingKeys[p], pendingPacked[p] >>> 2);
+                }
+
+                Arrays.fill(counts, 0);
+                if (cmp <= 0) {
+                    key = rowKey(table, t);
+                    code = rowCode(table, t);
+                    int base = HEADER_SIZE + t * ROW_SIZE;
+                    counts[0] = table.getInt(base + 12);
+                    counts[1] = table.getInt(base + 16);
+                    counts[2] = table.getInt(base + 20);
+                    counts[3] = table.getInt(base + 24);
+                    t++;
+                } else {
+                    key = pendingKeys[p];
+                    code = pendingPacked[p] >>> 2;
+                }
+                if (cmp >= 0) {
+                    while (p < pendingVisits && pendingKeys[p] == key && (pendingPacked[p] >>> 2) == code) {
+                        addResult(counts, pendingPacked[p] & 3);
+                        p++;
+                    }
+                }
+
+                if (!buf.hasRemaining()) {
+                    buf.flip();
+                    writeFully(out, buf);
+                    buf.clear();
+                }
+                buf.putLong(key);
+                buf.putInt(code);
+                buf.putInt(counts[0]);
+                buf.putInt(counts[1]);
+                buf.putInt(counts[2]);
+                buf.putInt(counts[3]);
+                buf.putInt(0); // dự phòng
+                rows++;
+            }
+            buf.flip();
+            writeFully(out, buf);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            putHeader(header, gamesIndexed, rows);
+            header.flip();
+            while (header.hasRemaining()) {
+                out.write(header, header.position());
+            }
+            out.force(true);
+        }
+    }
+
+    private void reset() {
+        if (tableFile != null) {
+            deleteQuietly(tableFile);
+        }
+        table = null;
+        tableFile = null;
+        tableRows = 0;
+        gamesIndexed = 0;
+        pendingVisits = 0;
+        pendingGames = 0;
+        pendingSorted = true;
+    }
+
+    // ===================== TRA CỨU =====================
+
+    /**
+     * Tra cứu thống kê của thế cờ hiện tại trên bàn cờ.
+     */
+    public PositionStats lookup(Board board, int maxContinuations) {
+        return lookup(Zobrist.hash(board), maxContinuations);
+    }
+
+    /**
+     * Tra cứu theo khóa Zobrist.
+     *
+     * @param maxContinuations số nước đi tiếp tối đa trả về (nhiều ván nhất trước)
+     */
+    public synchronized PositionStats lookup(long key, int maxContinuations) {
+        // Mỗi phần tử: {mã nước, số ván, trắng thắng, hòa, đen thắng}
+        List<int[]> moves = new ArrayList<>();
+
+        int row = lowerBound(key);
+        for (; row < tableRows && rowKey(table, row) == key; row++) {
+            int base = HEADER_SIZE + row * ROW_SIZE;
+            int[] counts = findOrAdd(moves, table.getInt(base + 8));
+            counts[1] += table.getInt(base + 12);
+            counts[2] += table.getInt(base + 16);
+            counts[3] += table.getInt(base + 20);
+            counts[4] += table.getInt(base + 24);
+        }
+
+        if (pendingVisits > 0) {
+            sortPending();
+            int low = 0;
+            int high = pendingVisits;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (pendingKeys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < pendingVisits && pendingKeys[i] == key; i++) {
+                int[] counts = findOrAdd(moves, pendingPacked[i] >>> 2);
+                counts[1]++;
+                int result = pendingPacked[i] & 3;
+                if (result != RESULT_UNKNOWN) {
+                    counts[resultColumn(result) + 1]++;
+                }
+            }
+        }
+
+        int games = 0, whiteWins = 0, draws = 0, blackWins = 0;
+        for (int[] counts : moves) {
+            games += counts[1];
+            whiteWins += counts[2];
+            draws += counts[3];
+            blackWins += counts[4];
+        }
+
+        moves.removeIf(counts -> counts[0] == NO_MOVE);
+        moves.sort((a, b) -> Integer.compare(b[1], a[1]));
+        List<PositionStats.Continuation> continuations = new ArrayList<>();
+        for (int i = 0; i < moves.size() && i < maxContinuations; i++) {
+            int[] c = moves.get(i);
+            continuations.add(new PositionStats.Continuation(c[0], c[1], c[2], c[3], c[4]));
+        }
+        return new PositionStats(key, games, whiteWins, draws, blackWins, continuations);
+    }
+
+    /**
+     * Số ván archive đã được index (kể cả phần còn trong bộ đệm).
+     */
+    public synchronized long getGamesIndexed() {
+        return gamesIndexed + pendingGames;
+    }
+
+    public synchronized int getTableRows() {
+        return tableRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (updateLock) {
+            flush();
+            synchronized (this) {
+                closed = true;
+                table = null;
+                tableRows = 0;
+                pendingVisits = 0;
+                pendingGames = 0;
+            }
+        }
+        synchronized (PositionIndex.class) {
+            if (defaultIndex == this) {
+                defaultIndex = null;
+            }
+        }
+    }
+
+    // ===================== HELPERS =====================
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = tableRows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rowKey(table, mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long rowKey(MappedByteBuffer table, int row) {
+        return table.getLong(HEADER_SIZE + row * ROW_SIZE);
+    }
+
+    private static int rowCode(MappedByteBuffer table, int row) {
+        return table.getInt(HEADER_SIZE + row * ROW_SIZE + 8);
+    }
+
+    private static int[] findOrAdd(List<int[]> moves, int code) {
+        for (int[] counts : moves) {
+            if (counts[0] == code) {
+                return counts;
+            }
+        }
+        int[] counts = new int[5];
+        counts[0] = code;
+        moves.add(counts);
+        return counts;
+    }
+
+    /**
+     * counts = {số ván, trắng thắng, hòa, đen thắng}
+     */
+    private static void addResult(int[] counts, int result) {
+        counts[0]++;
+        if (result != RESULT_UNKNOWN) {
+            counts[resultColumn(result)]++;
+        }
+    }
+
+    private static int resultColumn(int result) {
+        if (result == ArchivedGame.Result.WHITE_WINS.ordinal()) {
+            return 1;
+        }
+        return result == ArchivedGame.Result.DRAW.ordinal() ? 2 : 3;
+    }
+
+    private static int compare(long keyA, int codeA, long keyB, int codeB) {
+        int cmp = Long.compare(keyA, keyB);
+        return cmp != 0 ? cmp : Integer.compare(codeA, codeB);
+    }
+
+    private void sortPending() {
+        if (!pendingSorted) {
+            quickSort(pendingKeys, pendingPacked, 0, pendingVisits - 1);
+            pendingSorted = true;
+        }
+    }
+
+    /**
+     * Sắp xếp song song hai mảng theo (key, packed), tránh boxing khi bộ đệm có hàng triệu phần tử.
+     */
+    private static void quickSort(long[] keys, int[] packed, int low, int high) {
+        while (high - low > 16) {
+            int mid = (low + high) >>> 1;
+            long pivotKey = keys[mid];
+            int pivotPacked = packed[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(keys[i], packed[i], pivotKey, pivotPacked) < 0) i++;
+                while (compare(keys[j], packed[j], pivotKey, pivotPacked) > 0) j--;
+                if (i <= j) {
+                    swap(keys, packed, i++, j--);
+                }
+            }
+            // Đệ quy phần nhỏ, lặp phần lớn để giới hạn độ sâu stack
+            if (j - low < high - i) {
+                quickSort(keys, packed, low, j);
+                low = i;
+            } else {
+                quickSort(keys, packed, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(keys[j - 1], packed[j - 1], keys[j], packed[j]) > 0; j--) {
+                swap(keys, packed, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(long[] keys, int[] packed, int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        int p = packed[a];
+        packed[a] = packed[b];
+        packed[b] = p;
+    }
+
+    private static void putHeader(ByteBuffer buf, long gamesIndexed, int rows) {
+        buf.putInt(MAGIC);
+        buf.putInt(VERSION);
+        buf.putLong(gamesIndexed);
+        buf.putLong(rows);
+        buf.putLong(0);
+    }
+
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Bỏ qua, sẽ dọn ở lần mở sau
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.chess_client.archive;
+
+import java.util.List;
+
+/**
+ * Thống kê của một thế cờ trong PositionIndex: số ván đã đi qua thế cờ,
+ * kết quả các ván đó và các nước đi tiếp thường gặp nhất.
+ */
+public class PositionStats {
+
+    /**
+     * Một nước đi tiếp từ thế cờ (mã 16 bit của Move.toCode()) và kết quả các ván đã đi nước đó.
+     */
+    public static class Continuation {
+        private final int moveCode;
+        private final int games;
+        private final int whiteWins;
+        private final int draws;
+        private final int blackWins;
+
+        Continuation(int moveCode, int games, int whiteWins, int draws, int blackWins) {
+            this.moveCode = moveCode;
+            this.games = games;
+            this.whiteWins = whiteWins;
+            this.draws = draws;
+            this.blackWins = blackWins;
+        }
+
+        public int getMoveCode() {
+            return moveCode;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWhiteWins() {
+            return whiteWins;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public int getBlackWins() {
+            return blackWins;
+        }
+    }
+
+    private final long key;
+    private final int games;
+    private final int whiteWins;
+    private final int draws;
+    private final int blackWins;
+    private final List<Continuation> continuations;
+
+    PositionStats(long key, int games, int whiteWins, int draws, int blackWins, List<Continuation> continuations) {
+        this.key = key;
+        this.games = games;
+        this.whiteWins = whiteWins;
+        this.draws = draws;
+        this.blackWins = blackWins;
+        this.continuations = continuations;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getWhiteWins() {
+        return whiteWins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getBlackWins() {
+        return blackWins;
+    }
+
+    /**
+     * Các nước đi tiếp, nhiều ván nhất trước.
+     */
+    public List<Continuation> getContinuations() {
+        return continuations;
+    }
+
+    public boolean isEmpty() {
+        return games == 0;
+    }
+}
@@ -3,9 +3,9 @@ package com.chess_client.controllers;
 import com.chess_client.models.Piece;
 import com.chess_client.services.FriendService;
 import com.chess_client.services.GameInvitationService;
+import com.chess_client.tasks.TaskScope;
 import com.chess_client.ui.FriendUIHelper;
 import com.chess_client.ui.NavigationHelper;
-import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
@@ -14,6 +14,7 @@ import javafx.stage.Stage;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 public class FriendsController {
@@ -40,8 +41,12 @@ public class FriendsController {
     @FXML
     private VBox gameInvitationsContainer;
 
+    // Task gọi API và chờ đối thủ, tự hủy khi rời màn hình
+    private TaskScope tasks;
+
     @FXML
     public void initialize() {
+        tasks = TaskScope.forScreen("friends", friendsListContainer);
         // Load danh sách bạn bè khi khởi tạo
         refreshFriendsList();
         refreshFriendRequests();
@@ -51,16 +56,7 @@ public class FriendsController {
 
     @FXML
     private void refreshGameInvitations() {
-        runAsync(() -> {
-            try {
-                return FriendService.getGameInvitations();
-            } catch (Exception e) {
-                e.printStackTrace();
-                return null;
-            }
-        }, invitations -> {
-            if (invitations == null)
-                return;
+        callAsync("invitations", refreshGameInvitationsButton, FriendService.getGameInvitationsAsync(), invitations -> {
             refreshContainer(gameInvitationsContainer, invitations,
                     "Không có lời mời chơi cờ nào",
                     i -> {
@@ -69,7 +65,7 @@ public class FriendsController {
                                 e -> acceptGameInvitation(inv),
                                 e -> declineGameInvitation(inv.getInt("senderId")));
                     });
-        });
+        }, null);
     }
 
     private void refreshContainer(VBox container, JSONArray array, String emptyMsg,
@@ -94,14 +90,7 @@ public class FriendsController {
 
     @FXML
     private void refreshFriendsList() {
-        runAsync(() -> {
-            try {
-                return FriendService.getFriends();
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new RuntimeException("Không thể tải danh sách bạn bè: " + e.getMessage(), e);
-            }
-        }, friends -> {
+        callAsync("friends", refreshFriendsButton, FriendService.getFriendsAsync(), friends -> {
             refreshContainer(friendsListContainer, friends, "Bạn chưa có bạn bè nào",
                     i -> {
                         JSONObject friend = friends.getJSONObject(i);
@@ -110,19 +99,13 @@ public class FriendsController {
                                         friend.optString("display_name", friend.getString("username"))),
                                 e -> deleteFriend(friend.getInt("id")));
                     });
-        }, error -> NavigationHelper.showAlert("Lỗi", error.getMessage()));
+        }, error -> NavigationHelper.showAlert("Lỗi",
+                "Không thể tải danh sách bạn bè: " + error.getMessage()));
     }
 
     @FXML
     private void refreshFriendRequests() {
-        runAsync(() -> {
-            try {
-                return FriendService.getFriendRequests();
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new RuntimeException("Không thể tải lời mời kết bạn: " + e.getMessage(), e);
-            }
-        }, requests -> {
+        callAsync("requests", refreshRequestsButton, FriendService.getFriendRequestsAsync(), requests -> {
             refreshContainer(friendRequestsContainer, requests, "Không có lời mời kết bạn nào",
                     i -> {
                         JSONObject request = requests.getJSONObject(i);
@@ -130,7 +113,8 @@ public class FriendsController {
                                 e -> acceptFriendRequest(request.getInt("requester_id")),
                                 e -> declineFriendRequest(request.getInt("requester_id")));
                     });
-        }, error -> NavigationHelper.showAlert("Lỗi", error.getMessage()));
+        }, error -> NavigationHelper.showAlert("Lỗi",
+                "Không thể tải lời mời kết bạn: " + error.getMessage()));
     }
 
     @FXML
@@ -142,14 +126,7 @@ public class FriendsController {
         }
 
         searchButton.setDisable(true);
-        runAsync(() -> {
-            try {
-                return FriendService.searchUsers(searchTerm);
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new RuntimeException("Không thể tìm kiếm: " + e.getMessage(), e);
-            }
-        }, users -> {
+        callAsync("search", FriendService.searchUsersAsync(searchTerm), users -> {
             searchButton.setDisable(false);
             refreshContainer(searchResultsContainer, users, "Không tìm thấy người dùng nào",
                     i -> {
@@ -159,17 +136,12 @@ public class FriendsController {
                     });
         }, error -> {
             searchButton.setDisable(false);
-            NavigationHelper.showAlert("Lỗi", error.getMessage());
+            NavigationHelper.showAlert("Lỗi", "Không thể tìm kiếm: " + error.getMessage());
         });
     }
 
     // ============ Async Helper Methods ============
 
-    @FunctionalInterface
-    private interface AsyncTask<T> {
-        T execute() throws Exception;
-    }
-
     @FunctionalInterface
     private interface AsyncCallback<T> {
         void onSuccess(T result);
@@ -177,44 +149,57 @@ public class FriendsController {
 
     @FunctionalInterface
     private interface AsyncErrorCallback {
-        void onError(Exception error);
+        void onError(Throwable error);
     }
 
-    private <T> void runAsync(AsyncTask<T> task, AsyncCallback<T> onSuccess) {
-        runAsync(task, onSuccess, null);
+    private <T> void callAsync(String name, CompletableFuture<T> call, AsyncCallback<T> onSuccess) {
+        callAsync(name, call, onSuccess, null);
     }
 
-    private <T> void runAsync(AsyncTask<T> task, AsyncCallback<T> onSuccess, AsyncErrorCallback onError) {
-        new Thread(() -> {
-            try {
-                T result = task.execute();
-                Platform.runLater(() -> onSuccess.onSuccess(result));
-            } catch (Exception e) {
-                e.printStackTrace();
-                if (onError != null) {
-                    Platform.runLater(() -> onError.onError(e));
-                }
+    /**
+     * Gắn lời gọi API async vào scope của màn hình; callback chạy trên thread JavaFX.
+     * Các lời gọi độc lập (ví dụ ba danh sách khi mở màn hình) chạy song song mà không
+     * cần thread riêng cho mỗi lời gọi.
+     */
+    private <T> void callAsync(String name, CompletableFuture<T> call, AsyncCallback<T> onSuccess,
+            AsyncErrorCallback onError) {
+        tasks.whenComplete(name, call, onSuccess::onSuccess, error -> {
+            error.printStackTrace();
+            if (onError != null) {
+                onError.onError(error);
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Như callAsync() nhưng khóa nút làm mới {@code button} tới khi có kết quả, để bấm liên
+     * tục không dựng lại danh sách nhiều lần.
+     */
+    private <T> void callAsync(String name, Button button, CompletableFuture<T> call, AsyncCallback<T> onSuccess,
+            AsyncErrorCallback onError) {
+        button.setDisable(true);
+        callAsync(name, call, result -> {
+            button.setDisable(false);
+            onSuccess.onSuccess(result);
+        }, error -> {
+            button.setDisable(false);
+            if (onError != null) {
+                onError.onError(error);
+            }
+        });
     }
 
     // ============ Friend Request Methods ============
 
     void sendFriendRequest(int userId) {
-        runAsync(() -> {
-            FriendService.sendFriendRequest(userId);
-            return null;
-        }, result -> {
+        callAsync("send-request", FriendService.sendFriendRequestAsync(userId), result -> {
             NavigationHelper.showAlert("Thành công", "Đã gửi lời mời kết bạn");
             handleSearch();
         }, error -> NavigationHelper.showAlert("Lỗi", "Không thể gửi lời mời: " + error.getMessage()));
     }
 
     void acceptFriendRequest(int requesterId) {
-        runAsync(() -> {
-            FriendService.acceptFriendRequest(requesterId);
-            return null;
-        }, result -> {
+        callAsync("accept-request", FriendService.acceptFriendRequestAsync(requesterId), result -> {
             NavigationHelper.showAlert("Thành công", "Đã chấp nhận lời mời kết bạn");
             refreshFriendRequests();
             refreshFriendsList();
@@ -222,10 +207,8 @@ public class FriendsController {
     }
 
     void declineFriendRequest(int requesterId) {
-        runAsync(() -> {
-            FriendService.declineFriendRequest(requesterId);
-            return null;
-        }, result -> refreshFriendRequests(),
+        callAsync("decline-request", FriendService.declineFriendRequestAsync(requesterId),
+                result -> refreshFriendRequests(),
                 error -> NavigationHelper.showAlert("Lỗi", "Không thể từ chối lời mời: " + error.getMessage()));
     }
 
@@ -236,43 +219,40 @@ public class FriendsController {
         confirmAlert.setContentText("Bạn có chắc chắn muốn xóa bạn bè này?");
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                runAsync(() -> {
-                    FriendService.deleteFriend(friendId);
-                    return null;
-                }, result -> refreshFriendsList(),
+                callAsync("delete-friend", FriendService.deleteFriendAsync(friendId),
+                        result -> refreshFriendsList(),
                         error -> NavigationHelper.showAlert("Lỗi", "Không thể xóa bạn bè: " + error.getMessage()));
             }
         });
     }
 
     void inviteFriendToPlay(int friendId, String friendName) {
-        GameInvitationService.inviteFriend(friendId, friendName,
-                (gameResult, socket) -> openGameWithFriend(gameResult, socket),
+        GameInvitationService.inviteFriend(tasks, friendId, friendName,
+                (gameResult, socket, reconnector) -> openGameWithFriend(gameResult, socket, reconnector),
                 msg -> NavigationHelper.showAlert("Thành công", msg),
                 err -> NavigationHelper.showAlert("Lỗi", err));
     }
 
     void acceptGameInvitation(JSONObject invitation) {
-        GameInvitationService.acceptInvitation(invitation,
-                (gameResult, socket) -> openGameWithFriend(gameResult, socket),
+        GameInvitationService.acceptInvitation(tasks, invitation,
+                (gameResult, socket, reconnector) -> openGameWithFriend(gameResult, socket, reconnector),
                 err -> NavigationHelper.showAlert("Lỗi", err));
     }
 
     void declineGameInvitation(int senderId) {
-        runAsync(() -> {
-            FriendService.declineGameInvitation(senderId);
-            return null;
-        }, result -> refreshGameInvitations(),
+        callAsync("decline-invitation", FriendService.declineGameInvitationAsync(senderId),
+                result -> refreshGameInvitations(),
                 error -> NavigationHelper.showAlert("Lỗi", "Không thể từ chối lời mời: " + error.getMessage()));
     }
 
-    private void openGameWithFriend(JSONObject gameResult, java.net.Socket socket) {
+    private void openGameWithFriend(JSONObject gameResult, java.net.Socket socket,
+            com.chess_client.network.PeerReconnector reconnector) {
         String gameId = gameResult.optString("gameId", null);
         String opponentName = gameResult.optString("opponentName", "Bạn bè");
         String colorStr = gameResult.getString("color");
         Piece.Color color = "white".equalsIgnoreCase(colorStr) ? Piece.Color.WHITE : Piece.Color.BLACK;
 
         Stage stage = (Stage) backButton.getScene().getWindow();
-        NavigationHelper.openGame(stage, this, gameId, opponentName, color, socket);
+        NavigationHelper.openGame(stage, this, gameId, opponentName, color, socket, reconnector);
     }
 }
@@ -1,15 +1,24 @@
 package com.chess_client.controllers;
 
+import com.chess_client.archive.ArchivedGame;
+import com.chess_client.archive.GameArchive;
+import com.chess_client.archive.PositionIndex;
 import com.chess_client.models.Board;
+import com.chess_client.models.Fen;
 import com.chess_client.models.Move;
 import com.chess_client.models.Piece;
 import com.chess_client.network.PeerNetworkHandler;
+import com.chess_client.network.PeerReconnector;
+import com.chess_client.network.SpectatorBroadcaster;
 import com.chess_client.services.AIPlayer;
 import com.chess_client.services.GameLogic;
 import com.chess_client.services.GameService;
 import com.chess_client.services.GameStateChecker;
+import com.chess_client.tasks.BackgroundTasks;
+import com.chess_client.tasks.TaskScope;
 import com.chess_client.ui.BoardView;
 import com.chess_client.ui.ChatManager;
+import com.chess_client.ui.PositionStatsView;
 import com.chess_client.ui.UIGameInfoUpdater;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -21,6 +30,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 
+import java.io.IOException;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
@@ -48,6 +58,10 @@ public class GameController {
     private Label statusLabel;
     @FXML
     private Label lastMoveLabel;
+    @FXML
+    private Label positionStatsLabel;
+    @FXML
+    private Label connectionLabel;
 
     // ===================== UI COMPONENTS - BUTTONS =====================
     @FXML
@@ -74,16 +88,22 @@ public class GameController {
     private Piece.Color currentPlayer;
     private Piece.Color playerColor;
     private List<Move> moveHistory;
+    private String startFen; // null = thế cờ ban đầu
+    private boolean gameRecorded;
     private String gameId;
     private String opponentName;
     private String playerName;
 
     // Handlers
     private PeerNetworkHandler peerNetworkHandler;
+    private SpectatorBroadcaster spectatorBroadcaster; // chỉ bên mở PeerServer
     private AIPlayer aiPlayer;
     private GameStateChecker gameStateChecker;
     private GameActionHandler gameActionHandler;
     private UIGameInfoUpdater uiUpdater;
+    private PositionStatsView positionStatsView;
+    // Task của màn hình game (AI đi sau một khoảng trễ), tự hủy khi rời màn hình
+    private TaskScope tasks;
 
     // Service gọi API game server
     private final GameService gameService = new GameService();
@@ -91,6 +111,7 @@ public class GameController {
     // ===================== INITIALIZATION =====================
     @FXML
     public void initialize() {
+        tasks = TaskScope.forScreen("game", chessBoard);
         moveHistory = new ArrayList<>();
         playerColor = Piece.Color.WHITE; // Mặc định người chơi là TRẮNG
         initializeGame();
@@ -115,12 +136,16 @@ public class GameController {
         // Khởi tạo UI updater (sẽ update aiPlayer sau khi setupVsComputer được gọi)
         uiUpdater = new UIGameInfoUpdater(turnLabel, statusLabel, lastMoveLabel,
                 playerLabel, opponentPlayerLabel, playerNameLabel, opponentNameLabel,
-                playerColor, aiPlayer);
+                connectionLabel, playerColor, aiPlayer);
 
         // Khởi tạo game action handler
         gameActionHandler = new GameActionHandler(statusLabel, chatManager, peerNetworkHandler,
                 playerColor, this::endGame, () -> disableGameButtons(false));
 
+        // Thống kê thế cờ từ các ván đã lưu
+        positionStatsView = new PositionStatsView(positionStatsLabel, tasks);
+        positionStatsView.load(board);
+
         setupEventHandlers();
 
         // Reset UI về trạng thái ban đầu
@@ -174,6 +199,35 @@ public class GameController {
         }
     }
 
+    /**
+     * Bắt đầu ván từ một thế cờ FEN bất kỳ (puzzle, tiếp tục ván dở...).
+     * Thế cờ được nạp trực tiếp vào board hiện tại để GameLogic, BoardView và
+     * AIPlayer (đang giữ cùng tham chiếu board) thấy ngay thay đổi.
+     *
+     * @throws IllegalArgumentException nếu FEN không hợp lệ
+     */
+    public void setStartPosition(String fen) {
+        Fen.load(board, fen);
+        startFen = fen;
+        currentPlayer = board.getSideToMove();
+        moveHistory.clear();
+
+        if (uiUpdater != null) {
+            uiUpdater.reset();
+            uiUpdater.updateTurnLabel(currentPlayer);
+        }
+        if (boardView != null) {
+            boardView.setCurrentPlayer(currentPlayer);
+            boardView.setLastMove(null);
+            boardView.refreshBoard();
+        }
+        if (positionStatsView != null) {
+            positionStatsView.show(board);
+        }
+
+        scheduleComputerMoveIfNeeded();
+    }
+
     /**
      * Được gọi từ HomeController sau khi ghép trận để set màu quân (WHITE/BLACK).
      */
@@ -193,8 +247,36 @@ public class GameController {
      * Socket P2P đã được thiết lập giữa hai client (LAN).
      */
     public void setPeerSocket(Socket socket) {
+        setPeerSocket(socket, null);
+    }
+
+    /**
+     * Socket P2P kèm cách kết nối lại khi mạng chập chờn giữa ván.
+     */
+    public void setPeerSocket(Socket socket, PeerReconnector reconnector) {
         if (peerNetworkHandler != null) {
-            peerNetworkHandler.setPeerSocket(socket);
+            peerNetworkHandler.setPeerSocket(socket, reconnector, gameId);
+        }
+        if (reconnector != null && reconnector.isAccepting()) {
+            startSpectatorBroadcast();
+        }
+    }
+
+    /**
+     * Bên mở PeerServer mở thêm một port cho người xem theo dõi ván đấu. App chưa có màn
+     * hình xem ván nên port chỉ được ghi ra log (SpectatorClient kết nối tới port này).
+     */
+    private void startSpectatorBroadcast() {
+        try {
+            spectatorBroadcaster = new SpectatorBroadcaster();
+            int port = spectatorBroadcaster.start(0);
+            for (Move move : moveHistory) {
+                spectatorBroadcaster.broadcastMove(move.toCode());
+            }
+            System.out.println("Phát ván đấu cho người xem qua port " + port);
+        } catch (IOException e) {
+            spectatorBroadcaster = null;
+            System.err.println("Không mở được port cho người xem: " + e.getMessage());
         }
     }
 
@@ -225,6 +307,29 @@ public class GameController {
                 gameActionHandler.handleGameAction(action);
             }
         });
+
+        peerNetworkHandler.setOnConnectionStateChanged(state -> {
+            if (chatManager == null) {
+                return;
+            }
+            switch (state) {
+                case RECONNECTING -> chatManager.addSystemMessage("Mất kết nối với đối thủ, đang kết nối lại...");
+                case CONNECTED -> chatManager.addSystemMessage("Đã kết nối lại với đối thủ");
+                case DISCONNECTED -> chatManager.addSystemMessage("Không thể kết nối lại với đối thủ");
+            }
+        });
+
+        peerNetworkHandler.setOnBackPressureChanged((congested, queuedBytes) -> {
+            if (chatManager != null && congested) {
+                chatManager.addSystemMessage("Mạng chậm, đang chờ gửi dữ liệu tới đối thủ...");
+            }
+        });
+
+        peerNetworkHandler.setOnConnectionQualityChanged((quality, rttMillis) -> {
+            if (uiUpdater != null) {
+                uiUpdater.updateConnectionQuality(quality, rttMillis, peerNetworkHandler.getRttHistogram());
+            }
+        });
     }
 
     private void setupEventHandlers() {
@@ -268,6 +373,9 @@ public class GameController {
         if (!fromNetwork && peerNetworkHandler != null) {
             peerNetworkHandler.sendMove(move);
         }
+        if (spectatorBroadcaster != null) {
+            spectatorBroadcaster.broadcastMove(move.toCode());
+        }
 
         currentPlayer = currentPlayer == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
 
@@ -289,16 +397,26 @@ public class GameController {
             boardView.setLastMove(move);
             boardView.refreshBoard();
         }
+        if (positionStatsView != null) {
+            positionStatsView.show(board);
+        }
+
+        scheduleComputerMoveIfNeeded();
+    }
 
-        // Nếu đang chơi với máy và đến lượt AI -> AI tự động đi sau một khoảng trễ nhỏ
+    /**
+     * Nếu đang chơi với máy và đến lượt AI -> AI tự động đi sau một khoảng trễ nhỏ.
+     */
+    private void scheduleComputerMoveIfNeeded() {
         if (aiPlayer != null && currentPlayer == aiPlayer.getAiColor()) {
-            new Thread(() -> {
+            tasks.run("computer-move", () -> {
                 try {
                     Thread.sleep(600); // delay ~0.6s cho tự nhiên
-                } catch (InterruptedException ignored) {
+                } catch (InterruptedException e) {
+                    return; // Đã rời màn hình game
                 }
-                Platform.runLater(this::makeComputerMove);
-            }).start();
+                tasks.runLater(this::makeComputerMove);
+            });
         }
     }
 
@@ -336,8 +454,17 @@ public class GameController {
             boardView.refreshBoard();
         }
 
-        // Gọi API để cập nhật game và ranking (qua GameService)
-        new Thread(() -> gameService.endGame(gameId, winner)).start();
+        if (spectatorBroadcaster != null) {
+            spectatorBroadcaster.broadcastGameAction(winner == null ? "result:draw"
+                    : "result:" + winner.name().toLowerCase());
+        }
+
+        // Gọi API để cập nhật game và ranking (qua GameService); không gắn với màn hình
+        // vì phải chạy xong cả khi người chơi đã quay về trang chủ
+        BackgroundTasks.run("game.end", () -> gameService.endGame(gameId, winner));
+
+        // Lưu lại biên bản ván đấu
+        recordGame(winner);
 
         // Hiển thị dialog thông báo kết thúc
         Platform.runLater(() -> {
@@ -361,7 +488,44 @@ public class GameController {
         });
     }
 
+    /**
+     * Lưu ván vừa kết thúc vào kho lưu trữ trên máy (mỗi ván chỉ ghi một lần).
+     * Có thể xuất lại ra PGN bằng GameArchive.exportPgn().
+     */
+    private void recordGame(Piece.Color winner) {
+        if (gameRecorded) {
+            return;
+        }
+        gameRecorded = true;
+
+        String me = playerName != null ? playerName : "Bạn";
+        String opponent = opponentName != null ? opponentName : "Đối thủ";
+        ArchivedGame game = ArchivedGame.fromMoves(System.currentTimeMillis(), gameId,
+                aiPlayer != null ? "Chơi với máy" : "Trận trực tuyến",
+                playerColor == Piece.Color.WHITE ? me : opponent,
+                playerColor == Piece.Color.WHITE ? opponent : me,
+                playerColor, ArchivedGame.Result.of(winner), startFen, moveHistory);
+
+        // Ghi file ở background thread để không chặn UI
+        BackgroundTasks.run("game.record", () -> {
+            try {
+                GameArchive archive = GameArchive.getDefault();
+                archive.append(game);
+                PositionIndex.getDefault().update(archive);
+            } catch (Exception e) {
+                System.err.println("Lỗi khi lưu ván đấu vào kho: " + e.getMessage());
+            }
+        });
+    }
+
     private void returnToHome() {
+        // Ván đã xong: đóng kết nối P2P (báo đối thủ không cần kết nối lại)
+        if (peerNetworkHandler != null) {
+            peerNetworkHandler.close();
+        }
+        if (spectatorBroadcaster != null) {
+            spectatorBroadcaster.close();
+        }
         try {
             javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
                     getClass().getResource("/com/chess_client/fxml/home.fxml"));
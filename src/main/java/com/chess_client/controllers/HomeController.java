@@ -1,30 +1,37 @@
 package com.chess_client.controllers;
 
 import com.chess_client.models.Piece;
+import com.chess_client.network.PeerReconnector;
 import com.chess_client.services.AuthService;
 import com.chess_client.services.ApiConfig;
+import com.chess_client.services.Backoff;
 import com.chess_client.services.GameService;
 import com.chess_client.services.HomeMatchmakingResult;
 import com.chess_client.services.HomeService;
 import com.chess_client.services.TokenStorage;
+import com.chess_client.tasks.BackgroundTasks;
+import com.chess_client.tasks.TaskScope;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
 import java.net.Socket;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.concurrent.Future;
 
 public class HomeController {
 
+    // Chờ giữa các lần sync kết quả offline: 15 giây, gấp đôi mỗi lần, tối đa 10 phút
+    private static final Backoff SYNC_BACKOFF = new Backoff(Duration.ofSeconds(15), Duration.ofMinutes(10));
+
     @FXML
     private VBox btnRandom;
 
@@ -43,12 +50,22 @@ public class HomeController {
     @FXML
     private VBox btnExit;
 
+    @FXML
+    private Button btnReplay;
+
     @FXML
     private Label lblWelcome;
 
     private Alert waitingAlert;
-    private ScheduledExecutorService syncExecutor;
+    // Lần sync đã hẹn giờ (BackgroundTasks.schedule); timer dừng thì syncTimerRunning = false.
+    // Ba trường timer chỉ được đọc/ghi trên FX thread
+    private Future<?> syncTimer;
+    private boolean syncTimerRunning;
+    // Số lần sync liên tiếp vẫn còn kết quả pending, quyết định thời gian chờ lần sau
+    private int syncAttempt;
     private GameService gameService;
+    // Task ghép trận, tự hủy khi rời màn hình
+    private TaskScope tasks;
 
     // Static reference để GameService có thể notify khi lưu kết quả offline
     private static HomeController instance;
@@ -60,6 +77,7 @@ public class HomeController {
     @FXML
     public void initialize() {
         instance = this; // Lưu static reference
+        tasks = TaskScope.forScreen("home", btnRandom);
         gameService = new GameService();
 
         // Sync ngay khi app khởi động (sync đồng bộ để biết kết quả)
@@ -80,24 +98,34 @@ public class HomeController {
     private boolean syncOfflineResults() {
         // Kiểm tra nhanh xem có kết quả pending không trước khi sync
         if (!com.chess_client.services.OfflineResultManager.hasPendingResults()) {
+            // Không còn gì để sync: dừng timer (trên FX thread) để lần lưu offline sau khởi động lại
+            Platform.runLater(() -> {
+                if (syncTimerRunning) {
+                    stopSyncTimer();
+                }
+            });
             return false;
         }
 
-        // Sync trong background thread
-        new Thread(() -> {
+        // Sync trong background thread (không gắn với màn hình: phải chạy xong dù đã rời Home)
+        BackgroundTasks.run("offline-sync", () -> {
+            boolean hasPending = true;
             try {
-                boolean hasPending = gameService.syncOfflineResults();
-                // Nếu không còn kết quả pending và timer đang chạy, dừng timer
-                if (!hasPending && syncExecutor != null && !syncExecutor.isShutdown()) {
-                    Platform.runLater(() -> {
-                        stopSyncTimer();
-                        System.out.println("Đã sync xong tất cả kết quả offline, dừng timer");
-                    });
-                }
+                hasPending = gameService.syncOfflineResults();
             } catch (Exception e) {
                 System.err.println("Lỗi khi sync offline results: " + e.getMessage());
             }
-        }).start();
+            boolean pending = hasPending;
+            Platform.runLater(() -> {
+                if (pending) {
+                    scheduleNextSync();
+                } else if (syncTimerRunning) {
+                    // Không còn kết quả pending và timer đang chạy, dừng timer
+                    stopSyncTimer();
+                    System.out.println("Đã sync xong tất cả kết quả offline, dừng timer");
+                }
+            });
+        });
 
         // Trả về true vì đã có kết quả pending (đã kiểm tra ở trên)
         return true;
@@ -118,37 +146,40 @@ public class HomeController {
     }
 
     /**
-     * Khởi động timer để sync mỗi 1 phút
+     * Khởi động timer sync: lần đầu sau khoảng 15 giây, mỗi lần vẫn còn kết quả pending
+     * thì chờ gấp đôi (tối đa 10 phút, có nhiễu ngẫu nhiên để các client không cùng gửi
+     * lại lúc server vừa sống lại).
      * Timer sẽ tự dừng khi không còn kết quả pending
      */
     private void startSyncTimer() {
         // Dừng timer cũ nếu có
         stopSyncTimer();
 
-        // Tạo scheduled executor mới để sync mỗi 1 phút
-        syncExecutor = Executors.newSingleThreadScheduledExecutor();
-        syncExecutor.scheduleAtFixedRate(
-                this::syncOfflineResults, // Chạy async, tự kiểm tra và dừng timer nếu cần
-                60, // Delay 60 giây
-                60, // Repeat mỗi 60 giây
-                TimeUnit.SECONDS);
+        syncAttempt = 0;
+        syncTimerRunning = true;
+        scheduleNextSync();
+    }
+
+    /**
+     * Hẹn lần sync tiếp theo theo SYNC_BACKOFF; bỏ qua nếu timer đã dừng. Chạy trên FX thread.
+     */
+    private void scheduleNextSync() {
+        if (!syncTimerRunning) {
+            return;
+        }
+        Duration delay = SYNC_BACKOFF.delay(syncAttempt++);
+        syncTimer = BackgroundTasks.schedule("offline-sync.timer", delay, this::syncOfflineResults);
     }
 
     /**
-     * Dừng timer sync
+     * Dừng timer sync (lần sync đang chạy dở vẫn chạy xong)
      */
     private void stopSyncTimer() {
-        if (syncExecutor != null && !syncExecutor.isShutdown()) {
-            syncExecutor.shutdown();
-            try {
-                if (!syncExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
-                    syncExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                syncExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-            syncExecutor = null;
+        syncTimerRunning = false;
+        Future<?> timer = syncTimer;
+        if (timer != null) {
+            timer.cancel(true);
+            syncTimer = null;
         }
     }
 
@@ -158,7 +189,7 @@ public class HomeController {
      */
     public void onOfflineResultSaved() {
         // Nếu timer chưa chạy, khởi động nó
-        if (syncExecutor == null || syncExecutor.isShutdown()) {
+        if (!syncTimerRunning) {
             startSyncTimer();
         }
     }
@@ -190,29 +221,29 @@ public class HomeController {
         waitingAlert.initOwner(btnRandom.getScene().getWindow());
         waitingAlert.show();
 
-        new Thread(() -> {
+        tasks.run("random-match", () -> {
             try {
                 HomeService homeService = new HomeService(ApiConfig.MATCHMAKING_BASE, token);
                 HomeMatchmakingResult result = homeService.startRandomMatch();
 
-                Platform.runLater(() -> {
+                tasks.runLater(() -> {
                     closeWaitingAlert();
                     handleMatchmakingResult(result);
                 });
             } catch (Exception e) {
                 e.printStackTrace();
-                Platform.runLater(() -> {
+                tasks.runLater(() -> {
                     closeWaitingAlert();
                     showAlert("Lỗi", "Có lỗi xảy ra khi ghép trận: " + e.getMessage());
                     btnRandom.setDisable(false);
                 });
             }
-        }).start();
+        });
     }
 
     private void handleMatchmakingResult(HomeMatchmakingResult result) {
         if (result.isSuccess()) {
-            openGameWithMatch(result.getMatchJson(), result.getSocket(), result.getColor());
+            openGameWithMatch(result.getMatchJson(), result.getSocket(), result.getColor(), result.getReconnector());
         } else if (result.isNotFound()) {
             showAlert("Thông báo", "Không tìm được trận đấu phù hợp, vui lòng thử lại.");
             btnRandom.setDisable(false);
@@ -222,7 +253,8 @@ public class HomeController {
         }
     }
 
-    private void openGameWithMatch(org.json.JSONObject res, Socket socket, Piece.Color color) {
+    private void openGameWithMatch(org.json.JSONObject res, Socket socket, Piece.Color color,
+            PeerReconnector reconnector) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/chess_client/fxml/game.fxml"));
             Parent root = loader.load();
@@ -236,7 +268,7 @@ public class HomeController {
 
             controller.setGameInfo(gameId, opponentName, playerName);
             controller.setPlayerColor(color);
-            controller.setPeerSocket(socket);
+            controller.setPeerSocket(socket, reconnector);
 
             Stage stage = (Stage) btnRandom.getScene().getWindow();
             Scene scene = new Scene(root, 1000, 700);
@@ -359,18 +391,24 @@ public class HomeController {
     }
 
     @FXML
-    private void handleExit() {
-        // Dừng sync executor trước khi thoát
-        if (syncExecutor != null && !syncExecutor.isShutdown()) {
-            syncExecutor.shutdown();
-            try {
-                if (!syncExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    syncExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                syncExecutor.shutdownNow();
-            }
+    private void handleReplay() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/chess_client/fxml/replay.fxml"));
+            Parent root = loader.load();
+            Scene scene = new Scene(root, 1000, 760);
+            Stage stage = (Stage) btnReplay.getScene().getWindow();
+            stage.setScene(scene);
+            stage.setResizable(false);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            showAlert("Lỗi", "Không thể mở màn hình xem lại ván: " + ex.getMessage());
         }
+    }
+
+    @FXML
+    private void handleExit() {
+        // Dừng timer sync trước khi thoát
+        stopSyncTimer();
         AuthService.signOutSync();
         Platform.exit();
         System.exit(0);
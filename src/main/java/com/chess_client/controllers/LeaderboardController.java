@@ -2,7 +2,7 @@ package com.chess_client.controllers;
 
 import com.chess_client.services.FriendService;
 import com.chess_client.services.LeaderboardService;
-import javafx.application.Platform;
+import com.chess_client.tasks.TaskScope;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -10,7 +10,6 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 public class LeaderboardController {
@@ -24,9 +23,13 @@ public class LeaderboardController {
     @FXML
     private VBox leaderboardContainer;
 
+    // Task tải dữ liệu của màn hình, tự hủy khi rời màn hình
+    private TaskScope tasks;
+
     @FXML
     public void initialize() {
-        refreshLeaderboard();
+        tasks = TaskScope.forScreen("leaderboard", leaderboardContainer);
+        loadLeaderboard(false);
     }
 
     @FXML
@@ -46,32 +49,30 @@ public class LeaderboardController {
 
     @FXML
     private void refreshLeaderboard() {
+        // Bấm làm mới: hỏi lại server kể cả khi bản trong cache còn hạn
+        loadLeaderboard(true);
+    }
+
+    private void loadLeaderboard(boolean revalidate) {
         refreshButton.setDisable(true);
-        new Thread(() -> {
-            try {
-                JSONArray leaderboard = LeaderboardService.getLeaderboard(50); // Top 50
-                Platform.runLater(() -> {
-                    leaderboardContainer.getChildren().clear();
-                    if (leaderboard.length() == 0) {
-                        Label noDataLabel = new Label("Chưa có dữ liệu xếp hạng");
-                        noDataLabel.setStyle("-fx-text-fill: #b0b0b0; -fx-font-size: 14px;");
-                        leaderboardContainer.getChildren().add(noDataLabel);
-                    } else {
-                        for (int i = 0; i < leaderboard.length(); i++) {
-                            JSONObject player = leaderboard.getJSONObject(i);
-                            leaderboardContainer.getChildren().add(createLeaderboardItem(player, i + 1));
-                        }
-                    }
-                    refreshButton.setDisable(false);
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> {
-                    refreshButton.setDisable(false);
-                    showAlert("Lỗi", "Không thể tải bảng xếp hạng: " + e.getMessage());
-                });
+        tasks.whenComplete("load", LeaderboardService.getLeaderboardAsync(50, revalidate), leaderboard -> { // Top 50
+            leaderboardContainer.getChildren().clear();
+            if (leaderboard.length() == 0) {
+                Label noDataLabel = new Label("Chưa có dữ liệu xếp hạng");
+                noDataLabel.setStyle("-fx-text-fill: #b0b0b0; -fx-font-size: 14px;");
+                leaderboardContainer.getChildren().add(noDataLabel);
+            } else {
+                for (int i = 0; i < leaderboard.length(); i++) {
+                    JSONObject player = leaderboard.getJSONObject(i);
+                    leaderboardContainer.getChildren().add(createLeaderboardItem(player, i + 1));
+                }
             }
-        }).start();
+            refreshButton.setDisable(false);
+        }, error -> {
+            error.printStackTrace();
+            refreshButton.setDisable(false);
+            showAlert("Lỗi", "Không thể tải bảng xếp hạng: " + error.getMessage());
+        });
     }
 
     private HBox createLeaderboardItem(JSONObject player, int rank) {
@@ -163,20 +164,13 @@ public class LeaderboardController {
     }
 
     private void sendFriendRequest(int userId) {
-        new Thread(() -> {
-            try {
-                FriendService.sendFriendRequest(userId);
-                Platform.runLater(() -> {
-                    showAlert("Thành công", "Đã gửi lời mời kết bạn");
-                    refreshLeaderboard(); // Refresh để cập nhật trạng thái
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> {
-                    showAlert("Lỗi", "Không thể gửi lời mời: " + e.getMessage());
-                });
-            }
-        }).start();
+        tasks.whenComplete("send-friend-request", FriendService.sendFriendRequestAsync(userId), result -> {
+            showAlert("Thành công", "Đã gửi lời mời kết bạn");
+            refreshLeaderboard(); // Refresh để cập nhật trạng thái
+        }, error -> {
+            error.printStackTrace();
+            showAlert("Lỗi", "Không thể gửi lời mời: " + error.getMessage());
+        });
     }
 
     private void showAlert(String title, String content) {
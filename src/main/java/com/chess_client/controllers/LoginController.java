@@ -3,7 +3,7 @@ package com.chess_client.controllers;
 import com.chess_client.services.AuthService;
 import com.chess_client.services.ProfileService;
 import com.chess_client.services.TokenStorage;
-import javafx.application.Platform;
+import com.chess_client.tasks.TaskScope;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -30,6 +30,14 @@ public class LoginController {
     @FXML
     private Label errorLabel;
 
+    // Task kiểm tra quyền sau khi đăng nhập, tự hủy khi rời màn hình
+    private TaskScope tasks;
+
+    @FXML
+    public void initialize() {
+        tasks = TaskScope.forScreen("login", usernameField);
+    }
+
     @FXML
     private void onLoginClicked() {
         String username = usernameField.getText().trim();
@@ -58,26 +66,18 @@ public class LoginController {
             showInfo("Đăng nhập thành công! Đang chuyển hướng...");
 
             // Check user role and route accordingly
-            new Thread(() -> {
-                try {
-                    JSONObject profile = ProfileService.getProfile();
-                    String role = profile.optString("role", "user");
-
-                    Platform.runLater(() -> {
-                        if ("admin".equals(role)) {
-                            routeToAdmin();
-                        } else {
-                            routeToHome();
-                        }
-                    });
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    Platform.runLater(() -> {
-                        showError("Lỗi khi lấy thông tin người dùng!");
-                        source.setDisable(false);
-                    });
+            tasks.whenComplete("load-role", ProfileService.getProfileAsync(), profile -> {
+                String role = profile.optString("role", "user");
+                if ("admin".equals(role)) {
+                    routeToAdmin();
+                } else {
+                    routeToHome();
                 }
-            }).start();
+            }, error -> {
+                error.printStackTrace();
+                showError("Lỗi khi lấy thông tin người dùng!");
+                source.setDisable(false);
+            });
         } else {
             showError(result.optString("message", "Đăng nhập thất bại."));
             source.setDisable(false);
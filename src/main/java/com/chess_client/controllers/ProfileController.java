@@ -1,7 +1,7 @@
 package com.chess_client.controllers;
 
 import com.chess_client.services.ProfileService;
-import javafx.application.Platform;
+import com.chess_client.tasks.TaskScope;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -62,25 +62,20 @@ public class ProfileController {
     @FXML
     private Button changePasswordButton;
 
+    // Task tải/lưu profile, tự hủy khi rời màn hình
+    private TaskScope tasks;
+
     @FXML
     public void initialize() {
+        tasks = TaskScope.forScreen("profile", backButton);
         loadProfile();
     }
 
     private void loadProfile() {
-        new Thread(() -> {
-            try {
-                JSONObject profile = ProfileService.getProfile();
-                Platform.runLater(() -> {
-                    updateUI(profile);
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> {
-                    showAlert("Lỗi", "Không thể tải thông tin profile: " + e.getMessage());
-                });
-            }
-        }).start();
+        tasks.whenComplete("load", ProfileService.getProfileAsync(), this::updateUI, error -> {
+            error.printStackTrace();
+            showAlert("Lỗi", "Không thể tải thông tin profile: " + error.getMessage());
+        });
     }
 
     private void updateUI(JSONObject profile) {
@@ -147,22 +142,15 @@ public class ProfileController {
         }
 
         saveButton.setDisable(true);
-        new Thread(() -> {
-            try {
-                ProfileService.updateProfile(displayName, email, phone);
-                Platform.runLater(() -> {
-                    saveButton.setDisable(false);
-                    showAlert("Thành công", "Đã cập nhật thông tin profile");
-                    loadProfile(); // Reload để cập nhật UI
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> {
-                    saveButton.setDisable(false);
-                    showAlert("Lỗi", "Không thể cập nhật profile: " + e.getMessage());
-                });
-            }
-        }).start();
+        tasks.whenComplete("update", ProfileService.updateProfileAsync(displayName, email, phone), result -> {
+            saveButton.setDisable(false);
+            showAlert("Thành công", "Đã cập nhật thông tin profile");
+            loadProfile(); // Reload để cập nhật UI
+        }, error -> {
+            error.printStackTrace();
+            saveButton.setDisable(false);
+            showAlert("Lỗi", "Không thể cập nhật profile: " + error.getMessage());
+        });
     }
 
     @FXML
@@ -187,25 +175,18 @@ public class ProfileController {
         }
 
         changePasswordButton.setDisable(true);
-        new Thread(() -> {
-            try {
-                ProfileService.changePassword(oldPassword, newPassword);
-                Platform.runLater(() -> {
-                    changePasswordButton.setDisable(false);
-                    showAlert("Thành công", "Đã đổi mật khẩu thành công");
-                    // Xóa các field
-                    oldPasswordField.clear();
-                    newPasswordField.clear();
-                    confirmPasswordField.clear();
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> {
-                    changePasswordButton.setDisable(false);
-                    showAlert("Lỗi", "Không thể đổi mật khẩu: " + e.getMessage());
-                });
-            }
-        }).start();
+        tasks.whenComplete("update-password", ProfileService.changePasswordAsync(oldPassword, newPassword), result -> {
+            changePasswordButton.setDisable(false);
+            showAlert("Thành công", "Đã đổi mật khẩu thành công");
+            // Xóa các field
+            oldPasswordField.clear();
+            newPasswordField.clear();
+            confirmPasswordField.clear();
+        }, error -> {
+            error.printStackTrace();
+            changePasswordButton.setDisable(false);
+            showAlert("Lỗi", "Không thể đổi mật khẩu: " + error.getMessage());
+        });
     }
 
     private void showAlert(String title, String content) {
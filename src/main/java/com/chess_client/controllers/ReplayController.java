@@ -0,0 +1,256 @@
+package com.chess_client.controllers;
+
+import com.chess_client.archive.ArchivedGame;
+import com.chess_client.archive.GameArchive;
+import com.chess_client.models.Board;
+import com.chess_client.models.Piece;
+import com.chess_client.replay.PositionAnalyzer;
+import com.chess_client.replay.ReplayTimeline;
+import com.chess_client.services.GameLogic;
+import com.chess_client.tasks.TaskScope;
+import com.chess_client.ui.BoardView;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Slider;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Màn hình xem lại các ván đã lưu trong GameArchive: tua đến nước bất kỳ
+ * (qua ReplayTimeline) và phân tích thế cờ ở background.
+ */
+public class ReplayController {
+
+    @FXML
+    private Button backButton;
+    @FXML
+    private ComboBox<String> gameComboBox;
+    @FXML
+    private Label gameInfoLabel;
+    @FXML
+    private GridPane chessBoard;
+    @FXML
+    private Slider plySlider;
+    @FXML
+    private Label plyLabel;
+    @FXML
+    private ListView<String> moveListView;
+    @FXML
+    private Label analysisLabel;
+
+    private static final int RECENT_GAMES = 200;
+    private static final int ANALYSIS_DEPTH = 3;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Board hiển thị: giữ nguyên tham chiếu, ReplayTimeline chép thế cờ vào đây khi tua
+    private final Board board = new Board();
+    private final PositionAnalyzer analyzer = new PositionAnalyzer();
+    private BoardView boardView;
+    // Task đọc kho ván đấu, tự hủy khi rời màn hình
+    private TaskScope tasks;
+
+    private List<ArchivedGame> games = new ArrayList<>();
+    private ReplayTimeline timeline;
+    private int currentPly = -1;
+    private long seekId;
+    private boolean updatingControls;
+
+    @FXML
+    public void initialize() {
+        tasks = TaskScope.forScreen("replay", chessBoard);
+        // currentPlayer = null -> BoardView không cho chọn/đi quân
+        boardView = new BoardView(chessBoard, board, new GameLogic(board), Piece.Color.WHITE, null);
+        boardView.refreshBoard();
+
+        plySlider.valueProperty().addListener((obs, oldValue, newValue) -> {
+            if (!updatingControls) {
+                seek((int) Math.round(newValue.doubleValue()));
+            }
+        });
+        moveListView.getSelectionModel().selectedIndexProperty().addListener((obs, oldValue, newValue) -> {
+            if (!updatingControls && newValue.intValue() >= 0) {
+                seek(newValue.intValue() + 1);
+            }
+        });
+        gameComboBox.getSelectionModel().selectedIndexProperty().addListener((obs, oldValue, newValue) -> {
+            int index = newValue.intValue();
+            if (index >= 0 && index < games.size()) {
+                openGame(games.get(index));
+            }
+        });
+
+        loadGames();
+    }
+
+    private void loadGames() {
+        tasks.run("load-games", () -> {
+            try {
+                List<ArchivedGame> recent = GameArchive.getDefault().list(0, RECENT_GAMES);
+                tasks.runLater(() -> {
+                    games = recent;
+                    List<String> items = new ArrayList<>();
+                    for (ArchivedGame game : recent) {
+                        items.add(describe(game));
+                    }
+                    gameComboBox.getItems().setAll(items);
+                    if (recent.isEmpty()) {
+                        analysisLabel.setText("Chưa có ván nào được lưu");
+                    }
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                tasks.runLater(() -> showAlert("Lỗi", "Không đọc được kho ván đấu: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void openGame(ArchivedGame game) {
+        analyzer.cancel();
+        analysisLabel.setText("Đang tải ván...");
+
+        // Dựng checkpoint + SAN cho cả ván ở background (ván dài vài trăm nước)
+        tasks.run("load-game", () -> {
+            try {
+                ReplayTimeline loaded = ReplayTimeline.of(game);
+                tasks.runLater(() -> showGame(game, loaded));
+            } catch (Exception e) {
+                e.printStackTrace();
+                tasks.runLater(() -> analysisLabel.setText("Không đọc được ván: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void showGame(ArchivedGame game, ReplayTimeline loaded) {
+        timeline = loaded;
+        currentPly = -1;
+
+        gameInfoLabel.setText(game.getWhiteName() + " - " + game.getBlackName() + "  (" + game.getResult().toPgn() + ")");
+        boardView.setPlayerColor(game.getPlayerColor() == Piece.Color.BLACK ? Piece.Color.BLACK : Piece.Color.WHITE);
+
+        List<String> moves = new ArrayList<>(loaded.size());
+        boolean blackFirst = game.getStartFen() != null && Board.fromFen(game.getStartFen()).getSideToMove() == Piece.Color.BLACK;
+        for (int ply = 0; ply < loaded.size(); ply++) {
+            int number = (ply + (blackFirst ? 1 : 0)) / 2 + 1;
+            boolean white = (ply + (blackFirst ? 1 : 0)) % 2 == 0;
+            moves.add(number + (white ? ". " : "... ") + loaded.getSan(ply));
+        }
+
+        updatingControls = true;
+        moveListView.getItems().setAll(moves);
+        plySlider.setMax(loaded.size());
+        plySlider.setValue(0);
+        updatingControls = false;
+
+        seek(0);
+    }
+
+    /**
+     * Tua đến thế cờ sau {@code ply} nước và bắt đầu phân tích thế cờ đó
+     * (lượt phân tích của thế cờ trước bị hủy).
+     */
+    private void seek(int ply) {
+        if (timeline == null) {
+            return;
+        }
+        currentPly = timeline.seek(board, currentPly, ply);
+
+        boardView.setLastMove(currentPly > 0 ? board.getLastMove() : null);
+        boardView.refreshBoard();
+
+        updatingControls = true;
+        plySlider.setValue(currentPly);
+        if (currentPly > 0) {
+            moveListView.getSelectionModel().select(currentPly - 1);
+            moveListView.scrollTo(Math.max(0, currentPly - 6));
+        } else {
+            moveListView.getSelectionModel().clearSelection();
+        }
+        updatingControls = false;
+
+        plyLabel.setText(currentPly == 0 ? "Thế cờ ban đầu"
+                : "Nước " + currentPly + "/" + timeline.size() + ": " + moveListView.getItems().get(currentPly - 1));
+
+        long id = ++seekId;
+        analysisLabel.setText("Đang phân tích...");
+        analyzer.analyze(board, ANALYSIS_DEPTH, analysis -> tasks.runLater(() -> {
+            if (id == seekId) {
+                analysisLabel.setText(formatAnalysis(analysis));
+            }
+        }));
+    }
+
+    @FXML
+    private void handleFirst() {
+        seek(0);
+    }
+
+    @FXML
+    private void handlePrevious() {
+        seek(currentPly - 1);
+    }
+
+    @FXML
+    private void handleNext() {
+        seek(currentPly + 1);
+    }
+
+    @FXML
+    private void handleLast() {
+        if (timeline != null) {
+            seek(timeline.size());
+        }
+    }
+
+    @FXML
+    private void handleBack() {
+        analyzer.shutdown();
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/chess_client/fxml/home.fxml"));
+            Parent root = loader.load();
+            Scene scene = new Scene(root, 930, 740);
+            Stage stage = (Stage) backButton.getScene().getWindow();
+            stage.setScene(scene);
+            stage.setResizable(false);
+        } catch (Exception e) {
+            e.printStackTrace();
+            showAlert("Lỗi", "Không thể quay lại màn hình chính: " + e.getMessage());
+        }
+    }
+
+    private static String describe(ArchivedGame game) {
+        String date = DATE_FORMAT.format(Instant.ofEpochMilli(game.getTimestamp()).atZone(ZoneId.systemDefault()));
+        return date + "  " + game.getWhiteName() + " - " + game.getBlackName()
+                + "  " + game.getResult().toPgn() + "  (" + game.getMoveCount() + " nước)";
+    }
+
+    private static String formatAnalysis(PositionAnalyzer.Analysis analysis) {
+        if (analysis.getBestMove() == null) {
+            return "Không còn nước đi";
+        }
+        String score = analysis.isMate()
+                ? (analysis.getScore() > 0 ? "Trắng thắng" : "Đen thắng")
+                : String.format("%+.2f", analysis.getScore() / 100.0);
+        return "Độ sâu " + analysis.getDepth() + ": " + score + "  (nước tốt nhất: " + analysis.getBestMove() + ")";
+    }
+
+    private void showAlert(String title, String content) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+}
@@ -4,9 +4,36 @@ public class Board {
     private Piece[][] board;
     private Move lastMove;
 
+    // Trạng thái phụ của thế cờ (phục vụ FEN)
+    private Piece.Color sideToMove = Piece.Color.WHITE;
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+
     public Board() {
+        this(true);
+    }
+
+    private Board(boolean initialize) {
         board = new Piece[8][8];
-        initializeBoard();
+        if (initialize) {
+            initializeBoard();
+        }
+    }
+
+    /**
+     * Bàn cờ không có quân (Fen nạp thế cờ vào đây).
+     */
+    static Board empty() {
+        return new Board(false);
+    }
+
+    /**
+     * Tạo bàn cờ từ chuỗi FEN thay vì đội hình ban đầu.
+     *
+     * @throws IllegalArgumentException nếu FEN không hợp lệ
+     */
+    public static Board fromFen(String fen) {
+        return Fen.parse(fen);
     }
 
     // Khởi tạo đội hình ban đầu
@@ -65,6 +92,17 @@ public class Board {
             Piece captured = getPiece(move.getToRow(), move.getToCol());
             move.setPieceCaptured(captured);
 
+            // Cập nhật bộ đếm nước đi (luật 50 nước và số nước đầy đủ)
+            if (piece.getType() == Piece.Type.PAWN || captured != null) {
+                halfmoveClock = 0;
+            } else {
+                halfmoveClock++;
+            }
+            if (piece.getColor() == Piece.Color.BLACK) {
+                fullmoveNumber++;
+            }
+            sideToMove = piece.getColor() == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+
             // Di chuyển quân
             setPiece(move.getToRow(), move.getToCol(), piece);
             setPiece(move.getFromRow(), move.getFromCol(), null);
@@ -131,22 +169,82 @@ public class Board {
         return lastMove;
     }
 
+    public void setLastMove(Move lastMove) {
+        this.lastMove = lastMove;
+    }
+
+    public Piece.Color getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(Piece.Color sideToMove) {
+        this.sideToMove = sideToMove;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Xuất thế cờ hiện tại ra chuỗi FEN.
+     */
+    public String toFen() {
+        return Fen.toFen(this);
+    }
+
     // Tạo bản sao bàn cờ
     public Board copy() {
         Board newBoard = new Board();
+        newBoard.copyFrom(this);
+        return newBoard;
+    }
+
+    /**
+     * Lấy toàn bộ thế cờ của {@code other} (dùng chính các quân của nó, không tạo mới);
+     * {@code other} không được dùng tiếp sau đó.
+     */
+    void takeFrom(Board other) {
+        for (int row = 0; row < 8; row++) {
+            System.arraycopy(other.board[row], 0, board[row], 0, 8);
+        }
+        lastMove = other.lastMove;
+        sideToMove = other.sideToMove;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+    }
+
+    /**
+     * Chép thế cờ của board khác vào board này (quân được tạo mới).
+     * Dùng khi BoardView/GameLogic đang giữ tham chiếu tới board này.
+     */
+    public void copyFrom(Board other) {
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
-                Piece piece = getPiece(row, col);
+                Piece piece = other.getPiece(row, col);
                 if (piece != null) {
                     Piece newPiece = new Piece(piece.getType(), piece.getColor());
                     newPiece.setMoved(piece.hasMoved());
-                    newBoard.setPiece(row, col, newPiece);
+                    setPiece(row, col, newPiece);
                 } else {
-                    newBoard.setPiece(row, col, null);
+                    setPiece(row, col, null);
                 }
             }
         }
-        newBoard.lastMove = this.lastMove;
-        return newBoard;
+        lastMove = other.lastMove;
+        sideToMove = other.sideToMove;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
     }
 }
\ No newline at end of file
@@ -0,0 +1,351 @@
+package com.chess_client.models;
+
+/**
+ * Đọc/ghi thế cờ theo chuẩn FEN (Forsyth–Edwards Notation).
+ * Hỗ trợ đầy đủ 6 trường: vị trí quân, lượt đi, quyền nhập thành,
+ * ô en passant, bộ đếm nửa nước và số nước đầy đủ.
+ *
+ * Parser duyệt từng ký tự trực tiếp trên chuỗi (không split/regex) và nạp
+ * vào một Board có sẵn, nên có thể tái sử dụng cùng một Board khi cần nạp
+ * hàng loạt thế cờ (test suite, benchmark).
+ *
+ * Quy ước tọa độ giống Board: hàng 0 là hàng 8 (quân đen), cột 0 là cột a.
+ */
+public final class Fen {
+
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {
+    }
+
+    /**
+     * Nạp thế cờ từ FEN vào board (ghi đè toàn bộ trạng thái cũ).
+     * Hai trường bộ đếm cuối có thể bỏ trống (mặc định 0 và 1).
+     * FEN được phân tích và kiểm tra xong trên một bàn cờ tạm rồi mới chép sang, nên nếu
+     * FEN không hợp lệ thì board giữ nguyên.
+     *
+     * @throws IllegalArgumentException nếu FEN không hợp lệ
+     */
+    public static void load(Board board, CharSequence fen) {
+        board.takeFrom(parse(fen));
+    }
+
+    /**
+     * Phân tích FEN thành bàn cờ mới.
+     *
+     * @throws IllegalArgumentException nếu FEN không hợp lệ hoặc mỗi bên không có đúng một vua
+     */
+    static Board parse(CharSequence fen) {
+        if (fen == null) {
+            throw new IllegalArgumentException("FEN không được để trống");
+        }
+
+        Board board = Board.empty();
+        int len = fen.length();
+        int i = skipSpaces(fen, 0);
+
+        // 1. Vị trí quân
+        int row = 0;
+        int col = 0;
+        for (; i < len; i++) {
+            char c = fen.charAt(i);
+            if (c == ' ') {
+                break;
+            }
+            if (c == '/') {
+                if (col != 8) {
+                    throw invalid(fen, "hàng " + (8 - row) + " không đủ 8 ô");
+                }
+                row++;
+                col = 0;
+                if (row > 7) {
+                    throw invalid(fen, "quá 8 hàng");
+                }
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 8) {
+                    throw invalid(fen, "hàng " + (8 - row) + " vượt quá 8 ô");
+                }
+            } else {
+                if (col > 7) {
+                    throw invalid(fen, "hàng " + (8 - row) + " vượt quá 8 ô");
+                }
+                board.setPiece(row, col, pieceFromChar(c, fen));
+                col++;
+            }
+        }
+        if (row != 7 || col != 8) {
+            throw invalid(fen, "phần vị trí quân không đủ 8x8 ô");
+        }
+        if (countKings(board, Piece.Color.WHITE) != 1 || countKings(board, Piece.Color.BLACK) != 1) {
+            throw invalid(fen, "mỗi bên phải có đúng một vua");
+        }
+
+        // 2. Lượt đi
+        i = skipSpaces(fen, i);
+        if (i >= len) {
+            throw invalid(fen, "thiếu lượt đi");
+        }
+        char active = fen.charAt(i++);
+        if (active == 'w') {
+            board.setSideToMove(Piece.Color.WHITE);
+        } else if (active == 'b') {
+            board.setSideToMove(Piece.Color.BLACK);
+        } else {
+            throw invalid(fen, "lượt đi phải là 'w' hoặc 'b'");
+        }
+
+        // 3. Quyền nhập thành
+        i = skipSpaces(fen, i);
+        if (i >= len) {
+            throw invalid(fen, "thiếu quyền nhập thành");
+        }
+        boolean whiteKingSide = false, whiteQueenSide = false;
+        boolean blackKingSide = false, blackQueenSide = false;
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < len && fen.charAt(i) != ' '; i++) {
+                switch (fen.charAt(i)) {
+                    case 'K' -> whiteKingSide = true;
+                    case 'Q' -> whiteQueenSide = true;
+                    case 'k' -> blackKingSide = true;
+                    case 'q' -> blackQueenSide = true;
+                    default -> throw invalid(fen, "quyền nhập thành không hợp lệ");
+                }
+            }
+        }
+        applyCastlingRights(board, whiteKingSide, whiteQueenSide, blackKingSide, blackQueenSide);
+
+        // 4. Ô en passant
+        i = skipSpaces(fen, i);
+        if (i >= len) {
+            throw invalid(fen, "thiếu ô en passant");
+        }
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            if (i + 1 >= len) {
+                throw invalid(fen, "ô en passant không hợp lệ");
+            }
+            int epCol = fen.charAt(i) - 'a';
+            int epRank = fen.charAt(i + 1) - '0';
+            i += 2;
+            if (epCol < 0 || epCol > 7 || (epRank != 3 && epRank != 6)) {
+                throw invalid(fen, "ô en passant không hợp lệ");
+            }
+            applyEnPassant(board, epCol, epRank);
+        }
+
+        // 5, 6. Bộ đếm (không bắt buộc)
+        i = skipSpaces(fen, i);
+        if (i < len) {
+            int halfmove = 0;
+            for (; i < len && fen.charAt(i) != ' '; i++) {
+                halfmove = appendDigit(halfmove, fen.charAt(i), fen);
+            }
+            board.setHalfmoveClock(halfmove);
+
+            i = skipSpaces(fen, i);
+            if (i < len) {
+                int fullmove = 0;
+                for (; i < len && fen.charAt(i) != ' '; i++) {
+                    fullmove = appendDigit(fullmove, fen.charAt(i), fen);
+                }
+                board.setFullmoveNumber(Math.max(1, fullmove));
+            }
+        }
+
+        if (skipSpaces(fen, i) < len) {
+            throw invalid(fen, "thừa dữ liệu ở cuối");
+        }
+        return board;
+    }
+
+    /**
+     * Xuất thế cờ của board ra chuỗi FEN.
+     */
+    public static String toFen(Board board) {
+        StringBuilder sb = new StringBuilder(90);
+        appendTo(board, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Ghi FEN của board vào cuối StringBuilder có sẵn (dùng khi xuất hàng loạt).
+     */
+    public static void appendTo(Board board, StringBuilder sb) {
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(row, col);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                sb.append(toChar(piece));
+            }
+            if (empty > 0) {
+                sb.append((char) ('0' + empty));
+            }
+            if (row < 7) {
+                sb.append('/');
+            }
+        }
+
+        sb.append(' ').append(board.getSideToMove() == Piece.Color.BLACK ? 'b' : 'w').append(' ');
+
+        int lengthBefore = sb.length();
+        if (canCastle(board, 7, 7)) sb.append('K');
+        if (canCastle(board, 7, 0)) sb.append('Q');
+        if (canCastle(board, 0, 7)) sb.append('k');
+        if (canCastle(board, 0, 0)) sb.append('q');
+        if (sb.length() == lengthBefore) {
+            sb.append('-');
+        }
+
+        sb.append(' ');
+        Move last = board.getLastMove();
+        if (last != null && isDoublePawnPush(board, last)) {
+            int epRow = (last.getFromRow() + last.getToRow()) / 2;
+            sb.append((char) ('a' + last.getToCol())).append(8 - epRow);
+        } else {
+            sb.append('-');
+        }
+
+        sb.append(' ').append(board.getHalfmoveClock());
+        sb.append(' ').append(board.getFullmoveNumber());
+    }
+
+    /**
+     * Ký tự FEN của một quân (chữ hoa = trắng, chữ thường = đen).
+     */
+    public static char toChar(Piece piece) {
+        char c = switch (piece.getType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case ROOK -> 'r';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case PAWN -> 'p';
+        };
+        return piece.getColor() == Piece.Color.WHITE ? Character.toUpperCase(c) : c;
+    }
+
+    // ===================== HELPERS =====================
+
+    private static Piece pieceFromChar(char c, CharSequence fen) {
+        Piece.Color color = Character.isUpperCase(c) ? Piece.Color.WHITE : Piece.Color.BLACK;
+        Piece.Type type = switch (Character.toLowerCase(c)) {
+            case 'k' -> Piece.Type.KING;
+            case 'q' -> Piece.Type.QUEEN;
+            case 'r' -> Piece.Type.ROOK;
+            case 'b' -> Piece.Type.BISHOP;
+            case 'n' -> Piece.Type.KNIGHT;
+            case 'p' -> Piece.Type.PAWN;
+            default -> throw invalid(fen, "ký tự quân không hợp lệ '" + c + "'");
+        };
+        Piece piece = new Piece(type, color);
+        // Vua/xe mặc định coi như đã di chuyển; quyền nhập thành sẽ bật lại quân tương ứng.
+        // Tốt không dùng cờ này (GameLogic dựa vào hàng xuất phát).
+        if (type == Piece.Type.PAWN) {
+            piece.setMoved(false);
+        } else {
+            piece.setMoved(type == Piece.Type.KING || type == Piece.Type.ROOK);
+        }
+        return piece;
+    }
+
+    /**
+     * GameLogic suy ra quyền nhập thành từ cờ hasMoved của vua và xe,
+     * nên ở đây chỉ cần bật lại cờ cho đúng các quân còn quyền.
+     */
+    private static void applyCastlingRights(Board board, boolean wk, boolean wq, boolean bk, boolean bq) {
+        if (wk || wq) {
+            markUnmoved(board, 7, 4, Piece.Type.KING, Piece.Color.WHITE);
+        }
+        if (wk) markUnmoved(board, 7, 7, Piece.Type.ROOK, Piece.Color.WHITE);
+        if (wq) markUnmoved(board, 7, 0, Piece.Type.ROOK, Piece.Color.WHITE);
+
+        if (bk || bq) {
+            markUnmoved(board, 0, 4, Piece.Type.KING, Piece.Color.BLACK);
+        }
+        if (bk) markUnmoved(board, 0, 7, Piece.Type.ROOK, Piece.Color.BLACK);
+        if (bq) markUnmoved(board, 0, 0, Piece.Type.ROOK, Piece.Color.BLACK);
+    }
+
+    private static void markUnmoved(Board board, int row, int col, Piece.Type type, Piece.Color color) {
+        Piece piece = board.getPiece(row, col);
+        if (piece != null && piece.getType() == type && piece.getColor() == color) {
+            piece.setMoved(false);
+        }
+    }
+
+    /**
+     * GameLogic kiểm tra en passant dựa trên nước đi cuối của board,
+     * nên tái tạo lại nước đẩy tốt 2 ô tương ứng với ô en passant.
+     */
+    private static void applyEnPassant(Board board, int epCol, int epRank) {
+        // Ô en passant hàng 6 -> tốt đen vừa đi 2 ô (hàng 1 -> 3), hàng 3 -> tốt trắng (6 -> 4)
+        int fromRow = epRank == 6 ? 1 : 6;
+        int toRow = epRank == 6 ? 3 : 4;
+        Piece pawn = board.getPiece(toRow, epCol);
+        if (pawn == null || pawn.getType() != Piece.Type.PAWN) {
+            return; // FEN ghi ô en passant nhưng không có tốt tương ứng -> bỏ qua
+        }
+        pawn.setMoved(true);
+        board.setLastMove(new Move(fromRow, epCol, toRow, epCol, pawn));
+    }
+
+    private static int countKings(Board board, Piece.Color color) {
+        int kings = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(row, col);
+                if (piece != null && piece.getType() == Piece.Type.KING && piece.getColor() == color) {
+                    kings++;
+                }
+            }
+        }
+        return kings;
+    }
+
+    static boolean canCastle(Board board, int row, int rookCol) {
+        Piece king = board.getPiece(row, 4);
+        Piece rook = board.getPiece(row, rookCol);
+        return king != null && king.getType() == Piece.Type.KING && !king.hasMoved()
+                && rook != null && rook.getType() == Piece.Type.ROOK && !rook.hasMoved()
+                && rook.getColor() == king.getColor();
+    }
+
+    static boolean isDoublePawnPush(Board board, Move move) {
+        if (Math.abs(move.getToRow() - move.getFromRow()) != 2 || move.getFromCol() != move.getToCol()) {
+            return false;
+        }
+        Piece piece = board.getPiece(move.getToRow(), move.getToCol());
+        return piece != null && piece.getType() == Piece.Type.PAWN;
+    }
+
+    private static int skipSpaces(CharSequence fen, int i) {
+        int len = fen.length();
+        while (i < len && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int appendDigit(int value, char c, CharSequence fen) {
+        if (c < '0' || c > '9' || value > 100_000) {
+            throw invalid(fen, "bộ đếm nước đi không hợp lệ");
+        }
+        return value * 10 + (c - '0');
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, String reason) {
+        return new IllegalArgumentException("FEN không hợp lệ (" + reason + "): " + fen);
+    }
+}
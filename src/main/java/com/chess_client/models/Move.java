@@ -1,6 +1,11 @@
 package com.chess_client.models;
 
 public class Move {
+    // Mã nước đi 16 bit: 6 bit ô đi | 6 bit ô đến | cờ nhập thành, en passant, phong cấp
+    private static final int CASTLING_FLAG = 1 << 12;
+    private static final int EN_PASSANT_FLAG = 1 << 13;
+    private static final int PROMOTION_FLAG = 1 << 14;
+
     private int fromRow;
     private int fromCol;
     private int toRow;
@@ -75,6 +80,37 @@ public class Move {
         this.isPromotion = promotion;
     }
 
+    /**
+     * Mã hóa nước đi thành số 16 bit (dùng khi lưu trữ/truyền đi gọn nhẹ).
+     * Ô được đánh số row * 8 + col.
+     */
+    public int toCode() {
+        int code = (fromRow * 8 + fromCol) | ((toRow * 8 + toCol) << 6);
+        if (isCastling) {
+            code |= CASTLING_FLAG;
+        }
+        if (isEnPassant) {
+            code |= EN_PASSANT_FLAG;
+        }
+        if (isPromotion) {
+            code |= PROMOTION_FLAG;
+        }
+        return code;
+    }
+
+    /**
+     * Giải mã nước đi từ mã 16 bit, lấy quân di chuyển từ board hiện tại.
+     */
+    public static Move fromCode(int code, Board board) {
+        int from = code & 0x3F;
+        int to = (code >> 6) & 0x3F;
+        Move move = new Move(from / 8, from % 8, to / 8, to % 8, board.getPiece(from / 8, from % 8));
+        move.setCastling((code & CASTLING_FLAG) != 0);
+        move.setEnPassant((code & EN_PASSANT_FLAG) != 0);
+        move.setPromotion((code & PROMOTION_FLAG) != 0);
+        return move;
+    }
+
     @Override
     public String toString() {
         return pieceMoved + " từ (" + fromRow + "," + fromCol + ") đến (" + toRow + "," + toCol + ")";
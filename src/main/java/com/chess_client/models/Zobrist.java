@@ -0,0 +1,66 @@
+package com.chess_client.models;
+
+import java.util.SplittableRandom;
+
+/**
+ * Khóa Zobrist 64 bit của một thế cờ: XOR các số ngẫu nhiên cố định ứng với
+ * (quân, ô), bên đi, quyền nhập thành và cột en passant.
+ * Hai thế cờ giống nhau (theo FEN, không tính số nước) luôn cho cùng một khóa.
+ *
+ * Bảng số dùng seed cố định nên khóa ổn định giữa các lần chạy
+ * (khóa được lưu xuống đĩa trong PositionIndex).
+ */
+public final class Zobrist {
+
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    private static final long[] CASTLING = new long[4];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0DE_2024L);
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = random.nextLong();
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            EN_PASSANT_FILE[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long hash(Board board) {
+        long key = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(row, col);
+                if (piece != null) {
+                    key ^= PIECE_SQUARE[pieceIndex(piece) * 64 + row * 8 + col];
+                }
+            }
+        }
+
+        if (board.getSideToMove() == Piece.Color.BLACK) {
+            key ^= BLACK_TO_MOVE;
+        }
+        if (Fen.canCastle(board, 7, 7)) key ^= CASTLING[0];
+        if (Fen.canCastle(board, 7, 0)) key ^= CASTLING[1];
+        if (Fen.canCastle(board, 0, 7)) key ^= CASTLING[2];
+        if (Fen.canCastle(board, 0, 0)) key ^= CASTLING[3];
+
+        Move last = board.getLastMove();
+        if (last != null && Fen.isDoublePawnPush(board, last)) {
+            key ^= EN_PASSANT_FILE[last.getToCol()];
+        }
+        return key;
+    }
+
+    private static int pieceIndex(Piece piece) {
+        return piece.getType().ordinal() * 2 + (piece.getColor() == Piece.Color.WHITE ? 0 : 1);
+    }
+}
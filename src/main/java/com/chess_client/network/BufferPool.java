@@ -0,0 +1,64 @@
+package com.chess_client.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool các ByteBuffer direct kích thước cố định dùng chung cho mọi kết nối P2P.
+ * Buffer direct cấp phát/giải phóng tốn kém nên được giữ lại để dùng tiếp thay vì
+ * tạo mới cho mỗi lần đọc/ghi.
+ */
+public final class BufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final int DEFAULT_MAX_POOLED = 64;
+
+    private static final BufferPool DEFAULT = new BufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED);
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedDeque<ByteBuffer> free = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    public static BufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Lấy một buffer rỗng (ở chế độ ghi). Pool hết thì cấp phát mới.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.pollFirst();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Trả buffer về pool. Pool đầy thì bỏ buffer cho GC thu hồi.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        free.offerFirst(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
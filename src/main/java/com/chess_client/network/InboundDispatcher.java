@@ -0,0 +1,133 @@
+package com.chess_client.network;
+
+import javafx.application.Platform;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chuyển sự kiện từ thread mạng sang thread JavaFX theo lô.
+ *
+ * Thay vì mỗi tin nhắn một Platform.runLater, sự kiện được đưa vào hàng đợi và chỉ
+ * một lần runLater được hẹn cho tới khi hàng đợi được xử lý: một loạt tin nhắn đến
+ * dồn dập (chat, nước đi gửi lại sau khi kết nối lại) được chạy hết trong cùng một
+ * lượt của thread FX, nên chỉ vẽ lại một khung hình. Thứ tự sự kiện được giữ nguyên.
+ *
+ * Thống kê số sự kiện mỗi lượt và thời gian chờ trong hàng đợi để theo dõi độ trễ UI.
+ */
+public class InboundDispatcher {
+
+    // Giới hạn mỗi lượt để một cơn bão tin nhắn không chặn thread FX quá lâu;
+    // phần còn lại được hẹn sang lượt sau
+    private static final int MAX_EVENTS_PER_PULSE = 1024;
+
+    private final Executor executor;
+    private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Thống kê
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong pulses = new AtomicLong();
+    private volatile int maxEventsPerPulse;
+    private final RttHistogram queueLatency = new RttHistogram();
+
+    private static final class Event {
+        final Runnable action;
+        final long enqueuedAt;
+
+        Event(Runnable action, long enqueuedAt) {
+            this.action = action;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Chạy sự kiện trên thread JavaFX.
+     */
+    public InboundDispatcher() {
+        this(Platform::runLater);
+    }
+
+    /**
+     * Chạy sự kiện bằng {@code executor} (ví dụ chạy thẳng khi không có JavaFX).
+     */
+    public InboundDispatcher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Đưa một sự kiện vào hàng đợi (gọi được từ mọi thread).
+     */
+    public void post(Runnable action) {
+        pending.add(new Event(action, System.nanoTime()));
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Bỏ cờ trước khi lấy sự kiện: sự kiện đến trong lúc xử lý sẽ hẹn lượt mới
+        // (nếu lượt này đã xử lý luôn thì lượt mới chỉ gặp hàng đợi rỗng)
+        scheduled.set(false);
+        long now = System.nanoTime();
+        int count = 0;
+        Event event;
+        while (count < MAX_EVENTS_PER_PULSE && (event = pending.poll()) != null) {
+            queueLatency.record(now - event.enqueuedAt);
+            count++;
+            try {
+                event.action.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        pulses.incrementAndGet();
+        events.addAndGet(count);
+        if (count > maxEventsPerPulse) {
+            maxEventsPerPulse = count;
+        }
+        if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    public long getEventCount() {
+        return events.get();
+    }
+
+    /**
+     * Số lượt xử lý trên thread FX (mỗi lượt chạy tất cả sự kiện đang chờ).
+     */
+    public long getPulseCount() {
+        return pulses.get();
+    }
+
+    public double getAverageEventsPerPulse() {
+        long p = pulses.get();
+        return p == 0 ? 0 : (double) events.get() / p;
+    }
+
+    public int getMaxEventsPerPulse() {
+        return maxEventsPerPulse;
+    }
+
+    /**
+     * Thời gian từ lúc nhận sự kiện trên thread mạng tới lúc bắt đầu lượt xử lý.
+     */
+    public RttHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d sự kiện / %d lượt (trung bình %.1f, tối đa %d), chờ p50=%.2f ms, p99=%.2f ms",
+                getEventCount(), getPulseCount(), getAverageEventsPerPulse(), getMaxEventsPerPulse(),
+                queueLatency.getPercentileMillis(50), queueLatency.getPercentileMillis(99));
+    }
+}
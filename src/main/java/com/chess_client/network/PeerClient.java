@@ -1,14 +1,43 @@
 package com.chess_client.network;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 
 /**
  * Client socket phía client để chủ động kết nối tới đối thủ P2P.
+ * Socket được tạo từ SocketChannel để PeerNetworkHandler chạy được trên PeerEventLoop.
  */
 public class PeerClient {
 
+    private final TransportProfile profile;
+
+    public PeerClient() {
+        this(TransportProfile.getDefault());
+    }
+
+    public PeerClient(TransportProfile profile) {
+        this.profile = profile;
+    }
+
     public Socket connectToOpponent(String ip, int port) throws IOException {
-        return new Socket(ip, port);
+        return connectToOpponent(ip, port, 0);
+    }
+
+    /**
+     * Kết nối tới đối thủ, bỏ cuộc nếu sau {@code timeoutMillis} ms chưa kết nối được
+     * (0 = chờ không giới hạn).
+     */
+    public Socket connectToOpponent(String ip, int port, int timeoutMillis) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            profile.applyTo(channel);
+            channel.socket().connect(new InetSocketAddress(ip, port), timeoutMillis);
+            return channel.socket();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
     }
 }
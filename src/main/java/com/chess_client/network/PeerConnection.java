@@ -0,0 +1,599 @@
+package com.chess_client.network;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Một kết nối P2P không chặn (non-blocking) chạy trên PeerEventLoop.
+ *
+ * Dữ liệu trên đường truyền được chia frame theo một trong hai kiểu (xem Framing):
+ * 4 byte độ dài (big-endian) + payload, hoặc từng dòng kết thúc bằng '\n' (giao thức
+ * JSON cũ). Kiểu chia frame mỗi chiều có thể đổi giữa chừng, ví dụ sau bắt tay.
+ * Đọc/ghi dùng buffer direct lấy từ BufferPool. Chỉ thread event loop ghi socket:
+ * send() chỉ đưa frame vào hàng đợi, nhiều frame chờ gửi được gom vào cùng một buffer
+ * để ghi bằng một lần gọi write().
+ *
+ * send() và close() gọi được từ mọi thread và chỉ tốn một lần thêm vào hàng đợi
+ * (không bao giờ chặn chờ socket); callback của Listener luôn chạy trên thread của
+ * event loop. Hàng đợi gửi có giới hạn theo byte, xem HIGH_WATER_MARK/MAX_QUEUED_BYTES.
+ */
+public class PeerConnection {
+
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+    private static final int HEADER_SIZE = 4;
+
+    // Ngưỡng back-pressure theo số byte chờ gửi: vượt HIGH thì báo "không ghi được",
+    // giảm xuống dưới LOW mới báo lại "ghi được" (tránh bật/tắt liên tục quanh một ngưỡng).
+    // Vượt MAX nghĩa là đối thủ không đọc nữa -> đóng kết nối thay vì giữ bộ nhớ mãi.
+    public static final int HIGH_WATER_MARK = 256 * 1024;
+    public static final int LOW_WATER_MARK = 64 * 1024;
+    public static final int MAX_QUEUED_BYTES = 8 << 20;
+
+    /**
+     * Cách chia frame trên đường truyền.
+     */
+    public enum Framing {
+        /** 4 byte độ dài + payload */
+        LENGTH_PREFIXED,
+        /** Mỗi frame là một dòng văn bản kết thúc bằng '\n' (payload không chứa '\n') */
+        LINE
+    }
+
+    /**
+     * Nhận sự kiện của kết nối (chạy trên thread event loop, không được chặn lâu).
+     */
+    public interface Listener {
+        /**
+         * Nhận một frame. Payload chỉ hợp lệ trong lúc gọi hàm (buffer sẽ được dùng lại).
+         */
+        void onFrame(ByteBuffer payload);
+
+        /**
+         * Kết nối đã đóng.
+         *
+         * @param cause lỗi gây đóng kết nối, null nếu đóng bình thường
+         */
+        void onClosed(Exception cause);
+
+        /**
+         * Hàng đợi gửi vượt HIGH_WATER_MARK (false) hoặc đã giảm xuống dưới
+         * LOW_WATER_MARK (true).
+         */
+        default void onWritabilityChanged(boolean writable) {
+        }
+    }
+
+    private final SocketChannel channel;
+    private final PeerEventLoop loop;
+    private final BufferPool pool;
+    private final Listener listener;
+
+    // Chỉ truy cập trên thread event loop
+    private SelectionKey key;
+    private ByteBuffer readBuffer;
+    private ByteBuffer largeFrame; // frame lớn hơn buffer của pool
+    private ByteBuffer longLine; // dòng dài hơn buffer của pool (chế độ LINE)
+    private Framing inboundFraming;
+    private ByteBuffer writeBuffer; // đang ghi dở (chế độ đọc)
+    private ByteBuffer currentFrame; // frame mới chép được một phần vào writeBuffer
+    private boolean closeAfterFlush;
+    private boolean writable = true; // trạng thái đã báo cho listener
+
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile Framing outboundFraming;
+    private volatile long lastReadNanos = System.nanoTime();
+
+    // Thống kê hàng đợi gửi: byte đã send() nhưng chưa ghi xuống socket
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicInteger queuedFrames = new AtomicInteger();
+    private volatile long peakQueuedBytes;
+    private volatile boolean writableFlag = true;
+
+    private PeerConnection(SocketChannel channel, PeerEventLoop loop, BufferPool pool, Framing framing,
+            Listener listener) {
+        this.channel = channel;
+        this.loop = loop;
+        this.pool = pool;
+        this.listener = listener;
+        this.inboundFraming = framing;
+        this.outboundFraming = framing;
+    }
+
+    /**
+     * Mở kết nối từ socket do PeerClient/PeerServer tạo ra (socket phải gắn với SocketChannel).
+     */
+    public static PeerConnection open(Socket socket, Listener listener) throws IOException {
+        return open(socket, Framing.LENGTH_PREFIXED, listener);
+    }
+
+    public static PeerConnection open(Socket socket, Framing framing, Listener listener) throws IOException {
+        SocketChannel channel = socket.getChannel();
+        if (channel == null) {
+            throw new IOException("Socket không có SocketChannel (cần tạo qua PeerClient/PeerServer)");
+        }
+        return open(channel, PeerEventLoop.getDefault(), BufferPool.getDefault(), framing, listener);
+    }
+
+    public static PeerConnection open(SocketChannel channel, PeerEventLoop loop, BufferPool pool, Listener listener)
+            throws IOException {
+        return open(channel, loop, pool, Framing.LENGTH_PREFIXED, listener);
+    }
+
+    public static PeerConnection open(SocketChannel channel, PeerEventLoop loop, BufferPool pool, Framing framing,
+            Listener listener) throws IOException {
+        channel.configureBlocking(false);
+        PeerConnection connection = new PeerConnection(channel, loop, pool, framing, listener);
+        loop.execute(connection::register);
+        return connection;
+    }
+
+    private void register() {
+        try {
+            readBuffer = pool.acquire();
+            key = loop.register(channel, SelectionKey.OP_READ, this);
+            if (!outbound.isEmpty()) {
+                flush();
+            }
+        } catch (IOException e) {
+            closeNow(e);
+        }
+    }
+
+    // ===================== GỬI =====================
+
+    /**
+     * Đưa một frame vào hàng đợi gửi.
+     *
+     * @return false nếu kết nối đã đóng
+     */
+    public boolean send(byte[] payload) {
+        return send(payload, 0, payload.length);
+    }
+
+    public boolean send(byte[] payload, int offset, int length) {
+        if (length > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("Frame quá lớn: " + length + " byte");
+        }
+        if (closed.get()) {
+            return false;
+        }
+        ByteBuffer frame;
+        if (outboundFraming == Framing.LINE) {
+            frame = ByteBuffer.allocate(length + 1);
+            frame.put(payload, offset, length).put((byte) '\n').flip();
+        } else {
+            frame = ByteBuffer.allocate(HEADER_SIZE + length);
+            frame.putInt(length).put(payload, offset, length).flip();
+        }
+        return enqueue(frame);
+    }
+
+    /**
+     * Tạo sẵn một frame LENGTH_PREFIXED (chỉ đọc) để gửi cho nhiều kết nối bằng
+     * sendFrame() mà không phải mã hóa/chép lại cho từng kết nối.
+     */
+    public static ByteBuffer encodeFrame(byte[] payload) {
+        if (payload.length > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("Frame quá lớn: " + payload.length + " byte");
+        }
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(payload.length).put(payload).flip();
+        return frame.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gửi một frame tạo bởi encodeFrame(). Frame có thể dùng chung cho nhiều kết nối:
+     * mỗi kết nối chỉ giữ một view (duplicate) với vị trí đọc riêng.
+     *
+     * @return false nếu kết nối đã đóng
+     */
+    public boolean sendFrame(ByteBuffer frame) {
+        if (outboundFraming != Framing.LENGTH_PREFIXED) {
+            throw new IllegalStateException("sendFrame() chỉ dùng cho kết nối LENGTH_PREFIXED");
+        }
+        if (closed.get()) {
+            return false;
+        }
+        return enqueue(frame.duplicate());
+    }
+
+    private boolean enqueue(ByteBuffer frame) {
+        int size = frame.remaining();
+        long queued = queuedBytes.addAndGet(size);
+        if (queued > MAX_QUEUED_BYTES) {
+            queuedBytes.addAndGet(-size);
+            closeNow(new IOException("Hàng đợi gửi vượt quá " + MAX_QUEUED_BYTES + " byte, đối thủ không nhận dữ liệu"));
+            return false;
+        }
+        if (queued > peakQueuedBytes) {
+            peakQueuedBytes = queued; // không cần chính xác tuyệt đối khi nhiều thread cùng gửi
+        }
+        queuedFrames.incrementAndGet();
+        outbound.add(frame);
+        if (writeScheduled.compareAndSet(false, true)) {
+            loop.execute(this::flush);
+        }
+        if (queued > HIGH_WATER_MARK && queued - size <= HIGH_WATER_MARK) {
+            loop.execute(this::updateWritability);
+        }
+        return true;
+    }
+
+    /**
+     * Đổi cách chia frame cho các frame gửi SAU lời gọi này. Nếu nhiều thread cùng
+     * gửi, người gọi phải tự đồng bộ để không có frame nào bị chia sai kiểu.
+     */
+    public void setOutboundFraming(Framing framing) {
+        this.outboundFraming = framing;
+    }
+
+    /**
+     * Đổi cách chia frame cho dữ liệu nhận được. Chỉ gọi trong Listener.onFrame():
+     * phần dữ liệu còn lại sau frame hiện tại sẽ được đọc theo kiểu mới.
+     */
+    public void setInboundFraming(Framing framing) {
+        if (!loop.inEventLoop()) {
+            throw new IllegalStateException("setInboundFraming chỉ được gọi trên thread của event loop");
+        }
+        this.inboundFraming = framing;
+    }
+
+    private void enableWrite() {
+        if (key != null && key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Ghi ngay các frame đang chờ (chạy như một task của event loop, trước lần select kế
+     * tiếp). Các frame được thêm vào trước khi task chạy, ví dụ ACK và nước đáp lại sinh
+     * ra trong cùng một lần đọc, được gom thành một lần gọi write(); chỉ khi socket đầy
+     * mới phải chờ OP_WRITE.
+     */
+    private void flush() {
+        if (key == null || !key.isValid()) {
+            return; // Chưa đăng ký xong (register() sẽ ghi) hoặc đã đóng
+        }
+        try {
+            handleWrite();
+        } catch (IOException e) {
+            closeNow(e);
+        }
+    }
+
+    void handleWrite() throws IOException {
+        while (true) {
+            if (!writePending()) {
+                enableWrite();
+                return; // Socket đầy, chờ OP_WRITE
+            }
+
+            // Đã gửi hết: tắt OP_WRITE. Nếu có thread vừa thêm frame sau lần poll cuối
+            // (và thấy writeScheduled = true nên không hẹn ghi) thì ghi tiếp luôn.
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            writeScheduled.set(false);
+            if (outbound.isEmpty()) {
+                if (closeAfterFlush) {
+                    closeNow(null);
+                }
+                return;
+            }
+            if (!writeScheduled.compareAndSet(false, true)) {
+                return; // Thread khác đã hẹn ghi
+            }
+        }
+    }
+
+    /**
+     * Ghi writeBuffer và các frame trong hàng đợi cho tới khi hết hoặc socket đầy.
+     *
+     * @return false nếu socket đầy trước khi ghi hết
+     */
+    private boolean writePending() throws IOException {
+        while (true) {
+            if (writeBuffer == null) {
+                writeBuffer = pool.acquire();
+                fillWriteBuffer();
+                writeBuffer.flip();
+                if (!writeBuffer.hasRemaining()) {
+                    pool.release(writeBuffer);
+                    writeBuffer = null;
+                    return true;
+                }
+            }
+            int written = channel.write(writeBuffer);
+            if (written > 0) {
+                long queued = queuedBytes.addAndGet(-written);
+                if (!writable && queued < LOW_WATER_MARK) {
+                    updateWritability();
+                }
+            }
+            if (writeBuffer.hasRemaining()) {
+                return false;
+            }
+            pool.release(writeBuffer);
+            writeBuffer = null;
+        }
+    }
+
+    /**
+     * Chép các frame đang chờ vào writeBuffer, càng nhiều càng tốt.
+     */
+    private void fillWriteBuffer() {
+        while (writeBuffer.hasRemaining()) {
+            ByteBuffer frame = currentFrame;
+            if (frame == null) {
+                frame = outbound.poll();
+                if (frame == null) {
+                    break;
+                }
+                queuedFrames.decrementAndGet();
+            }
+            int n = Math.min(frame.remaining(), writeBuffer.remaining());
+            writeBuffer.put(writeBuffer.position(), frame, frame.position(), n);
+            writeBuffer.position(writeBuffer.position() + n);
+            frame.position(frame.position() + n);
+            currentFrame = frame.hasRemaining() ? frame : null;
+        }
+    }
+
+    /**
+     * Báo cho listener khi hàng đợi gửi vượt/giảm qua ngưỡng (chạy trên thread event loop).
+     */
+    private void updateWritability() {
+        long queued = queuedBytes.get();
+        boolean now = writable ? queued <= HIGH_WATER_MARK : queued < LOW_WATER_MARK;
+        if (now == writable || closed.get()) {
+            return;
+        }
+        writable = now;
+        writableFlag = now;
+        try {
+            listener.onWritabilityChanged(now);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ===================== NHẬN =====================
+
+    void handleRead() throws IOException {
+        int n = channel.read(readBuffer);
+        if (n < 0) {
+            closeNow(null); // Đối thủ đóng kết nối
+            return;
+        }
+        lastReadNanos = System.nanoTime();
+
+        readBuffer.flip();
+        while (true) {
+            if (inboundFraming == Framing.LINE) {
+                if (!readLine()) {
+                    break;
+                }
+                if (closed.get()) {
+                    return;
+                }
+                continue;
+            }
+
+            if (largeFrame != null) {
+                int count = Math.min(largeFrame.remaining(), readBuffer.remaining());
+                largeFrame.put(largeFrame.position(), readBuffer, readBuffer.position(), count);
+                largeFrame.position(largeFrame.position() + count);
+                readBuffer.position(readBuffer.position() + count);
+                if (largeFrame.hasRemaining()) {
+                    break;
+                }
+                ByteBuffer frame = largeFrame;
+                largeFrame = null;
+                frame.flip();
+                deliver(frame);
+                if (closed.get()) {
+                    return;
+                }
+                continue;
+            }
+
+            if (readBuffer.remaining() < HEADER_SIZE) {
+                break;
+            }
+            int start = readBuffer.position();
+            int length = readBuffer.getInt(start);
+            if (length < 0 || length > MAX_FRAME_SIZE) {
+                throw new IOException("Frame không hợp lệ (độ dài " + length + ")");
+            }
+            if (HEADER_SIZE + length > readBuffer.capacity()) {
+                // Frame không vừa buffer của pool -> gom vào buffer riêng
+                readBuffer.position(start + HEADER_SIZE);
+                largeFrame = ByteBuffer.allocate(length);
+                continue;
+            }
+            if (readBuffer.remaining() < HEADER_SIZE + length) {
+                break;
+            }
+            ByteBuffer payload = readBuffer.slice(start + HEADER_SIZE, length);
+            readBuffer.position(start + HEADER_SIZE + length);
+            deliver(payload);
+            if (closed.get()) {
+                return;
+            }
+        }
+        readBuffer.compact();
+    }
+
+    /**
+     * Tách một dòng khỏi readBuffer và giao cho listener.
+     *
+     * @return false nếu chưa đủ dữ liệu cho một dòng trọn vẹn
+     */
+    private boolean readLine() throws IOException {
+        int start = readBuffer.position();
+        int newline = -1;
+        for (int i = start; i < readBuffer.limit(); i++) {
+            if (readBuffer.get(i) == '\n') {
+                newline = i;
+                break;
+            }
+        }
+
+        if (newline < 0) {
+            // Dòng dài hơn cả buffer -> chuyển dần sang buffer heap riêng
+            if (longLine != null || (start == 0 && readBuffer.limit() == readBuffer.capacity())) {
+                appendLongLine(readBuffer.remaining());
+            }
+            return false;
+        }
+
+        ByteBuffer line;
+        if (longLine != null) {
+            appendLongLine(newline - start);
+            line = longLine.flip();
+            longLine = null;
+        } else {
+            line = readBuffer.slice(start, newline - start);
+        }
+        readBuffer.position(newline + 1);
+
+        if (line.limit() > 0 && line.get(line.limit() - 1) == '\r') {
+            line.limit(line.limit() - 1);
+        }
+        deliver(line);
+        return true;
+    }
+
+    private void appendLongLine(int count) throws IOException {
+        if (longLine == null) {
+            longLine = ByteBuffer.allocate(readBuffer.capacity() * 2);
+        }
+        if (longLine.position() + count > MAX_FRAME_SIZE) {
+            throw new IOException("Dòng quá dài (> " + MAX_FRAME_SIZE + " byte)");
+        }
+        if (longLine.remaining() < count) {
+            int capacity = Math.min(MAX_FRAME_SIZE, Math.max(longLine.capacity() * 2, longLine.position() + count));
+            longLine = ByteBuffer.allocate(capacity).put(longLine.flip());
+        }
+        longLine.put(longLine.position(), readBuffer, readBuffer.position(), count);
+        longLine.position(longLine.position() + count);
+        readBuffer.position(readBuffer.position() + count);
+    }
+
+    private void deliver(ByteBuffer payload) {
+        try {
+            listener.onFrame(payload);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ===================== ĐÓNG =====================
+
+    /**
+     * Đóng kết nối sau khi gửi hết các frame đang chờ.
+     */
+    public void close() {
+        loop.execute(() -> {
+            if (writeBuffer == null && currentFrame == null && outbound.isEmpty()) {
+                closeNow(null);
+            } else {
+                closeAfterFlush = true;
+                enableWrite();
+            }
+        });
+    }
+
+    /**
+     * Đóng ngay, bỏ các frame chưa gửi.
+     */
+    void closeNow(Exception cause) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (!loop.inEventLoop()) {
+            loop.execute(() -> release(cause));
+        } else {
+            release(cause);
+        }
+    }
+
+    private void release(Exception cause) {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Bỏ qua
+        }
+        pool.release(readBuffer);
+        pool.release(writeBuffer);
+        readBuffer = null;
+        writeBuffer = null;
+        currentFrame = null;
+        largeFrame = null;
+        longLine = null;
+        outbound.clear();
+        queuedBytes.set(0);
+        queuedFrames.set(0);
+
+        try {
+            listener.onClosed(cause);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Thời điểm (System.nanoTime()) nhận được dữ liệu gần nhất.
+     */
+    public long getLastReadNanos() {
+        return lastReadNanos;
+    }
+
+    /**
+     * false khi hàng đợi gửi đang vượt HIGH_WATER_MARK: người gửi nên tạm dừng các
+     * tin nhắn không quan trọng. send() vẫn nhận frame tới MAX_QUEUED_BYTES.
+     */
+    public boolean isWritable() {
+        return writableFlag;
+    }
+
+    /**
+     * Số byte đã đưa vào hàng đợi nhưng chưa ghi xuống socket.
+     */
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * Số frame đang chờ trong hàng đợi (không tính frame đã chép vào buffer ghi).
+     */
+    public int getQueuedFrames() {
+        return queuedFrames.get();
+    }
+
+    /**
+     * Số byte chờ gửi lớn nhất từng gặp trên kết nối này.
+     */
+    public long getPeakQueuedBytes() {
+        return peakQueuedBytes;
+    }
+
+    PeerEventLoop getEventLoop() {
+        return loop;
+    }
+
+    public boolean isOpen() {
+        return !closed.get();
+    }
+}
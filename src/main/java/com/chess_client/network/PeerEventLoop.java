@@ -0,0 +1,228 @@
+package com.chess_client.network;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Vòng lặp sự kiện NIO dùng chung cho mọi kết nối P2P: một Selector, một thread.
+ * Mọi thao tác đọc/ghi socket đều chạy trên thread này nên số thread không tăng
+ * theo số kết nối (nhiều ván, người xem...).
+ *
+ * Thread khác muốn thao tác với kết nối thì gửi task qua execute(); việc định kỳ
+ * (heartbeat, timeout) hẹn bằng schedule()/scheduleAtFixedRate().
+ */
+public final class PeerEventLoop implements Runnable {
+
+    private static PeerEventLoop defaultLoop;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<ScheduledTask> scheduled = new PriorityQueue<>(); // chỉ dùng trên thread loop
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private PeerEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public static synchronized PeerEventLoop getDefault() throws IOException {
+        if (defaultLoop == null || !defaultLoop.running) {
+            defaultLoop = new PeerEventLoop("peer-event-loop");
+        }
+        return defaultLoop;
+    }
+
+    /**
+     * Tạo một event loop riêng (dùng cho benchmark/test tải).
+     */
+    public static PeerEventLoop create(String name) throws IOException {
+        return new PeerEventLoop(name);
+    }
+
+    /**
+     * Chạy task trên thread của event loop.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Một việc đã hẹn giờ trên event loop.
+     */
+    public static final class ScheduledTask implements Comparable<ScheduledTask> {
+        private final Runnable task;
+        private final long periodNanos;
+        private long deadline;
+        private volatile boolean cancelled;
+
+        private ScheduledTask(Runnable task, long deadline, long periodNanos) {
+            this.task = task;
+            this.deadline = deadline;
+            this.periodNanos = periodNanos;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            return Long.compare(deadline, other.deadline);
+        }
+    }
+
+    /**
+     * Chạy task một lần trên thread của event loop sau {@code delayMillis} ms.
+     */
+    public ScheduledTask schedule(Runnable task, long delayMillis) {
+        return addScheduled(new ScheduledTask(task, System.nanoTime() + delayMillis * 1_000_000, 0));
+    }
+
+    /**
+     * Chạy task định kỳ mỗi {@code periodMillis} ms cho tới khi bị cancel().
+     */
+    public ScheduledTask scheduleAtFixedRate(Runnable task, long initialDelayMillis, long periodMillis) {
+        return addScheduled(new ScheduledTask(task, System.nanoTime() + initialDelayMillis * 1_000_000,
+                periodMillis * 1_000_000));
+    }
+
+    private ScheduledTask addScheduled(ScheduledTask scheduledTask) {
+        if (inEventLoop()) {
+            scheduled.add(scheduledTask);
+        } else {
+            execute(() -> scheduled.add(scheduledTask));
+        }
+        return scheduledTask;
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Đăng ký channel với selector. Chỉ gọi trên thread của event loop.
+     */
+    SelectionKey register(SelectableChannel channel, int ops, PeerConnection connection) throws ClosedChannelException {
+        return channel.register(selector, ops, connection);
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                runTasks();
+                long timeoutMillis = runScheduled();
+                // Task thêm từ chính thread này (trong lúc xử lý key) không gọi wakeup()
+                // nên không được chặn ở select() khi hàng đợi còn task
+                if (!tasks.isEmpty()) {
+                    selector.selectNow();
+                } else if (timeoutMillis > 0) {
+                    selector.select(timeoutMillis);
+                } else {
+                    selector.select();
+                }
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    processKey(key);
+                }
+            } catch (IOException e) {
+                System.err.println("[PeerEventLoop] Lỗi selector: " + e.getMessage());
+            }
+        }
+
+        // Đóng mọi kết nối còn lại khi dừng
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof PeerConnection connection) {
+                connection.closeNow(null);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void processKey(SelectionKey key) {
+        PeerConnection connection = (PeerConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable()) {
+                connection.handleRead();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.handleWrite();
+            }
+        } catch (IOException | RuntimeException e) {
+            connection.closeNow(e);
+        }
+    }
+
+    /**
+     * Chạy các việc hẹn giờ đã tới hạn.
+     *
+     * @return số ms tới việc hẹn giờ kế tiếp, 0 nếu không còn việc nào
+     */
+    private long runScheduled() {
+        long now = System.nanoTime();
+        ScheduledTask next;
+        while ((next = scheduled.peek()) != null) {
+            if (next.cancelled) {
+                scheduled.poll();
+                continue;
+            }
+            if (next.deadline > now) {
+                return Math.max(1, (next.deadline - now + 999_999) / 1_000_000);
+            }
+            scheduled.poll();
+            try {
+                next.task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            if (next.periodNanos > 0 && !next.cancelled) {
+                next.deadline += next.periodNanos;
+                if (next.deadline <= now) {
+                    next.deadline = now + next.periodNanos; // Bị trễ nhiều: không chạy bù dồn dập
+                }
+                scheduled.add(next);
+            }
+        }
+        return 0;
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
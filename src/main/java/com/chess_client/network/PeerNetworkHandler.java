@@ -1,29 +1,135 @@
 package com.chess_client.network;
 
 import com.chess_client.models.Move;
-import javafx.application.Platform;
+import com.chess_client.tasks.TaskScope;
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.net.ProtocolException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.HexFormat;
+import java.util.Objects;
 
 /**
  * Xử lý giao tiếp mạng P2P giữa hai client trong trận đấu.
  * Chịu trách nhiệm gửi/nhận nước đi, chat và các game actions.
+ *
+ * Kết nối chạy non-blocking trên PeerEventLoop dùng chung (không tạo thread riêng
+ * cho mỗi socket).
+ *
+ * Bắt tay lúc kết nối: ban đầu hai bên nói JSON theo từng dòng (giao thức cũ) và
+ * gửi {"type":"hello","protocol":N,"received":R}. Bên nào nhận được hello với
+ * protocol >= 1 thì gửi dòng {"type":"binary"} rồi chuyển chiều gửi sang WireProtocol
+ * (frame nhị phân). Peer cũ bỏ qua hai loại tin nhắn lạ này nên tiếp tục dùng JSON
+ * như trước.
+ *
+ * Với peer nhị phân, mọi tin nhắn được đánh số và giữ lại cho tới khi đối thủ ACK.
+ * Nếu kết nối rớt, PeerReconnector thiết lập lại socket; trong hello mới mỗi bên báo
+ * đã nhận tới đâu (R) để bên kia gửi lại phần còn thiếu, ván đấu tiếp tục bình thường.
+ *
+ * Bên chờ giữ PeerServer mở suốt ván nên bất kỳ máy nào trong LAN cũng kết nối tới được.
+ * Vì vậy trong hello đầu tiên bên chờ gửi kèm một mã phiên ngẫu nhiên ("session"); khi
+ * kết nối lại, bên chủ động phải gửi lại đúng mã phiên và mã ván ("game") trong hello
+ * của socket mới. Socket mới chỉ thay kết nối hiện tại sau khi hello đó được kiểm tra,
+ * sai hoặc không gửi hello trong HELLO_TIMEOUT_MILLIS thì bị đóng.
+ *
+ * Khi đã chuyển sang nhị phân, mỗi HEARTBEAT_INTERVAL_MILLIS gửi một PING; PONG trả về
+ * cho RTT (ghi vào RttHistogram, làm mượt để đánh giá chất lượng kết nối). Không nhận
+ * được gì trong IDLE_TIMEOUT_MILLIS thì coi như kết nối đã chết (kể cả khi TCP chưa báo
+ * lỗi) và chuyển sang kết nối lại.
+ *
+ * Việc chờ kết nối lại chạy trong TaskScope "peer" (virtual thread của BackgroundTasks),
+ * bị ngắt khi close().
  */
 public class PeerNetworkHandler {
 
-    private Socket peerSocket;
-    private BufferedReader peerIn;
-    private PrintWriter peerOut;
+    private static final long RECONNECT_TIMEOUT_MILLIS = 30_000;
+    private static final long ACCEPT_POLL_MILLIS = 1_000;
+    private static final long HELLO_TIMEOUT_MILLIS = 5_000;
+    private static final int PENDING = -1; // thế hệ của socket kết nối lại chưa được kiểm tra
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 2_000;
+    private static final long IDLE_TIMEOUT_MILLIS = 8_000;
+    private static final long GOOD_RTT_MILLIS = 150;
+    private static final long FAIR_RTT_MILLIS = 400;
 
-    // Callbacks
+    /**
+     * Trạng thái kết nối tới đối thủ.
+     */
+    public enum ConnectionState {
+        CONNECTED,
+        RECONNECTING,
+        DISCONNECTED
+    }
+
+    /**
+     * Chất lượng kết nối hiển thị cho người chơi.
+     */
+    public enum ConnectionQuality {
+        UNKNOWN, // chưa đo được (peer cũ không hỗ trợ ping)
+        GOOD,
+        FAIR,
+        POOR,
+        OFFLINE
+    }
+
+    // Mọi trạng thái chiều gửi được bảo vệ bởi sendLock: chọn kiểu mã hóa + đưa vào
+    // hàng đợi phải nguyên tử với việc chuyển sang nhị phân/đổi kết nối, nếu không một
+    // dòng JSON có thể lọt vào sau dòng "binary"
+    private final Object sendLock = new Object();
+    private PeerConnection connection;
+    private volatile int generation; // tăng mỗi lần gắn socket mới
+    private boolean binaryOutbound;
+    private boolean peerSupportsBinary;
+    private long nextSeq;
+
+    // Tin nhắn đã gửi nhưng đối thủ chưa ACK; phần tử đầu có seq = firstUnackedSeq
+    private final ArrayDeque<byte[]> unacked = new ArrayDeque<>();
+    private long firstUnackedSeq;
+
+    // Số tin nhắn nhị phân đã nhận liên tục (ghi trên thread của PeerEventLoop)
+    private volatile long receivedSeq;
+
+    private PeerReconnector reconnector;
+    // Mã ván và mã phiên để nhận ra đúng đối thủ khi kết nối lại (xem handleReconnectHello)
+    private String gameId;
+    private String sessionToken;
+    private final TaskScope tasks = new TaskScope("peer");
+    private volatile boolean closing;
+    private volatile boolean peerClosed;
+    private ConnectionState state = ConnectionState.CONNECTED;
+    private long disconnectedAt; // System.nanoTime() lúc rớt kết nối, 0 nếu đang kết nối
+
+    // Thống kê kết nối lại
+    private int reconnectCount;
+    private long lastReconnectMillis;
+    private long totalReconnectMillis;
+    private long replayedMessages;
+    private volatile long duplicateMessages;
+
+    // Đo RTT (heartbeat chạy trên thread của PeerEventLoop)
+    private final RttHistogram rttHistogram = new RttHistogram();
+    private volatile long smoothedRttNanos;
+    private long pingId;
+    private PeerEventLoop.ScheduledTask heartbeat; // bảo vệ bởi sendLock
+    private ConnectionQuality quality = ConnectionQuality.UNKNOWN;
+
+    // Hàng đợi gửi của các kết nối trước (đã thay khi kết nối lại), bảo vệ bởi sendLock
+    private long peakQueuedBytes;
+
+    // Callbacks (chạy trên thread JavaFX, gom theo lô qua dispatcher)
+    private final InboundDispatcher dispatcher;
     private OnMoveReceived onMoveReceived;
     private OnChatReceived onChatReceived;
     private OnGameActionReceived onGameActionReceived;
+    private OnConnectionStateChanged onConnectionStateChanged;
+    private OnConnectionQualityChanged onConnectionQualityChanged;
+    private OnBackPressureChanged onBackPressureChanged;
 
     /**
      * Callback khi nhận được nước đi từ đối thủ.
@@ -41,24 +147,69 @@ public class PeerNetworkHandler {
         void onGameAction(String action);
     }
 
+    public interface OnConnectionStateChanged {
+        void onStateChanged(ConnectionState state);
+    }
+
+    /**
+     * Gọi sau mỗi lần đo RTT và khi chất lượng kết nối thay đổi.
+     */
+    public interface OnConnectionQualityChanged {
+        void onQualityChanged(ConnectionQuality quality, long rttMillis);
+    }
+
+    /**
+     * Gọi khi hàng đợi gửi bị dồn (đối thủ/mạng không nhận kịp) và khi đã thông trở lại.
+     */
+    public interface OnBackPressureChanged {
+        void onBackPressureChanged(boolean congested, long queuedBytes);
+    }
+
     public PeerNetworkHandler() {
+        this(new InboundDispatcher());
     }
 
     /**
-     * Thiết lập socket P2P và bắt đầu lắng nghe tin nhắn.
+     * @param dispatcher nơi chạy các callback (mặc định: thread JavaFX)
+     */
+    public PeerNetworkHandler(InboundDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Thiết lập socket P2P và bắt đầu lắng nghe tin nhắn (không tự kết nối lại).
      */
     public void setPeerSocket(Socket socket) {
-        this.peerSocket = socket;
-        try {
-            this.peerIn = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            this.peerOut = new PrintWriter(socket.getOutputStream(), true);
+        setPeerSocket(socket, null);
+    }
 
-            // Bắt đầu thread lắng nghe
-            Thread listener = new Thread(this::listenForPeerMessages);
-            listener.setDaemon(true);
-            listener.start();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Thiết lập socket P2P; nếu có reconnector thì tự kết nối lại khi socket bị rớt.
+     */
+    public void setPeerSocket(Socket socket, PeerReconnector reconnector) {
+        setPeerSocket(socket, reconnector, null);
+    }
+
+    /**
+     * Thiết lập socket P2P của ván {@code gameId}; nếu có reconnector thì tự kết nối lại
+     * khi socket bị rớt. Socket kết nối lại phải báo đúng mã ván này.
+     */
+    public void setPeerSocket(Socket socket, PeerReconnector reconnector, String gameId) {
+        synchronized (sendLock) {
+            this.reconnector = reconnector;
+            this.gameId = gameId;
+            if (reconnector != null && reconnector.isAccepting()) {
+                byte[] token = new byte[16];
+                new SecureRandom().nextBytes(token);
+                sessionToken = HexFormat.of().formatHex(token);
+            }
+        }
+        attach(socket);
+
+        if (reconnector != null && reconnector.isAccepting()) {
+            // Bên chờ luôn sẵn sàng nhận kết nối mới: đối thủ có thể phát hiện rớt mạng
+            // trước mình (khi đó socket cũ ở đây vẫn tưởng còn sống)
+            tasks.run("reconnect-accept", this::acceptReconnections);
         }
     }
 
@@ -74,22 +225,39 @@ public class PeerNetworkHandler {
         this.onGameActionReceived = callback;
     }
 
+    public void setOnConnectionStateChanged(OnConnectionStateChanged callback) {
+        this.onConnectionStateChanged = callback;
+    }
+
+    public void setOnBackPressureChanged(OnBackPressureChanged callback) {
+        this.onBackPressureChanged = callback;
+    }
+
+    public void setOnConnectionQualityChanged(OnConnectionQualityChanged callback) {
+        this.onConnectionQualityChanged = callback;
+    }
+
     /**
      * Gửi nước đi đến đối thủ qua P2P.
      */
     public void sendMove(Move move) {
-        if (peerOut == null)
-            return;
-
         try {
-            JSONObject json = new JSONObject();
-            json.put("type", "move");
-            json.put("fromRow", move.getFromRow());
-            json.put("fromCol", move.getFromCol());
-            json.put("toRow", move.getToRow());
-            json.put("toCol", move.getToCol());
-            peerOut.println(json.toString());
-            peerOut.flush();
+            synchronized (sendLock) {
+                if (peerSupportsBinary) {
+                    sendReliable(WireProtocol.encodeMove(nextSeq++, move.toCode()));
+                    return;
+                }
+                if (connection == null)
+                    return;
+
+                JSONObject json = new JSONObject();
+                json.put("type", "move");
+                json.put("fromRow", move.getFromRow());
+                json.put("fromCol", move.getFromCol());
+                json.put("toRow", move.getToRow());
+                json.put("toCol", move.getToCol());
+                send(json);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -99,15 +267,20 @@ public class PeerNetworkHandler {
      * Gửi tin nhắn chat đến đối thủ.
      */
     public void sendChatMessage(String message) {
-        if (peerOut == null)
-            return;
-
         try {
-            JSONObject json = new JSONObject();
-            json.put("type", "chat");
-            json.put("message", message);
-            peerOut.println(json.toString());
-            peerOut.flush();
+            synchronized (sendLock) {
+                if (peerSupportsBinary) {
+                    sendReliable(WireProtocol.encodeChat(nextSeq++, message));
+                    return;
+                }
+                if (connection == null)
+                    return;
+
+                JSONObject json = new JSONObject();
+                json.put("type", "chat");
+                json.put("message", message);
+                send(json);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -117,95 +290,746 @@ public class PeerNetworkHandler {
      * Gửi game action (resign, offer_draw, accept_draw, reject_draw).
      */
     public void sendGameAction(String action) {
-        if (peerOut == null)
-            return;
-
         try {
-            JSONObject json = new JSONObject();
-            json.put("type", "game_action");
-            json.put("action", action);
-            peerOut.println(json.toString());
-            peerOut.flush();
+            synchronized (sendLock) {
+                if (peerSupportsBinary) {
+                    sendReliable(WireProtocol.encodeGameAction(nextSeq++, action));
+                    return;
+                }
+                if (connection == null)
+                    return;
+
+                JSONObject json = new JSONObject();
+                json.put("type", "game_action");
+                json.put("action", action);
+                send(json);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    private void send(JSONObject json) {
+        connection.send(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giữ tin nhắn tới khi được ACK; gửi ngay nếu kết nối đang sẵn sàng, nếu không
+     * (đang kết nối lại) thì sẽ gửi sau bắt tay. Gọi khi đang giữ sendLock.
+     */
+    private void sendReliable(byte[] frame) {
+        unacked.addLast(frame);
+        if (binaryOutbound) {
+            connection.send(frame);
+        }
+    }
+
+    /**
+     * Đối thủ đã nhận liên tục {@code received} tin nhắn: bỏ chúng khỏi bộ đệm gửi lại.
+     * Gọi khi đang giữ sendLock.
+     */
+    private void acknowledge(long received) {
+        while (firstUnackedSeq < received && !unacked.isEmpty()) {
+            unacked.pollFirst();
+            firstUnackedSeq++;
+        }
+    }
+
+    // ===================== KẾT NỐI / KẾT NỐI LẠI =====================
+
+    /**
+     * Gắn một socket mới (lần đầu hoặc bên chủ động kết nối lại), thay kết nối cũ nếu có.
+     */
+    private void attach(Socket socket) {
+        synchronized (sendLock) {
+            ConnectionListener listener = new ConnectionListener(++generation);
+            try {
+                listener.connection = PeerConnection.open(socket, PeerConnection.Framing.LINE, listener);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            install(listener);
+        }
+    }
+
     /**
-     * Lắng nghe tin nhắn từ đối thủ ở thread riêng.
+     * Dùng kết nối của {@code listener} (thế hệ đã gán = generation) thay cho kết nối hiện
+     * tại rồi gửi hello. Gọi khi đang giữ sendLock.
      */
-    private void listenForPeerMessages() {
-        if (peerIn == null)
+    private void install(ConnectionListener listener) {
+        PeerConnection previous = connection;
+        connection = listener.connection;
+        binaryOutbound = false;
+        stopHeartbeat();
+        if (previous != null) {
+            peakQueuedBytes = Math.max(peakQueuedBytes, previous.getPeakQueuedBytes());
+            if (disconnectedAt == 0) {
+                // Đối thủ kết nối lại trước khi bên này kịp phát hiện socket cũ đã chết
+                disconnectedAt = System.nanoTime();
+            }
+            previous.close();
+        }
+        if (connection == null) {
             return;
+        }
+
+        JSONObject hello = new JSONObject();
+        hello.put("type", "hello");
+        hello.put("protocol", WireProtocol.VERSION);
+        hello.put("received", receivedSeq);
+        if (gameId != null) {
+            hello.put("game", gameId);
+        }
+        if (sessionToken != null) {
+            hello.put("session", sessionToken);
+        }
+        send(hello);
+    }
 
+    /**
+     * Bên chờ: mở socket kết nối lại nhưng chưa dùng tới khi hello đầu tiên của nó được
+     * kiểm tra (handleReconnectHello); quá HELLO_TIMEOUT_MILLIS thì đóng.
+     */
+    private void acceptPending(Socket socket) {
+        ConnectionListener listener = new ConnectionListener(PENDING);
+        PeerConnection pending;
+        synchronized (sendLock) {
+            try {
+                pending = PeerConnection.open(socket, PeerConnection.Framing.LINE, listener);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+            listener.connection = pending;
+        }
+        pending.getEventLoop().schedule(() -> {
+            if (listener.gen == PENDING) {
+                pending.closeNow(new IOException("Socket kết nối lại không gửi hello"));
+            }
+        }, HELLO_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Dòng đầu tiên của socket kết nối lại (chạy trên thread của PeerEventLoop): chỉ khi là
+     * hello đúng mã ván và mã phiên mới thay kết nối hiện tại, nếu không thì đóng socket.
+     */
+    private void handleReconnectHello(ConnectionListener listener, String text) {
+        JSONObject hello;
         try {
-            String line;
-            while ((line = peerIn.readLine()) != null) {
-                try {
-                    JSONObject json = new JSONObject(line);
-                    String type = json.optString("type");
-
-                    switch (type) {
-                        case "move" -> handleReceivedMove(json);
-                        case "chat" -> handleReceivedChat(json);
-                        case "game_action" -> handleReceivedGameAction(json);
+            hello = new JSONObject(text);
+        } catch (JSONException e) {
+            hello = null;
+        }
+        synchronized (sendLock) {
+            if (closing || hello == null || !"hello".equals(hello.optString("type")) || !isSameSession(hello)) {
+                System.err.println("[PeerNetworkHandler] Từ chối kết nối lại không đúng phiên");
+                listener.connection.closeNow(null);
+                return;
+            }
+            listener.gen = ++generation;
+            install(listener);
+        }
+        handleHello(hello);
+    }
+
+    private boolean isSameSession(JSONObject hello) {
+        String session = hello.optString("session", "");
+        return sessionToken != null
+                && Objects.equals(gameId, hello.optString("game", null))
+                && MessageDigest.isEqual(sessionToken.getBytes(StandardCharsets.UTF_8),
+                        session.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Kết nối của thế hệ {@code gen} đã đóng: nếu là kết nối hiện tại và đối thủ hỗ trợ
+     * gửi lại thì bắt đầu kết nối lại.
+     */
+    private void connectionClosed(int gen, Exception cause) {
+        synchronized (sendLock) {
+            if (gen != generation) {
+                return; // Kết nối cũ đã được thay bằng kết nối mới
+            }
+            connection = null;
+            binaryOutbound = false;
+            stopHeartbeat();
+
+            if (cause != null) {
+                System.err.println("[PeerNetworkHandler] Mất kết nối: " + cause.getMessage());
+            }
+            if (closing || peerClosed || !peerSupportsBinary || reconnector == null) {
+                setState(ConnectionState.DISCONNECTED);
+                return;
+            }
+            if (disconnectedAt == 0) {
+                disconnectedAt = System.nanoTime();
+            }
+            setState(ConnectionState.RECONNECTING);
+        }
+
+        if (!reconnector.isAccepting()) {
+            tasks.run("reconnect", this::reconnect);
+        }
+        // Bên chờ: task acceptReconnections đang chờ sẵn kết nối mới
+    }
+
+    /**
+     * Bên chủ động: kết nối lại tới đối thủ cho tới khi hết hạn.
+     */
+    private void reconnect() {
+        try {
+            long elapsedMillis;
+            synchronized (sendLock) {
+                elapsedMillis = (System.nanoTime() - disconnectedAt) / 1_000_000;
+            }
+            Socket socket = reconnector.reconnect(Math.max(0, RECONNECT_TIMEOUT_MILLIS - elapsedMillis));
+            if (socket == null) {
+                giveUp();
+            } else if (closing) {
+                socket.close();
+            } else {
+                attach(socket);
+            }
+        } catch (InterruptedException e) {
+            // Bị ngắt bởi close()
+            Thread.currentThread().interrupt();
+            if (!closing) {
+                giveUp();
+            }
+        } catch (IOException e) {
+            if (!closing) {
+                e.printStackTrace();
+                giveUp();
+            }
+        }
+    }
+
+    /**
+     * Bên chờ: nhận mọi kết nối mới trong suốt ván; chỉ kết nối của đúng đối thủ (xem
+     * handleReconnectHello) mới được dùng.
+     */
+    private void acceptReconnections() {
+        while (!closing) {
+            try {
+                Socket socket = reconnector.reconnect(ACCEPT_POLL_MILLIS);
+                if (socket != null) {
+                    if (closing) {
+                        socket.close();
+                        break;
                     }
-                } catch (Exception parseEx) {
-                    parseEx.printStackTrace();
+                    acceptPending(socket);
+                    continue;
                 }
+
+                boolean expired;
+                synchronized (sendLock) {
+                    expired = disconnectedAt != 0
+                            && System.nanoTime() - disconnectedAt > RECONNECT_TIMEOUT_MILLIS * 1_000_000;
+                }
+                if (expired) {
+                    giveUp();
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                if (!closing) {
+                    e.printStackTrace();
+                }
+                break;
             }
-        } catch (IOException e) {
+        }
+    }
+
+    private void giveUp() {
+        System.err.println("[PeerNetworkHandler] Không thể kết nối lại với đối thủ");
+        synchronized (sendLock) {
+            disconnectedAt = 0;
+            setState(ConnectionState.DISCONNECTED);
+        }
+        reconnector.close();
+    }
+
+    private void setState(ConnectionState newState) {
+        if (state == newState) {
+            return;
+        }
+        state = newState;
+        if (onConnectionStateChanged != null) {
+            dispatcher.post(() -> onConnectionStateChanged.onStateChanged(newState));
+        }
+        updateQuality(false);
+    }
+
+    // ===================== HEARTBEAT / RTT =====================
+
+    /**
+     * Bắt đầu gửi PING định kỳ trên kết nối hiện tại. Gọi khi đang giữ sendLock.
+     */
+    private void startHeartbeat() {
+        stopHeartbeat();
+        PeerConnection current = connection;
+        int gen = generation;
+        heartbeat = current.getEventLoop().scheduleAtFixedRate(() -> heartbeat(gen, current),
+                HEARTBEAT_INTERVAL_MILLIS, HEARTBEAT_INTERVAL_MILLIS);
+    }
+
+    private void stopHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.cancel();
+            heartbeat = null;
+        }
+    }
+
+    /**
+     * Chạy trên thread của PeerEventLoop mỗi HEARTBEAT_INTERVAL_MILLIS.
+     */
+    private void heartbeat(int gen, PeerConnection current) {
+        if (gen != generation || !current.isOpen()) {
+            return;
+        }
+        long idleMillis = (System.nanoTime() - current.getLastReadNanos()) / 1_000_000;
+        if (idleMillis > IDLE_TIMEOUT_MILLIS) {
+            // TCP có thể không báo lỗi hàng phút khi mạng rớt im lặng
+            System.err.println("[PeerNetworkHandler] Không nhận được dữ liệu từ đối thủ trong " + idleMillis + " ms");
+            current.closeNow(new IOException("Hết thời gian chờ đối thủ (" + idleMillis + " ms)"));
+            return;
+        }
+        synchronized (sendLock) {
+            if (binaryOutbound && connection == current) {
+                current.send(WireProtocol.encodePing(++pingId, System.nanoTime()));
+            }
+            updateQuality(false);
+        }
+    }
+
+    private void handlePong(WireProtocol.Message message) {
+        long rttNanos = System.nanoTime() - message.getTimestamp();
+        if (rttNanos < 0) {
+            return;
+        }
+        rttHistogram.record(rttNanos);
+        // Làm mượt như SRTT của TCP (hệ số 1/8) để một gói trễ không làm nhảy chất lượng
+        long smoothed = smoothedRttNanos;
+        smoothedRttNanos = smoothed == 0 ? rttNanos : smoothed + (rttNanos - smoothed) / 8;
+        synchronized (sendLock) {
+            updateQuality(true);
+        }
+    }
+
+    /**
+     * Tính lại chất lượng kết nối; báo cho UI nếu thay đổi (hoặc luôn báo nếu
+     * {@code always}). Gọi khi đang giữ sendLock.
+     */
+    private void updateQuality(boolean always) {
+        ConnectionQuality newQuality = computeQuality();
+        if (newQuality == quality && !always) {
+            return;
+        }
+        quality = newQuality;
+        if (onConnectionQualityChanged != null) {
+            long rttMillis = smoothedRttNanos / 1_000_000;
+            dispatcher.post(() -> onConnectionQualityChanged.onQualityChanged(newQuality, rttMillis));
+        }
+    }
+
+    private ConnectionQuality computeQuality() {
+        if (state != ConnectionState.CONNECTED) {
+            return ConnectionQuality.OFFLINE;
+        }
+        if (!binaryOutbound || smoothedRttNanos == 0) {
+            return ConnectionQuality.UNKNOWN;
+        }
+        long idleMillis = (System.nanoTime() - connection.getLastReadNanos()) / 1_000_000;
+        if (idleMillis > 2 * HEARTBEAT_INTERVAL_MILLIS || !connection.isWritable()) {
+            return ConnectionQuality.POOR; // PONG về trễ hơn 2 chu kỳ
+        }
+        long rttMillis = smoothedRttNanos / 1_000_000;
+        if (rttMillis < GOOD_RTT_MILLIS) {
+            return ConnectionQuality.GOOD;
+        }
+        return rttMillis < FAIR_RTT_MILLIS ? ConnectionQuality.FAIR : ConnectionQuality.POOR;
+    }
+
+    // ===================== NHẬN =====================
+
+    /**
+     * Listener riêng cho từng socket: sự kiện từ socket cũ (đã bị thay) bị bỏ qua.
+     */
+    private class ConnectionListener implements PeerConnection.Listener {
+        private volatile int gen;
+        private boolean binaryInbound;
+        // Kết nối của listener này (gán khi đang giữ sendLock, ngay sau khi mở)
+        private PeerConnection connection;
+
+        ConnectionListener(int gen) {
+            this.gen = gen;
+        }
+
+        @Override
+        public void onFrame(ByteBuffer payload) {
+            if (gen == PENDING) {
+                handleReconnectHello(this, StandardCharsets.UTF_8.decode(payload).toString());
+                return;
+            }
+            if (gen != generation) {
+                return;
+            }
+            if (binaryInbound) {
+                handleBinaryMessage(this, payload);
+            } else {
+                handleMessage(this, StandardCharsets.UTF_8.decode(payload).toString());
+            }
+        }
+
+        @Override
+        public void onClosed(Exception cause) {
+            connectionClosed(gen, cause);
+        }
+
+        @Override
+        public void onWritabilityChanged(boolean writable) {
+            if (gen != generation) {
+                return;
+            }
+            long queued;
+            synchronized (sendLock) {
+                updateQuality(false);
+                queued = connection.getQueuedBytes();
+            }
+            if (onBackPressureChanged != null) {
+                dispatcher.post(() -> onBackPressureChanged.onBackPressureChanged(!writable, queued));
+            }
+        }
+    }
+
+    /**
+     * Xử lý một tin nhắn JSON nhận được (chạy trên thread của PeerEventLoop).
+     */
+    private void handleMessage(ConnectionListener listener, String text) {
+        try {
+            JSONObject json = new JSONObject(text);
+            String type = json.optString("type");
+
+            switch (type) {
+                case "hello" -> handleHello(json);
+                case "binary" -> {
+                    // Mọi thứ sau dòng này là frame nhị phân. Đổi framing trên chính kết nối
+                    // đã nhận dòng này: kết nối hiện tại có thể đã là một socket mới hơn
+                    synchronized (sendLock) {
+                        listener.connection.setInboundFraming(PeerConnection.Framing.LENGTH_PREFIXED);
+                    }
+                    listener.binaryInbound = true;
+                }
+                case "move" -> handleReceivedMove(json);
+                case "chat" -> handleReceivedChat(json);
+                case "game_action" -> handleReceivedGameAction(json);
+            }
+        } catch (Exception parseEx) {
+            parseEx.printStackTrace();
+        }
+    }
+
+    /**
+     * Đối thủ báo phiên bản giao thức: nếu hỗ trợ nhị phân thì báo cho đối thủ, chuyển
+     * chiều gửi sang WireProtocol rồi gửi lại các tin nhắn đối thủ chưa nhận được.
+     */
+    private void handleHello(JSONObject json) {
+        if (json.optInt("protocol", 0) < 1) {
+            return;
+        }
+        synchronized (sendLock) {
+            if (binaryOutbound || connection == null) {
+                return;
+            }
+            peerSupportsBinary = true;
+            acknowledge(json.optLong("received", 0));
+            if (sessionToken == null) {
+                // Bên chủ động: giữ mã phiên của bên chờ để gửi lại khi kết nối lại
+                sessionToken = json.optString("session", null);
+            }
+
+            JSONObject ack = new JSONObject();
+            ack.put("type", "binary");
+            ack.put("protocol", WireProtocol.VERSION);
+            send(ack);
+            connection.setOutboundFraming(PeerConnection.Framing.LENGTH_PREFIXED);
+            binaryOutbound = true;
+
+            for (byte[] frame : unacked) {
+                connection.send(frame);
+            }
+            startHeartbeat();
+
+            if (disconnectedAt != 0) {
+                lastReconnectMillis = (System.nanoTime() - disconnectedAt) / 1_000_000;
+                totalReconnectMillis += lastReconnectMillis;
+                reconnectCount++;
+                replayedMessages += unacked.size();
+                disconnectedAt = 0;
+                System.err.println("[PeerNetworkHandler] Đã kết nối lại sau " + lastReconnectMillis
+                        + " ms, gửi lại " + unacked.size() + " tin nhắn");
+            }
+            setState(ConnectionState.CONNECTED);
+        }
+    }
+
+    /**
+     * Xử lý một frame nhị phân (chạy trên thread của PeerEventLoop).
+     */
+    private void handleBinaryMessage(ConnectionListener listener, ByteBuffer payload) {
+        try {
+            WireProtocol.Message message = WireProtocol.decode(payload);
+            switch (message.getType()) {
+                case WireProtocol.TYPE_ACK -> {
+                    synchronized (sendLock) {
+                        acknowledge(message.getSeq());
+                    }
+                    return;
+                }
+                case WireProtocol.TYPE_BYE -> {
+                    peerClosed = true;
+                    return;
+                }
+                case WireProtocol.TYPE_PING -> {
+                    synchronized (sendLock) {
+                        if (binaryOutbound) {
+                            connection.send(WireProtocol.encodePong(message.getSeq(), message.getTimestamp()));
+                        }
+                    }
+                    return;
+                }
+                case WireProtocol.TYPE_PONG -> {
+                    handlePong(message);
+                    return;
+                }
+            }
+
+            long seq = message.getSeq();
+            if (seq < receivedSeq) {
+                // Gửi lại sau khi kết nối lại nhưng đã nhận trước đó (ACK bị mất)
+                duplicateMessages++;
+                sendAck();
+                return;
+            }
+            if (seq > receivedSeq) {
+                // Mất tin nhắn ở giữa: không nhận và không ACK vượt qua chỗ thiếu (bên gửi sẽ
+                // bỏ các tin nhắn đó khỏi bộ đệm). Đóng kết nối để kết nối lại; hello mới báo
+                // receivedSeq nên đối thủ gửi lại từ tin nhắn còn thiếu
+                System.err.println("[PeerNetworkHandler] Thiếu tin nhắn: nhận " + seq + ", chờ " + receivedSeq
+                        + ", kết nối lại");
+                synchronized (sendLock) {
+                    listener.connection.closeNow(new ProtocolException("Thiếu tin nhắn " + receivedSeq));
+                }
+                return;
+            }
+            receivedSeq = seq + 1;
+            sendAck();
+
+            switch (message.getType()) {
+                case WireProtocol.TYPE_MOVE -> {
+                    int from = message.getMoveCode() & 0x3F;
+                    int to = (message.getMoveCode() >> 6) & 0x3F;
+                    dispatchMove(from / 8, from % 8, to / 8, to % 8);
+                }
+                case WireProtocol.TYPE_CHAT -> dispatchChat(message.getText());
+                case WireProtocol.TYPE_GAME_ACTION -> dispatchGameAction(message.getText());
+            }
+        } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    private void sendAck() {
+        synchronized (sendLock) {
+            if (binaryOutbound) {
+                connection.send(WireProtocol.encodeAck(receivedSeq));
+            }
+        }
+    }
+
     private void handleReceivedMove(JSONObject json) {
+        dispatchMove(json.getInt("fromRow"), json.getInt("fromCol"), json.getInt("toRow"), json.getInt("toCol"));
+    }
+
+    private void handleReceivedChat(JSONObject json) {
+        dispatchChat(json.getString("message"));
+    }
+
+    private void handleReceivedGameAction(JSONObject json) {
+        dispatchGameAction(json.getString("action"));
+    }
+
+    private void dispatchMove(int fromRow, int fromCol, int toRow, int toCol) {
         if (onMoveReceived == null)
             return;
 
-        int fromRow = json.getInt("fromRow");
-        int fromCol = json.getInt("fromCol");
-        int toRow = json.getInt("toRow");
-        int toCol = json.getInt("toCol");
-
         // Pass thông tin row/col về GameController, nơi sẽ lấy Piece từ board
-        Platform.runLater(() -> {
+        dispatcher.post(() -> {
             if (onMoveReceived != null) {
                 onMoveReceived.onMove(fromRow, fromCol, toRow, toCol);
             }
         });
     }
 
-    private void handleReceivedChat(JSONObject json) {
+    private void dispatchChat(String message) {
         if (onChatReceived == null)
             return;
 
-        String message = json.getString("message");
-        Platform.runLater(() -> onChatReceived.onChat(message));
+        dispatcher.post(() -> onChatReceived.onChat(message));
     }
 
-    private void handleReceivedGameAction(JSONObject json) {
+    private void dispatchGameAction(String action) {
         if (onGameActionReceived == null)
             return;
 
-        String action = json.getString("action");
-        Platform.runLater(() -> onGameActionReceived.onGameAction(action));
+        dispatcher.post(() -> onGameActionReceived.onGameAction(action));
+    }
+
+    // ===================== THỐNG KÊ =====================
+
+    public ConnectionState getConnectionState() {
+        synchronized (sendLock) {
+            return state;
+        }
+    }
+
+    public int getReconnectCount() {
+        synchronized (sendLock) {
+            return reconnectCount;
+        }
+    }
+
+    /**
+     * Thời gian (ms) từ lúc rớt kết nối tới khi bắt tay lại xong, của lần gần nhất.
+     */
+    public long getLastReconnectMillis() {
+        synchronized (sendLock) {
+            return lastReconnectMillis;
+        }
+    }
+
+    public long getTotalReconnectMillis() {
+        synchronized (sendLock) {
+            return totalReconnectMillis;
+        }
+    }
+
+    /**
+     * Tổng số tin nhắn đã gửi lại sau khi kết nối lại.
+     */
+    public long getReplayedMessages() {
+        synchronized (sendLock) {
+            return replayedMessages;
+        }
+    }
+
+    /**
+     * Số tin nhắn nhận trùng (đã nhận trước khi rớt kết nối) và bị bỏ qua.
+     */
+    public long getDuplicateMessages() {
+        return duplicateMessages;
+    }
+
+    public ConnectionQuality getConnectionQuality() {
+        synchronized (sendLock) {
+            return quality;
+        }
+    }
+
+    /**
+     * RTT đã làm mượt (ms), 0 nếu chưa đo được.
+     */
+    public long getSmoothedRttMillis() {
+        return smoothedRttNanos / 1_000_000;
+    }
+
+    /**
+     * Phân bố RTT cả phiên (p50/p99...), dùng để chẩn đoán phàn nàn "đối thủ lag".
+     */
+    public RttHistogram getRttHistogram() {
+        return rttHistogram;
     }
 
     /**
-     * Đóng kết nối network.
+     * false khi hàng đợi gửi đang bị dồn (xem PeerConnection.HIGH_WATER_MARK).
+     */
+    public boolean isWritable() {
+        synchronized (sendLock) {
+            return connection == null || connection.isWritable();
+        }
+    }
+
+    /**
+     * Số byte đang chờ ghi xuống socket hiện tại.
+     */
+    public long getOutboundQueueBytes() {
+        synchronized (sendLock) {
+            return connection == null ? 0 : connection.getQueuedBytes();
+        }
+    }
+
+    public int getOutboundQueueFrames() {
+        synchronized (sendLock) {
+            return connection == null ? 0 : connection.getQueuedFrames();
+        }
+    }
+
+    /**
+     * Số byte chờ gửi lớn nhất trong cả phiên (kể cả các socket trước khi kết nối lại).
+     */
+    public long getPeakOutboundQueueBytes() {
+        synchronized (sendLock) {
+            return connection == null ? peakQueuedBytes : Math.max(peakQueuedBytes, connection.getPeakQueuedBytes());
+        }
+    }
+
+    /**
+     * Thống kê chuyển sự kiện sang thread JavaFX (số sự kiện mỗi lượt, thời gian chờ).
+     */
+    public InboundDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public int getUnackedMessages() {
+        synchronized (sendLock) {
+            return unacked.size();
+        }
+    }
+
+    /**
+     * Đóng kết nối network (các tin nhắn đang chờ vẫn được gửi nốt) và ngừng kết nối lại.
      */
     public void close() {
-        try {
-            if (peerIn != null)
-                peerIn.close();
-            if (peerOut != null)
-                peerOut.close();
-            if (peerSocket != null && !peerSocket.isClosed()) {
-                peerSocket.close();
+        closing = true;
+        synchronized (sendLock) {
+            stopHeartbeat();
+            if (connection != null) {
+                if (binaryOutbound) {
+                    connection.send(WireProtocol.encodeBye());
+                }
+                connection.close();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+        }
+        if (reconnector != null) {
+            reconnector.close();
+        }
+        tasks.cancel();
+        if (Boolean.getBoolean("PEER_STATS")) {
+            printStats();
+        }
+    }
+
+    /**
+     * Thống kê RTT, hàng đợi gửi và dispatcher của phiên; chỉ in khi chạy với -DPEER_STATS=true.
+     */
+    private void printStats() {
+        if (rttHistogram.getCount() > 0) {
+            System.err.println("[PeerNetworkHandler] RTT phiên chơi: " + rttHistogram
+                    + ", hàng đợi gửi tối đa " + getPeakOutboundQueueBytes() + " byte");
+        }
+        if (dispatcher.getEventCount() > 0) {
+            System.err.println("[PeerNetworkHandler] Sự kiện nhận: " + dispatcher);
         }
     }
 }
@@ -0,0 +1,88 @@
+package com.chess_client.network;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Cách thiết lập lại socket P2P khi kết nối bị rớt giữa ván.
+ *
+ * - Bên chờ (đã mở PeerServer): giữ server lắng nghe suốt ván và nhận kết nối mới.
+ * - Bên chủ động (PeerClient): kết nối lại tới ip/port của đối thủ, thử lại với
+ *   thời gian chờ tăng dần cho tới khi thành công hoặc hết hạn.
+ */
+public final class PeerReconnector {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 3_000;
+    private static final long INITIAL_BACKOFF_MILLIS = 200;
+    private static final long MAX_BACKOFF_MILLIS = 3_000;
+
+    private final PeerServer server;
+    private final String ip;
+    private final int port;
+
+    private PeerReconnector(PeerServer server, String ip, int port) {
+        this.server = server;
+        this.ip = ip;
+        this.port = port;
+    }
+
+    /**
+     * Bên đã mở server: kết nối lại bằng cách nhận kết nối mới trên server đó.
+     */
+    public static PeerReconnector accepting(PeerServer server) {
+        return new PeerReconnector(server, null, 0);
+    }
+
+    /**
+     * Bên chủ động kết nối: kết nối lại tới đúng địa chỉ của đối thủ.
+     */
+    public static PeerReconnector connecting(String ip, int port) {
+        return new PeerReconnector(null, ip, port);
+    }
+
+    public boolean isAccepting() {
+        return server != null;
+    }
+
+    /**
+     * Lấy một socket mới tới đối thủ, chờ tối đa {@code timeoutMillis} ms.
+     *
+     * @return socket mới, hoặc null nếu hết thời gian
+     * @throws IOException nếu server đã đóng (bên chờ)
+     */
+    public Socket reconnect(long timeoutMillis) throws IOException, InterruptedException {
+        if (server != null) {
+            return server.waitForOpponent((int) Math.max(1, timeoutMillis));
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        PeerClient client = new PeerClient();
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            try {
+                return client.connectToOpponent(ip, port, (int) Math.min(CONNECT_TIMEOUT_MILLIS, remaining));
+            } catch (IOException e) {
+                System.err.println("[PeerReconnector] Kết nối lại thất bại: " + e.getMessage());
+            }
+            Thread.sleep(Math.min(backoff, Math.max(0, deadline - System.currentTimeMillis())));
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    /**
+     * Ngừng chờ kết nối lại (đóng server nếu là bên chờ).
+     */
+    public void close() {
+        if (server != null) {
+            try {
+                server.stop();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.chess_client.network;
 
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 /**
  * Server socket phía client để chờ đối thủ kết nối P2P trong LAN.
+ * Socket trả về gắn với SocketChannel để PeerNetworkHandler chạy được trên PeerEventLoop.
  */
 public class PeerServer {
-    private ServerSocket serverSocket;
+    private final TransportProfile profile;
+    private ServerSocketChannel serverChannel;
+
+    public PeerServer() {
+        this(TransportProfile.getDefault());
+    }
+
+    public PeerServer(TransportProfile profile) {
+        this.profile = profile;
+    }
 
     /**
      * Bắt đầu lắng nghe trên một port.
@@ -18,23 +31,56 @@ public class PeerServer {
      * @return port thực tế được sử dụng
      */
     public int start(int port) throws IOException {
-        serverSocket = new ServerSocket(port);
-        return serverSocket.getLocalPort();
+        serverChannel = ServerSocketChannel.open();
+        profile.applyTo(serverChannel);
+        serverChannel.bind(new InetSocketAddress(port));
+        return serverChannel.socket().getLocalPort();
     }
 
     /**
      * Chờ đối thủ kết nối. Gọi hàm này ở thread riêng vì sẽ block.
      */
     public Socket waitForOpponent() throws IOException {
-        if (serverSocket == null) {
+        if (serverChannel == null) {
             throw new IllegalStateException("Server socket chưa được start");
         }
-        return serverSocket.accept();
+        return configure(serverChannel.accept());
+    }
+
+    /**
+     * Chờ đối thủ kết nối tối đa {@code timeoutMillis} ms.
+     *
+     * @return socket mới, hoặc null nếu hết thời gian chờ
+     */
+    public Socket waitForOpponent(int timeoutMillis) throws IOException {
+        if (serverChannel == null) {
+            throw new IllegalStateException("Server socket chưa được start");
+        }
+        serverChannel.socket().setSoTimeout(timeoutMillis);
+        try {
+            return configure(serverChannel.socket().accept().getChannel());
+        } catch (SocketTimeoutException e) {
+            return null;
+        }
+    }
+
+    private Socket configure(SocketChannel channel) throws IOException {
+        try {
+            profile.applyTo(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel.socket();
+    }
+
+    public boolean isRunning() {
+        return serverChannel != null && serverChannel.isOpen();
     }
 
     public void stop() throws IOException {
-        if (serverSocket != null && !serverSocket.isClosed()) {
-            serverSocket.close();
+        if (serverChannel != null && serverChannel.isOpen()) {
+            serverChannel.close();
         }
     }
 }
@@ -1,18 +1,19 @@
 package com.chess_client.network;
 
+import com.chess_client.services.ApiClient;
+import com.chess_client.services.ServerEvents;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Gọi API matchmaking trên server để ghép trận P2P.
+ * Gọi API matchmaking trên server để ghép trận P2P (qua HttpClient dùng chung ApiClient).
  */
 public class PeerService {
     private final String baseUrl; // ví dụ: "http://192.168.1.10:3000/api/matchmaking"
@@ -31,62 +32,78 @@ public class PeerService {
      * @return JSON response từ server
      */
     public JSONObject joinMatchmaking(int socketPort) throws IOException {
-        URL url = new URL(baseUrl + "/join");
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.setRequestProperty("Authorization", "Bearer " + jwtToken);
-        conn.setDoOutput(true);
-
         JSONObject body = new JSONObject();
         body.put("socketPort", socketPort);
 
-        try (OutputStream os = conn.getOutputStream()) {
-            os.write(body.toString().getBytes(StandardCharsets.UTF_8));
-        }
-
-        int status = conn.getResponseCode();
-        System.out.println("[PeerService] joinMatchmaking status = " + status);
-        InputStream is = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
-
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
-            }
-            String bodyText = sb.toString();
-            System.out.println("[PeerService] joinMatchmaking body = " + bodyText);
-            JSONObject json = bodyText.isEmpty() ? new JSONObject() : new JSONObject(bodyText);
-            json.put("statusCode", status);
-            return json;
-        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/join"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + jwtToken)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        return send(request, "joinMatchmaking");
     }
 
     /**
      * Kiểm tra trạng thái ghép trận hiện tại cho user (dựa trên JWT).
      */
     public JSONObject checkMatchStatus() throws IOException {
-        URL url = new URL(baseUrl + "/status");
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Authorization", "Bearer " + jwtToken);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/status"))
+                .header("Authorization", "Bearer " + jwtToken)
+                .GET()
+                .build();
+        return send(request, "checkMatchStatus");
+    }
 
-        int status = conn.getResponseCode();
-        System.out.println("[PeerService] checkMatchStatus status = " + status);
-        InputStream is = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
+    /**
+     * Mở luồng sự kiện ghép trận (SSE {baseUrl}/events) và chờ event "match", có data giống
+     * response "Match Found!" của /status. Nên mở trước joinMatchmaking() để không lỡ event.
+     */
+    public CompletableFuture<JSONObject> subscribeMatchEvents() {
+        return ServerEvents.awaitEvent(() -> HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/events"))
+                .header("Authorization", "Bearer " + jwtToken), "match");
+    }
 
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
+    /**
+     * Chờ được ghép trận sau khi joinMatchmaking() trả 202: nhận trận ngay khi server đẩy
+     * event "match" qua {@code matchEvents}, vẫn hỏi /status mỗi 5 giây phòng lỡ event;
+     * server không có luồng sự kiện thì hỏi /status mỗi giây như trước.
+     *
+     * @return JSON trận đấu (statusCode 200), JSON của /status nếu không còn trong hàng
+     *         đợi (statusCode 404), hoặc null nếu hết {@code timeout}
+     */
+    public JSONObject awaitMatch(CompletableFuture<JSONObject> matchEvents, Duration timeout) throws Exception {
+        JSONObject result = ServerEvents.awaitPushOrPoll(matchEvents, () -> {
+            JSONObject status = checkMatchStatus();
+            int st = status.optInt("statusCode", 0);
+            if ((st == 200 && "Match Found!".equals(status.optString("message"))) || st == 404) {
+                return status;
             }
-            String bodyText = sb.toString();
-            System.out.println("[PeerService] checkMatchStatus body = " + bodyText);
-            JSONObject json = bodyText.isEmpty() ? new JSONObject() : new JSONObject(bodyText);
-            json.put("statusCode", status);
-            return json;
+            return null;
+        }, timeout, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        if (result != null && !result.has("statusCode")) {
+            result.put("statusCode", 200); // Event đẩy từ server
         }
+        return result;
+    }
+
+    private JSONObject send(HttpRequest request, String action) throws IOException {
+        HttpResponse<String> response;
+        try {
+            response = ApiClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bị hủy khi gọi " + action);
+        }
+
+        int status = response.statusCode();
+        String bodyText = response.body().trim();
+        System.out.println("[PeerService] " + action + " status = " + status);
+        System.out.println("[PeerService] " + action + " body = " + bodyText);
+        JSONObject json = bodyText.isEmpty() ? new JSONObject() : new JSONObject(bodyText);
+        json.put("statusCode", status);
+        return json;
     }
 }
@@ -0,0 +1,83 @@
+package com.chess_client.network;
+
+import java.util.Arrays;
+
+/**
+ * Histogram thời gian khứ hồi (RTT) của kết nối P2P (cũng dùng cho các độ trễ khác,
+ * ví dụ thời gian chờ của sự kiện trong InboundDispatcher).
+ *
+ * Các bucket tăng theo cấp số nhân (8 bucket cho mỗi lần gấp đôi, sai số ~9%) từ 1 µs
+ * tới hơn một phút, nên chỉ tốn vài KB mà vẫn tính được p50/p99 cho cả phiên chơi.
+ * Ghi trên thread của PeerEventLoop, đọc từ UI nên các hàm đều synchronized.
+ */
+public class RttHistogram {
+
+    private static final int BUCKETS_PER_DOUBLING = 8;
+    private static final int MAX_DOUBLINGS = 27; // 2^27 µs ~ 134 s
+
+    private final long[] counts = new long[BUCKETS_PER_DOUBLING * MAX_DOUBLINGS + 1];
+    private long count;
+    private long sumMicros;
+    private long maxMicros;
+
+    public synchronized void record(long rttNanos) {
+        long micros = Math.max(1, rttNanos / 1_000);
+        counts[bucketOf(micros)]++;
+        count++;
+        sumMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * RTT (ms) tại phân vị {@code percentile} (0..100), 0 nếu chưa có mẫu nào.
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // Cận trên của bucket, không vượt quá giá trị lớn nhất đã gặp
+                return Math.min(upperBoundMicros(i), maxMicros) / 1_000.0;
+            }
+        }
+        return maxMicros / 1_000.0;
+    }
+
+    public synchronized double getMeanMillis() {
+        return count == 0 ? 0 : sumMicros / (double) count / 1_000.0;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxMicros / 1_000.0;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sumMicros = 0;
+        maxMicros = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("n=%d, p50=%.1f ms, p99=%.1f ms, max=%.1f ms",
+                count, getPercentileMillis(50), getPercentileMillis(99), getMaxMillis());
+    }
+
+    private static int bucketOf(long micros) {
+        int bucket = (int) Math.ceil(Math.log(micros) / Math.log(2) * BUCKETS_PER_DOUBLING);
+        return Math.min(Math.max(bucket, 0), BUCKETS_PER_DOUBLING * MAX_DOUBLINGS);
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        return (long) Math.ceil(Math.pow(2, bucket / (double) BUCKETS_PER_DOUBLING));
+    }
+}
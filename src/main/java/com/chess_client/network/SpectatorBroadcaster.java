@@ -0,0 +1,242 @@
+package com.chess_client.network;
+
+import com.chess_client.tasks.TaskScope;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phát trực tiếp ván đấu cho người xem (chỉ đọc).
+ *
+ * Bên mở PeerServer của ván mở thêm một PeerServer riêng cho người xem. Mỗi nước đi
+ * được mã hóa một lần (WireProtocol, frame LENGTH_PREFIXED) thành một buffer dùng chung
+ * rồi đưa vào hàng đợi của mọi kết nối người xem trong cùng một task trên PeerEventLoop,
+ * nên chi phí cho mỗi người xem chỉ là một lần thêm view của buffer vào hàng đợi.
+ *
+ * Người xem vào giữa ván nhận lại toàn bộ nước đi trước đó rồi mới nhận nước mới.
+ * Người xem không đọc kịp (hàng đợi gửi vẫn vượt MAX_BACKLOG_BYTES sau hai lần kiểm
+ * tra liên tiếp, cách nhau SLOW_CHECK_MILLIS) bị ngắt kết nối để không giữ bộ nhớ và
+ * làm chậm những người khác. Chỉ vượt một lần thì chưa ngắt: một loạt nước đi gửi dồn
+ * (ví dụ lịch sử cho người mới vào) có thể tạm thời làm đầy hàng đợi.
+ */
+public class SpectatorBroadcaster {
+
+    public static final int MAX_SPECTATORS = 500;
+    public static final int MAX_BACKLOG_BYTES = 64 * 1024;
+    private static final long SLOW_CHECK_MILLIS = 1_000;
+
+    private final PeerServer server;
+    private final PeerEventLoop loop;
+    private final TaskScope tasks = new TaskScope("spectators");
+
+    // Các frame đã phát (cho người xem vào sau) và seq kế tiếp, bảo vệ bởi this
+    private final List<ByteBuffer> history = new ArrayList<>();
+    private long nextSeq;
+
+    // Chỉ truy cập trên thread event loop
+    private final List<PeerConnection> spectators = new ArrayList<>();
+    private final Set<PeerConnection> lagging = new HashSet<>();
+    private PeerEventLoop.ScheduledTask slowCheck;
+
+    private volatile int spectatorCount;
+    private volatile boolean closed;
+    private final AtomicLong droppedSpectators = new AtomicLong();
+    private final AtomicLong rejectedSpectators = new AtomicLong();
+    private final RttHistogram fanOutTime = new RttHistogram();
+
+    public SpectatorBroadcaster() throws IOException {
+        this(new PeerServer(), PeerEventLoop.getDefault());
+    }
+
+    public SpectatorBroadcaster(PeerServer server, PeerEventLoop loop) {
+        this.server = server;
+        this.loop = loop;
+    }
+
+    /**
+     * Mở port cho người xem và bắt đầu nhận kết nối ở task nền (dừng khi close()).
+     *
+     * @param port port muốn lắng nghe, hoặc 0 để hệ thống tự chọn
+     * @return port thực tế
+     */
+    public int start(int port) throws IOException {
+        int actualPort = server.start(port);
+        slowCheck = loop.scheduleAtFixedRate(this::dropSlowSpectators, SLOW_CHECK_MILLIS, SLOW_CHECK_MILLIS);
+        tasks.run("accept", this::acceptLoop);
+        return actualPort;
+    }
+
+    private void acceptLoop() {
+        while (!closed && server.isRunning()) {
+            try {
+                Socket socket = server.waitForOpponent();
+                if (spectatorCount >= MAX_SPECTATORS) {
+                    rejectedSpectators.incrementAndGet();
+                    socket.close();
+                    continue;
+                }
+                addSpectator(socket);
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("[SpectatorBroadcaster] Lỗi khi nhận người xem: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void addSpectator(Socket socket) throws IOException {
+        SpectatorListener listener = new SpectatorListener();
+        PeerConnection connection = PeerConnection.open(socket.getChannel(), loop, BufferPool.getDefault(),
+                PeerConnection.Framing.LENGTH_PREFIXED, listener);
+        listener.connection = connection;
+
+        // Lấy lịch sử và hẹn task trong cùng khóa với broadcast(): mọi nước đi sau thời
+        // điểm này nằm trong task phát sau task thêm người xem (task chạy theo thứ tự)
+        synchronized (this) {
+            List<ByteBuffer> snapshot = new ArrayList<>(history);
+            loop.execute(() -> {
+                if (closed || !connection.isOpen()) {
+                    connection.close();
+                    return;
+                }
+                for (ByteBuffer frame : snapshot) {
+                    connection.sendFrame(frame);
+                }
+                spectators.add(connection);
+                spectatorCount = spectators.size();
+            });
+        }
+    }
+
+    /**
+     * Người xem chỉ nhận: mọi dữ liệu họ gửi lên đều bị bỏ qua.
+     */
+    private class SpectatorListener implements PeerConnection.Listener {
+        PeerConnection connection;
+
+        @Override
+        public void onFrame(ByteBuffer payload) {
+        }
+
+        @Override
+        public void onClosed(Exception cause) {
+            lagging.remove(connection);
+            if (spectators.remove(connection)) {
+                spectatorCount = spectators.size();
+            }
+        }
+    }
+
+    // ===================== PHÁT =====================
+
+    /**
+     * Phát một nước đi (mã Move.toCode()) tới mọi người xem. Gọi được từ mọi thread.
+     */
+    public void broadcastMove(int moveCode) {
+        synchronized (this) {
+            broadcast(WireProtocol.encodeMove(nextSeq++, moveCode));
+        }
+    }
+
+    /**
+     * Phát một sự kiện của ván (xin hòa, đầu hàng, kết quả...).
+     */
+    public void broadcastGameAction(String action) {
+        synchronized (this) {
+            broadcast(WireProtocol.encodeGameAction(nextSeq++, action));
+        }
+    }
+
+    private void broadcast(byte[] payload) {
+        if (closed) {
+            return;
+        }
+        ByteBuffer frame = PeerConnection.encodeFrame(payload);
+        history.add(frame);
+        loop.execute(() -> fanOut(frame));
+    }
+
+    /**
+     * Đưa frame vào hàng đợi của mọi người xem (chạy trên thread event loop).
+     */
+    private void fanOut(ByteBuffer frame) {
+        if (spectators.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (PeerConnection spectator : spectators) {
+            spectator.sendFrame(frame);
+        }
+        fanOutTime.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Ngắt người xem có hàng đợi vượt ngưỡng ở cả lần kiểm tra trước và lần này
+     * (chạy định kỳ trên thread event loop).
+     */
+    private void dropSlowSpectators() {
+        List<PeerConnection> slow = new ArrayList<>();
+        for (PeerConnection spectator : spectators) {
+            if (spectator.getQueuedBytes() <= MAX_BACKLOG_BYTES) {
+                lagging.remove(spectator);
+            } else if (!lagging.add(spectator)) {
+                slow.add(spectator);
+            }
+        }
+        for (PeerConnection spectator : slow) {
+            droppedSpectators.incrementAndGet();
+            spectator.closeNow(new IOException("Người xem không nhận kịp dữ liệu"));
+        }
+    }
+
+    // ===================== THỐNG KÊ =====================
+
+    public int getSpectatorCount() {
+        return spectatorCount;
+    }
+
+    /**
+     * Số người xem bị ngắt vì không nhận kịp.
+     */
+    public long getDroppedSpectators() {
+        return droppedSpectators.get();
+    }
+
+    /**
+     * Số người xem bị từ chối vì đã đủ MAX_SPECTATORS.
+     */
+    public long getRejectedSpectators() {
+        return rejectedSpectators.get();
+    }
+
+    /**
+     * Thời gian đưa một frame vào hàng đợi của tất cả người xem (trên thread event loop).
+     */
+    public RttHistogram getFanOutTime() {
+        return fanOutTime;
+    }
+
+    public void close() {
+        closed = true;
+        if (slowCheck != null) {
+            slowCheck.cancel();
+        }
+        try {
+            server.stop();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        tasks.cancel();
+        loop.execute(() -> {
+            for (PeerConnection spectator : new ArrayList<>(spectators)) {
+                spectator.close();
+            }
+        });
+    }
+}
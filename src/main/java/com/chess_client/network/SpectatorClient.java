@@ -0,0 +1,123 @@
+package com.chess_client.network;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * Kết nối xem một ván đang diễn ra (xem SpectatorBroadcaster).
+ *
+ * Nhận lần lượt các nước đi (kể cả các nước trước lúc vào xem) và sự kiện của ván;
+ * callback chạy qua InboundDispatcher (mặc định trên thread JavaFX).
+ */
+public class SpectatorClient {
+
+    public interface OnMoveReceived {
+        void onMove(int fromRow, int fromCol, int toRow, int toCol);
+    }
+
+    public interface OnGameActionReceived {
+        void onGameAction(String action);
+    }
+
+    public interface OnClosed {
+        void onClosed(Exception cause);
+    }
+
+    private final InboundDispatcher dispatcher;
+    private PeerConnection connection;
+    private volatile long receivedMessages;
+
+    private OnMoveReceived onMoveReceived;
+    private OnGameActionReceived onGameActionReceived;
+    private OnClosed onClosed;
+
+    public SpectatorClient() {
+        this(new InboundDispatcher());
+    }
+
+    public SpectatorClient(InboundDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public void setOnMoveReceived(OnMoveReceived callback) {
+        this.onMoveReceived = callback;
+    }
+
+    public void setOnGameActionReceived(OnGameActionReceived callback) {
+        this.onGameActionReceived = callback;
+    }
+
+    public void setOnClosed(OnClosed callback) {
+        this.onClosed = callback;
+    }
+
+    /**
+     * Kết nối tới port người xem của ván.
+     */
+    public void connect(String ip, int port) throws IOException {
+        connect(new PeerClient().connectToOpponent(ip, port), PeerEventLoop.getDefault());
+    }
+
+    /**
+     * Bắt đầu nhận trên socket đã kết nối, chạy trên {@code loop}.
+     */
+    public void connect(Socket socket, PeerEventLoop loop) throws IOException {
+        connection = PeerConnection.open(socket.getChannel(), loop, BufferPool.getDefault(),
+                PeerConnection.Framing.LENGTH_PREFIXED, new PeerConnection.Listener() {
+                    @Override
+                    public void onFrame(ByteBuffer payload) {
+                        handleFrame(payload);
+                    }
+
+                    @Override
+                    public void onClosed(Exception cause) {
+                        if (onClosed != null) {
+                            dispatcher.post(() -> onClosed.onClosed(cause));
+                        }
+                    }
+                });
+    }
+
+    private void handleFrame(ByteBuffer payload) {
+        WireProtocol.Message message;
+        try {
+            message = WireProtocol.decode(payload);
+        } catch (ProtocolException e) {
+            e.printStackTrace();
+            return;
+        }
+        receivedMessages++;
+        switch (message.getType()) {
+            case WireProtocol.TYPE_MOVE -> {
+                if (onMoveReceived != null) {
+                    int from = message.getMoveCode() & 0x3F;
+                    int to = (message.getMoveCode() >> 6) & 0x3F;
+                    dispatcher.post(() -> onMoveReceived.onMove(from / 8, from % 8, to / 8, to % 8));
+                }
+            }
+            case WireProtocol.TYPE_GAME_ACTION -> {
+                if (onGameActionReceived != null) {
+                    String action = message.getText();
+                    dispatcher.post(() -> onGameActionReceived.onGameAction(action));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Số tin nhắn đã nhận (đếm trên thread event loop, không qua dispatcher).
+     */
+    public long getReceivedMessages() {
+        return receivedMessages;
+    }
+
+    public void close() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+}
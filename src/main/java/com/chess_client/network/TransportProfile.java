@@ -0,0 +1,103 @@
+package com.chess_client.network;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Cấu hình socket TCP cho kết nối P2P (PeerClient/PeerServer áp dụng khi tạo socket).
+ *
+ * Tin nhắn P2P rất nhỏ (vài byte cho một nước đi) nên mặc định tắt thuật toán Nagle
+ * (TCP_NODELAY) để frame được gửi ngay thay vì chờ ACK của gói trước; việc gom nhiều
+ * frame vào một lần ghi đã do PeerConnection đảm nhận. Kích thước buffer bằng 0 nghĩa
+ * là để hệ điều hành tự điều chỉnh (đặt cố định sẽ tắt auto-tuning trên Linux).
+ */
+public final class TransportProfile {
+
+    /** Profile mặc định: gửi ngay, phát hiện kết nối chết bằng keep-alive */
+    public static final TransportProfile LOW_LATENCY = new TransportProfile(true, true, 0, 0);
+
+    /** Giữ nguyên tùy chọn mặc định của hệ điều hành (Nagle bật) */
+    public static final TransportProfile SYSTEM_DEFAULT = new TransportProfile(false, false, 0, 0);
+
+    private static volatile TransportProfile defaultProfile = LOW_LATENCY;
+
+    private final boolean tcpNoDelay;
+    private final boolean keepAlive;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+
+    /**
+     * @param sendBufferSize    SO_SNDBUF (byte), 0 = mặc định hệ điều hành
+     * @param receiveBufferSize SO_RCVBUF (byte), 0 = mặc định hệ điều hành
+     */
+    public TransportProfile(boolean tcpNoDelay, boolean keepAlive, int sendBufferSize, int receiveBufferSize) {
+        if (sendBufferSize < 0 || receiveBufferSize < 0) {
+            throw new IllegalArgumentException("Kích thước buffer không hợp lệ");
+        }
+        this.tcpNoDelay = tcpNoDelay;
+        this.keepAlive = keepAlive;
+        this.sendBufferSize = sendBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    public static TransportProfile getDefault() {
+        return defaultProfile;
+    }
+
+    /**
+     * Đổi profile cho các PeerClient/PeerServer tạo SAU lời gọi này.
+     */
+    public static void setDefault(TransportProfile profile) {
+        if (profile == null) {
+            throw new IllegalArgumentException("profile null");
+        }
+        defaultProfile = profile;
+    }
+
+    /**
+     * Áp dụng cho một kết nối (gọi trước connect() để buffer có hiệu lực với TCP window).
+     */
+    public void applyTo(SocketChannel channel) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+        channel.setOption(StandardSocketOptions.SO_KEEPALIVE, keepAlive);
+        if (sendBufferSize > 0) {
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+        }
+        if (receiveBufferSize > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+        }
+    }
+
+    /**
+     * Áp dụng cho server (gọi trước bind()): socket accept() được kế thừa SO_RCVBUF.
+     */
+    public void applyTo(ServerSocketChannel channel) throws IOException {
+        if (receiveBufferSize > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+        }
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportProfile{tcpNoDelay=" + tcpNoDelay + ", keepAlive=" + keepAlive
+                + ", sndbuf=" + sendBufferSize + ", rcvbuf=" + receiveBufferSize + "}";
+    }
+}
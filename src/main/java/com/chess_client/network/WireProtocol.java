@@ -0,0 +1,252 @@
+package com.chess_client.network;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Giao thức nhị phân cho tin nhắn P2P (thay cho JSON khi hai bên cùng hỗ trợ).
+ *
+ * Mỗi tin nhắn là payload của một frame LENGTH_PREFIXED:
+ * <pre>
+ *   [1 byte type][varint seq][nội dung]
+ *   MOVE:        2 byte mã nước đi (Move.toCode(): from | to << 6 | cờ)
+ *   CHAT:        chuỗi UTF-8 (phần còn lại của frame)
+ *   GAME_ACTION: 1 byte mã action; mã 0 = action khác, theo sau là chuỗi UTF-8
+ *   ACK:         không có nội dung; seq = số tin nhắn đã nhận liên tục (seq kế tiếp đang chờ)
+ *   BYE:         không có nội dung; bên gửi chủ động đóng kết nối (không cần kết nối lại)
+ *   PING/PONG:   8 byte thời điểm gửi PING (System.nanoTime() của bên ping); seq = mã ping,
+ *                PONG trả lại nguyên mã và thời điểm để bên ping tính RTT
+ * </pre>
+ * seq là số thứ tự tin nhắn của bên gửi (tăng dần từ 0), mã hóa varint (7 bit/byte).
+ * ACK, BYE, PING, PONG không được đánh số (không cần gửi lại).
+ *
+ * Hai bên thỏa thuận phiên bản qua tin nhắn JSON "hello" lúc kết nối
+ * (xem PeerNetworkHandler), nên peer cũ chỉ biết JSON vẫn chơi được.
+ */
+public final class WireProtocol {
+
+    public static final int VERSION = 1;
+
+    public static final byte TYPE_MOVE = 1;
+    public static final byte TYPE_CHAT = 2;
+    public static final byte TYPE_GAME_ACTION = 3;
+    public static final byte TYPE_ACK = 4;
+    public static final byte TYPE_BYE = 5;
+    public static final byte TYPE_PING = 6;
+    public static final byte TYPE_PONG = 7;
+
+    // Chỉ số trong mảng = mã action trên đường truyền (0 = action không có trong bảng)
+    private static final String[] ACTIONS = { null, "resign", "offer_draw", "accept_draw", "reject_draw" };
+
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private WireProtocol() {
+    }
+
+    /**
+     * Một tin nhắn đã giải mã.
+     */
+    public static final class Message {
+        private final byte type;
+        private final long seq;
+        private final int moveCode;
+        private final String text;
+        private final long timestamp;
+
+        private Message(byte type, long seq, int moveCode, String text) {
+            this(type, seq, moveCode, text, 0);
+        }
+
+        private Message(byte type, long seq, int moveCode, String text, long timestamp) {
+            this.type = type;
+            this.seq = seq;
+            this.moveCode = moveCode;
+            this.text = text;
+            this.timestamp = timestamp;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        /**
+         * Mã nước đi (chỉ có nghĩa với TYPE_MOVE).
+         */
+        public int getMoveCode() {
+            return moveCode;
+        }
+
+        /**
+         * Nội dung chat hoặc tên action (TYPE_CHAT / TYPE_GAME_ACTION).
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Thời điểm gửi PING (TYPE_PING / TYPE_PONG).
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    // ===================== MÃ HÓA =====================
+
+    public static byte[] encodeMove(long seq, int moveCode) {
+        ByteBuffer out = ByteBuffer.allocate(1 + varintSize(seq) + 2);
+        out.put(TYPE_MOVE);
+        putVarint(out, seq);
+        out.putShort((short) moveCode);
+        return out.array();
+    }
+
+    public static byte[] encodeChat(long seq, String message) {
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(1 + varintSize(seq) + text.length);
+        out.put(TYPE_CHAT);
+        putVarint(out, seq);
+        out.put(text);
+        return out.array();
+    }
+
+    public static byte[] encodeGameAction(long seq, String action) {
+        int code = actionCode(action);
+        byte[] text = code == 0 ? action.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer out = ByteBuffer.allocate(1 + varintSize(seq) + 1 + text.length);
+        out.put(TYPE_GAME_ACTION);
+        putVarint(out, seq);
+        out.put((byte) code);
+        out.put(text);
+        return out.array();
+    }
+
+    /**
+     * @param received số tin nhắn đã nhận liên tục từ đối thủ
+     */
+    public static byte[] encodeAck(long received) {
+        ByteBuffer out = ByteBuffer.allocate(1 + varintSize(received));
+        out.put(TYPE_ACK);
+        putVarint(out, received);
+        return out.array();
+    }
+
+    public static byte[] encodeBye() {
+        return new byte[] { TYPE_BYE, 0 };
+    }
+
+    public static byte[] encodePing(long id, long timestamp) {
+        return encodeTimestamped(TYPE_PING, id, timestamp);
+    }
+
+    public static byte[] encodePong(long id, long timestamp) {
+        return encodeTimestamped(TYPE_PONG, id, timestamp);
+    }
+
+    private static byte[] encodeTimestamped(byte type, long id, long timestamp) {
+        ByteBuffer out = ByteBuffer.allocate(1 + varintSize(id) + 8);
+        out.put(type);
+        putVarint(out, id);
+        out.putLong(timestamp);
+        return out.array();
+    }
+
+    // ===================== GIẢI MÃ =====================
+
+    /**
+     * Giải mã payload của một frame (đọc từ position đến limit, không đổi position của payload).
+     */
+    public static Message decode(ByteBuffer payload) throws ProtocolException {
+        ByteBuffer in = payload.duplicate();
+        if (!in.hasRemaining()) {
+            throw new ProtocolException("Frame rỗng");
+        }
+        byte type = in.get();
+        long seq = getVarint(in);
+
+        switch (type) {
+            case TYPE_MOVE -> {
+                if (in.remaining() < 2) {
+                    throw new ProtocolException("Tin nhắn MOVE thiếu mã nước đi");
+                }
+                return new Message(type, seq, in.getShort() & 0xFFFF, null);
+            }
+            case TYPE_CHAT -> {
+                return new Message(type, seq, 0, StandardCharsets.UTF_8.decode(in).toString());
+            }
+            case TYPE_GAME_ACTION -> {
+                if (!in.hasRemaining()) {
+                    throw new ProtocolException("Tin nhắn GAME_ACTION thiếu mã action");
+                }
+                int code = in.get() & 0xFF;
+                String action;
+                if (code == 0) {
+                    action = StandardCharsets.UTF_8.decode(in).toString();
+                } else if (code < ACTIONS.length) {
+                    action = ACTIONS[code];
+                } else {
+                    throw new ProtocolException("Mã action không hợp lệ: " + code);
+                }
+                return new Message(type, seq, 0, action);
+            }
+            case TYPE_ACK, TYPE_BYE -> {
+                return new Message(type, seq, 0, null);
+            }
+            case TYPE_PING, TYPE_PONG -> {
+                if (in.remaining() < 8) {
+                    throw new ProtocolException("Tin nhắn PING/PONG thiếu thời điểm gửi");
+                }
+                return new Message(type, seq, 0, null, in.getLong());
+            }
+            default -> throw new ProtocolException("Loại tin nhắn không hợp lệ: " + type);
+        }
+    }
+
+    // ===================== VARINT =====================
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void putVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarint(ByteBuffer in) throws ProtocolException {
+        long value = 0;
+        for (int i = 0; i < MAX_VARINT_SIZE; i++) {
+            if (!in.hasRemaining()) {
+                throw new ProtocolException("Varint bị cắt cụt");
+            }
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new ProtocolException("Varint quá dài");
+    }
+
+    private static int actionCode(String action) {
+        for (int i = 1; i < ACTIONS.length; i++) {
+            if (ACTIONS[i].equals(action)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,130 @@
+package com.chess_client.pgn;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Fen;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Một ván cờ dạng PGN: danh sách tag, các nước đi SAN và kết quả.
+ * Chỉ giữ dữ liệu dạng text; dùng toMoves() để dựng lại các Move trên bàn cờ.
+ */
+public class PgnGame {
+
+    public static final String WHITE_WINS = "1-0";
+    public static final String BLACK_WINS = "0-1";
+    public static final String DRAW = "1/2-1/2";
+    public static final String UNKNOWN = "*";
+
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private final List<String> moves = new ArrayList<>();
+    private String result = UNKNOWN;
+
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public void setTag(String name, String value) {
+        tags.put(name, value);
+    }
+
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    public List<String> getMoves() {
+        return Collections.unmodifiableList(moves);
+    }
+
+    public void addMove(String san) {
+        moves.add(san);
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+        tags.put("Result", result);
+    }
+
+    /**
+     * FEN của thế cờ xuất phát (tag FEN nếu có, ngược lại là thế cờ ban đầu).
+     */
+    public String getStartFen() {
+        String fen = tags.get("FEN");
+        return fen != null && !fen.isBlank() ? fen : Fen.START_POSITION;
+    }
+
+    /**
+     * Dựng lại danh sách Move bằng cách đi lần lượt các nước SAN từ thế cờ xuất phát.
+     *
+     * @throws IllegalArgumentException nếu có nước SAN không hợp lệ
+     */
+    public List<Move> toMoves() {
+        Board board = Board.fromFen(getStartFen());
+        GameLogic logic = new GameLogic(board);
+        List<Move> result = new ArrayList<>(moves.size());
+        for (String san : moves) {
+            Move move = San.parse(board, logic, san);
+            board.movePiece(move);
+            result.add(move);
+        }
+        return result;
+    }
+
+    /**
+     * Tạo PgnGame từ lịch sử nước đi của một ván (ví dụ moveHistory của GameController).
+     * Các nước được đi lại trên bàn cờ riêng để sinh SAN, không đụng tới bàn cờ gốc.
+     *
+     * @param startFen FEN xuất phát, null nếu là thế cờ ban đầu
+     */
+    public static PgnGame fromMoves(String startFen, List<Move> history) {
+        PgnGame game = new PgnGame();
+        Board board = startFen == null ? new Board() : Board.fromFen(startFen);
+        if (startFen != null) {
+            game.setTag("SetUp", "1");
+            game.setTag("FEN", startFen);
+        }
+
+        GameLogic logic = new GameLogic(board);
+        for (Move played : history) {
+            Piece piece = board.getPiece(played.getFromRow(), played.getFromCol());
+            if (piece == null) {
+                break; // Lịch sử không khớp với thế cờ, dừng lại
+            }
+            Move move = new Move(played.getFromRow(), played.getFromCol(),
+                    played.getToRow(), played.getToCol(), piece);
+            move.setCastling(played.isCastling());
+            move.setEnPassant(played.isEnPassant());
+            move.setPromotion(played.isPromotion());
+
+            game.addMove(San.toSan(board, logic, move));
+            board.movePiece(move);
+        }
+        return game;
+    }
+
+    /**
+     * Chuyển người thắng sang chuỗi kết quả PGN (null = hòa).
+     */
+    public static String resultOf(Piece.Color winner) {
+        if (winner == null) {
+            return DRAW;
+        }
+        return winner == Piece.Color.WHITE ? WHITE_WINS : BLACK_WINS;
+    }
+
+    static boolean isResultToken(String token) {
+        return WHITE_WINS.equals(token) || BLACK_WINS.equals(token)
+                || DRAW.equals(token) || UNKNOWN.equals(token);
+    }
+}
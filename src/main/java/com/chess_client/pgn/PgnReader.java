@@ -0,0 +1,271 @@
+package com.chess_client.pgn;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Đọc file PGN dạng stream, từng ván một, nên xử lý được file nhiều GB mà không
+ * cần nạp toàn bộ vào bộ nhớ.
+ *
+ * Ranh giới giữa các ván được nhận biết theo dòng: một dòng tag "[...]" xuất hiện
+ * sau phần nước đi là bắt đầu ván mới. Việc tách ván rất rẻ nên chạy tuần tự,
+ * còn phần phân tích từng ván có thể chạy song song bằng readParallel().
+ */
+public class PgnReader implements Closeable {
+
+    private final BufferedReader in;
+    private final StringBuilder buffer = new StringBuilder(2048);
+    private String pendingLine;
+    private boolean firstLine = true;
+
+    public PgnReader(Reader reader) {
+        this.in = reader instanceof BufferedReader br ? br : new BufferedReader(reader, 1 << 16);
+    }
+
+    /**
+     * Đọc ván tiếp theo và phân tích luôn.
+     *
+     * @return ván cờ, hoặc null nếu hết file
+     */
+    public PgnGame next() throws IOException {
+        String text = nextGameText();
+        return text == null ? null : parse(text);
+    }
+
+    /**
+     * Đọc phần text thô của ván tiếp theo (tag + nước đi), chưa phân tích.
+     *
+     * @return text của ván, hoặc null nếu hết file
+     */
+    public String nextGameText() throws IOException {
+        buffer.setLength(0);
+        boolean seenMoves = false;
+
+        String line = pendingLine;
+        pendingLine = null;
+        if (line == null) {
+            line = readLine();
+        }
+
+        while (line != null) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[")) {
+                if (seenMoves) {
+                    pendingLine = line; // Dòng tag của ván sau
+                    break;
+                }
+            } else if (!trimmed.isEmpty() && !trimmed.startsWith("%")) {
+                seenMoves = true;
+            }
+
+            if (!trimmed.startsWith("%")) {
+                buffer.append(line).append('\n');
+            }
+            line = readLine();
+        }
+
+        for (int i = 0; i < buffer.length(); i++) {
+            if (!Character.isWhitespace(buffer.charAt(i))) {
+                return buffer.toString();
+            }
+        }
+        return null;
+    }
+
+    private String readLine() throws IOException {
+        String line = in.readLine();
+        if (firstLine && line != null) {
+            firstLine = false;
+            if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                line = line.substring(1); // Bỏ BOM UTF-8
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Đọc toàn bộ reader, phân tích các ván song song trên nhiều thread.
+     * Thread gọi hàm chỉ tách ván; số ván đang chờ xử lý bị giới hạn để bộ nhớ
+     * không tăng theo kích thước file. Thứ tự gọi sink KHÔNG theo thứ tự trong file,
+     * và sink phải an toàn khi được gọi từ nhiều thread.
+     *
+     * @param threads số thread phân tích (>= 1)
+     * @param sink    nhận từng ván đã phân tích
+     * @return số ván phân tích thành công (ván lỗi bị bỏ qua)
+     */
+    public static long readParallel(Reader reader, int threads, Consumer<PgnGame> sink)
+            throws IOException, InterruptedException {
+        int workers = Math.max(1, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "pgn-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore inFlight = new Semaphore(workers * 8);
+        AtomicLong parsed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        try (PgnReader pgnReader = new PgnReader(reader)) {
+            String text;
+            while ((text = pgnReader.nextGameText()) != null) {
+                inFlight.acquire();
+                String gameText = text;
+                pool.execute(() -> {
+                    try {
+                        sink.accept(parse(gameText));
+                        parsed.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        if (failed.get() > 0) {
+            System.err.println("[PgnReader] Bỏ qua " + failed.get() + " ván không đọc được");
+        }
+        return parsed.get();
+    }
+
+    /**
+     * Phân tích text của một ván: tag, nước đi SAN và kết quả.
+     * Bỏ qua comment ({...} và ;), biến thể (...), NAG ($n) và số thứ tự nước.
+     * Chỉ phân tích cú pháp, không kiểm tra tính hợp lệ của nước đi
+     * (dùng PgnGame.toMoves() khi cần).
+     */
+    public static PgnGame parse(String text) {
+        PgnGame game = new PgnGame();
+        int len = text.length();
+        int i = 0;
+        int variationDepth = 0;
+
+        while (i < len) {
+            char c = text.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '[' && variationDepth == 0) {
+                i = parseTag(text, i + 1, game);
+            } else if (c == '{') {
+                int close = text.indexOf('}', i + 1);
+                i = close < 0 ? len : close + 1;
+            } else if (c == ';') {
+                int newline = text.indexOf('\n', i + 1);
+                i = newline < 0 ? len : newline + 1;
+            } else if (c == '(') {
+                variationDepth++;
+                i++;
+            } else if (c == ')') {
+                variationDepth = Math.max(0, variationDepth - 1);
+                i++;
+            } else {
+                int start = i;
+                while (i < len && !isDelimiter(text.charAt(i))) {
+                    i++;
+                }
+                if (variationDepth == 0) {
+                    handleToken(text.substring(start, i), game);
+                }
+            }
+        }
+        return game;
+    }
+
+    private static void handleToken(String token, PgnGame game) {
+        if (token.isEmpty() || token.charAt(0) == '$') {
+            return; // NAG
+        }
+        if (PgnGame.isResultToken(token)) {
+            game.setResult(token);
+            return;
+        }
+
+        // Bỏ số thứ tự nước ("12." / "12..."), trừ nhập thành viết bằng số 0
+        int i = 0;
+        if (!token.startsWith("0-0")) {
+            while (i < token.length() && Character.isDigit(token.charAt(i))) {
+                i++;
+            }
+            if (i > 0 && (i == token.length() || token.charAt(i) != '.')) {
+                return; // Chỉ là số, không phải nước đi
+            }
+        }
+        while (i < token.length() && token.charAt(i) == '.') {
+            i++;
+        }
+        if (i >= token.length()) {
+            return;
+        }
+
+        int end = token.length();
+        while (end > i && (token.charAt(end - 1) == '!' || token.charAt(end - 1) == '?')) {
+            end--;
+        }
+        if (end > i) {
+            game.addMove(token.substring(i, end));
+        }
+    }
+
+    private static int parseTag(String text, int i, PgnGame game) {
+        int len = text.length();
+        while (i < len && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        int nameStart = i;
+        while (i < len && !Character.isWhitespace(text.charAt(i)) && text.charAt(i) != '"' && text.charAt(i) != ']') {
+            i++;
+        }
+        String name = text.substring(nameStart, i);
+
+        while (i < len && text.charAt(i) != '"' && text.charAt(i) != ']') {
+            i++;
+        }
+        StringBuilder value = new StringBuilder();
+        if (i < len && text.charAt(i) == '"') {
+            i++;
+            while (i < len && text.charAt(i) != '"') {
+                char c = text.charAt(i);
+                if (c == '\\' && i + 1 < len) {
+                    c = text.charAt(++i);
+                }
+                value.append(c);
+                i++;
+            }
+            i++;
+        }
+        while (i < len && text.charAt(i) != ']') {
+            i++;
+        }
+
+        if (!name.isEmpty()) {
+            if ("Result".equals(name) && PgnGame.isResultToken(value.toString())) {
+                game.setResult(value.toString());
+            } else {
+                game.setTag(name, value.toString());
+            }
+        }
+        return i + 1;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c == '{' || c == '}' || c == '(' || c == ')' || c == ';' || c == '[';
+    }
+}
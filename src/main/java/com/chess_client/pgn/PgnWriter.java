@@ -0,0 +1,144 @@
+package com.chess_client.pgn;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Piece;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi các ván cờ ra định dạng PGN chuẩn (export format): 7 tag bắt buộc đứng đầu,
+ * phần nước đi được ngắt dòng không quá 80 ký tự.
+ */
+public class PgnWriter implements Closeable, Flushable {
+
+    private static final String[] SEVEN_TAG_ROSTER = {
+            "Event", "Site", "Date", "Round", "White", "Black", "Result"
+    };
+    private static final int MAX_LINE_LENGTH = 79;
+
+    private final Writer out;
+
+    public PgnWriter(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16);
+    }
+
+    /**
+     * Ghi một ván, kết thúc bằng một dòng trống để ngăn cách với ván sau.
+     */
+    public void write(PgnGame game) throws IOException {
+        Map<String, String> tags = game.getTags();
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = "Result".equals(name) ? game.getResult() : tags.get(name);
+            writeTag(name, value == null || value.isEmpty() ? "?" : value);
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isSevenTagRoster(tag.getKey())) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+        writeMoveText(game);
+        out.write("\n\n");
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+        out.write("\"]\n");
+    }
+
+    private void writeMoveText(PgnGame game) throws IOException {
+        // Số nước và bên đi trước lấy từ thế cờ xuất phát (tag FEN)
+        Board start = Board.fromFen(game.getStartFen());
+        int moveNumber = start.getFullmoveNumber();
+        boolean whiteToMove = start.getSideToMove() == Piece.Color.WHITE;
+
+        StringBuilder line = new StringBuilder(MAX_LINE_LENGTH + 16);
+        List<String> moves = game.getMoves();
+        for (int i = 0; i < moves.size(); i++) {
+            String token;
+            if (whiteToMove) {
+                token = moveNumber + ". " + moves.get(i);
+            } else if (i == 0) {
+                token = moveNumber + "... " + moves.get(i);
+            } else {
+                token = moves.get(i);
+            }
+            appendToken(line, token);
+
+            if (!whiteToMove) {
+                moveNumber++;
+            }
+            whiteToMove = !whiteToMove;
+        }
+        appendToken(line, game.getResult());
+        out.write(line.toString());
+    }
+
+    private void appendToken(StringBuilder line, String token) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > MAX_LINE_LENGTH) {
+            out.write(line.toString());
+            out.write('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+
+    private static boolean isSevenTagRoster(String name) {
+        for (String tag : SEVEN_TAG_ROSTER) {
+            if (tag.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Xuất một ván ra chuỗi PGN.
+     */
+    public static String toPgn(PgnGame game) {
+        StringWriter sw = new StringWriter();
+        try (PgnWriter writer = new PgnWriter(sw)) {
+            writer.write(game);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter không ném IOException
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Ghi thêm một ván vào cuối file PGN (tạo file nếu chưa có).
+     */
+    public static void append(Path file, PgnGame game) throws IOException {
+        try (PgnWriter writer = new PgnWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            writer.write(game);
+        }
+    }
+}
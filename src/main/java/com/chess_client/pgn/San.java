@@ -0,0 +1,295 @@
+package com.chess_client.pgn;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+
+/**
+ * Sinh và phân tích ký hiệu nước đi chuẩn SAN (Standard Algebraic Notation),
+ * ví dụ: e4, Nbd7, exd5, O-O, e8=Q+, Qh4#.
+ *
+ * Tính hợp lệ của nước đi dựa hoàn toàn vào GameLogic. Vì GameLogic không loại
+ * các nước để vua bị chiếu, khi có nhiều quân cùng đi được tới một ô thì các quân
+ * bị ghim sẽ được loại thêm để khớp với cách các phần mềm khác ghi SAN.
+ */
+public final class San {
+
+    private San() {
+    }
+
+    /**
+     * Sinh SAN cho một nước đi. Gọi TRƯỚC khi thực hiện nước đi trên board,
+     * và move phải đã được GameLogic kiểm tra (cờ nhập thành/en passant/phong cấp đã set).
+     */
+    public static String toSan(Board board, GameLogic logic, Move move) {
+        Piece piece = board.getPiece(move.getFromRow(), move.getFromCol());
+        if (piece == null) {
+            throw new IllegalArgumentException("Không có quân ở ô xuất phát: " + move);
+        }
+
+        StringBuilder sb = new StringBuilder(8);
+        if (move.isCastling()) {
+            sb.append(move.getToCol() > move.getFromCol() ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = move.isEnPassant() || board.getPiece(move.getToRow(), move.getToCol()) != null;
+
+            if (piece.getType() == Piece.Type.PAWN) {
+                if (capture) {
+                    sb.append(fileChar(move.getFromCol())).append('x');
+                }
+                appendSquare(sb, move.getToRow(), move.getToCol());
+                if (move.isPromotion()) {
+                    sb.append("=Q"); // Board luôn phong hậu
+                }
+            } else {
+                sb.append(pieceLetter(piece.getType()));
+                appendDisambiguation(sb, board, logic, move, piece);
+                if (capture) {
+                    sb.append('x');
+                }
+                appendSquare(sb, move.getToRow(), move.getToCol());
+            }
+        }
+
+        // Chiếu / chiếu hết: thử nước đi trên bản sao
+        Board after = board.copy();
+        after.movePiece(probe(move, after));
+        GameLogic afterLogic = new GameLogic(after);
+        Piece.Color opponent = opposite(piece.getColor());
+        if (afterLogic.isKingInCheck(after, opponent)) {
+            sb.append(afterLogic.isCheckmate(opponent) ? '#' : '+');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Phân tích SAN thành Move hợp lệ cho bên đang tới lượt (board.getSideToMove()).
+     * Chấp nhận ký hiệu phụ (+, #, !, ?), "0-0" thay cho "O-O" và phong cấp
+     * dạng "e8=Q" hoặc "e8Q". Board hiện chỉ hỗ trợ phong hậu nên phong thành mã, xe,
+     * tượng ("e8=N"...) bị từ chối.
+     *
+     * @throws IllegalArgumentException nếu SAN sai cú pháp, không hợp lệ hoặc mơ hồ
+     */
+    public static Move parse(Board board, GameLogic logic, String san) {
+        Piece.Color side = board.getSideToMove();
+        String s = stripSuffix(san);
+        if (s.isEmpty()) {
+            throw invalid(san, "rỗng");
+        }
+
+        // Nhập thành
+        if (s.equals("O-O") || s.equals("0-0") || s.equals("O-O-O") || s.equals("0-0-0")) {
+            int row = side == Piece.Color.WHITE ? 7 : 0;
+            int toCol = s.length() == 3 ? 6 : 2;
+            Piece king = board.getPiece(row, 4);
+            Move move = new Move(row, 4, row, toCol, king);
+            if (king == null || king.getType() != Piece.Type.KING || !logic.isValidMove(move, side)) {
+                throw invalid(san, "không thể nhập thành");
+            }
+            return move;
+        }
+
+        // Tách phần phong cấp; Board chỉ phong hậu nên phong quân khác bị từ chối thay vì
+        // lặng lẽ thành hậu (ván nhập vào sẽ sai)
+        int end = s.length();
+        int eq = s.indexOf('=');
+        if (eq >= 0) {
+            end = eq;
+        } else if (end >= 3 && "QRBN".indexOf(s.charAt(end - 1)) >= 0 && Character.isDigit(s.charAt(end - 2))) {
+            end--;
+        }
+        boolean promotes = end < s.length();
+        if (promotes) {
+            String promotion = s.substring(end).replace("=", "");
+            if (!promotion.equals("Q")) {
+                throw invalid(san, promotion.isEmpty() ? "thiếu quân phong cấp" : "chưa hỗ trợ phong cấp thành " + promotion);
+            }
+        }
+
+        int start = 0;
+        Piece.Type type = Piece.Type.PAWN;
+        char first = s.charAt(0);
+        if ("KQRBN".indexOf(first) >= 0) {
+            type = typeFromLetter(first);
+            start = 1;
+        }
+
+        if (end - start < 2) {
+            throw invalid(san, "thiếu ô đích");
+        }
+        int toCol = s.charAt(end - 2) - 'a';
+        int toRow = '8' - s.charAt(end - 1);
+        if (toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) {
+            throw invalid(san, "ô đích không hợp lệ");
+        }
+
+        // Phần định danh ô xuất phát (file và/hoặc rank), bỏ qua ký tự 'x'
+        int fromColHint = -1;
+        int fromRowHint = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = s.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromColHint = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRowHint = '8' - c;
+            } else if (c != 'x' && c != '-' && c != ':') {
+                throw invalid(san, "ký tự không hợp lệ '" + c + "'");
+            }
+        }
+
+        Move found = null;
+        int candidates = 0;
+        Move pinnedFallback = null;
+        for (int row = 0; row < 8; row++) {
+            if (fromRowHint >= 0 && row != fromRowHint) {
+                continue;
+            }
+            for (int col = 0; col < 8; col++) {
+                if (fromColHint >= 0 && col != fromColHint) {
+                    continue;
+                }
+                Piece piece = board.getPiece(row, col);
+                if (piece == null || piece.getType() != type || piece.getColor() != side) {
+                    continue;
+                }
+                Move move = new Move(row, col, toRow, toCol, piece);
+                if (!logic.isValidMove(move, side)) {
+                    continue;
+                }
+                if (leavesKingInCheck(board, move, side)) {
+                    pinnedFallback = move;
+                    continue;
+                }
+                found = move;
+                candidates++;
+            }
+        }
+
+        if (candidates > 1) {
+            throw invalid(san, "mơ hồ, có nhiều quân cùng đi được");
+        }
+        if (found == null) {
+            // GameLogic cho phép đi dù vua còn bị chiếu, nên vẫn chấp nhận nếu chỉ có 1 cách đi
+            if (pinnedFallback == null) {
+                throw invalid(san, "không có quân nào đi được");
+            }
+            found = pinnedFallback;
+        }
+        if (promotes && !found.isPromotion()) {
+            throw invalid(san, "không phải nước phong cấp");
+        }
+        return found;
+    }
+
+    // ===================== HELPERS =====================
+
+    private static void appendDisambiguation(StringBuilder sb, Board board, GameLogic logic, Move move, Piece piece) {
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (row == move.getFromRow() && col == move.getFromCol()) {
+                    continue;
+                }
+                Piece other = board.getPiece(row, col);
+                if (other == null || other.getType() != piece.getType() || other.getColor() != piece.getColor()) {
+                    continue;
+                }
+                Move alt = new Move(row, col, move.getToRow(), move.getToCol(), other);
+                if (!logic.isValidMove(alt, piece.getColor()) || leavesKingInCheck(board, alt, piece.getColor())) {
+                    continue;
+                }
+                ambiguous = true;
+                if (col == move.getFromCol()) {
+                    sameFile = true;
+                }
+                if (row == move.getFromRow()) {
+                    sameRank = true;
+                }
+            }
+        }
+
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            sb.append(fileChar(move.getFromCol()));
+        } else if (!sameRank) {
+            sb.append(rankChar(move.getFromRow()));
+        } else {
+            sb.append(fileChar(move.getFromCol())).append(rankChar(move.getFromRow()));
+        }
+    }
+
+    private static boolean leavesKingInCheck(Board board, Move move, Piece.Color side) {
+        Board after = board.copy();
+        after.movePiece(probe(move, after));
+        return new GameLogic(after).isKingInCheck(after, side);
+    }
+
+    /**
+     * Tạo bản sao nước đi trỏ tới quân trên board thử, để không làm thay đổi move gốc
+     * (Board.movePiece ghi đè pieceCaptured).
+     */
+    private static Move probe(Move move, Board target) {
+        Move copy = new Move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol(),
+                target.getPiece(move.getFromRow(), move.getFromCol()));
+        copy.setCastling(move.isCastling());
+        copy.setEnPassant(move.isEnPassant());
+        copy.setPromotion(move.isPromotion());
+        return copy;
+    }
+
+    private static String stripSuffix(String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return san.substring(0, end).trim();
+    }
+
+    static char pieceLetter(Piece.Type type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    private static Piece.Type typeFromLetter(char c) {
+        return switch (c) {
+            case 'K' -> Piece.Type.KING;
+            case 'Q' -> Piece.Type.QUEEN;
+            case 'R' -> Piece.Type.ROOK;
+            case 'B' -> Piece.Type.BISHOP;
+            case 'N' -> Piece.Type.KNIGHT;
+            default -> Piece.Type.PAWN;
+        };
+    }
+
+    private static void appendSquare(StringBuilder sb, int row, int col) {
+        sb.append(fileChar(col)).append(rankChar(row));
+    }
+
+    private static char fileChar(int col) {
+        return (char) ('a' + col);
+    }
+
+    private static char rankChar(int row) {
+        return (char) ('8' - row);
+    }
+
+    private static Piece.Color opposite(Piece.Color color) {
+        return color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    }
+
+    private static IllegalArgumentException invalid(String san, String reason) {
+        return new IllegalArgumentException("SAN không hợp lệ (" + reason + "): " + san);
+    }
+}
@@ -0,0 +1,194 @@
+package com.chess_client.replay;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.pgn.San;
+import com.chess_client.services.GameLogic;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Phân tích thế cờ ở background thread cho màn hình xem lại.
+ * Tìm kiếm alpha-beta đơn giản theo chênh lệch quân, đào sâu dần từng độ sâu và báo
+ * kết quả sau mỗi độ sâu. Mỗi lần gọi analyze() sẽ hủy lượt phân tích trước đó
+ * (người dùng đã tua sang thế cờ khác thì kết quả cũ không còn ý nghĩa).
+ */
+public class PositionAnalyzer {
+
+    private static final int MATE_SCORE = 100_000;
+
+    /**
+     * Kết quả phân tích ở một độ sâu.
+     */
+    public static class Analysis {
+        private final int depth;
+        private final int score;
+        private final String bestMove;
+        private final long nodes;
+
+        Analysis(int depth, int score, String bestMove, long nodes) {
+            this.depth = depth;
+            this.score = score;
+            this.bestMove = bestMove;
+            this.nodes = nodes;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Điểm theo centipawn, dương = Trắng có lợi.
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Nước tốt nhất (SAN), null nếu không còn nước đi.
+         */
+        public String getBestMove() {
+            return bestMove;
+        }
+
+        /**
+         * true nếu tìm thấy đường ăn được vua (chiếu hết trong tầm tìm kiếm).
+         */
+        public boolean isMate() {
+            return Math.abs(score) >= MATE_SCORE - 1000;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "position-analyzer");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> current;
+    private long nodes;
+
+    /**
+     * Bắt đầu phân tích thế cờ (board được sao chép nên caller có thể đổi board ngay).
+     *
+     * @param onResult gọi từ background thread sau mỗi độ sâu
+     */
+    public synchronized void analyze(Board position, int maxDepth, Consumer<Analysis> onResult) {
+        cancel();
+        Board board = position.copy();
+        current = executor.submit(() -> {
+            try {
+                for (int depth = 1; depth <= maxDepth; depth++) {
+                    onResult.accept(searchRoot(board, depth));
+                }
+            } catch (CancellationException e) {
+                // Đã tua sang thế cờ khác
+            }
+        });
+    }
+
+    public synchronized void cancel() {
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private Analysis searchRoot(Board board, int depth) {
+        nodes = 0;
+        Piece.Color side = board.getSideToMove();
+        List<Move> moves = new GameLogic(board).getAllValidMoves(side);
+        if (moves.isEmpty()) {
+            return new Analysis(depth, 0, null, 0);
+        }
+
+        Move best = null;
+        int alpha = -MATE_SCORE - 1;
+        for (Move move : moves) {
+            Board child = board.copy();
+            child.movePiece(move);
+            int score = -search(child, depth - 1, -MATE_SCORE - 1, -alpha);
+            if (best == null || score > alpha) {
+                alpha = score;
+                best = move;
+            }
+        }
+
+        int whiteScore = side == Piece.Color.WHITE ? alpha : -alpha;
+        return new Analysis(depth, whiteScore, San.toSan(board, new GameLogic(board), best), nodes);
+    }
+
+    /**
+     * Negamax alpha-beta, điểm theo góc nhìn bên đang đi.
+     */
+    private int search(Board board, int depth, int alpha, int beta) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+        nodes++;
+
+        Piece.Color side = board.getSideToMove();
+        GameLogic logic = new GameLogic(board);
+        // GameLogic không chặn nước để vua bị ăn -> mất vua coi như thua
+        if (!logic.hasKing(side)) {
+            return -MATE_SCORE;
+        }
+        if (depth == 0) {
+            return evaluate(board, side);
+        }
+
+        List<Move> moves = logic.getAllValidMoves(side);
+        if (moves.isEmpty()) {
+            return 0;
+        }
+        for (Move move : moves) {
+            Board child = board.copy();
+            child.movePiece(move);
+            int score = -search(child, depth - 1, -beta, -alpha);
+            if (score >= beta) {
+                return beta;
+            }
+            alpha = Math.max(alpha, score);
+        }
+        return alpha;
+    }
+
+    private static int evaluate(Board board, Piece.Color side) {
+        int score = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(row, col);
+                if (piece != null) {
+                    int value = pieceValue(piece.getType());
+                    score += piece.getColor() == side ? value : -value;
+                }
+            }
+        }
+        return score;
+    }
+
+    private static int pieceValue(Piece.Type type) {
+        return switch (type) {
+            case PAWN -> 100;
+            case KNIGHT -> 320;
+            case BISHOP -> 330;
+            case ROOK -> 500;
+            case QUEEN -> 900;
+            case KING -> 0;
+        };
+    }
+}
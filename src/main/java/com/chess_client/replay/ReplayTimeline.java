@@ -0,0 +1,88 @@
+package com.chess_client.replay;
+
+import com.chess_client.archive.ArchivedGame;
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.pgn.San;
+import com.chess_client.services.GameLogic;
+
+import java.util.List;
+
+/**
+ * Dòng thời gian của một ván để xem lại: tua đến nước bất kỳ gần như tức thì.
+ *
+ * Cứ mỗi {@code interval} nước lưu một bản sao thế cờ (checkpoint). Khi tua đến nước
+ * thứ n, chỉ cần chép checkpoint gần nhất phía trước rồi đi thêm tối đa interval - 1
+ * nước, thay vì đi lại từ đầu ván. Tua tiến trong cùng khoảng thì chỉ đi phần chênh lệch.
+ */
+public class ReplayTimeline {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+
+    private final int interval;
+    private final int[] codes;
+    private final String[] san;
+    private final Board[] checkpoints;
+
+    public ReplayTimeline(String startFen, List<Move> moves, int interval) {
+        this.interval = Math.max(1, interval);
+        this.codes = new int[moves.size()];
+        this.san = new String[moves.size()];
+        this.checkpoints = new Board[moves.size() / this.interval + 1];
+
+        Board board = startFen == null ? new Board() : Board.fromFen(startFen);
+        GameLogic logic = new GameLogic(board);
+        for (int ply = 0; ply < moves.size(); ply++) {
+            if (ply % this.interval == 0) {
+                checkpoints[ply / this.interval] = board.copy();
+            }
+            codes[ply] = moves.get(ply).toCode();
+            Move move = Move.fromCode(codes[ply], board);
+            san[ply] = San.toSan(board, logic, move);
+            board.movePiece(move);
+        }
+        if (moves.size() % this.interval == 0) {
+            checkpoints[moves.size() / this.interval] = board.copy();
+        }
+    }
+
+    public static ReplayTimeline of(ArchivedGame game) {
+        return new ReplayTimeline(game.getStartFen(), game.toMoves(), DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Số nước (ply) của ván. Các vị trí hợp lệ để tua là 0..size().
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Ký hiệu SAN của nước thứ ply (0 = nước đầu tiên).
+     */
+    public String getSan(int ply) {
+        return san[ply];
+    }
+
+    /**
+     * Đưa board đích đến thế cờ sau {@code ply} nước.
+     *
+     * @param target     board đang hiển thị (giữ nguyên tham chiếu để BoardView dùng tiếp)
+     * @param currentPly thế cờ hiện tại của target (-1 nếu không rõ)
+     * @return ply sau khi tua (đã giới hạn trong 0..size())
+     */
+    public int seek(Board target, int currentPly, int ply) {
+        ply = Math.max(0, Math.min(ply, codes.length));
+        int from;
+        if (currentPly >= 0 && currentPly <= ply && ply - currentPly < interval) {
+            from = currentPly; // Chỉ đi phần chênh lệch
+        } else {
+            from = (ply / interval) * interval;
+            target.copyFrom(checkpoints[ply / interval]);
+        }
+        for (int i = from; i < ply; i++) {
+            target.movePiece(Move.fromCode(codes[i], target));
+        }
+        return ply;
+    }
+}
@@ -1,13 +1,27 @@
 package com.chess_client.services;
 
+import com.chess_client.admin.models.GameRow;
+import com.chess_client.admin.models.Page;
+import com.chess_client.admin.models.RankingRow;
+import com.chess_client.admin.models.UserRow;
+import org.json.JSONObject;
+
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.URLEncoder;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import org.json.JSONObject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Service để quản lý các chức năng admin
+ *
+ * Mọi endpoint đi chung một đường: get/post/put/delete() tạo request, ApiClient.callAsync()
+ * gửi qua chuỗi interceptor (access token được ApiInterceptors.bearerToken() gắn vào) và
+ * ApiClient.json() kiểm tra status rồi giải mã body. Danh sách được giải mã thẳng từ stream
+ * thành các dòng của admin.models; lỗi (kể cả 401/403) là ApiException với message của server.
  */
 public class AdminService {
     private static final String BASE_URL = ApiConfig.ADMIN_BASE;
@@ -15,698 +29,222 @@ public class AdminService {
     /**
      * Lấy thống kê tổng quan hệ thống
      */
-    public static JSONObject getSystemStats() {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/stats"))
-                    .header("Authorization", "Bearer " + token)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 401 || response.statusCode() == 403) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Không có quyền truy cập");
-                error.put("statusCode", response.statusCode());
-                return error;
-            }
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> getSystemStatsAsync() {
+        return get("/stats", json -> json);
     }
 
+    // ==================== QUẢN LÝ NGƯỜI DÙNG ====================
+
     /**
-     * Lấy danh sách tất cả người dùng
+     * Lấy danh sách người dùng (một trang)
      */
-    public static JSONObject getAllUsers(int page, int limit, String search) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            String url = BASE_URL + "/users?page=" + page + "&limit=" + limit;
-            if (search != null && !search.isEmpty()) {
-                url += "&search=" + java.net.URLEncoder.encode(search, "UTF-8");
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Authorization", "Bearer " + token)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 401 || response.statusCode() == 403) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Không có quyền truy cập");
-                error.put("statusCode", response.statusCode());
-                return error;
-            }
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
+    public static CompletableFuture<Page<UserRow>> getUsersAsync(int page, int limit, String search) {
+        String path = "/users?page=" + page + "&limit=" + limit;
+        if (search != null && !search.isEmpty()) {
+            path += "&search=" + URLEncoder.encode(search, StandardCharsets.UTF_8);
         }
+        return getPage(path, "users", page, (user, index) -> new UserRow(
+                user.getInt("id"),
+                user.getString("username"),
+                user.optString("display_name", ""),
+                user.optString("email", ""),
+                user.optString("phone", ""),
+                user.optString("status", "active"),
+                user.optString("role", "")));
     }
 
     /**
      * Lấy chi tiết một người dùng
      */
-    public static JSONObject getUserDetails(int userId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/users/" + userId))
-                    .header("Authorization", "Bearer " + token)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> getUserDetailsAsync(int userId) {
+        return get("/users/" + userId, json -> json);
     }
 
     /**
      * Cập nhật thông tin người dùng
      */
-    public static JSONObject updateUser(int userId, String displayName, String email, 
-                                       String phone, String role, Boolean isActive) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            JSONObject body = new JSONObject();
-            if (displayName != null) body.put("displayName", displayName);
-            if (email != null) body.put("email", email);
-            if (phone != null) body.put("phone", phone);
-            if (role != null) body.put("role", role);
-            if (isActive != null) body.put("isActive", isActive);
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/users/" + userId))
-                    .header("Authorization", "Bearer " + token)
-                    .header("Content-Type", "application/json")
-                    .PUT(HttpRequest.BodyPublishers.ofString(body.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> updateUserAsync(int userId, String displayName, String email,
+            String phone, String role, Boolean isActive) {
+        JSONObject body = new JSONObject();
+        if (displayName != null) body.put("displayName", displayName);
+        if (email != null) body.put("email", email);
+        if (phone != null) body.put("phone", phone);
+        if (role != null) body.put("role", role);
+        if (isActive != null) body.put("isActive", isActive);
+        return put("/users/" + userId, body);
     }
 
     /**
      * Khóa tài khoản người dùng
      */
-    public static JSONObject banUser(int userId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/users/" + userId + "/ban"))
-                    .header("Authorization", "Bearer " + token)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString("{}"))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> banUserAsync(int userId) {
+        return post("/users/" + userId + "/ban", new JSONObject());
     }
 
     /**
      * Mở khóa tài khoản người dùng
      */
-    public static JSONObject unbanUser(int userId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/users/" + userId + "/unban"))
-                    .header("Authorization", "Bearer " + token)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString("{}"))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> unbanUserAsync(int userId) {
+        return post("/users/" + userId + "/unban", new JSONObject());
     }
 
     /**
      * Xóa người dùng
      */
-    public static JSONObject deleteUser(int userId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/users/" + userId))
-                    .header("Authorization", "Bearer " + token)
-                    .DELETE()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> deleteUserAsync(int userId) {
+        return delete("/users/" + userId);
     }
 
     /**
      * Đặt lại mật khẩu cho người dùng
      */
-    public static JSONObject resetUserPassword(int userId, String newPassword) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            JSONObject body = new JSONObject();
-            body.put("newPassword", newPassword);
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/users/" + userId + "/reset-password"))
-                    .header("Authorization", "Bearer " + token)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> resetUserPasswordAsync(int userId, String newPassword) {
+        JSONObject body = new JSONObject();
+        body.put("newPassword", newPassword);
+        return post("/users/" + userId + "/reset-password", body);
     }
 
     /**
      * Thăng cấp người dùng lên admin
      */
-    public static JSONObject promoteToAdmin(int userId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/users/" + userId + "/promote"))
-                    .header("Authorization", "Bearer " + token)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString("{}"))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> promoteToAdminAsync(int userId) {
+        return post("/users/" + userId + "/promote", new JSONObject());
     }
 
     /**
      * Hạ cấp admin xuống user thông thường
      */
-    public static JSONObject demoteFromAdmin(int userId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/users/" + userId + "/demote"))
-                    .header("Authorization", "Bearer " + token)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString("{}"))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> demoteFromAdminAsync(int userId) {
+        return post("/users/" + userId + "/demote", new JSONObject());
     }
 
     // ==================== QUẢN LÝ TRẬN ĐẤU ====================
 
     /**
-     * Lấy danh sách tất cả trận đấu
+     * Lấy danh sách trận đấu (một trang)
      */
-    public static JSONObject getAllGames(int page, int limit, String status) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            String url = BASE_URL + "/games?page=" + page + "&limit=" + limit;
-            if (status != null && !status.isEmpty()) {
-                url += "&status=" + java.net.URLEncoder.encode(status, "UTF-8");
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Authorization", "Bearer " + token)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
+    public static CompletableFuture<Page<GameRow>> getGamesAsync(int page, int limit, String status) {
+        String path = "/games?page=" + page + "&limit=" + limit;
+        if (status != null && !status.isEmpty()) {
+            path += "&status=" + URLEncoder.encode(status, StandardCharsets.UTF_8);
         }
+        return getPage(path, "games", page, (game, index) -> new GameRow(
+                game.getInt("id"),
+                game.optString("white_display_name", game.optString("white_username", "N/A")),
+                game.optString("black_display_name", game.optString("black_username", "N/A")),
+                game.getString("mode"),
+                game.getString("status"),
+                game.optString("winner_display_name", game.optString("winner_username", "Hòa"))));
     }
 
     /**
      * Lấy chi tiết trận đấu
      */
-    public static JSONObject getGameDetails(int gameId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/games/" + gameId))
-                    .header("Authorization", "Bearer " + token)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> getGameDetailsAsync(int gameId) {
+        return get("/games/" + gameId, json -> json);
     }
 
     /**
      * Xóa trận đấu
      */
-    public static JSONObject deleteGame(int gameId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/games/" + gameId))
-                    .header("Authorization", "Bearer " + token)
-                    .DELETE()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<JSONObject> deleteGameAsync(int gameId) {
+        return delete("/games/" + gameId);
     }
 
     // ==================== QUẢN LÝ XẾP HẠNG ====================
 
     /**
-     * Lấy danh sách xếp hạng
+     * Lấy bảng xếp hạng (một trang); hạng tính theo vị trí trong toàn bảng
      */
-    public static JSONObject getAllRankings(int page, int limit) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            String url = BASE_URL + "/rankings?page=" + page + "&limit=" + limit;
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Authorization", "Bearer " + token)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
-
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    public static CompletableFuture<Page<RankingRow>> getRankingsAsync(int page, int limit) {
+        int firstRank = (page - 1) * limit + 1;
+        return getPage("/rankings?page=" + page + "&limit=" + limit, "rankings", page,
+                (ranking, index) -> new RankingRow(
+                        firstRank + index,
+                        ranking.getInt("user_id"),
+                        ranking.getString("username"),
+                        ranking.optString("display_name", ""),
+                        ranking.getInt("games_played"),
+                        ranking.getInt("wins"),
+                        ranking.getInt("losses"),
+                        ranking.getInt("draws"),
+                        ranking.getInt("score")));
     }
 
     /**
      * Cập nhật xếp hạng của user
      */
-    public static JSONObject updateRanking(int userId, Integer gamesPlayed, Integer wins, 
-                                          Integer losses, Integer draws, Integer score) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
-            }
-
-            JSONObject body = new JSONObject();
-            if (gamesPlayed != null) body.put("gamesPlayed", gamesPlayed);
-            if (wins != null) body.put("wins", wins);
-            if (losses != null) body.put("losses", losses);
-            if (draws != null) body.put("draws", draws);
-            if (score != null) body.put("score", score);
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/rankings/" + userId))
-                    .header("Authorization", "Bearer " + token)
-                    .header("Content-Type", "application/json")
-                    .PUT(HttpRequest.BodyPublishers.ofString(body.toString()))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    public static CompletableFuture<JSONObject> updateRankingAsync(int userId, Integer gamesPlayed, Integer wins,
+            Integer losses, Integer draws, Integer score) {
+        JSONObject body = new JSONObject();
+        if (gamesPlayed != null) body.put("gamesPlayed", gamesPlayed);
+        if (wins != null) body.put("wins", wins);
+        if (losses != null) body.put("losses", losses);
+        if (draws != null) body.put("draws", draws);
+        if (score != null) body.put("score", score);
+        return put("/rankings/" + userId, body);
+    }
 
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
+    /**
+     * Reset xếp hạng của user về 0
+     */
+    public static CompletableFuture<JSONObject> resetRankingAsync(int userId) {
+        return post("/rankings/" + userId + "/reset", new JSONObject());
+    }
 
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
+    // ==================== ĐƯỜNG GỬI CHUNG ====================
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    /**
+     * Giải mã một phần tử của mảng kết quả; {@code index} là vị trí trong trang.
+     */
+    @FunctionalInterface
+    private interface RowDecoder<T> {
+        T decode(JSONObject item, int index);
     }
 
     /**
-     * Reset xếp hạng của user về 0
+     * Tải một trang danh sách, giải mã thẳng từ stream thành các dòng (JsonStream) thay vì
+     * đọc cả body thành String rồi dựng cây JSONObject.
+     *
+     * @return trang gồm mọi dòng đã đọc và thông tin phân trang
      */
-    public static JSONObject resetRanking(int userId) {
-        try {
-            String token = TokenStorage.getAccessToken();
-            if (token == null || token.isEmpty()) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Chưa đăng nhập");
-                return error;
+    private static <T> CompletableFuture<Page<T>> getPage(String path, String key, int requestedPage,
+            RowDecoder<T> decoder) {
+        return ApiClient.streamAsync(() -> request(path).GET().build(), body -> {
+            List<T> rows = new ArrayList<>();
+            JSONObject rest = JsonStream.readArray(body, key, item -> rows.add(decoder.decode(item, rows.size())));
+            JSONObject pagination = rest.optJSONObject("pagination");
+            if (pagination == null) {
+                return new Page<>(rows, requestedPage, requestedPage, rows.size());
             }
+            return new Page<>(rows, pagination.optInt("page", requestedPage),
+                    pagination.optInt("totalPages", requestedPage), pagination.optInt("total", -1));
+        });
+    }
 
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(BASE_URL + "/rankings/" + userId + "/reset"))
-                    .header("Authorization", "Bearer " + token)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString("{}"))
-                    .build();
+    private static HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder().uri(URI.create(BASE_URL + path));
+    }
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    private static <T> CompletableFuture<T> get(String path, Function<JSONObject, T> decoder) {
+        return ApiClient.callAsync(() -> request(path).GET().build(), ApiClient.json(decoder));
+    }
 
-            String bodyText = response.body().trim();
-            if (!bodyText.startsWith("{")) {
-                JSONObject error = new JSONObject();
-                error.put("message", "Server không trả về JSON hợp lệ");
-                return error;
-            }
+    private static CompletableFuture<JSONObject> post(String path, JSONObject body) {
+        return ApiClient.callAsync(() -> request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), ApiClient.json(json -> json));
+    }
 
-            JSONObject result = new JSONObject(bodyText);
-            result.put("statusCode", response.statusCode());
-            return result;
+    private static CompletableFuture<JSONObject> put(String path, JSONObject body) {
+        return ApiClient.callAsync(() -> request(path)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), ApiClient.json(json -> json));
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            JSONObject error = new JSONObject();
-            error.put("message", "Lỗi kết nối: " + e.getMessage());
-            return error;
-        }
+    private static CompletableFuture<JSONObject> delete(String path) {
+        return ApiClient.callAsync(() -> request(path).DELETE().build(), ApiClient.json(json -> json));
     }
 }
-
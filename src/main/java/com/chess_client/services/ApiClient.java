@@ -0,0 +1,440 @@
+package com.chess_client.services;
+
+import com.chess_client.network.RttHistogram;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * HttpClient dùng chung cho mọi lời gọi API backend.
+ *
+ * Một client duy nhất giữ pool kết nối keep-alive (HTTP/1.1) hoặc một kết nối ghép kênh
+ * (HTTP/2), nên các lời gọi liên tiếp tới server không phải bắt tay TCP/TLS lại và không
+ * tạo thêm selector thread như khi mỗi service tự tạo HttpClient.
+ *
+ * HTTP/2 chỉ được bật khi BASE_URL là https (thương lượng qua ALPN, server không hỗ trợ
+ * thì tự về HTTP/1.1). Với http thường, yêu cầu HTTP/2 sẽ gửi kèm header "Upgrade: h2c"
+ * mà nhiều server Node/Express xử lý sai, nên dùng thẳng HTTP/1.1; có thể ép bằng
+ * -DAPI_HTTP2=true hoặc false.
+ *
+ * Mỗi lời gọi được đo thời gian theo endpoint (method + path, phần id được gộp lại),
+ * xem getLatencyReport().
+ *
+ * Có hai cách gọi: send() chặn thread gọi, còn callAsync() dùng sendAsync và trả về
+ * CompletableFuture, phần đọc JSON chạy trên virtual thread của client (không bao giờ
+ * trên thread JavaFX). Các service viết logic một lần dưới dạng async và giữ hàm chặn
+ * cũ bằng await().
+ *
+ * GET của callAsync() tới các endpoint hay mở lại (bảng xếp hạng, profile, bạn bè, thống
+ * kê admin) đi qua ResponseCache: dùng lại trong TTL hoặc hỏi lại bằng ETag (304).
+ *
+ * Mọi lời gọi callAsync()/streamAsync() đi qua chuỗi ApiInterceptor (mặc định: ghi log lỗi,
+ * thử lại lỗi tạm thời có backoff, ngắt mạch khi server sập, gắn access token), nên thêm
+ * một hành vi chung cho mọi endpoint chỉ cần addInterceptor(). json() gom phần kiểm tra
+ * status/JSON lặp lại ở các service thành một chỗ.
+ */
+public final class ApiClient {
+
+    public static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("http-", 0).factory());
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(useHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(EXECUTOR)
+            .build();
+
+    private static final Map<String, RttHistogram> latencies = new ConcurrentHashMap<>();
+
+    // Endpoint được cache: dữ liệu ít đổi được dùng lại trong TTL, còn lại (TTL 0) luôn hỏi
+    // lại server bằng ETag. Tầng đĩa bật bằng -DAPI_CACHE_DIR
+    private static final ResponseCache CACHE = new ResponseCache(4L * 1024 * 1024, cacheDir())
+            .policy(ApiConfig.BASE_URL + "/api/leaderboard", Duration.ofSeconds(30))
+            .policy(ApiConfig.BASE_URL + "/api/users/me", Duration.ofSeconds(60))
+            .policy(ApiConfig.BASE_URL + "/api/friends", Duration.ZERO)
+            .policy(ApiConfig.ADMIN_BASE + "/stats", Duration.ofSeconds(10));
+
+    // GET gửi tối đa 3 lần; riêng kết thúc trận (POST /api/games/{id}/end) cũng vậy vì server trả
+    // 409 nếu trận đã kết thúc. Các request thay đổi dữ liệu khác chỉ gửi một lần
+    private static final RetryPolicy RETRY = new RetryPolicy(3)
+            .budget("POST", ApiConfig.GAMES_BASE, "/end", 3);
+    private static final Backoff RETRY_BACKOFF = new Backoff(Duration.ofMillis(200), Duration.ofSeconds(3));
+
+    // 5 lỗi liên tiếp thì ngắt mạch 5 giây, lời gọi thử lỗi tiếp thì gấp đôi tới 60 giây
+    private static final CircuitBreaker BREAKER = new CircuitBreaker(5, Duration.ofSeconds(5),
+            Duration.ofSeconds(60));
+
+    // Interceptor đầu danh sách chạy ngoài cùng (thấy request trước, response sau cùng).
+    // Mỗi lần thử lại đi qua CircuitBreaker, nên mạch ngắt giữa chừng thì dừng thử lại
+    private static final List<ApiInterceptor> interceptors = new CopyOnWriteArrayList<>(List.of(
+            ApiInterceptors.errorLog(),
+            ApiInterceptors.retry(RETRY, RETRY_BACKOFF),
+            ApiInterceptors.circuitBreaker(BREAKER),
+            ApiInterceptors.bearerToken()));
+
+    /**
+     * Đọc response (kiểm tra status, parse JSON); được phép ném IOException như code chặn.
+     */
+    @FunctionalInterface
+    public interface ResponseParser<T> {
+        T parse(HttpResponse<String> response) throws IOException;
+    }
+
+    /**
+     * Đọc body dạng stream của response 2xx (streamAsync); stream được đóng sau khi trả về.
+     */
+    @FunctionalInterface
+    public interface StreamParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    private ApiClient() {
+    }
+
+    private static boolean useHttp2() {
+        String forced = System.getProperty("API_HTTP2");
+        if (forced != null && !forced.isBlank()) {
+            return Boolean.parseBoolean(forced);
+        }
+        return ApiConfig.BASE_URL.startsWith("https://");
+    }
+
+    private static Path cacheDir() {
+        String dir = System.getProperty("API_CACHE_DIR");
+        return dir == null || dir.isBlank() ? null : Path.of(dir);
+    }
+
+    public static HttpClient getClient() {
+        return CLIENT;
+    }
+
+    /**
+     * Executor (virtual thread) của client, cho việc chặn ngắn đi kèm lời gọi API.
+     */
+    static Executor executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Ngắt mạch dùng chung cho mọi lời gọi tới backend (trạng thái: getReport()).
+     */
+    public static CircuitBreaker getCircuitBreaker() {
+        return BREAKER;
+    }
+
+    /**
+     * Cache response GET dùng cho callAsync() (thống kê: getReport()).
+     */
+    public static ResponseCache getResponseCache() {
+        return CACHE;
+    }
+
+    /**
+     * Thêm một interceptor vào cuối chuỗi (gần HttpClient nhất).
+     */
+    public static void addInterceptor(ApiInterceptor interceptor) {
+        interceptors.add(interceptor);
+    }
+
+    /**
+     * Gửi request qua client dùng chung và ghi lại độ trễ của endpoint.
+     * Request chưa đặt timeout sẽ dùng REQUEST_TIMEOUT.
+     */
+    public static <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        HttpRequest timed = withDefaultTimeout(request);
+        long start = System.nanoTime();
+        try {
+            return CLIENT.send(timed, bodyHandler);
+        } finally {
+            record(timed, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Bắt đầu request tới {@code url} kèm access token hiện tại.
+     *
+     * @throws IllegalStateException nếu chưa đăng nhập
+     */
+    public static HttpRequest.Builder authorized(String url) {
+        String token = TokenStorage.getAccessToken();
+        if (token == null || token.isEmpty()) {
+            throw new IllegalStateException("Chưa đăng nhập");
+        }
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    /**
+     * Như send() nhưng không chặn: future hoàn thành khi nhận xong response.
+     */
+    public static <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpRequest timed = withDefaultTimeout(request);
+        long start = System.nanoTime();
+        return CLIENT.sendAsync(timed, bodyHandler)
+                .whenComplete((response, error) -> record(timed, System.nanoTime() - start));
+    }
+
+    /**
+     * Gửi request không chặn và đọc kết quả bằng {@code parser} trên virtual thread.
+     * GET tới endpoint đã đăng ký trong ResponseCache có thể được trả từ cache (parser
+     * nhận response 200 với body đã lưu).
+     *
+     * @param request tạo request; lỗi khi tạo (ví dụ chưa đăng nhập) trả về future lỗi
+     *                thay vì ném ra ở thread gọi
+     */
+    public static <T> CompletableFuture<T> callAsync(Supplier<HttpRequest> request, ResponseParser<T> parser) {
+        HttpRequest built;
+        try {
+            built = request.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<HttpResponse<String>> sent = CACHE.exchange(built);
+        CompletableFuture<T> result = sent.thenApplyAsync(response -> {
+            try {
+                return parser.parse(response);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+        cancelWith(result, sent);
+        return result;
+    }
+
+    /**
+     * Như callAsync() nhưng đọc body dạng stream ngay khi nhận xong header, không chờ cả
+     * body về thành String. Dùng cho danh sách lớn: {@code parser} giải mã dần từng phần
+     * (xem JsonStream) trên virtual thread. Status không phải 2xx được xử lý như json().
+     */
+    public static <T> CompletableFuture<T> streamAsync(Supplier<HttpRequest> request, StreamParser<T> parser) {
+        HttpRequest built;
+        try {
+            built = request.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<HttpResponse<InputStream>> sent = exchange(built, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<T> result = sent.thenApplyAsync(response -> {
+            try (InputStream body = response.body()) {
+                int status = response.statusCode();
+                if (status < 200 || status >= 300) {
+                    throw errorOf(status, new String(body.readAllBytes(), StandardCharsets.UTF_8).trim());
+                }
+                return parser.parse(body);
+            } catch (JSONException e) {
+                throw new CompletionException(new ApiException(response.statusCode(),
+                        "Dữ liệu server trả về không đúng định dạng: " + e.getMessage()));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+        cancelWith(result, sent);
+        return result;
+    }
+
+    /**
+     * Hủy kết quả (ví dụ rời màn hình) thì hủy luôn lời gọi HTTP đang chờ; nếu đã nhận
+     * header và đang đọc body dạng stream thì đóng stream để dừng đọc. Future của
+     * HttpClient báo hủy dưới dạng CompletionException(CancellationException) nên phải xét
+     * lỗi gốc chứ không dùng isCancelled().
+     */
+    private static <B> void cancelWith(CompletableFuture<?> result, CompletableFuture<HttpResponse<B>> sent) {
+        result.whenComplete((value, error) -> {
+            if (error == null || !(unwrap(error) instanceof CancellationException)) {
+                return;
+            }
+            sent.cancel(true);
+            sent.thenAccept(response -> {
+                if (response.body() instanceof Closeable closeable) {
+                    try {
+                        closeable.close();
+                    } catch (IOException e) {
+                        // Đang hủy, bỏ qua
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Gửi request qua chuỗi interceptor, bước cuối là sendAsync().
+     */
+    public static <T> CompletableFuture<HttpResponse<T>> exchange(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        ApiInterceptor[] chain = interceptors.toArray(new ApiInterceptor[0]);
+        try {
+            return proceed(chain, 0, request, bodyHandler);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static <T> CompletableFuture<HttpResponse<T>> proceed(ApiInterceptor[] chain, int index,
+            HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        if (index == chain.length) {
+            return sendAsync(request, bodyHandler);
+        }
+        return chain[index].intercept(request, next -> proceed(chain, index + 1, next, bodyHandler));
+    }
+
+    /**
+     * Parser cho API trả về object JSON: status 2xx thì đưa body cho {@code decoder},
+     * còn lại ném ApiException với message của server (401/403: "Không có quyền truy cập").
+     * Body không phải JSON hoặc thiếu trường mà decoder cần cũng là ApiException.
+     */
+    public static <T> ResponseParser<T> json(Function<JSONObject, T> decoder) {
+        return response -> {
+            int status = response.statusCode();
+            String body = response.body() == null ? "" : response.body().trim();
+            if (status < 200 || status >= 300) {
+                throw errorOf(status, body);
+            }
+            JSONObject json = parseObject(body);
+            if (json == null) {
+                throw new ApiException(status, "Server không trả về JSON hợp lệ");
+            }
+            try {
+                return decoder.apply(json);
+            } catch (JSONException e) {
+                throw new ApiException(status, "Dữ liệu server trả về không đúng định dạng: " + e.getMessage());
+            }
+        };
+    }
+
+    private static ApiException errorOf(int status, String body) {
+        if (status == 401 || status == 403) {
+            return new ApiException(status, "Không có quyền truy cập");
+        }
+        JSONObject json = parseObject(body);
+        String message = json != null ? json.optString("message", "") : "";
+        return new ApiException(status, message.isEmpty() ? "Yêu cầu thất bại (HTTP " + status + ")" : message);
+    }
+
+    /**
+     * Object JSON trong body, null nếu body không phải object JSON.
+     */
+    private static JSONObject parseObject(String body) {
+        if (!body.startsWith("{")) {
+            return null;
+        }
+        try {
+            return new JSONObject(body);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Chờ kết quả của một lời gọi async, ném lại lỗi gốc như hàm chặn (IOException,
+     * IllegalStateException...). Bị ngắt khi đang chờ thì hủy luôn lời gọi.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Lấy lỗi gốc từ lỗi của CompletableFuture (bỏ lớp CompletionException/ExecutionException).
+     */
+    public static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    static HttpRequest withDefaultTimeout(HttpRequest request) {
+        if (request.timeout().isPresent()) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .timeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    static void record(HttpRequest request, long nanos) {
+        latencies.computeIfAbsent(endpointOf(request), key -> new RttHistogram()).record(nanos);
+    }
+
+    /**
+     * Tên endpoint để thống kê: method + path, các đoạn path có chữ số (id) thay bằng
+     * "{id}" để /api/games/12/end và /api/games/13/end được tính chung.
+     */
+    static String endpointOf(HttpRequest request) {
+        String path = request.uri().getPath();
+        StringBuilder sb = new StringBuilder(request.method()).append(' ');
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            sb.append('/');
+            sb.append(segment.chars().anyMatch(Character::isDigit) ? "{id}" : segment);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Độ trễ theo endpoint (số lần gọi, p50, p99, max), endpoint gọi nhiều nhất trước.
+     */
+    public static String getLatencyReport() {
+        List<Map.Entry<String, RttHistogram>> entries = new ArrayList<>(latencies.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().getCount(), a.getValue().getCount()));
+        StringBuilder sb = new StringBuilder("Độ trễ API (").append(CLIENT.version()).append("):");
+        for (Map.Entry<String, RttHistogram> entry : entries) {
+            sb.append(String.format("%n  %-40s %s", entry.getKey(), entry.getValue()));
+        }
+        return sb.toString();
+    }
+
+    public static void resetLatencies() {
+        latencies.clear();
+    }
+}
@@ -0,0 +1,41 @@
+package com.chess_client.services;
+
+import java.io.IOException;
+
+/**
+ * Server trả về lỗi (status không phải 2xx) hoặc body không đọc được. Message là message
+ * của server nếu có. Khác với IOException thường (mất kết nối, timeout...) ở chỗ request
+ * đã tới được server.
+ */
+public class ApiException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public ApiException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isUnauthorized() {
+        return statusCode == 401 || statusCode == 403;
+    }
+
+    /**
+     * Câu thông báo cho người dùng từ lỗi của một lời gọi API: lỗi do server trả về và
+     * lỗi chưa đăng nhập, lời gọi bị ngắt mạch giữ nguyên message, còn lại là lỗi kết nối.
+     */
+    public static String describe(Throwable error) {
+        Throwable cause = ApiClient.unwrap(error);
+        if (cause instanceof ApiException || cause instanceof IllegalStateException
+                || cause instanceof CircuitOpenException) {
+            return cause.getMessage();
+        }
+        return "Lỗi kết nối: " + cause.getMessage();
+    }
+}
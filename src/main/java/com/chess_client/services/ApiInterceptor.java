@@ -0,0 +1,32 @@
+package com.chess_client.services;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Một bước trong đường gửi request của ApiClient (thêm header, ghi log, thử lại, cache...).
+ *
+ * Interceptor nhận request, có thể sửa nó rồi gọi {@code chain.proceed()} để chuyển cho
+ * bước sau (bước cuối là HttpClient), hoặc tự trả về response mà không gửi. Nên trả về
+ * thẳng future của {@code chain.proceed()} (hoặc future ghép từ nó) để việc hủy lời gọi
+ * được truyền xuống HttpClient.
+ *
+ * Body của response có kiểu T tùy lời gọi (String với callAsync, InputStream với
+ * streamAsync), nên interceptor chỉ nên dựa vào status và header.
+ *
+ * Đăng ký bằng ApiClient.addInterceptor(); áp dụng cho mọi lời gọi qua callAsync() và
+ * streamAsync().
+ */
+public interface ApiInterceptor {
+
+    <T> CompletableFuture<HttpResponse<T>> intercept(HttpRequest request, Chain<T> chain);
+
+    /**
+     * Phần còn lại của đường gửi tính từ interceptor hiện tại.
+     */
+    @FunctionalInterface
+    interface Chain<T> {
+        CompletableFuture<HttpResponse<T>> proceed(HttpRequest request);
+    }
+}
@@ -0,0 +1,191 @@
+package com.chess_client.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Các interceptor dùng chung của ApiClient.
+ */
+public final class ApiInterceptors {
+
+    private ApiInterceptors() {
+    }
+
+    /**
+     * Gắn access token hiện tại vào request tới backend nếu request chưa có header
+     * Authorization. Chưa đăng nhập thì gửi nguyên request (server trả 401).
+     */
+    public static ApiInterceptor bearerToken() {
+        return new ApiInterceptor() {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> intercept(HttpRequest request, Chain<T> chain) {
+                if (request.headers().firstValue("Authorization").isPresent()
+                        || !request.uri().toString().startsWith(ApiConfig.BASE_URL)) {
+                    return chain.proceed(request);
+                }
+                String token = TokenStorage.getAccessToken();
+                if (token == null || token.isEmpty()) {
+                    return chain.proceed(request);
+                }
+                return chain.proceed(HttpRequest.newBuilder(request, (name, value) -> true)
+                        .header("Authorization", "Bearer " + token)
+                        .build());
+            }
+        };
+    }
+
+    /**
+     * In ra System.err các lời gọi lỗi mạng hoặc bị server trả lỗi 5xx, kèm endpoint.
+     */
+    public static ApiInterceptor errorLog() {
+        return new ApiInterceptor() {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> intercept(HttpRequest request, Chain<T> chain) {
+                CompletableFuture<HttpResponse<T>> future = chain.proceed(request);
+                future.whenComplete((response, error) -> {
+                    if (error != null) {
+                        Throwable cause = ApiClient.unwrap(error);
+                        // Mạch đang ngắt thì CircuitBreaker đã báo một lần, không in từng lời gọi
+                        if (!(cause instanceof CancellationException) && !(cause instanceof CircuitOpenException)) {
+                            System.err.println("[ApiClient] " + ApiClient.endpointOf(request) + " lỗi: " + cause);
+                        }
+                    } else if (response.statusCode() >= 500) {
+                        System.err.println("[ApiClient] " + ApiClient.endpointOf(request) + " -> " + response.statusCode());
+                    }
+                });
+                return future;
+            }
+        };
+    }
+
+    /**
+     * Gửi lại request bị lỗi tạm thời: lỗi mạng/timeout (request chưa có response) hoặc
+     * server trả 502/503/504. Số lần gửi tối đa theo {@code policy}; giữa hai lần chờ theo
+     * {@code backoff} mà không giữ thread nào. Lỗi do server trả về (ApiException) và lời
+     * gọi bị CircuitBreaker từ chối không được gửi lại; hủy kết quả thì dừng thử lại.
+     */
+    public static ApiInterceptor retry(RetryPolicy policy, Backoff backoff) {
+        return new ApiInterceptor() {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> intercept(HttpRequest request, Chain<T> chain) {
+                int attempts = policy.attemptsFor(request);
+                if (attempts <= 1) {
+                    return chain.proceed(request);
+                }
+                CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+                AtomicReference<CompletableFuture<HttpResponse<T>>> current = new AtomicReference<>();
+                result.whenComplete((response, error) -> {
+                    CompletableFuture<HttpResponse<T>> running = current.get();
+                    if (error != null && ApiClient.unwrap(error) instanceof CancellationException && running != null) {
+                        running.cancel(true);
+                    }
+                });
+                attempt(request, chain, 1, attempts, backoff, result, current);
+                return result;
+            }
+        };
+    }
+
+    private static <T> void attempt(HttpRequest request, ApiInterceptor.Chain<T> chain, int attempt, int attempts,
+            Backoff backoff, CompletableFuture<HttpResponse<T>> result,
+            AtomicReference<CompletableFuture<HttpResponse<T>>> current) {
+        if (result.isDone()) {
+            return; // Đã bị hủy trong lúc chờ
+        }
+        CompletableFuture<HttpResponse<T>> sent;
+        try {
+            sent = chain.proceed(request);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        current.set(sent);
+        if (result.isDone()) {
+            sent.cancel(true);
+            return;
+        }
+        sent.whenComplete((response, error) -> {
+            boolean again = attempt < attempts
+                    && (error != null ? isTransient(error) : isRetryableStatus(response.statusCode()));
+            if (!again) {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+                return;
+            }
+            if (response != null && response.body() instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    // Bỏ response này, không cần body
+                }
+            }
+            Duration delay = backoff.delay(attempt - 1);
+            System.err.println("[ApiClient] " + ApiClient.endpointOf(request) + " "
+                    + (error != null ? ApiClient.unwrap(error) : "HTTP " + response.statusCode())
+                    + ", thử lại lần " + attempt + "/" + (attempts - 1) + " sau " + delay.toMillis() + " ms");
+            CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(request, chain, attempt + 1, attempts, backoff, result, current));
+        });
+    }
+
+    private static boolean isTransient(Throwable error) {
+        Throwable cause = ApiClient.unwrap(error);
+        return cause instanceof IOException
+                && !(cause instanceof ApiException)
+                && !(cause instanceof CircuitOpenException);
+    }
+
+    private static boolean isRetryableStatus(int status) {
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * Cho request tới backend đi qua {@code breaker}: mạch đang ngắt thì trả lỗi
+     * CircuitOpenException ngay, không gửi và không chờ timeout. Lỗi mạng và 5xx được tính
+     * là lỗi, mọi response khác (kể cả 4xx) là server còn sống.
+     */
+    public static ApiInterceptor circuitBreaker(CircuitBreaker breaker) {
+        return new ApiInterceptor() {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> intercept(HttpRequest request, Chain<T> chain) {
+                if (!request.uri().toString().startsWith(ApiConfig.BASE_URL)) {
+                    return chain.proceed(request);
+                }
+                if (!breaker.tryAcquire()) {
+                    return CompletableFuture.failedFuture(
+                            new CircuitOpenException("Máy chủ đang không phản hồi, vui lòng thử lại sau"));
+                }
+                CompletableFuture<HttpResponse<T>> future;
+                try {
+                    future = chain.proceed(request);
+                } catch (RuntimeException e) {
+                    breaker.onIgnored();
+                    throw e;
+                }
+                future.whenComplete((response, error) -> {
+                    if (error == null) {
+                        if (response.statusCode() >= 500) {
+                            breaker.onFailure();
+                        } else {
+                            breaker.onSuccess();
+                        }
+                    } else if (ApiClient.unwrap(error) instanceof CancellationException) {
+                        breaker.onIgnored();
+                    } else {
+                        breaker.onFailure();
+                    }
+                });
+                return future;
+            }
+        };
+    }
+}
@@ -1,7 +1,8 @@
 package com.chess_client.services;
 
+import com.chess_client.tasks.BackgroundTasks;
+
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import org.json.JSONObject;
@@ -15,14 +16,13 @@ public class AuthService {
             body.put("username", username);
             body.put("password", password);
 
-            HttpClient client = HttpClient.newHttpClient();
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(BASE_URL + "/signin"))
                     .header("Content-Type", "application/json")
                     .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
                     .build();
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = ApiClient.send(request, HttpResponse.BodyHandlers.ofString());
 
             System.out.println("Status: " + response.statusCode());
 
@@ -54,23 +54,23 @@ public class AuthService {
             JSONObject body = new JSONObject();
             body.put("refreshToken", refresh);
 
-            HttpClient client = HttpClient.newHttpClient();
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(BASE_URL + "/signout"))
                     .header("Content-Type", "application/json")
                     .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
                     .build();
 
-            client.send(request, HttpResponse.BodyHandlers.ofString());
+            ApiClient.send(request, HttpResponse.BodyHandlers.ofString());
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
             TokenStorage.clear();
+            ApiClient.getResponseCache().clear();
         }
     }
 
     public static void signOutAsync() {
-        new Thread(AuthService::signOutSync).start();
+        BackgroundTasks.run("auth.sign-out", AuthService::signOutSync);
     }
 
     public static JSONObject signUp(String username, String password, String email, String displayName) {
@@ -81,14 +81,13 @@ public class AuthService {
             body.put("email", email);
             body.put("displayName", displayName);
 
-            HttpClient client = HttpClient.newHttpClient();
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(BASE_URL + "/signup"))
                     .header("Content-Type", "application/json")
                     .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
                     .build();
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = ApiClient.send(request, HttpResponse.BodyHandlers.ofString());
 
             System.out.println("Status: " + response.statusCode());
             System.out.println("Response: " + response.body());
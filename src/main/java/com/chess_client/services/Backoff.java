@@ -0,0 +1,32 @@
+package com.chess_client.services;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Thời gian chờ trước lần thử lại thứ n: tăng gấp đôi sau mỗi lần (tối đa {@code max}),
+ * cộng nhiễu ngẫu nhiên để các client không cùng thử lại một lúc khi server vừa sống lại.
+ */
+public class Backoff {
+
+    private final long baseMillis;
+    private final long maxMillis;
+
+    public Backoff(Duration base, Duration max) {
+        this.baseMillis = base.toMillis();
+        this.maxMillis = max.toMillis();
+    }
+
+    /**
+     * @param attempt số lần đã thử lại trước đó (0 cho lần thử lại đầu tiên)
+     * @return ngẫu nhiên trong [d/2, d] với d = min(max, base * 2^attempt)
+     */
+    public Duration delay(int attempt) {
+        long ceiling = baseMillis << Math.min(attempt, 30);
+        if (ceiling <= 0 || ceiling > maxMillis) {
+            ceiling = maxMillis;
+        }
+        long half = ceiling / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(ceiling - half + 1));
+    }
+}
@@ -0,0 +1,118 @@
+package com.chess_client.services;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ngắt mạch cho các lời gọi tới backend.
+ *
+ * CLOSED: gửi bình thường, đếm số lần lỗi liên tiếp (lỗi mạng hoặc 5xx). Đủ
+ * {@code failureThreshold} lần thì chuyển OPEN: mọi lời gọi bị từ chối ngay bằng
+ * CircuitOpenException trong {@code openDuration}. Hết thời gian thì HALF_OPEN: chỉ cho
+ * một lời gọi thử đi qua; thành công thì về CLOSED, lỗi thì OPEN lại với thời gian mở
+ * gấp đôi (tối đa {@code maxOpenDuration}).
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final long maxOpenMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long currentOpenMillis;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Duration maxOpenDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.maxOpenMillis = maxOpenDuration.toMillis();
+        this.currentOpenMillis = openMillis;
+    }
+
+    /**
+     * Lời gọi có được gửi đi không; false thì lời gọi phải bị từ chối ngay.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= currentOpenMillis) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            currentOpenMillis = openMillis;
+            System.out.println("[CircuitBreaker] Server đã phản hồi lại, đóng mạch");
+        }
+    }
+
+    public synchronized void onFailure() {
+        failures.increment();
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            // Lời gọi thử vẫn lỗi: mở lại lâu hơn
+            currentOpenMillis = Math.min(currentOpenMillis * 2, maxOpenMillis);
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Lời gọi được cho đi nhưng không có kết quả (bị hủy): không tính là thành công hay lỗi.
+     */
+    public synchronized void onIgnored() {
+        probeInFlight = false;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        probeInFlight = false;
+        opened.increment();
+        System.err.println("[CircuitBreaker] " + consecutiveFailures + " lỗi liên tiếp, ngắt mạch "
+                + currentOpenMillis / 1000 + " giây");
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getOpenedCount() {
+        return opened.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Trạng thái hiện tại, số lần ngắt mạch, số lời gọi bị từ chối và số lỗi đã ghi nhận.
+     */
+    public synchronized String getReport() {
+        return String.format("Ngắt mạch API: %s, %d lỗi liên tiếp, đã ngắt %d lần, từ chối %d lời gọi, tổng %d lỗi",
+                state, consecutiveFailures, opened.sum(), rejected.sum(), failures.sum());
+    }
+}
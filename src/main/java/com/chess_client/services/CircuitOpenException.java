@@ -0,0 +1,16 @@
+package com.chess_client.services;
+
+import java.io.IOException;
+
+/**
+ * Lời gọi bị từ chối ngay mà không gửi đi vì CircuitBreaker đang mở (server vừa lỗi liên
+ * tiếp nhiều lần), để giao diện không phải chờ timeout.
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
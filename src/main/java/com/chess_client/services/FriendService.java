@@ -4,307 +4,237 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.URLEncoder;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * API bạn bè và lời mời chơi cờ. Mỗi lời gọi có bản async (CompletableFuture, dùng
+ * sendAsync nên không giữ thread nào khi chờ server, có thể chạy song song nhiều lời
+ * gọi của cùng một màn hình) và bản chặn giữ nguyên chữ ký cũ.
+ */
 public class FriendService {
     private static final String BASE_URL = ApiConfig.BASE_URL + "/api/friends";
-    private static final HttpClient client = HttpClient.newHttpClient();
 
-    public static JSONArray getFriends() throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    // ===================== FRIENDS =====================
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL))
-                .header("Authorization", "Bearer " + token)
+    public static CompletableFuture<JSONArray> getFriendsAsync() {
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL)
                 .GET()
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            JSONObject json = new JSONObject(response.body());
-            return json.getJSONArray("friends");
-        } else {
-            throw new IOException("Lỗi khi lấy danh sách bạn bè: " + response.statusCode());
-        }
+                .build(), response -> {
+                    if (response.statusCode() == 200) {
+                        JSONObject json = new JSONObject(response.body());
+                        return json.getJSONArray("friends");
+                    } else {
+                        throw new IOException("Lỗi khi lấy danh sách bạn bè: " + response.statusCode());
+                    }
+                });
     }
 
-    public static JSONArray getFriendRequests() throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    public static JSONArray getFriends() throws IOException, InterruptedException {
+        return ApiClient.await(getFriendsAsync());
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/requests"))
-                .header("Authorization", "Bearer " + token)
+    public static CompletableFuture<JSONArray> getFriendRequestsAsync() {
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL + "/requests")
                 .GET()
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            JSONObject json = new JSONObject(response.body());
-            return json.getJSONArray("requests");
-        } else {
-            throw new IOException("Lỗi khi lấy lời mời kết bạn: " + response.statusCode());
-        }
+                .build(), response -> {
+                    if (response.statusCode() == 200) {
+                        JSONObject json = new JSONObject(response.body());
+                        return json.getJSONArray("requests");
+                    } else {
+                        throw new IOException("Lỗi khi lấy lời mời kết bạn: " + response.statusCode());
+                    }
+                });
     }
 
-    public static JSONArray searchUsers(String searchTerm) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    public static JSONArray getFriendRequests() throws IOException, InterruptedException {
+        return ApiClient.await(getFriendRequestsAsync());
+    }
 
+    public static CompletableFuture<JSONArray> searchUsersAsync(String searchTerm) {
         String encodedQuery = URLEncoder.encode(searchTerm, StandardCharsets.UTF_8);
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/search?q=" + encodedQuery))
-                .header("Authorization", "Bearer " + token)
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL + "/search?q=" + encodedQuery)
                 .GET()
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            JSONObject json = new JSONObject(response.body());
-            return json.getJSONArray("users");
-        } else {
-            throw new IOException("Lỗi khi tìm kiếm: " + response.statusCode());
-        }
+                .build(), response -> {
+                    if (response.statusCode() == 200) {
+                        JSONObject json = new JSONObject(response.body());
+                        return json.getJSONArray("users");
+                    } else {
+                        throw new IOException("Lỗi khi tìm kiếm: " + response.statusCode());
+                    }
+                });
     }
 
-    public static void sendFriendRequest(int addresseeId) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    public static JSONArray searchUsers(String searchTerm) throws IOException, InterruptedException {
+        return ApiClient.await(searchUsersAsync(searchTerm));
+    }
 
+    public static CompletableFuture<Void> sendFriendRequestAsync(int addresseeId) {
         JSONObject body = new JSONObject();
         body.put("addressee_id", addresseeId);
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/request"))
-                .header("Authorization", "Bearer " + token)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        // Chấp nhận cả 200 và 201 (200 là khi auto-accept từ phía server)
-        int statusCode = response.statusCode();
-        if (statusCode != 201 && statusCode != 200) {
-            String errorMessage = "Lỗi khi gửi lời mời kết bạn";
-            try {
-                String responseBody = response.body();
-                if (responseBody != null && !responseBody.trim().isEmpty()) {
-                    JSONObject errorJson = new JSONObject(responseBody);
-                    errorMessage = errorJson.optString("message", errorMessage);
+        return ApiClient.callAsync(() -> post("/request", body), response -> {
+            // Chấp nhận cả 200 và 201 (200 là khi auto-accept từ phía server)
+            int statusCode = response.statusCode();
+            if (statusCode != 201 && statusCode != 200) {
+                String errorMessage = "Lỗi khi gửi lời mời kết bạn";
+                try {
+                    String responseBody = response.body();
+                    if (responseBody != null && !responseBody.trim().isEmpty()) {
+                        JSONObject errorJson = new JSONObject(responseBody);
+                        errorMessage = errorJson.optString("message", errorMessage);
+                    }
+                } catch (Exception e) {
+                    // Nếu không parse được JSON, dùng message mặc định
+                    errorMessage = "Lỗi khi gửi lời mời kết bạn (Status: " + statusCode + ")";
                 }
-            } catch (Exception e) {
-                // Nếu không parse được JSON, dùng message mặc định
-                errorMessage = "Lỗi khi gửi lời mời kết bạn (Status: " + statusCode + ")";
+                throw new IOException(errorMessage);
             }
-            throw new IOException(errorMessage);
-        }
+            return null;
+        });
     }
 
-    public static void acceptFriendRequest(int requesterId) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    public static void sendFriendRequest(int addresseeId) throws IOException, InterruptedException {
+        ApiClient.await(sendFriendRequestAsync(addresseeId));
+    }
 
+    public static CompletableFuture<Void> acceptFriendRequestAsync(int requesterId) {
         JSONObject body = new JSONObject();
         body.put("requester_id", requesterId);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/accept"))
-                .header("Authorization", "Bearer " + token)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            JSONObject errorJson = new JSONObject(response.body());
-            throw new IOException(errorJson.optString("message", "Lỗi khi chấp nhận lời mời"));
-        }
+        return ApiClient.callAsync(() -> post("/accept", body),
+                response -> expectOk(response, "Lỗi khi chấp nhận lời mời"));
     }
 
-    public static void declineFriendRequest(int requesterId) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    public static void acceptFriendRequest(int requesterId) throws IOException, InterruptedException {
+        ApiClient.await(acceptFriendRequestAsync(requesterId));
+    }
 
+    public static CompletableFuture<Void> declineFriendRequestAsync(int requesterId) {
         JSONObject body = new JSONObject();
         body.put("requester_id", requesterId);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/decline"))
-                .header("Authorization", "Bearer " + token)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            JSONObject errorJson = new JSONObject(response.body());
-            throw new IOException(errorJson.optString("message", "Lỗi khi từ chối lời mời"));
-        }
+        return ApiClient.callAsync(() -> post("/decline", body),
+                response -> expectOk(response, "Lỗi khi từ chối lời mời"));
     }
 
-    public static void deleteFriend(int friendId) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    public static void declineFriendRequest(int requesterId) throws IOException, InterruptedException {
+        ApiClient.await(declineFriendRequestAsync(requesterId));
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/" + friendId))
-                .header("Authorization", "Bearer " + token)
+    public static CompletableFuture<Void> deleteFriendAsync(int friendId) {
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL + "/" + friendId)
                 .DELETE()
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                .build(), response -> expectOk(response, "Lỗi khi xóa bạn bè"));
+    }
 
-        if (response.statusCode() != 200) {
-            JSONObject errorJson = new JSONObject(response.body());
-            throw new IOException(errorJson.optString("message", "Lỗi khi xóa bạn bè"));
-        }
+    public static void deleteFriend(int friendId) throws IOException, InterruptedException {
+        ApiClient.await(deleteFriendAsync(friendId));
     }
 
     // ===================== GAME INVITATIONS =====================
 
-    public static void inviteFriendToPlay(int friendId, int socketPort) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
-
+    public static CompletableFuture<Void> inviteFriendToPlayAsync(int friendId, int socketPort) {
         JSONObject body = new JSONObject();
         body.put("friend_id", friendId);
         body.put("socketPort", socketPort);
+        return ApiClient.callAsync(() -> post("/game/invite", body),
+                response -> expectOk(response, "Lỗi khi gửi lời mời chơi cờ"));
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/game/invite"))
-                .header("Authorization", "Bearer " + token)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    public static void inviteFriendToPlay(int friendId, int socketPort) throws IOException, InterruptedException {
+        ApiClient.await(inviteFriendToPlayAsync(friendId, socketPort));
+    }
 
-        if (response.statusCode() != 200) {
-            JSONObject errorJson = new JSONObject(response.body());
-            throw new IOException(errorJson.optString("message", "Lỗi khi gửi lời mời chơi cờ"));
-        }
+    public static CompletableFuture<JSONArray> getGameInvitationsAsync() {
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL + "/game/invitations")
+                .GET()
+                .build(), response -> {
+                    if (response.statusCode() == 200) {
+                        JSONObject json = new JSONObject(response.body());
+                        return json.getJSONArray("invitations");
+                    } else {
+                        throw new IOException("Lỗi khi lấy lời mời chơi cờ: " + response.statusCode());
+                    }
+                });
     }
 
     public static JSONArray getGameInvitations() throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+        return ApiClient.await(getGameInvitationsAsync());
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/game/invitations"))
-                .header("Authorization", "Bearer " + token)
+    public static CompletableFuture<JSONObject> getFriendGameStatusAsync() {
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL + "/game/status")
                 .GET()
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            JSONObject json = new JSONObject(response.body());
-            return json.getJSONArray("invitations");
-        } else {
-            throw new IOException("Lỗi khi lấy lời mời chơi cờ: " + response.statusCode());
-        }
+                .build(), response -> {
+                    if (response.statusCode() == 200) {
+                        return new JSONObject(response.body());
+                    } else if (response.statusCode() == 404) {
+                        return null; // Chưa có game
+                    } else {
+                        throw new IOException("Lỗi khi kiểm tra trạng thái game: " + response.statusCode());
+                    }
+                });
     }
 
     public static JSONObject getFriendGameStatus() throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/game/status"))
-                .header("Authorization", "Bearer " + token)
-                .GET()
-                .build();
+        return ApiClient.await(getFriendGameStatusAsync());
+    }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Chờ event "game" trên luồng sự kiện (SSE /game/events): server đẩy khi bạn bè chấp
+     * nhận lời mời, data giống response của /game/status.
+     */
+    public static CompletableFuture<JSONObject> subscribeGameEventsAsync() {
+        return ServerEvents.awaitEvent(() -> ApiClient.authorized(BASE_URL + "/game/events"), "game");
+    }
 
-        if (response.statusCode() == 200) {
-            return new JSONObject(response.body());
-        } else if (response.statusCode() == 404) {
-            return null; // Chưa có game
-        } else {
-            throw new IOException("Lỗi khi kiểm tra trạng thái game: " + response.statusCode());
-        }
+    public static CompletableFuture<JSONObject> acceptGameInvitationAsync(int senderId) {
+        JSONObject body = new JSONObject();
+        body.put("sender_id", senderId);
+        return ApiClient.callAsync(() -> post("/game/accept", body), response -> {
+            if (response.statusCode() == 200) {
+                return new JSONObject(response.body());
+            } else {
+                JSONObject errorJson = new JSONObject(response.body());
+                throw new IOException(errorJson.optString("message", "Lỗi khi chấp nhận lời mời"));
+            }
+        });
     }
 
     public static JSONObject acceptGameInvitation(int senderId) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+        return ApiClient.await(acceptGameInvitationAsync(senderId));
+    }
 
+    public static CompletableFuture<Void> declineGameInvitationAsync(int senderId) {
         JSONObject body = new JSONObject();
         body.put("sender_id", senderId);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/game/accept"))
-                .header("Authorization", "Bearer " + token)
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            return new JSONObject(response.body());
-        } else {
-            JSONObject errorJson = new JSONObject(response.body());
-            throw new IOException(errorJson.optString("message", "Lỗi khi chấp nhận lời mời"));
-        }
+        return ApiClient.callAsync(() -> post("/game/decline", body),
+                response -> expectOk(response, "Lỗi khi từ chối lời mời"));
     }
 
     public static void declineGameInvitation(int senderId) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+        ApiClient.await(declineGameInvitationAsync(senderId));
+    }
 
-        JSONObject body = new JSONObject();
-        body.put("sender_id", senderId);
+    // ===================== HELPERS =====================
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/game/decline"))
-                .header("Authorization", "Bearer " + token)
+    private static HttpRequest post(String path, JSONObject body) {
+        return ApiClient.authorized(BASE_URL + path)
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
                 .build();
+    }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
+    /**
+     * Status khác 200 -> IOException với message server trả về (hoặc {@code defaultMessage}).
+     */
+    private static Void expectOk(HttpResponse<String> response, String defaultMessage) throws IOException {
         if (response.statusCode() != 200) {
             JSONObject errorJson = new JSONObject(response.body());
-            throw new IOException(errorJson.optString("message", "Lỗi khi từ chối lời mời"));
+            throw new IOException(errorJson.optString("message", defaultMessage));
         }
+        return null;
     }
 }
@@ -1,22 +1,31 @@
 package com.chess_client.services;
 
 import com.chess_client.network.PeerClient;
+import com.chess_client.network.PeerReconnector;
 import com.chess_client.network.PeerServer;
-import javafx.application.Platform;
+import com.chess_client.tasks.TaskScope;
 import org.json.JSONObject;
 
 import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
  * Service xử lý logic game invitation (gửi/nhận lời mời chơi cờ với bạn bè).
  * Tương tự HomeService, xử lý flow phức tạp với async operations và peer
  * connections.
+ *
+ * Các task chạy trong TaskScope của màn hình gọi tới: rời màn hình thì việc chờ đối thủ
+ * bị hủy (đóng luôn PeerServer đang lắng nghe) và không còn callback nào được gọi.
  */
 public class GameInvitationService {
 
+    // Thời gian chờ thông tin trận sau khi đối thủ đã kết nối
+    private static final Duration GAME_INFO_TIMEOUT = Duration.ofSeconds(5);
+
     public interface GameOpenCallback {
-        void openGame(JSONObject gameResult, Socket socket);
+        void openGame(JSONObject gameResult, Socket socket, PeerReconnector reconnector);
     }
 
     public interface ErrorCallback {
@@ -26,83 +35,95 @@ public class GameInvitationService {
     /**
      * Gửi lời mời chơi cờ tới bạn bè
      */
-    public static void inviteFriend(int friendId, String friendName,
+    public static void inviteFriend(TaskScope tasks, int friendId, String friendName,
             GameOpenCallback onGameOpen,
             Consumer<String> onSuccess,
             ErrorCallback onError) {
-        new Thread(() -> {
+        tasks.run("invite", () -> {
+            // Nghe sự kiện trận đấu trước khi gửi lời mời để không lỡ event
+            CompletableFuture<JSONObject> gameEvents = FriendService.subscribeGameEventsAsync();
             try {
                 PeerServer peerServer = new PeerServer();
                 int localPort = peerServer.start(0);
                 FriendService.inviteFriendToPlay(friendId, localPort);
 
-                Platform.runLater(() -> {
+                tasks.runLater(() -> {
                     if (onSuccess != null) {
                         onSuccess.accept("Đã gửi lời mời chơi cờ đến " + friendName + ". Đang chờ phản hồi...");
                     }
-                    waitForGameAcceptance(peerServer, friendId, onGameOpen, onError);
+                    waitForGameAcceptance(tasks, peerServer, gameEvents, onGameOpen, onError);
                 });
             } catch (Exception e) {
+                gameEvents.cancel(true);
                 e.printStackTrace();
-                Platform.runLater(() -> {
+                tasks.runLater(() -> {
                     if (onError != null) {
                         onError.onError("Không thể gửi lời mời chơi cờ: " + e.getMessage());
                     }
                 });
             }
-        }).start();
+        });
     }
 
-    private static void waitForGameAcceptance(PeerServer peerServer, int friendId,
+    private static void waitForGameAcceptance(TaskScope tasks, PeerServer peerServer,
+            CompletableFuture<JSONObject> gameEvents,
             GameOpenCallback onGameOpen,
             ErrorCallback onError) {
-        new Thread(() -> {
+        tasks.run("wait-for-opponent", () -> {
             try {
                 Socket socket = peerServer.waitForOpponent();
 
-                // Polling để lấy thông tin game
-                for (int i = 0; i < 10; i++) {
-                    Thread.sleep(500);
-                    JSONObject gameStatus = FriendService.getFriendGameStatus();
-                    if (gameStatus != null) {
-                        Platform.runLater(() -> onGameOpen.openGame(gameStatus, socket));
-                        return;
-                    }
+                // Lấy thông tin game: từ event server đẩy về, hỏi lại /game/status mỗi 2 giây
+                // phòng lỡ event (mỗi 500 ms nếu server không có luồng sự kiện)
+                JSONObject gameStatus = ServerEvents.awaitPushOrPoll(gameEvents, FriendService::getFriendGameStatus,
+                        GAME_INFO_TIMEOUT, Duration.ofSeconds(2), Duration.ofMillis(500));
+                if (gameStatus != null) {
+                    // Giữ server mở để đối thủ kết nối lại nếu rớt mạng giữa ván
+                    PeerReconnector reconnector = PeerReconnector.accepting(peerServer);
+                    tasks.runLater(() -> onGameOpen.openGame(gameStatus, socket, reconnector));
+                    return;
                 }
 
                 // Không tìm thấy game
                 socket.close();
                 peerServer.stop();
-                Platform.runLater(() -> {
+                tasks.runLater(() -> {
                     if (onError != null) {
                         onError.onError("Không thể tìm thấy thông tin trận đấu");
                     }
                 });
             } catch (InterruptedException e) {
+                gameEvents.cancel(true);
+                try {
+                    peerServer.stop();
+                } catch (Exception ex) {
+                    // Ignore
+                }
                 Thread.currentThread().interrupt();
             } catch (Exception e) {
+                gameEvents.cancel(true);
                 e.printStackTrace();
                 try {
                     peerServer.stop();
                 } catch (Exception ex) {
                     // Ignore
                 }
-                Platform.runLater(() -> {
+                tasks.runLater(() -> {
                     if (onError != null) {
                         onError.onError("Lỗi khi chờ phản hồi: " + e.getMessage());
                     }
                 });
             }
-        }).start();
+        });
     }
 
     /**
      * Chấp nhận lời mời chơi cờ
      */
-    public static void acceptInvitation(JSONObject invitation,
+    public static void acceptInvitation(TaskScope tasks, JSONObject invitation,
             GameOpenCallback onGameOpen,
             ErrorCallback onError) {
-        new Thread(() -> {
+        tasks.run("accept-invitation", () -> {
             try {
                 JSONObject gameResult = FriendService.acceptGameInvitation(invitation.getInt("senderId"));
                 String opponentIp = invitation.getString("ip");
@@ -111,15 +132,16 @@ public class GameInvitationService {
                 PeerClient client = new PeerClient();
                 Socket socket = client.connectToOpponent(opponentIp, opponentPort);
 
-                Platform.runLater(() -> onGameOpen.openGame(gameResult, socket));
+                PeerReconnector reconnector = PeerReconnector.connecting(opponentIp, opponentPort);
+                tasks.runLater(() -> onGameOpen.openGame(gameResult, socket, reconnector));
             } catch (Exception e) {
                 e.printStackTrace();
-                Platform.runLater(() -> {
+                tasks.runLater(() -> {
                     if (onError != null) {
                         onError.onError("Không thể chấp nhận lời mời: " + e.getMessage());
                     }
                 });
             }
-        }).start();
+        });
     }
 }
@@ -5,7 +5,6 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 
@@ -17,7 +16,6 @@ import java.net.http.HttpResponse;
 public class GameService {
 
     private final String baseUrl;
-    private final HttpClient httpClient;
 
     public GameService() {
         this(ApiConfig.BASE_URL);
@@ -25,14 +23,13 @@ public class GameService {
 
     public GameService(String baseUrl) {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-        this.httpClient = HttpClient.newHttpClient();
     }
 
     /**
      * Gọi API kết thúc trận đấu:
      * - winner != null: gửi winnerColor = "white"/"black"
      * - winner == null: gửi result = "draw"
-     * Nếu lỗi mạng/server sập, lưu vào offline_results.json
+     * Nếu lỗi mạng/server sập (sau khi đã thử lại), lưu vào offline_results.json
      */
     public void endGame(String gameId, Piece.Color winner) {
         if (gameId == null || gameId.isEmpty()) {
@@ -63,7 +60,12 @@ public class GameService {
                     .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            // Qua chuỗi interceptor: lỗi mạng/5xx được thử lại có backoff, server đang sập
+            // (mạch ngắt) thì lỗi ngay và kết quả được lưu offline không phải chờ timeout
+            // Đi qua ResponseCache: kết thúc thành công thì xóa cache, bảng xếp hạng và hồ sơ
+            // mở sau đó thấy điểm mới thay vì bản cũ còn hạn
+            HttpResponse<String> response = ApiClient.await(
+                    ApiClient.getResponseCache().exchange(request));
 
             System.out.println("GameService.endGame response: " +
                     response.statusCode() + " - " + response.body());
@@ -163,7 +165,12 @@ public class GameService {
                             .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
                             .build();
 
-                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    // Qua chuỗi interceptor: lỗi mạng/5xx được thử lại có backoff, server đang sập
+                    // (mạch ngắt) thì lỗi ngay và kết quả được lưu offline không phải chờ timeout
+                    // Đi qua ResponseCache: kết thúc thành công thì xóa cache, bảng xếp hạng và hồ sơ
+                    // mở sau đó thấy điểm mới thay vì bản cũ còn hạn
+                    HttpResponse<String> response = ApiClient.await(
+                            ApiClient.getResponseCache().exchange(request));
 
                     int statusCode = response.statusCode();
                     String responseBody = response.body();
@@ -204,6 +211,10 @@ public class GameService {
                         System.err.println("Lỗi khi sync gameId " + gameId +
                                 ": " + statusCode + " - " + responseBody);
                     }
+                } catch (CircuitOpenException e) {
+                    // Server vẫn đang sập: các kết quả còn lại cũng sẽ lỗi, để lần sync sau
+                    System.err.println("Server chưa phản hồi, dừng sync offline: " + e.getMessage());
+                    break;
                 } catch (Exception e) {
                     // Lỗi khi sync, giữ lại trong file để retry lần sau
                     System.err.println("Lỗi khi sync kết quả offline cho gameId " + gameId + ": " + e.getMessage());
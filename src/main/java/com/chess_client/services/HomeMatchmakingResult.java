@@ -1,6 +1,7 @@
 package com.chess_client.services;
 
 import com.chess_client.models.Piece;
+import com.chess_client.network.PeerReconnector;
 import org.json.JSONObject;
 
 import java.net.Socket;
@@ -17,30 +18,34 @@ public class HomeMatchmakingResult {
     private final JSONObject matchJson;
     private final Socket socket;
     private final Piece.Color color;
+    private final PeerReconnector reconnector;
     private final String errorMessage;
 
     private HomeMatchmakingResult(Status status,
             JSONObject matchJson,
             Socket socket,
             Piece.Color color,
+            PeerReconnector reconnector,
             String errorMessage) {
         this.status = status;
         this.matchJson = matchJson;
         this.socket = socket;
         this.color = color;
+        this.reconnector = reconnector;
         this.errorMessage = errorMessage;
     }
 
-    public static HomeMatchmakingResult success(JSONObject json, Socket socket, Piece.Color color) {
-        return new HomeMatchmakingResult(Status.SUCCESS, json, socket, color, null);
+    public static HomeMatchmakingResult success(JSONObject json, Socket socket, Piece.Color color,
+            PeerReconnector reconnector) {
+        return new HomeMatchmakingResult(Status.SUCCESS, json, socket, color, reconnector, null);
     }
 
     public static HomeMatchmakingResult notFound() {
-        return new HomeMatchmakingResult(Status.NOT_FOUND, null, null, null, null);
+        return new HomeMatchmakingResult(Status.NOT_FOUND, null, null, null, null, null);
     }
 
     public static HomeMatchmakingResult error(String message) {
-        return new HomeMatchmakingResult(Status.ERROR, null, null, null, message);
+        return new HomeMatchmakingResult(Status.ERROR, null, null, null, null, message);
     }
 
     public Status getStatus() {
@@ -67,6 +72,10 @@ public class HomeMatchmakingResult {
         return color;
     }
 
+    public PeerReconnector getReconnector() {
+        return reconnector;
+    }
+
     public String getErrorMessage() {
         return errorMessage;
     }
@@ -2,14 +2,20 @@ package com.chess_client.services;
 
 import com.chess_client.models.Piece;
 import com.chess_client.network.PeerClient;
+import com.chess_client.network.PeerReconnector;
 import com.chess_client.network.PeerServer;
 import com.chess_client.network.PeerService;
 import org.json.JSONObject;
 
 import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 public class HomeService {
 
+    // Thời gian chờ ghép trận sau khi vào hàng đợi
+    private static final Duration MATCH_TIMEOUT = Duration.ofSeconds(15);
+
     private final PeerService peerService;
 
     public HomeService(String baseUrl, String jwtToken) {
@@ -18,43 +24,36 @@ public class HomeService {
 
     /**
      * Thực hiện toàn bộ quy trình ghép trận + thiết lập kết nối P2P.
+     * Trận được nhận ngay khi server đẩy event (xem PeerService.awaitMatch), server không
+     * hỗ trợ thì hỏi lại mỗi giây.
      * Trả về HomeMatchmakingResult để Controller quyết định hiển thị UI.
      */
     public HomeMatchmakingResult startRandomMatch() throws Exception {
         PeerServer peerServer = new PeerServer();
         int localPort = peerServer.start(0);
 
-        JSONObject res = peerService.joinMatchmaking(localPort);
-        int status = res.optInt("statusCode", 0);
-
-        if (status == 200 && "Match Found!".equals(res.optString("message"))) {
-            return buildMatchResult(res, peerServer);
-        } else if (status == 202) {
-            boolean found = false;
-            JSONObject finalRes = null;
-
-            for (int i = 0; i < 15; i++) {
-                Thread.sleep(1000);
-                JSONObject statusRes = peerService.checkMatchStatus();
-                int st = statusRes.optInt("statusCode", 0);
-                if (st == 200 && "Match Found!".equals(statusRes.optString("message"))) {
-                    found = true;
-                    finalRes = statusRes;
-                    break;
-                } else if (st == 404) {
-                    break;
+        // Nghe sự kiện ghép trận trước khi vào hàng đợi để không lỡ event
+        CompletableFuture<JSONObject> matchEvents = peerService.subscribeMatchEvents();
+        try {
+            JSONObject res = peerService.joinMatchmaking(localPort);
+            int status = res.optInt("statusCode", 0);
+
+            if (status == 200 && "Match Found!".equals(res.optString("message"))) {
+                return buildMatchResult(res, peerServer);
+            } else if (status == 202) {
+                JSONObject finalRes = peerService.awaitMatch(matchEvents, MATCH_TIMEOUT);
+                if (finalRes == null || finalRes.optInt("statusCode", 0) != 200) {
+                    return HomeMatchmakingResult.notFound();
                 }
-            }
 
-            if (!found) {
-                return HomeMatchmakingResult.notFound();
+                return buildMatchResult(finalRes, peerServer);
+            } else {
+                return HomeMatchmakingResult.error(
+                        res.optString("message", "Ghép trận thất bại.")
+                );
             }
-
-            return buildMatchResult(finalRes, peerServer);
-        } else {
-            return HomeMatchmakingResult.error(
-                    res.optString("message", "Ghép trận thất bại.")
-            );
+        } finally {
+            matchEvents.cancel(true);
         }
     }
 
@@ -70,14 +69,19 @@ public class HomeService {
                 : Piece.Color.BLACK;
 
         Socket socket;
+        PeerReconnector reconnector;
         if (color == Piece.Color.WHITE) {
             socket = peerServer.waitForOpponent();
+            // Giữ server mở để đối thủ kết nối lại nếu rớt mạng giữa ván
+            reconnector = PeerReconnector.accepting(peerServer);
         } else {
             PeerClient client = new PeerClient();
             socket = client.connectToOpponent(opponentIp, opponentPort);
+            peerServer.stop();
+            reconnector = PeerReconnector.connecting(opponentIp, opponentPort);
         }
 
-        return HomeMatchmakingResult.success(res, socket, color);
+        return HomeMatchmakingResult.success(res, socket, color, reconnector);
     }
 }
 
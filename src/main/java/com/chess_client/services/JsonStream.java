@@ -0,0 +1,85 @@
+package com.chess_client.services;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Đọc object JSON dạng {"<mảng>": [...], ...} trực tiếp từ stream mà không dựng cây cho
+ * cả body: mỗi phần tử của mảng được parse thành một JSONObject nhỏ và đưa cho callback
+ * ngay khi đọc xong, rồi bị bỏ đi. Bộ nhớ tối đa vì vậy cỡ một phần tử thay vì cả body
+ * (String) cộng cả cây JSONObject, và dòng đầu tiên có trước khi tải xong body.
+ */
+public final class JsonStream {
+
+    private JsonStream() {
+    }
+
+    /**
+     * Đọc object JSON từ {@code in}; phần tử của mảng {@code arrayKey} được đưa lần lượt
+     * cho {@code onItem} (phần tử không phải object bị bỏ qua).
+     *
+     * @return các trường còn lại của object (ví dụ "pagination"), không gồm mảng
+     * @throws JSONException nếu body không phải JSON hợp lệ hoặc không có mảng {@code arrayKey}
+     */
+    public static JSONObject readArray(InputStream in, String arrayKey, Consumer<JSONObject> onItem) {
+        JSONTokener tokener = new JSONTokener(in);
+        if (tokener.nextClean() != '{') {
+            throw tokener.syntaxError("Body phải là object JSON");
+        }
+        JSONObject rest = new JSONObject();
+        boolean found = false;
+        char c = tokener.nextClean();
+        while (c != '}') {
+            if (c != '"' && c != '\'') {
+                throw tokener.syntaxError("Thiếu tên trường");
+            }
+            String key = tokener.nextString(c);
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Thiếu ':' sau tên trường");
+            }
+            if (key.equals(arrayKey)) {
+                readItems(tokener, onItem);
+                found = true;
+            } else {
+                rest.put(key, tokener.nextValue());
+            }
+            c = tokener.nextClean();
+            if (c == ',') {
+                c = tokener.nextClean();
+            } else if (c != '}') {
+                throw tokener.syntaxError("Thiếu ',' hoặc '}'");
+            }
+        }
+        if (!found) {
+            throw new JSONException("Không có mảng \"" + arrayKey + "\"");
+        }
+        return rest;
+    }
+
+    private static void readItems(JSONTokener tokener, Consumer<JSONObject> onItem) {
+        if (tokener.nextClean() != '[') {
+            throw tokener.syntaxError("Trường danh sách phải là mảng");
+        }
+        if (tokener.nextClean() == ']') {
+            return;
+        }
+        tokener.back();
+        while (true) {
+            Object item = tokener.nextValue();
+            if (item instanceof JSONObject object) {
+                onItem.accept(object);
+            }
+            char c = tokener.nextClean();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw tokener.syntaxError("Thiếu ',' hoặc ']'");
+            }
+        }
+    }
+}
@@ -4,42 +4,38 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
 
 public class LeaderboardService {
     private static final String BASE_URL = ApiConfig.BASE_URL + "/api/leaderboard";
-    private static final HttpClient client = HttpClient.newHttpClient();
 
-    public static JSONArray getLeaderboard(int limit) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "?limit=" + limit))
-                .header("Authorization", "Bearer " + token)
-                .GET()
-                .build();
+    public static CompletableFuture<JSONArray> getLeaderboardAsync(int limit) {
+        return getLeaderboardAsync(limit, false);
+    }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * {@code revalidate}: bỏ qua TTL của cache, luôn hỏi lại server (bằng ETag, 304 nếu
+     * bảng xếp hạng chưa đổi) - dùng khi người dùng bấm làm mới.
+     */
+    public static CompletableFuture<JSONArray> getLeaderboardAsync(int limit, boolean revalidate) {
+        return ApiClient.callAsync(() -> {
+            HttpRequest.Builder builder = ApiClient.authorized(BASE_URL + "?limit=" + limit).GET();
+            if (revalidate) {
+                builder.header("Cache-Control", "no-cache");
+            }
+            return builder.build();
+        }, response -> {
+            if (response.statusCode() == 200) {
+                JSONObject json = new JSONObject(response.body());
+                return json.getJSONArray("leaderboard");
+            } else {
+                throw new IOException("Lỗi khi lấy bảng xếp hạng: " + response.statusCode());
+            }
+        });
+    }
 
-        if (response.statusCode() == 200) {
-            JSONObject json = new JSONObject(response.body());
-            return json.getJSONArray("leaderboard");
-        } else {
-            throw new IOException("Lỗi khi lấy bảng xếp hạng: " + response.statusCode());
-        }
+    public static JSONArray getLeaderboard(int limit) throws IOException, InterruptedException {
+        return ApiClient.await(getLeaderboardAsync(limit));
     }
 }
-
-
-
-
-
-
-
-
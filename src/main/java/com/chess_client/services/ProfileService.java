@@ -3,42 +3,33 @@ package com.chess_client.services;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * API thông tin cá nhân. Mỗi lời gọi có bản async (trả về CompletableFuture, không chặn
+ * thread nào khi chờ server) và bản chặn giữ nguyên như trước.
+ */
 public class ProfileService {
     private static final String BASE_URL = ApiConfig.BASE_URL + "/api/users";
-    private static final HttpClient client = HttpClient.newHttpClient();
 
-    public static JSONObject getProfile() throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/me"))
-                .header("Authorization", "Bearer " + token)
+    public static CompletableFuture<JSONObject> getProfileAsync() {
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL + "/me")
                 .GET()
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            return new JSONObject(response.body());
-        } else {
-            throw new IOException("Lỗi khi lấy profile: " + response.statusCode());
-        }
+                .build(), response -> {
+                    if (response.statusCode() == 200) {
+                        return new JSONObject(response.body());
+                    } else {
+                        throw new IOException("Lỗi khi lấy profile: " + response.statusCode());
+                    }
+                });
     }
 
-    public static void updateProfile(String displayName, String email, String phone) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    public static JSONObject getProfile() throws IOException, InterruptedException {
+        return ApiClient.await(getProfileAsync());
+    }
 
+    public static CompletableFuture<Void> updateProfileAsync(String displayName, String email, String phone) {
         JSONObject body = new JSONObject();
         if (displayName != null && !displayName.isEmpty()) {
             body.put("displayName", displayName);
@@ -50,51 +41,40 @@ public class ProfileService {
             body.put("phone", phone);
         }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/me"))
-                .header("Authorization", "Bearer " + token)
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL + "/me")
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(body.toString()))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            JSONObject errorJson = new JSONObject(response.body());
-            throw new IOException(errorJson.optString("message", "Lỗi khi cập nhật profile"));
-        }
+                .build(), response -> {
+                    if (response.statusCode() != 200) {
+                        JSONObject errorJson = new JSONObject(response.body());
+                        throw new IOException(errorJson.optString("message", "Lỗi khi cập nhật profile"));
+                    }
+                    return null;
+                });
     }
 
-    public static void changePassword(String currentPassword, String newPassword) throws IOException, InterruptedException {
-        String token = TokenStorage.getAccessToken();
-        if (token == null || token.isEmpty()) {
-            throw new IllegalStateException("Chưa đăng nhập");
-        }
+    public static void updateProfile(String displayName, String email, String phone) throws IOException, InterruptedException {
+        ApiClient.await(updateProfileAsync(displayName, email, phone));
+    }
 
+    public static CompletableFuture<Void> changePasswordAsync(String currentPassword, String newPassword) {
         JSONObject body = new JSONObject();
         body.put("currentPassword", currentPassword);
         body.put("newPassword", newPassword);
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/me/password"))
-                .header("Authorization", "Bearer " + token)
+        return ApiClient.callAsync(() -> ApiClient.authorized(BASE_URL + "/me/password")
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(body.toString()))
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                .build(), response -> {
+                    if (response.statusCode() != 200) {
+                        JSONObject errorJson = new JSONObject(response.body());
+                        throw new IOException(errorJson.optString("message", "Lỗi khi đổi mật khẩu"));
+                    }
+                    return null;
+                });
+    }
 
-        if (response.statusCode() != 200) {
-            JSONObject errorJson = new JSONObject(response.body());
-            throw new IOException(errorJson.optString("message", "Lỗi khi đổi mật khẩu"));
-        }
+    public static void changePassword(String currentPassword, String newPassword) throws IOException, InterruptedException {
+        ApiClient.await(changePasswordAsync(currentPassword, newPassword));
     }
 }
-
-
-
-
-
-
-
-
@@ -0,0 +1,458 @@
+package com.chess_client.services;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache response GET của callAsync(), kiểm tra lại với server bằng ETag.
+ *
+ * Chỉ các endpoint đã đăng ký bằng {@link #policy(String, Duration)} mới được cache, mỗi
+ * tiền tố URL có một TTL: trong TTL, response được trả ngay từ cache, không gửi gì tới
+ * server; hết TTL (hoặc TTL = 0) thì gửi kèm "If-None-Match" với ETag đã lưu, server trả
+ * 304 không có body nếu dữ liệu chưa đổi và body trong cache được dùng lại. Request có
+ * "Cache-Control: no-cache" (người dùng bấm làm mới) bỏ qua TTL và luôn hỏi lại bằng ETag.
+ * Response có "Cache-Control: no-store" không được lưu.
+ *
+ * Tầng bộ nhớ giữ tối đa {@code maxBytes} ký tự body, bỏ response lâu không dùng nhất
+ * (LRU). Tầng đĩa (tùy chọn, bật bằng -DAPI_CACHE_DIR=thư mục) giữ body kèm ETag qua các
+ * lần chạy; response đọc từ đĩa luôn được kiểm tra lại với server trước khi dùng.
+ *
+ * Khóa cache gồm URL và người gọi (lấy từ access token) nên hai tài khoản không thấy dữ
+ * liệu của nhau. Mọi request không phải GET gửi qua {@link #exchange(HttpRequest)} (callAsync(),
+ * kết thúc ván của GameService...) mà thành công thì xóa tầng bộ nhớ, nên màn hình mở lại
+ * sau khi sửa dữ liệu luôn thấy dữ liệu mới; đăng xuất cũng vậy.
+ *
+ * Mọi GET của callAsync() (kể cả endpoint không cache) đi qua SingleFlight: bấm làm mới
+ * liên tục hay mở lại màn hình khi lời gọi trước chưa xong chỉ tốn một lời gọi mạng.
+ *
+ * Response của streamAsync() (danh sách admin) không đi qua cache.
+ */
+public final class ResponseCache {
+
+    private static final class Policy {
+        final String urlPrefix;
+        final long ttlMillis;
+
+        Policy(String urlPrefix, Duration ttl) {
+            this.urlPrefix = urlPrefix;
+            this.ttlMillis = ttl.toMillis();
+        }
+    }
+
+    private static final class Entry {
+        final String etag;
+        final String body;
+        // Thời điểm (System.currentTimeMillis) hết hạn; 0 là phải kiểm tra lại ngay
+        volatile long freshUntil;
+
+        Entry(String etag, String body, long freshUntil) {
+            this.etag = etag;
+            this.body = body;
+            this.freshUntil = freshUntil;
+        }
+    }
+
+    private final List<Policy> policies = new CopyOnWriteArrayList<>();
+    private final long maxBytes;
+    private final Path diskDir;
+    private final Map<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private final SingleFlight<HttpResponse<String>> flights = new SingleFlight<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * @param diskDir thư mục của tầng đĩa; null thì chỉ cache trong bộ nhớ
+     */
+    public ResponseCache(long maxBytes, Path diskDir) {
+        this.maxBytes = maxBytes;
+        this.diskDir = diskDir;
+        if (diskDir != null) {
+            try {
+                Files.createDirectories(diskDir);
+            } catch (IOException e) {
+                System.err.println("[ResponseCache] Không tạo được thư mục cache " + diskDir + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Cache các GET có URL bắt đầu bằng {@code urlPrefix}, dùng lại không cần hỏi server
+     * trong {@code ttl} (0: luôn hỏi lại bằng ETag). Tiền tố đăng ký trước được ưu tiên.
+     */
+    public ResponseCache policy(String urlPrefix, Duration ttl) {
+        policies.add(new Policy(urlPrefix, ttl));
+        return this;
+    }
+
+    /**
+     * Gửi request qua ApiClient.exchange(). GET giống hệt một GET đang chạy được gộp vào
+     * nó; GET tới endpoint đã đăng ký thì dùng cache.
+     */
+    CompletableFuture<HttpResponse<String>> exchange(HttpRequest request) {
+        if (!"GET".equals(request.method())) {
+            CompletableFuture<HttpResponse<String>> sent = ApiClient.exchange(request,
+                    HttpResponse.BodyHandlers.ofString());
+            if ("HEAD".equals(request.method())) {
+                return sent;
+            }
+            // Xóa trước khi parser nhận response, để lời gọi GET sau đó không đọc cache cũ
+            return cancelWith(sent.thenApply(response -> {
+                if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                    clear();
+                }
+                return response;
+            }), sent);
+        }
+        String key = keyOf(request);
+        return flights.join(key, () -> get(request, key));
+    }
+
+    private CompletableFuture<HttpResponse<String>> get(HttpRequest request, String key) {
+        Policy policy = policyFor(request.uri());
+        if (policy == null) {
+            return ApiClient.exchange(request, HttpResponse.BodyHandlers.ofString());
+        }
+
+        Entry cached;
+        synchronized (this) {
+            cached = memory.get(key);
+        }
+        if (cached != null || diskDir == null) {
+            return fetch(request, key, policy, cached);
+        }
+
+        // Tầng đĩa: băm khóa và đọc file trên executor của ApiClient, không trên thread gọi
+        // (thường là FX thread)
+        CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> readDisk(key), ApiClient.executor()).whenComplete((fromDisk, error) -> {
+            if (result.isDone()) {
+                return; // Đã bị hủy
+            }
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (fromDisk != null) {
+                putMemory(key, fromDisk);
+            }
+            CompletableFuture<HttpResponse<String>> fetched = fetch(request, key, policy, fromDisk);
+            fetched.whenComplete((response, fetchError) -> {
+                if (fetchError != null) {
+                    result.completeExceptionally(fetchError);
+                } else {
+                    result.complete(response);
+                }
+            });
+            result.whenComplete((response, resultError) -> {
+                if (result.isCancelled()) {
+                    fetched.cancel(true);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Trả {@code cached} nếu còn hạn, nếu không thì hỏi server (kèm ETag của {@code cached}).
+     * Request có "Cache-Control: no-cache" luôn hỏi server dù {@code cached} còn hạn.
+     */
+    private CompletableFuture<HttpResponse<String>> fetch(HttpRequest request, String key, Policy policy,
+            Entry cached) {
+        if (cached != null && !revalidates(request) && System.currentTimeMillis() < cached.freshUntil) {
+            hits.increment();
+            bytesSaved.add(cached.body.length());
+            return CompletableFuture.completedFuture(new CachedResponse(request, cached));
+        }
+
+        HttpRequest conditional = cached == null || cached.etag == null ? request
+                : HttpRequest.newBuilder(request, (name, value) -> true)
+                        .header("If-None-Match", cached.etag)
+                        .build();
+        CompletableFuture<HttpResponse<String>> sent = ApiClient.exchange(conditional,
+                HttpResponse.BodyHandlers.ofString());
+        return cancelWith(sent.thenApply(response -> {
+            if (response.statusCode() == 304 && cached != null) {
+                revalidated.increment();
+                bytesSaved.add(cached.body.length());
+                cached.freshUntil = System.currentTimeMillis() + policy.ttlMillis;
+                return new CachedResponse(request, cached);
+            }
+            misses.increment();
+            if (response.statusCode() == 200) {
+                store(key, response, policy);
+            }
+            return response;
+        }), sent);
+    }
+
+    private static boolean revalidates(HttpRequest request) {
+        return request.headers().allValues("Cache-Control").stream()
+                .anyMatch(value -> value.toLowerCase(Locale.ROOT).contains("no-cache"));
+    }
+
+    /**
+     * Hủy {@code result} thì hủy luôn lời gọi HTTP {@code sent} bên dưới.
+     */
+    private static <T> CompletableFuture<T> cancelWith(CompletableFuture<T> result,
+            CompletableFuture<HttpResponse<String>> sent) {
+        result.whenComplete((response, error) -> {
+            if (error != null && ApiClient.unwrap(error) instanceof CancellationException) {
+                sent.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private Policy policyFor(URI uri) {
+        String url = uri.toString();
+        for (Policy policy : policies) {
+            if (url.startsWith(policy.urlPrefix)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private static String keyOf(HttpRequest request) {
+        String token = request.headers().firstValue("Authorization")
+                .map(value -> value.startsWith("Bearer ") ? value.substring(7) : value)
+                .orElse(TokenStorage.getAccessToken());
+        return request.uri() + " " + callerOf(token);
+    }
+
+    /**
+     * Người gọi: id người dùng trong payload của access token (JWT) để cache trên đĩa vẫn
+     * dùng được sau khi đăng nhập lại; token không đọc được thì dùng cả token.
+     */
+    private static String callerOf(String token) {
+        if (token == null || token.isEmpty()) {
+            return "";
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length == 3) {
+            try {
+                JSONObject payload = new JSONObject(new String(Base64.getUrlDecoder().decode(parts[1]),
+                        StandardCharsets.UTF_8));
+                for (String claim : new String[] { "id", "userId", "sub" }) {
+                    if (payload.has(claim)) {
+                        return "user:" + payload.get(claim);
+                    }
+                }
+            } catch (IllegalArgumentException | JSONException e) {
+                // Không phải JWT
+            }
+        }
+        return token;
+    }
+
+    private void store(String key, HttpResponse<String> response, Policy policy) {
+        if (response.headers().allValues("Cache-Control").stream().anyMatch(value -> value.contains("no-store"))) {
+            return;
+        }
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        if (etag == null && policy.ttlMillis == 0) {
+            return; // Không có ETag thì lần sau vẫn phải tải lại cả body
+        }
+        String body = response.body() == null ? "" : response.body();
+        putMemory(key, new Entry(etag, body, System.currentTimeMillis() + policy.ttlMillis));
+        if (etag != null) {
+            writeDisk(key, etag, body);
+        }
+    }
+
+    private synchronized void putMemory(String key, Entry entry) {
+        if (entry.body.length() > maxBytes) {
+            return;
+        }
+        Entry old = memory.put(key, entry);
+        if (old != null) {
+            memoryBytes -= old.body.length();
+        }
+        memoryBytes += entry.body.length();
+        Iterator<Entry> it = memory.values().iterator();
+        while (memoryBytes > maxBytes && it.hasNext()) {
+            memoryBytes -= it.next().body.length();
+            it.remove();
+        }
+    }
+
+    /**
+     * Xóa các response trong bộ nhớ; GET mới không gộp vào GET đang chạy nữa. Response trên
+     * đĩa được giữ lại vì luôn được kiểm tra lại bằng ETag trước khi dùng.
+     */
+    public void clear() {
+        synchronized (this) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        // Ngoài khóa của cache: SingleFlight và cache không bao giờ giữ khóa của nhau
+        flights.forget();
+    }
+
+    // ==================== TẦNG ĐĨA ====================
+
+    private Path diskFile(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return diskDir.resolve(HexFormat.of().formatHex(digest) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Entry readDisk(String key) {
+        if (diskDir == null) {
+            return null;
+        }
+        try {
+            JSONObject json = new JSONObject(Files.readString(diskFile(key)));
+            return new Entry(json.getString("etag"), json.getString("body"), 0);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | JSONException e) {
+            System.err.println("[ResponseCache] Bỏ qua file cache hỏng: " + e);
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, String etag, String body) {
+        if (diskDir == null) {
+            return;
+        }
+        JSONObject json = new JSONObject();
+        json.put("etag", etag);
+        json.put("body", body);
+        try {
+            Files.writeString(diskFile(key), json.toString());
+        } catch (IOException e) {
+            System.err.println("[ResponseCache] Không ghi được cache: " + e);
+        }
+    }
+
+    // ==================== THỐNG KÊ ====================
+
+    /**
+     * Dùng cache không hỏi server / hỏi lại được 304 / phải tải cả body, và số ký tự body
+     * không phải tải lại.
+     */
+    public String getReport() {
+        long hit = hits.sum();
+        long notModified = revalidated.sum();
+        long miss = misses.sum();
+        long total = hit + notModified + miss;
+        synchronized (this) {
+            return String.format("Cache API: %d lần gọi, %d dùng ngay, %d được 304, %d tải lại"
+                    + " (tỉ lệ dùng lại %.0f%%), tiết kiệm %.1f KB; đang giữ %d response (%.1f KB);"
+                    + " %d GET trùng được gộp",
+                    total, hit, notModified, miss, total == 0 ? 0.0 : (hit + notModified) * 100.0 / total,
+                    bytesSaved.sum() / 1024.0, memory.size(), memoryBytes / 1024.0, flights.getSuppressedCount());
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getRevalidatedCount() {
+        return revalidated.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Số GET không được gửi vì đã gộp vào một GET giống hệt đang chạy.
+     */
+    public long getSuppressedCount() {
+        return flights.getSuppressedCount();
+    }
+
+    /**
+     * Response dựng lại từ cache cho parser của callAsync(): status 200 với body đã lưu.
+     */
+    private static final class CachedResponse implements HttpResponse<String> {
+        private final HttpRequest request;
+        private final Entry entry;
+
+        CachedResponse(HttpRequest request, Entry entry) {
+            this.request = request;
+            this.entry = entry;
+        }
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return request;
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            Map<String, List<String>> headers = entry.etag == null
+                    ? Map.of("Content-Type", List.of("application/json"))
+                    : Map.of("Content-Type", List.of("application/json"), "ETag", List.of(entry.etag));
+            return HttpHeaders.of(headers, (name, value) -> true);
+        }
+
+        @Override
+        public String body() {
+            return entry.body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return ApiClient.getClient().version();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.chess_client.services;
+
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Số lần gửi tối đa (kể cả lần đầu) của một request, theo method và URL.
+ *
+ * Mặc định GET được gửi tối đa {@code defaultGetAttempts} lần, còn request làm thay đổi
+ * dữ liệu chỉ gửi một lần (gửi lại có thể tạo hai lần cùng một thay đổi) trừ các endpoint
+ * đã đăng ký bằng {@link #budget(String, String, String, int)} vì server xử lý lặp được.
+ */
+public class RetryPolicy {
+
+    private static final class Budget {
+        final String method;
+        final String urlPrefix;
+        final String pathSuffix;
+        final int attempts;
+
+        Budget(String method, String urlPrefix, String pathSuffix, int attempts) {
+            this.method = method;
+            this.urlPrefix = urlPrefix;
+            this.pathSuffix = pathSuffix;
+            this.attempts = attempts;
+        }
+    }
+
+    private final List<Budget> budgets = new CopyOnWriteArrayList<>();
+    private final int defaultGetAttempts;
+
+    public RetryPolicy(int defaultGetAttempts) {
+        this.defaultGetAttempts = defaultGetAttempts;
+    }
+
+    /**
+     * Request {@code method} có URL bắt đầu bằng {@code urlPrefix} và path kết thúc bằng
+     * {@code pathSuffix} (ví dụ "/end" cho /api/games/{id}/end) được gửi tối đa
+     * {@code attempts} lần. Đăng ký trước được ưu tiên.
+     */
+    public RetryPolicy budget(String method, String urlPrefix, String pathSuffix, int attempts) {
+        budgets.add(new Budget(method, urlPrefix, pathSuffix, attempts));
+        return this;
+    }
+
+    public int attemptsFor(HttpRequest request) {
+        String url = request.uri().toString();
+        for (Budget budget : budgets) {
+            if (budget.method.equals(request.method()) && url.startsWith(budget.urlPrefix)
+                    && request.uri().getPath().endsWith(budget.pathSuffix)) {
+                return budget.attempts;
+            }
+        }
+        return "GET".equals(request.method()) ? defaultGetAttempts : 1;
+    }
+}
@@ -0,0 +1,134 @@
+package com.chess_client.services;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Nhận sự kiện server đẩy về qua Server-Sent Events thay vì hỏi lại server liên tục.
+ *
+ * Luồng sự kiện là một GET trả về "text/event-stream" và giữ kết nối mở: mỗi event gồm
+ * các dòng "event: tên" và "data: ..." rồi một dòng trống; dòng bắt đầu bằng ":" là
+ * heartbeat. Data của các event dùng ở client là object JSON.
+ *
+ * Server chưa có luồng sự kiện (404...) hoặc mất kết nối thì việc chờ quay về hỏi lại
+ * định kỳ như trước, xem {@link #awaitPushOrPoll}.
+ */
+public final class ServerEvents {
+
+    private ServerEvents() {
+    }
+
+    /**
+     * Mở luồng sự kiện và chờ event {@code eventName} đầu tiên; trả về data của nó.
+     *
+     * Future lỗi nếu server không có luồng này (ApiException, ví dụ 404), mất kết nối hoặc
+     * luồng bị đóng trước khi có event. Hủy future thì đóng kết nối.
+     *
+     * @param request request tới luồng sự kiện (URL, header xác thực)
+     */
+    public static CompletableFuture<JSONObject> awaitEvent(Supplier<HttpRequest.Builder> request, String eventName) {
+        return ApiClient.streamAsync(() -> request.get()
+                .header("Accept", "text/event-stream")
+                .header("Cache-Control", "no-cache")
+                .GET()
+                .build(), body -> read(body, eventName));
+    }
+
+    private static JSONObject read(InputStream body, String eventName) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String event = "message";
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                // Hết một event
+                if (eventName.equals(event) && data.length() > 0) {
+                    try {
+                        return new JSONObject(data.toString());
+                    } catch (JSONException e) {
+                        System.err.println("[ServerEvents] Bỏ qua event " + event + " không phải JSON: " + data);
+                    }
+                }
+                event = "message";
+                data.setLength(0);
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue; // heartbeat
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            if (field.equals("event")) {
+                event = value;
+            } else if (field.equals("data")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(value);
+            }
+        }
+        throw new IOException("Server đã đóng luồng sự kiện");
+    }
+
+    /**
+     * Chờ một kết quả bằng event đẩy từ server, kèm hỏi lại bằng {@code poll} mỗi
+     * {@code backstopInterval} phòng khi lỡ event. Nếu {@code pushed} lỗi (server không có
+     * luồng sự kiện, mất kết nối) thì chỉ còn hỏi lại, mỗi {@code pollInterval}.
+     * Chạy chặn trên thread gọi (task nền); {@code pushed} luôn bị hủy khi trả về.
+     *
+     * @param pushed kết quả từ luồng sự kiện, nên mở trước khi việc cần chờ bắt đầu để
+     *               không lỡ event
+     * @param poll   hỏi server: trả kết quả nếu đã có, null nếu chưa
+     * @return kết quả, hoặc null nếu hết {@code timeout}
+     */
+    public static <T> T awaitPushOrPoll(CompletableFuture<T> pushed, Callable<T> poll, Duration timeout,
+            Duration backstopInterval, Duration pollInterval) throws Exception {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean push = true;
+        try {
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                if (push) {
+                    try {
+                        return pushed.get(Math.min(remaining, backstopInterval.toNanos()), TimeUnit.NANOSECONDS);
+                    } catch (TimeoutException e) {
+                        // Chưa có event: hỏi lại một lần phòng khi lỡ
+                    } catch (ExecutionException e) {
+                        push = false;
+                        System.out.println("[ServerEvents] Không nhận được event (" + ApiException.describe(e)
+                                + "), hỏi lại mỗi " + pollInterval.toMillis() + " ms");
+                    }
+                } else {
+                    Thread.sleep(TimeUnit.NANOSECONDS.toMillis(Math.min(remaining, pollInterval.toNanos())));
+                }
+                T polled = poll.call();
+                if (polled != null) {
+                    return polled;
+                }
+            }
+        } finally {
+            pushed.cancel(true);
+        }
+    }
+}
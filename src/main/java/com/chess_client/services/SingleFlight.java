@@ -0,0 +1,123 @@
+package com.chess_client.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Gộp các lời gọi giống nhau đang chạy cùng lúc thành một (single-flight).
+ *
+ * Lời gọi đầu tiên với một khóa bắt đầu việc thật; các lời gọi cùng khóa tới trong lúc
+ * việc đó chưa xong không gửi gì thêm mà nhận chung kết quả. Mỗi người gọi có future
+ * riêng: một người hủy (ví dụ rời màn hình) không ảnh hưởng người khác, chỉ khi mọi người
+ * đều đã hủy thì việc thật mới bị hủy.
+ */
+final class SingleFlight<T> {
+
+    private final class Flight {
+        // Kết quả chung; lời gọi thật được bắt đầu sau khi Flight đã được đăng ký
+        final CompletableFuture<T> shared = new CompletableFuture<>();
+        int waiters;
+    }
+
+    private final Map<String, Flight> flights = new HashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Tham gia lời gọi đang chạy với {@code key}, hoặc bắt đầu lời gọi mới bằng {@code call}.
+     *
+     * {@code call} chạy ngoài khóa của SingleFlight: nó được phép lấy khóa khác (ví dụ của
+     * ResponseCache) mà không tạo thứ tự khóa ngược với người gọi forget().
+     */
+    CompletableFuture<T> join(String key, Supplier<CompletableFuture<T>> call) {
+        Flight flight;
+        boolean leader;
+        synchronized (this) {
+            flight = flights.get(key);
+            leader = flight == null;
+            if (leader) {
+                flight = new Flight();
+                flights.put(key, flight);
+            } else {
+                suppressed.increment();
+            }
+            flight.waiters++;
+        }
+
+        Flight joined = flight;
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        joined.shared.whenComplete((result, error) -> {
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(result);
+            }
+        });
+        mine.whenComplete((result, error) -> {
+            if (error != null && ApiClient.unwrap(error) instanceof CancellationException) {
+                leave(key, joined);
+            }
+        });
+        if (leader) {
+            start(key, joined, call);
+        }
+        return mine;
+    }
+
+    private void start(String key, Flight flight, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((result, error) -> {
+            finished(key, flight);
+            if (error != null) {
+                flight.shared.completeExceptionally(error);
+            } else {
+                flight.shared.complete(result);
+            }
+        });
+        // Mọi người chờ đã hủy (có thể ngay cả trước khi lời gọi thật bắt đầu)
+        CompletableFuture<T> running = started;
+        flight.shared.whenComplete((result, error) -> {
+            if (flight.shared.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+    }
+
+    private synchronized void finished(String key, Flight flight) {
+        flights.remove(key, flight);
+    }
+
+    private void leave(String key, Flight flight) {
+        synchronized (this) {
+            flight.waiters--;
+            if (flight.waiters > 0 || flight.shared.isDone()) {
+                return;
+            }
+            flights.remove(key, flight);
+        }
+        flight.shared.cancel(true);
+    }
+
+    /**
+     * Lời gọi mới không tham gia các lời gọi đang chạy nữa (dữ liệu của chúng có thể đã cũ);
+     * người đang chờ vẫn nhận kết quả như bình thường.
+     */
+    synchronized void forget() {
+        flights.clear();
+    }
+
+    /**
+     * Số lời gọi đã được gộp vào một lời gọi đang chạy thay vì gửi riêng.
+     */
+    long getSuppressedCount() {
+        return suppressed.sum();
+    }
+}
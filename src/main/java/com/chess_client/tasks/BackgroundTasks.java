@@ -0,0 +1,180 @@
+package com.chess_client.tasks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nơi chạy chung cho mọi việc chặn (gọi HTTP, ghi file, chờ socket...) ngoài thread JavaFX.
+ *
+ * Mỗi task chạy trên một virtual thread riêng đặt theo tên task (hiện trong thread dump),
+ * nên không cần giới hạn số thread và task đang chờ mạng gần như không tốn tài nguyên.
+ * Task được đếm khi đang chạy (getInFlightCount/getInFlightTasks) để phát hiện rò rỉ;
+ * task lỗi được in kèm tên, task chạy quá SLOW_TASK_MILLIS được ghi lại khi kết thúc.
+ *
+ * Task gắn với một màn hình nên chạy qua TaskScope để bị hủy khi rời màn hình; chỉ dùng
+ * trực tiếp lớp này cho việc phải chạy xong dù người dùng đã chuyển màn hình (lưu kết quả
+ * ván, đăng xuất...).
+ */
+public final class BackgroundTasks {
+
+    private static final long SLOW_TASK_MILLIS = 10_000;
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("task-", 0).factory());
+
+    private static final AtomicLong nextId = new AtomicLong();
+    private static final Map<Long, TaskInfo> inFlight = new ConcurrentHashMap<>();
+    private static final AtomicLong completed = new AtomicLong();
+    private static final AtomicLong failed = new AtomicLong();
+    private static final AtomicLong cancelled = new AtomicLong();
+
+    private static final class TaskInfo {
+        final String name;
+        final long startedAt;
+
+        TaskInfo(String name, long startedAt) {
+            this.name = name;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private BackgroundTasks() {
+    }
+
+    /**
+     * Chạy {@code task} trên một virtual thread mới.
+     *
+     * @param name tên ngắn mô tả việc (ví dụ "leaderboard.load"), dùng cho log và thread dump
+     * @return Future để hủy task (cancel(true) ngắt thread đang chờ mạng)
+     */
+    public static Future<?> run(String name, Runnable task) {
+        long id = nextId.incrementAndGet();
+        return EXECUTOR.submit(() -> execute(id, name, task));
+    }
+
+    /**
+     * Chạy {@code task} sau {@code delay} trên một virtual thread mới (hẹn giờ, ví dụ thử
+     * lại định kỳ). Trong lúc chờ, task vẫn được đếm là đang chạy, tên kèm "(hẹn giờ)".
+     *
+     * @return Future để hủy lần chạy đã hẹn (hoặc ngắt task nếu đã bắt đầu chạy)
+     */
+    public static Future<?> schedule(String name, Duration delay, Runnable task) {
+        long id = nextId.incrementAndGet();
+        return EXECUTOR.submit(() -> {
+            Thread.currentThread().setName("task-" + name);
+            inFlight.put(id, new TaskInfo(name + " (hẹn giờ)", System.nanoTime()));
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                inFlight.remove(id);
+                cancelled.incrementAndGet();
+                return;
+            }
+            execute(id, name, task);
+        });
+    }
+
+    /**
+     * Đếm một lời gọi async (CompletableFuture, không chiếm thread) như một task đang chạy
+     * cho tới khi nó hoàn thành.
+     */
+    public static <T> CompletableFuture<T> track(String name, CompletableFuture<T> future) {
+        long id = nextId.incrementAndGet();
+        inFlight.put(id, new TaskInfo(name, System.nanoTime()));
+        future.whenComplete((result, error) -> {
+            inFlight.remove(id);
+            if (error == null) {
+                completed.incrementAndGet();
+            } else if (!(error instanceof CancellationException)
+                    && !(error.getCause() instanceof CancellationException)) {
+                failed.incrementAndGet();
+            }
+        });
+        return future;
+    }
+
+    private static void execute(long id, String name, Runnable task) {
+        Thread thread = Thread.currentThread();
+        thread.setName("task-" + name);
+        long start = System.nanoTime();
+        inFlight.put(id, new TaskInfo(name, start));
+        try {
+            task.run();
+            completed.incrementAndGet();
+        } catch (RuntimeException e) {
+            // Lỗi của task đã bị hủy (thread bị ngắt) chỉ là hệ quả của việc hủy, không in ra
+            if (!thread.isInterrupted()) {
+                failed.incrementAndGet();
+                System.err.println("[BackgroundTasks] Task '" + name + "' lỗi: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } finally {
+            inFlight.remove(id);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            if (millis >= SLOW_TASK_MILLIS) {
+                System.err.println("[BackgroundTasks] Task '" + name + "' chạy " + millis + " ms");
+            }
+        }
+    }
+
+    /**
+     * Ghi nhận một task bị hủy khi chưa chạy xong (gọi từ TaskScope).
+     */
+    static void recordCancelled() {
+        cancelled.incrementAndGet();
+    }
+
+    // ===================== THỐNG KÊ =====================
+
+    /**
+     * Số task đang chạy.
+     */
+    public static int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Tên và thời gian đã chạy của các task đang chạy, ví dụ "profile.load (120 ms)".
+     */
+    public static List<String> getInFlightTasks() {
+        long now = System.nanoTime();
+        List<String> tasks = new ArrayList<>();
+        for (TaskInfo info : inFlight.values()) {
+            tasks.add(info.name + " (" + (now - info.startedAt) / 1_000_000 + " ms)");
+        }
+        return tasks;
+    }
+
+    /**
+     * Số task đã chạy xong không lỗi (kể cả task bị hủy nhưng tự dừng êm).
+     */
+    public static long getCompletedCount() {
+        return completed.get();
+    }
+
+    public static long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Số task bị hủy (qua TaskScope, hoặc task hẹn giờ bị hủy trước khi chạy) khi chưa
+     * chạy xong.
+     */
+    public static long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    public static String getSummary() {
+        return String.format("%d đang chạy, %d xong, %d lỗi, %d bị hủy",
+                getInFlightCount(), getCompletedCount(), getFailedCount(), getCancelledCount());
+    }
+}
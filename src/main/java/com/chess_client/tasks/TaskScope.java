@@ -0,0 +1,189 @@
+package com.chess_client.tasks;
+
+import com.chess_client.services.ApiClient;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Nhóm các task nền của một màn hình: không task nào sống lâu hơn màn hình đã tạo ra nó.
+ *
+ * Task chạy qua BackgroundTasks (virtual thread, có tên "màn hình.việc"). Khi scope bị hủy
+ * (rời màn hình, đóng cửa sổ hoặc gọi cancel()), mọi task chưa xong bị ngắt, task mới
+ * không được chạy nữa và các cập nhật UI gửi qua runLater() bị bỏ qua, nên một yêu cầu
+ * HTTP trả về muộn không còn sửa giao diện của màn hình đã đóng hay hiện thông báo lỗi.
+ *
+ * Lời gọi API dạng CompletableFuture (các hàm ...Async của service) được gắn vào scope
+ * bằng whenComplete() thay vì chạy bản chặn trong run().
+ *
+ * Thường tạo bằng {@link #forScreen(String, Node)} trong initialize() của controller,
+ * truyền một node bất kỳ của màn hình.
+ */
+public class TaskScope {
+
+    private final String name;
+    private final Set<Future<?>> tasks = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    public TaskScope(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Tạo scope tự hủy khi màn hình chứa {@code node} bị thay bằng màn hình khác
+     * (stage.setScene) hoặc khi cửa sổ của nó bị đóng.
+     */
+    public static TaskScope forScreen(String name, Node node) {
+        TaskScope scope = new TaskScope(name);
+        scope.bindTo(node);
+        return scope;
+    }
+
+    /**
+     * Hủy scope khi scene chứa {@code node} rời khỏi cửa sổ hoặc cửa sổ bị ẩn.
+     * Gọi được cả khi node chưa được gắn vào scene (trong initialize()).
+     */
+    public void bindTo(Node node) {
+        ChangeListener<Boolean> onShowing = (obs, wasShowing, showing) -> {
+            if (wasShowing && !showing) {
+                cancel();
+            }
+        };
+        ChangeListener<Window> onWindow = (obs, oldWindow, newWindow) -> {
+            if (oldWindow != null) {
+                oldWindow.showingProperty().removeListener(onShowing);
+                if (newWindow == null) {
+                    cancel();
+                }
+            }
+            if (newWindow != null) {
+                newWindow.showingProperty().addListener(onShowing);
+            }
+        };
+        ChangeListener<Scene> onScene = (obs, oldScene, newScene) -> {
+            if (oldScene != null) {
+                oldScene.windowProperty().removeListener(onWindow);
+            }
+            if (newScene != null) {
+                newScene.windowProperty().addListener(onWindow);
+                onWindow.changed(newScene.windowProperty(), null, newScene.getWindow());
+            }
+        };
+        node.sceneProperty().addListener(onScene);
+        onScene.changed(node.sceneProperty(), null, node.getScene());
+    }
+
+    /**
+     * Chạy {@code task} trên virtual thread; bị bỏ qua nếu scope đã hủy.
+     *
+     * @param taskName tên việc trong màn hình, ví dụ "load" (tên đầy đủ là "màn hình.việc")
+     */
+    public void run(String taskName, Runnable task) {
+        if (cancelled) {
+            return;
+        }
+        tasks.removeIf(Future::isDone);
+        Future<?> future = BackgroundTasks.run(name + "." + taskName, task);
+        tasks.add(future);
+        // cancel() có thể chạy giữa lúc kiểm tra ở trên và lúc thêm vào tập
+        if (cancelled && future.cancel(true)) {
+            BackgroundTasks.recordCancelled();
+        }
+    }
+
+    /**
+     * Theo dõi một lời gọi async (ví dụ FriendService.getFriendsAsync()): kết quả được
+     * đưa về thread JavaFX qua {@code onSuccess}/{@code onError} nếu scope chưa bị hủy;
+     * hủy scope thì hủy luôn future.
+     *
+     * @param onError nhận lỗi gốc (đã bỏ lớp CompletionException); null thì chỉ in lỗi ra
+     */
+    public <T> void whenComplete(String taskName, CompletableFuture<T> future,
+            Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        if (cancelled) {
+            future.cancel(true);
+            return;
+        }
+        tasks.removeIf(Future::isDone);
+        tasks.add(BackgroundTasks.track(name + "." + taskName, future));
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                runLater(() -> onSuccess.accept(result));
+                return;
+            }
+            Throwable cause = ApiClient.unwrap(error);
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            if (onError != null) {
+                runLater(() -> onError.accept(cause));
+            } else if (!cancelled) {
+                System.err.println("[TaskScope] " + name + "." + taskName + " lỗi: " + cause.getMessage());
+            }
+        });
+        if (cancelled && future.cancel(true)) {
+            BackgroundTasks.recordCancelled();
+        }
+    }
+
+    /**
+     * Cập nhật UI từ task nền: chạy {@code action} trên thread JavaFX nếu tới lúc đó
+     * scope vẫn chưa bị hủy.
+     */
+    public void runLater(Runnable action) {
+        if (cancelled) {
+            return;
+        }
+        Platform.runLater(() -> {
+            if (!cancelled) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Ngắt mọi task chưa xong và không nhận task mới.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (Future<?> future : tasks) {
+            if (future.cancel(true)) {
+                BackgroundTasks.recordCancelled();
+            }
+        }
+        tasks.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Số task của scope chưa chạy xong.
+     */
+    public int getActiveCount() {
+        int count = 0;
+        for (Future<?> future : tasks) {
+            if (!future.isDone()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -30,7 +30,8 @@ public class NavigationHelper {
     public static void openGame(Stage stage, Object controller,
             String gameId, String opponentName,
             com.chess_client.models.Piece.Color color,
-            java.net.Socket socket) {
+            java.net.Socket socket,
+            com.chess_client.network.PeerReconnector reconnector) {
         try {
             FXMLLoader loader = new FXMLLoader(NavigationHelper.class.getResource("/com/chess_client/fxml/game.fxml"));
             Parent root = loader.load();
@@ -38,7 +39,7 @@ public class NavigationHelper {
 
             gameController.setGameInfo(gameId, opponentName, "Bạn");
             gameController.setPlayerColor(color);
-            gameController.setPeerSocket(socket);
+            gameController.setPeerSocket(socket, reconnector);
 
             Scene scene = new Scene(root, 1000, 700);
             stage.setScene(scene);
@@ -0,0 +1,100 @@
+package com.chess_client.ui;
+
+import com.chess_client.archive.GameArchive;
+import com.chess_client.archive.PositionIndex;
+import com.chess_client.archive.PositionStats;
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Zobrist;
+import com.chess_client.pgn.San;
+import com.chess_client.services.GameLogic;
+import com.chess_client.tasks.BackgroundTasks;
+import com.chess_client.tasks.TaskScope;
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+
+/**
+ * Hiển thị "thế cờ này bạn đã gặp bao nhiêu lần" trên màn hình game,
+ * dựa trên PositionIndex của các ván đã lưu.
+ *
+ * Việc tra cứu chạy trong TaskScope của màn hình chứ không trên FX thread: lookup() có
+ * thể phải chờ index đang ghi bộ đệm xuống đĩa (flush) xong.
+ */
+public class PositionStatsView {
+
+    private static final int MAX_CONTINUATIONS = 3;
+
+    private final Label label;
+    private final TaskScope tasks;
+    private volatile PositionIndex index;
+    // Thế cờ đang cần hiển thị (chỉ dùng trên FX thread)
+    private long shownKey;
+
+    public PositionStatsView(Label label, TaskScope tasks) {
+        this.label = label;
+        this.tasks = tasks;
+    }
+
+    /**
+     * Mở index và bổ sung các ván mới trong archive (chạy nền, gọi một lần khi vào màn hình game).
+     */
+    public void load(Board board) {
+        BackgroundTasks.run("position-index.load", () -> {
+            try {
+                PositionIndex positionIndex = PositionIndex.getDefault();
+                positionIndex.update(GameArchive.getDefault());
+                index = positionIndex;
+                Platform.runLater(() -> show(board));
+            } catch (Exception e) {
+                System.err.println("Không mở được index thế cờ: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Cập nhật thống kê cho thế cờ hiện tại. Gọi trên FX thread sau mỗi nước đi; nhãn được
+     * cập nhật khi tra cứu xong.
+     */
+    public void show(Board board) {
+        if (label == null || index == null) {
+            return;
+        }
+        long key = Zobrist.hash(board);
+        shownKey = key;
+        Board position = board.copy();
+        PositionIndex positionIndex = index;
+        tasks.run("position-stats", () -> {
+            String text = format(position, positionIndex.lookup(key, MAX_CONTINUATIONS));
+            tasks.runLater(() -> {
+                // Bỏ kết quả cũ nếu bàn cờ đã sang thế khác trong lúc tra cứu
+                if (shownKey == key) {
+                    label.setText(text);
+                }
+            });
+        });
+    }
+
+    private static String format(Board board, PositionStats stats) {
+        if (stats.isEmpty()) {
+            return "Chưa gặp thế cờ này";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Đã gặp ").append(stats.getGames()).append(" lần (Trắng thắng ")
+                .append(stats.getWhiteWins()).append(", hòa ").append(stats.getDraws())
+                .append(", Đen thắng ").append(stats.getBlackWins()).append(")");
+
+        if (!stats.getContinuations().isEmpty()) {
+            sb.append("\nThường đi:");
+            GameLogic logic = new GameLogic(board);
+            for (PositionStats.Continuation c : stats.getContinuations()) {
+                Move move = Move.fromCode(c.getMoveCode(), board);
+                if (move.getPieceMoved() == null) {
+                    continue;
+                }
+                sb.append(' ').append(San.toSan(board, logic, move)).append(" (").append(c.getGames()).append(')');
+            }
+        }
+        return sb.toString();
+    }
+}
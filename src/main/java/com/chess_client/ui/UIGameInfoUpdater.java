@@ -2,8 +2,11 @@ package com.chess_client.ui;
 
 import com.chess_client.models.Move;
 import com.chess_client.models.Piece;
+import com.chess_client.network.PeerNetworkHandler;
+import com.chess_client.network.RttHistogram;
 import com.chess_client.services.AIPlayer;
 import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
 
 /**
  * Cập nhật các label UI hiển thị thông tin game.
@@ -17,6 +20,7 @@ public class UIGameInfoUpdater {
     private final Label opponentPlayerLabel;
     private final Label playerNameLabel;
     private final Label opponentNameLabel;
+    private final Label connectionLabel;
 
     private Piece.Color playerColor;
     private AIPlayer aiPlayer;
@@ -24,6 +28,7 @@ public class UIGameInfoUpdater {
     public UIGameInfoUpdater(Label turnLabel, Label statusLabel, Label lastMoveLabel,
                              Label playerLabel, Label opponentPlayerLabel,
                              Label playerNameLabel, Label opponentNameLabel,
+                             Label connectionLabel,
                              Piece.Color playerColor, AIPlayer aiPlayer) {
         this.turnLabel = turnLabel;
         this.statusLabel = statusLabel;
@@ -32,6 +37,7 @@ public class UIGameInfoUpdater {
         this.opponentPlayerLabel = opponentPlayerLabel;
         this.playerNameLabel = playerNameLabel;
         this.opponentNameLabel = opponentNameLabel;
+        this.connectionLabel = connectionLabel;
         this.playerColor = playerColor;
         this.aiPlayer = aiPlayer;
     }
@@ -110,6 +116,53 @@ public class UIGameInfoUpdater {
         }
     }
 
+    /**
+     * Cập nhật chỉ báo chất lượng kết nối tới đối thủ (chỉ có ở trận P2P).
+     * Tooltip hiển thị p50/p99 RTT của cả phiên để chẩn đoán "đối thủ lag".
+     */
+    public void updateConnectionQuality(PeerNetworkHandler.ConnectionQuality quality, long rttMillis,
+                                        RttHistogram histogram) {
+        if (connectionLabel == null) {
+            return;
+        }
+        String text;
+        String color;
+        switch (quality) {
+            case GOOD -> {
+                text = "Kết nối: Tốt (" + rttMillis + " ms)";
+                color = "#4caf50";
+            }
+            case FAIR -> {
+                text = "Kết nối: Trung bình (" + rttMillis + " ms)";
+                color = "#ffb74d";
+            }
+            case POOR -> {
+                text = "Kết nối: Kém (" + rttMillis + " ms)";
+                color = "#ef5350";
+            }
+            case OFFLINE -> {
+                text = "Kết nối: Mất kết nối";
+                color = "#ef5350";
+            }
+            default -> {
+                text = "";
+                color = "#b0b0b0";
+            }
+        }
+        connectionLabel.setText(text);
+        connectionLabel.setStyle("-fx-text-fill: " + color + "; -fx-font-size: 12px;");
+
+        if (histogram != null && histogram.getCount() > 0) {
+            String details = String.format("RTT p50: %.0f ms, p99: %.0f ms (%d lần đo)",
+                    histogram.getPercentileMillis(50), histogram.getPercentileMillis(99), histogram.getCount());
+            if (connectionLabel.getTooltip() == null) {
+                connectionLabel.setTooltip(new Tooltip(details));
+            } else {
+                connectionLabel.getTooltip().setText(details);
+            }
+        }
+    }
+
     /**
      * Reset về trạng thái ban đầu.
      */
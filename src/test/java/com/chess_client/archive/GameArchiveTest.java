@@ -0,0 +1,75 @@
+package com.chess_client.archive;
+
+import com.chess_client.models.Piece;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GameArchiveTest {
+
+    // "az" và "b[" có cùng hash nên chỉ khác nhau khi đọc tên trong bản ghi
+    private static final String[] OPPONENTS = { "alice", "bob", "az", "b[" };
+
+    private Path dir;
+    private GameArchive archive;
+
+    @BeforeEach
+    void open() throws IOException {
+        dir = Files.createTempDirectory("archive-test");
+        archive = GameArchive.open(dir);
+        for (int i = 0; i < 40; i++) {
+            archive.append(new ArchivedGame(i, "g" + i, null, "me", OPPONENTS[i % OPPONENTS.length],
+                    Piece.Color.WHITE, ArchivedGame.Result.WHITE_WINS, null, new short[0]));
+        }
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        archive.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void pagesAreNewestFirst() throws IOException {
+        List<ArchivedGame> page = archive.list(10, 3);
+        assertEquals(List.of("g29", "g28", "g27"), page.stream().map(ArchivedGame::getGameId).toList());
+        assertEquals(0, archive.list(40, 3).size());
+    }
+
+    @Test
+    void offsetCountsOnlyMatchingGames() throws IOException {
+        List<ArchivedGame> page = archive.query(ArchiveFilter.all().opponent("Bob"), 2, 2);
+        // Các ván với bob: 37, 33, 29, 25...
+        assertEquals(List.of("g29", "g25"), page.stream().map(ArchivedGame::getGameId).toList());
+    }
+
+    @Test
+    void nameHashCollisionsAreFilteredBeforeOffset() throws IOException {
+        assertEquals("az".hashCode(), "b[".hashCode());
+        List<ArchivedGame> page = archive.query(ArchiveFilter.all().opponent("az"), 1, 3);
+        // Các ván với az: 38, 34, 30, 26...; ván với b[ (39, 35...) khớp hash nhưng bị loại
+        assertEquals(List.of("g34", "g30", "g26"), page.stream().map(ArchivedGame::getGameId).toList());
+        assertEquals(20, archive.count(ArchiveFilter.all().opponent("az")));
+    }
+
+    @Test
+    void reopenKeepsGames() throws IOException {
+        archive.close();
+        archive = GameArchive.open(dir);
+        assertEquals(40, archive.size());
+        assertEquals("b[", archive.get(39).getBlackName());
+    }
+}
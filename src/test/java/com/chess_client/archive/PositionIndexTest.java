@@ -0,0 +1,66 @@
+package com.chess_client.archive;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Piece;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PositionIndexTest {
+
+    private Path dir;
+    private GameArchive archive;
+
+    @BeforeEach
+    void open() throws IOException {
+        dir = Files.createTempDirectory("position-index-test");
+        archive = GameArchive.open(dir);
+        for (int i = 0; i < 3; i++) {
+            archive.append(new ArchivedGame(i, "g" + i, null, "me", "bob",
+                    Piece.Color.WHITE, ArchivedGame.Result.DRAW, null, new short[0]));
+        }
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        archive.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void flushedTableIsReadBackAfterReopen() throws IOException {
+        try (PositionIndex index = PositionIndex.open(dir)) {
+            assertEquals(3, index.update(archive));
+            index.flush();
+            assertEquals(3, index.lookup(new Board(), 5).getDraws());
+        }
+        try (PositionIndex index = PositionIndex.open(dir)) {
+            assertEquals(3, index.getGamesIndexed());
+            assertEquals(3, index.lookup(new Board(), 5).getGames());
+        }
+    }
+
+    @Test
+    void lookupAfterCloseIsEmpty() throws IOException {
+        PositionIndex index = PositionIndex.open(dir);
+        index.update(archive);
+        index.close();
+        assertEquals(0, index.lookup(new Board(), 5).getGames());
+        assertEquals(0, index.getTableRows());
+        assertThrows(IOException.class, () -> index.update(archive));
+        index.close(); // Đóng lần nữa không lỗi
+    }
+}
@@ -0,0 +1,263 @@
+package com.chess_client.bench;
+
+import com.chess_client.admin.models.GameRow;
+import com.chess_client.network.RttHistogram;
+import com.chess_client.services.ApiClient;
+import com.chess_client.services.JsonStream;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * So sánh hai cách giải mã một trang lớn của /api/admin/games thành GameRow:
+ * đọc cả body thành String rồi dựng cây JSONObject (cách trước đây) và giải mã dần từ
+ * stream bằng JsonStream (cách AdminService.getGamesAsync đang dùng).
+ *
+ * Server HTTP/1.1 tối giản ở loopback trả một body {@code rows} trận đấu, ghi từng khối
+ * 16 KB với tốc độ giới hạn để giả lập băng thông mạng thật. Báo cáo cho từng cách:
+ * thời gian tới dòng đầu tiên, thời gian tới khi xong và đỉnh heap (tổng đỉnh của các vùng
+ * heap, đo lại từ đầu mỗi lần chạy sau System.gc(); lấy lần cao nhất).
+ *
+ * Chạy: java ... com.chess_client.bench.AdminListBenchmark [số dòng] [Mbit/s] [số lần đo]
+ */
+public class AdminListBenchmark {
+
+    private static final int CHUNK_BYTES = 16 * 1024;
+
+    private static byte[] body;
+    private static volatile long bytesPerMilli;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long mbps = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        bytesPerMilli = mbps * 1_000_000 / 8 / 1_000;
+        body = buildBody(rows);
+
+        ServerSocket server = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> acceptLoop(server));
+        // ApiConfig đọc địa chỉ backend khi AdminService/ApiClient được nạp lần đầu
+        System.setProperty("API_BASE_URL", "http://127.0.0.1:" + server.getLocalPort());
+
+        System.out.printf("%,d dòng, body %.2f MB, băng thông %d Mbit/s, %d lần đo%n",
+                rows, body.length / 1e6, mbps, runs);
+
+        Result tree = new Result("String + cây JSONObject");
+        Result stream = new Result("Stream (JsonStream)");
+        for (int i = 0; i < 3; i++) { // làm nóng JIT
+            runTree(null);
+            runStream(null);
+        }
+        for (int i = 0; i < runs; i++) {
+            runTree(tree);
+            runStream(stream);
+        }
+        tree.print();
+        stream.print();
+        System.out.println(ApiClient.getLatencyReport());
+        server.close();
+        System.exit(0);
+    }
+
+    /**
+     * Cách trước đây: chờ cả body thành String, parse thành cây rồi chép sang GameRow.
+     * Dòng đầu tiên chỉ có khi đã parse xong cả body.
+     */
+    private static void runTree(Result result) throws Exception {
+        measure(result, firstRow -> ApiClient.callAsync(() -> HttpRequest.newBuilder()
+                .uri(URI.create(System.getProperty("API_BASE_URL") + "/api/admin/games?page=1"))
+                .GET()
+                .build(), ApiClient.json(json -> {
+                    JSONArray games = json.getJSONArray("games");
+                    List<GameRow> list = new ArrayList<>(games.length());
+                    for (int i = 0; i < games.length(); i++) {
+                        JSONObject game = games.getJSONObject(i);
+                        list.add(new GameRow(
+                                game.getInt("id"),
+                                game.optString("white_display_name", game.optString("white_username", "N/A")),
+                                game.optString("black_display_name", game.optString("black_username", "N/A")),
+                                game.getString("mode"),
+                                game.getString("status"),
+                                game.optString("winner_display_name",
+                                        game.optString("winner_username", "Hòa"))));
+                        if (i == 0) {
+                            firstRow.mark();
+                        }
+                    }
+                    return list.size();
+                })));
+    }
+
+    /**
+     * Giống AdminService.getGamesAsync: mỗi phần tử thành GameRow ngay khi đọc xong trong
+     * lúc body còn đang tải.
+     */
+    private static void runStream(Result result) throws Exception {
+        measure(result, firstRow -> ApiClient.streamAsync(() -> HttpRequest.newBuilder()
+                .uri(URI.create(System.getProperty("API_BASE_URL") + "/api/admin/games?page=1"))
+                .GET()
+                .build(), body -> {
+                    List<GameRow> list = new ArrayList<>();
+                    JsonStream.readArray(body, "games", game -> {
+                        list.add(new GameRow(
+                                game.getInt("id"),
+                                game.optString("white_display_name", game.optString("white_username", "N/A")),
+                                game.optString("black_display_name", game.optString("black_username", "N/A")),
+                                game.getString("mode"),
+                                game.getString("status"),
+                                game.optString("winner_display_name",
+                                        game.optString("winner_username", "Hòa"))));
+                        firstRow.mark();
+                    });
+                    return list.size();
+                }));
+    }
+
+    private interface Call {
+        CompletableFuture<Integer> start(FirstRow firstRow);
+    }
+
+    private static final class FirstRow {
+        volatile long at;
+
+        void mark() {
+            if (at == 0) {
+                at = System.nanoTime();
+            }
+        }
+    }
+
+    private static void measure(Result result, Call call) throws Exception {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        FirstRow firstRow = new FirstRow();
+        long start = System.nanoTime();
+        int count = call.start(firstRow).get();
+        long end = System.nanoTime();
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        if (count <= 0) {
+            throw new IllegalStateException("Không đọc được dòng nào");
+        }
+        if (result != null) {
+            result.firstRow.record(firstRow.at - start);
+            result.total.record(end - start);
+            result.peakHeap = Math.max(result.peakHeap, peak);
+            result.rows = count;
+        }
+    }
+
+    private static final class Result {
+        final String name;
+        final RttHistogram firstRow = new RttHistogram();
+        final RttHistogram total = new RttHistogram();
+        long peakHeap;
+        int rows;
+
+        Result(String name) {
+            this.name = name;
+        }
+
+        void print() {
+            System.out.printf("%s (%,d dòng):%n", name, rows);
+            System.out.printf("  dòng đầu tiên: p50 %.1f ms, max %.1f ms%n",
+                    firstRow.getPercentileMillis(50), firstRow.getMaxMillis());
+            System.out.printf("  xong:          p50 %.1f ms, max %.1f ms%n",
+                    total.getPercentileMillis(50), total.getMaxMillis());
+            System.out.printf("  đỉnh heap %.1f MB%n", peakHeap / 1e6);
+        }
+    }
+
+    private static byte[] buildBody(int rows) {
+        StringBuilder sb = new StringBuilder(rows * 260);
+        sb.append("{\"games\":[");
+        for (int i = 1; i <= rows; i++) {
+            if (i > 1) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i)
+                    .append(",\"white_username\":\"player").append(i % 977)
+                    .append("\",\"white_display_name\":\"Người chơi ").append(i % 977)
+                    .append("\",\"black_username\":\"player").append((i * 7) % 977)
+                    .append("\",\"black_display_name\":\"Người chơi ").append((i * 7) % 977)
+                    .append("\",\"mode\":\"").append(i % 3 == 0 ? "ai" : "p2p")
+                    .append("\",\"status\":\"finished\",\"winner_username\":\"player").append(i % 977)
+                    .append("\",\"winner_display_name\":\"Người chơi ").append(i % 977)
+                    .append("\",\"created_at\":\"2024-05-0").append(1 + i % 9).append("T10:00:00.000Z\"}");
+        }
+        sb.append("],\"pagination\":{\"page\":1,\"limit\":").append(rows)
+                .append(",\"total\":").append(rows).append(",\"totalPages\":1}}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void acceptLoop(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Trả cùng một body cho mọi request, ghi từng khối theo băng thông đã chọn.
+     */
+    private static void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.ISO_8859_1));
+            OutputStream out = socket.getOutputStream();
+            byte[] header = ("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: "
+                    + body.length + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    continue; // bỏ qua dòng request và header (chỉ có GET, không có body)
+                }
+                out.write(header);
+                long start = System.nanoTime();
+                for (int offset = 0; offset < body.length; offset += CHUNK_BYTES) {
+                    int length = Math.min(CHUNK_BYTES, body.length - offset);
+                    out.write(body, offset, length);
+                    out.flush();
+                    long dueNanos = (offset + length) * 1_000_000L / bytesPerMilli;
+                    long sleepNanos = dueNanos - (System.nanoTime() - start);
+                    if (sleepNanos > 0) {
+                        Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                    }
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client đóng kết nối
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.chess_client.bench;
+
+import com.chess_client.network.RttHistogram;
+import com.chess_client.services.ApiClient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * So sánh tạo HttpClient mới cho mỗi lời gọi (cách AdminService làm trước đây) với
+ * HttpClient dùng chung của ApiClient, trên một server HTTP/1.1 keep-alive tối giản
+ * chạy ở loopback.
+ *
+ * Server chờ thêm {@code acceptDelayMs} mỗi khi nhận kết nối mới để giả lập chi phí bắt
+ * tay TCP/TLS qua mạng thật (trên loopback bắt tay gần như miễn phí). Báo cáo độ trễ
+ * p50/p99 và số kết nối server đã nhận cho từng cách, rồi in báo cáo theo endpoint
+ * của ApiClient.
+ *
+ * Chạy: java ... com.chess_client.bench.HttpClientBenchmark [số lời gọi] [acceptDelayMs]
+ */
+public class HttpClientBenchmark {
+
+    private static final byte[] BODY = "{\"users\":{\"total\":10,\"online\":3,\"admins\":1}}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final AtomicInteger connections = new AtomicInteger();
+    private static volatile long acceptDelayMillis;
+
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        acceptDelayMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+        ServerSocket server = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> acceptLoop(server));
+        URI uri = URI.create("http://127.0.0.1:" + server.getLocalPort() + "/api/admin/stats");
+
+        // Làm nóng JIT cho cả hai cách
+        for (int i = 0; i < 50; i++) {
+            perCallClient(uri);
+            ApiClient.send(request(uri), HttpResponse.BodyHandlers.ofString());
+        }
+        ApiClient.resetLatencies();
+
+        connections.set(0);
+        RttHistogram perCall = new RttHistogram();
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            perCallClient(uri);
+            perCall.record(System.nanoTime() - start);
+        }
+        int perCallConnections = connections.get();
+
+        connections.set(0);
+        RttHistogram shared = new RttHistogram();
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            ApiClient.send(request(uri), HttpResponse.BodyHandlers.ofString());
+            shared.record(System.nanoTime() - start);
+        }
+        int sharedConnections = connections.get();
+
+        System.out.printf("%d lời gọi, server chờ %d ms mỗi kết nối mới%n", calls, acceptDelayMillis);
+        System.out.printf("HttpClient mới mỗi lần: %s, %d kết nối%n", perCall, perCallConnections);
+        System.out.printf("ApiClient dùng chung:   %s, %d kết nối%n", shared, sharedConnections);
+        System.out.println(ApiClient.getLatencyReport());
+        server.close();
+    }
+
+    private static HttpRequest request(URI uri) {
+        return HttpRequest.newBuilder().uri(uri).header("Authorization", "Bearer bench").GET().build();
+    }
+
+    private static void perCallClient(URI uri) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            client.send(request(uri), HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    private static void acceptLoop(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.incrementAndGet();
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Trả cùng một JSON cho mọi request, giữ kết nối cho tới khi client đóng.
+     */
+    private static void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            Thread.sleep(acceptDelayMillis);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.ISO_8859_1));
+            OutputStream out = socket.getOutputStream();
+            byte[] header = ("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: "
+                    + BODY.length + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    continue; // bỏ qua dòng request và header (chỉ có GET, không có body)
+                }
+                out.write(header);
+                out.write(BODY);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client đóng kết nối
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.chess_client.bench;
+
+import com.chess_client.models.Move;
+import com.chess_client.network.PeerClient;
+import com.chess_client.network.PeerNetworkHandler;
+import com.chess_client.network.PeerServer;
+import com.chess_client.network.RttHistogram;
+import com.chess_client.network.TransportProfile;
+import javafx.application.Platform;
+
+import java.net.Socket;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo thời gian khứ hồi của một nước đi qua loopback: bên A gửi nước đi, bên B nhận
+ * được thì gửi ngay một nước đáp lại (kèm ACK), A đo từ lúc gửi tới lúc nhận nước đáp.
+ * Chạy lần lượt với TransportProfile.SYSTEM_DEFAULT (Nagle bật) và LOW_LATENCY để so sánh.
+ *
+ * Chạy (cần JavaFX vì callback chạy qua Platform.runLater):
+ * java ... com.chess_client.bench.LatencyBenchmark [số lượt]
+ */
+public class LatencyBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Platform.startup(() -> {
+        });
+
+        run("SYSTEM_DEFAULT", TransportProfile.SYSTEM_DEFAULT, rounds);
+        run("LOW_LATENCY", TransportProfile.LOW_LATENCY, rounds);
+        Platform.exit();
+    }
+
+    private static void run(String name, TransportProfile profile, int rounds) throws Exception {
+        PeerServer server = new PeerServer(profile);
+        int port = server.start(0);
+        Socket clientSocket = new PeerClient(profile).connectToOpponent("127.0.0.1", port);
+        Socket serverSocket = server.waitForOpponent();
+        server.stop();
+
+        PeerNetworkHandler a = new PeerNetworkHandler();
+        PeerNetworkHandler b = new PeerNetworkHandler();
+        Semaphore replies = new Semaphore(0);
+        a.setOnMoveReceived((fromRow, fromCol, toRow, toCol) -> replies.release());
+        b.setOnMoveReceived((fromRow, fromCol, toRow, toCol) -> b.sendMove(new Move(toRow, toCol, fromRow, fromCol, null)));
+        a.setPeerSocket(clientSocket);
+        b.setPeerSocket(serverSocket);
+
+        Move move = new Move(6, 4, 4, 4, null);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            roundTrip(a, move, replies);
+        }
+
+        RttHistogram histogram = new RttHistogram();
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            histogram.record(roundTrip(a, move, replies));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-15s %s%n", name, profile);
+        System.out.printf("  %d lượt trong %.2f s: trung bình %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                rounds, seconds, histogram.getMeanMillis(), histogram.getPercentileMillis(50),
+                histogram.getPercentileMillis(99), histogram.getMaxMillis());
+
+        a.close();
+        b.close();
+    }
+
+    private static long roundTrip(PeerNetworkHandler handler, Move move, Semaphore replies) throws InterruptedException {
+        long sent = System.nanoTime();
+        handler.sendMove(move);
+        if (!replies.tryAcquire(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Không nhận được nước đáp sau 5 s");
+        }
+        return System.nanoTime() - sent;
+    }
+}
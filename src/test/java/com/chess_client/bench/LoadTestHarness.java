@@ -0,0 +1,250 @@
+package com.chess_client.bench;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.network.InboundDispatcher;
+import com.chess_client.network.PeerClient;
+import com.chess_client.network.PeerNetworkHandler;
+import com.chess_client.network.PeerServer;
+import com.chess_client.network.RttHistogram;
+import com.chess_client.services.GameLogic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kiểm tra tải tầng mạng P2P: nhiều cặp PeerNetworkHandler thật nói chuyện qua loopback
+ * (PeerServer/PeerClient, PeerEventLoop...), mỗi cặp chơi liên tục các ván ngẫu nhiên
+ * hợp lệ theo GameLogic. Không cần JavaFX: callback chạy qua InboundDispatcher trên một
+ * pool thread thay cho thread FX.
+ *
+ * Mỗi bên giữ bàn cờ riêng và kiểm tra nước nhận được có hợp lệ không; cuối cùng so FEN
+ * hai bên. Báo cáo số nước/giây, độ trễ một chiều (p50/p99/max), số thread, heap.
+ * Thoát với mã 1 nếu có nước sai/lệch bàn cờ hoặc không đi được nước nào, nên dùng được
+ * làm cổng kiểm tra trước khi sửa tầng truyền tải.
+ *
+ * Chạy: java ... com.chess_client.bench.LoadTestHarness [số cặp] [số giây] [số thread UI]
+ */
+public class LoadTestHarness {
+
+    private static final int MAX_PLIES = 200; // ván dài hơn thì tính hòa và chơi ván mới
+    private static final String NEW_GAME = "new_game";
+
+    private static volatile boolean running = true;
+    private static final RttHistogram latency = new RttHistogram();
+    private static final AtomicLong moves = new AtomicLong();
+    private static final AtomicLong games = new AtomicLong();
+    private static final AtomicLong errors = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int uiThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memoryBean.getHeapMemoryUsage().getUsed();
+        int threadsBefore = threadBean.getThreadCount();
+
+        ExecutorService ui = Executors.newFixedThreadPool(uiThreads);
+        PeerServer server = new PeerServer();
+        int port = server.start(0);
+
+        long setupStart = System.nanoTime();
+        List<Pair> all = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            Socket whiteSocket = new PeerClient().connectToOpponent("127.0.0.1", port);
+            Socket blackSocket = server.waitForOpponent();
+            all.add(new Pair(i, whiteSocket, blackSocket, ui));
+        }
+        server.stop();
+        System.out.printf("Đã kết nối %d cặp trong %.2f s%n", pairs, (System.nanoTime() - setupStart) / 1e9);
+
+        long start = System.nanoTime();
+        for (Pair pair : all) {
+            pair.white.startGame();
+        }
+        long lastMoves = 0;
+        for (int s = 1; s <= seconds; s++) {
+            Thread.sleep(1_000);
+            long total = moves.get();
+            System.out.printf("  %3d s: %,d nước/s, %,d ván xong, %d thread%n",
+                    s, total - lastMoves, games.get(), threadBean.getThreadCount());
+            lastMoves = total;
+        }
+        running = false;
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        Thread.sleep(500); // chờ các nước đang gửi dở
+
+        int peakThreads = threadBean.getPeakThreadCount();
+        long heapLoaded = memoryBean.getHeapMemoryUsage().getUsed();
+        System.gc();
+        long heapAfterGc = memoryBean.getHeapMemoryUsage().getUsed();
+
+        long mismatched = 0;
+        double eventsPerPulse = 0;
+        for (Pair pair : all) {
+            if (!pair.boardsMatch()) {
+                mismatched++;
+            }
+            eventsPerPulse += pair.white.dispatcher.getAverageEventsPerPulse();
+        }
+
+        System.out.printf("%d cặp, %.1f s: %,d nước (%,.0f nước/s), %,d ván xong%n",
+                pairs, elapsed, moves.get(), moves.get() / elapsed, games.get());
+        System.out.printf("Độ trễ một chiều: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                latency.getPercentileMillis(50), latency.getPercentileMillis(99), latency.getMaxMillis());
+        System.out.printf("Thread: %d trước khi chạy, cao nhất %d (%d thread UI giả lập)%n",
+                threadsBefore, peakThreads, uiThreads);
+        System.out.printf("Heap: %.1f MB trước, %.1f MB khi chạy, %.1f MB sau GC (%.1f KB/cặp)%n",
+                heapBefore / 1e6, heapLoaded / 1e6, heapAfterGc / 1e6, (heapAfterGc - heapBefore) / 1e3 / pairs);
+        System.out.printf("Sự kiện mỗi lượt dispatcher (bên trắng, trung bình): %.2f%n", eventsPerPulse / pairs);
+        System.out.printf("Nước sai: %d, cặp lệch bàn cờ: %d%n", errors.get(), mismatched);
+
+        for (Pair pair : all) {
+            pair.white.handler.close();
+            pair.black.handler.close();
+        }
+        ui.shutdown();
+        ui.awaitTermination(5, TimeUnit.SECONDS);
+
+        boolean ok = errors.get() == 0 && mismatched == 0 && moves.get() > 0;
+        System.out.println(ok ? "OK" : "THẤT BẠI");
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Hai người chơi giả lập nối với nhau qua một cặp socket.
+     */
+    private static class Pair {
+        final Player white;
+        final Player black;
+
+        Pair(int id, Socket whiteSocket, Socket blackSocket, ExecutorService ui) {
+            white = new Player(Piece.Color.WHITE, new Random(id * 2L), ui);
+            black = new Player(Piece.Color.BLACK, new Random(id * 2L + 1), ui);
+            white.opponent = black;
+            black.opponent = white;
+            white.handler.setPeerSocket(whiteSocket);
+            black.handler.setPeerSocket(blackSocket);
+        }
+
+        /**
+         * So bàn cờ hai bên khi không còn nước nào đang gửi.
+         */
+        boolean boardsMatch() {
+            synchronized (white) {
+                synchronized (black) {
+                    return white.board.toFen().equals(black.board.toFen());
+                }
+            }
+        }
+    }
+
+    /**
+     * Một người chơi: nhận nước của đối thủ, kiểm tra, rồi đi một nước ngẫu nhiên hợp lệ.
+     * Mọi callback chạy trên pool UI nhưng tuần tự cho từng người chơi (InboundDispatcher).
+     */
+    private static class Player {
+        final Piece.Color color;
+        final Random random;
+        final InboundDispatcher dispatcher;
+        final PeerNetworkHandler handler;
+        Player opponent;
+        Board board = new Board();
+        GameLogic logic = new GameLogic(board);
+        Piece.Color toMove = Piece.Color.WHITE;
+        int plies;
+        // Thời điểm đối thủ gửi nước sắp nhận (mỗi cặp chỉ có một nước đang gửi)
+        volatile long opponentSentAt;
+
+        Player(Piece.Color color, Random random, ExecutorService ui) {
+            this.color = color;
+            this.random = random;
+            this.dispatcher = new InboundDispatcher(ui);
+            this.handler = new PeerNetworkHandler(dispatcher);
+            handler.setOnMoveReceived(this::onMove);
+            handler.setOnGameActionReceived(action -> {
+                if (NEW_GAME.equals(action)) {
+                    startGame();
+                }
+            });
+        }
+
+        /**
+         * Bắt đầu ván mới; bên trắng đi trước.
+         */
+        synchronized void startGame() {
+            board = new Board();
+            logic = new GameLogic(board);
+            toMove = Piece.Color.WHITE;
+            plies = 0;
+            if (color == Piece.Color.WHITE) {
+                play();
+            }
+        }
+
+        synchronized void onMove(int fromRow, int fromCol, int toRow, int toCol) {
+            long sent = opponentSentAt;
+            if (sent != 0) {
+                latency.record(System.nanoTime() - sent);
+            }
+            Move move = findMove(fromRow, fromCol, toRow, toCol);
+            if (move == null) {
+                errors.incrementAndGet();
+                return;
+            }
+            apply(move);
+            play();
+        }
+
+        /**
+         * Đi một nước nếu tới lượt; hết nước hoặc quá dài thì kết thúc ván và mời ván mới.
+         */
+        private void play() {
+            if (!running || toMove != color) {
+                return;
+            }
+            List<Move> legal = logic.getAllValidMoves(color);
+            if (legal.isEmpty() || plies >= MAX_PLIES) {
+                games.incrementAndGet();
+                handler.sendGameAction(NEW_GAME);
+                startGame();
+                return;
+            }
+            Move move = legal.get(random.nextInt(legal.size()));
+            apply(move);
+            moves.incrementAndGet();
+            opponent.opponentSentAt = System.nanoTime();
+            handler.sendMove(move);
+        }
+
+        private Move findMove(int fromRow, int fromCol, int toRow, int toCol) {
+            for (Move move : logic.getAllValidMoves(toMove)) {
+                if (move.getFromRow() == fromRow && move.getFromCol() == fromCol
+                        && move.getToRow() == toRow && move.getToCol() == toCol) {
+                    return move;
+                }
+            }
+            return null;
+        }
+
+        private void apply(Move move) {
+            board.movePiece(move);
+            toMove = toMove == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+            plies++;
+        }
+    }
+}
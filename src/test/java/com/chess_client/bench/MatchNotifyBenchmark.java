@@ -0,0 +1,149 @@
+package com.chess_client.bench;
+
+import com.chess_client.network.PeerService;
+import com.chess_client.services.ApiConfig;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đo độ trễ từ lúc server ghép xong trận tới lúc client biết (PeerService.awaitMatch):
+ * nhận event qua luồng sự kiện (SSE) so với chỉ hỏi lại /status khi server không có
+ * luồng sự kiện.
+ *
+ * Server matchmaking giả ở loopback: /api/matchmaking/events giữ kết nối và đẩy event
+ * "match" đúng lúc ghép xong (hoặc trả 404 ở chế độ chỉ hỏi lại), /api/matchmaking/status
+ * trả 202 cho tới lúc ghép xong rồi 200 "Match Found!". Mỗi lần đo, trận được ghép sau một
+ * khoảng ngẫu nhiên 0,3–3 giây. Báo cáo độ trễ p50/p95/max và số lần hỏi /status.
+ *
+ * Chạy: java ... com.chess_client.bench.MatchNotifyBenchmark [số lần đo]
+ */
+public class MatchNotifyBenchmark {
+
+    private static final Duration MATCH_TIMEOUT = Duration.ofSeconds(15);
+
+    private static volatile boolean eventsEnabled;
+    private static volatile long matchAt;
+    private static final AtomicInteger statusRequests = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        ServerSocket server = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> acceptLoop(server));
+        // ApiConfig đọc địa chỉ backend khi được nạp lần đầu
+        System.setProperty("API_BASE_URL", "http://127.0.0.1:" + server.getLocalPort());
+        PeerService peer = new PeerService(ApiConfig.MATCHMAKING_BASE, "bench-token");
+
+        System.out.printf("%d lần đo, trận được ghép sau 0,3–3 giây%n", runs);
+        run(peer, "Luồng sự kiện (SSE)", true, runs);
+        run(peer, "Chỉ hỏi lại /status", false, runs);
+        server.close();
+        System.exit(0);
+    }
+
+    private static void run(PeerService peer, String label, boolean events, int runs) throws Exception {
+        eventsEnabled = events;
+        Random random = new Random(42);
+        long[] latencies = new long[runs];
+        for (int i = -1; i < runs; i++) { // lần đầu để làm nóng, không tính
+            matchAt = System.currentTimeMillis() + 300 + random.nextInt(2700);
+            CompletableFuture<JSONObject> matchEvents = peer.subscribeMatchEvents();
+            if (i == 0) {
+                statusRequests.set(0);
+            }
+            JSONObject match = peer.awaitMatch(matchEvents, MATCH_TIMEOUT);
+            if (match == null || match.optInt("statusCode") != 200) {
+                throw new IllegalStateException("Không nhận được trận: " + match);
+            }
+            if (i >= 0) {
+                latencies[i] = System.currentTimeMillis() - matchAt;
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-22s p50 %5d ms  p95 %5d ms  max %5d ms  /status: %d lần%n", label,
+                latencies[runs / 2], latencies[Math.min(runs - 1, runs * 95 / 100)], latencies[runs - 1],
+                statusRequests.get());
+    }
+
+    private static void acceptLoop(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().start(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private static void handle(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String requestLine = in.readLine();
+            if (requestLine == null) {
+                return;
+            }
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                // Bỏ qua header
+            }
+            String path = requestLine.split(" ")[1];
+            OutputStream out = socket.getOutputStream();
+            if (path.endsWith("/events")) {
+                if (!eventsEnabled) {
+                    respond(out, 404, "{\"message\":\"Not Found\"}");
+                    return;
+                }
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream\r\nConnection: close\r\n\r\n"
+                        + ": connected\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                long wait = matchAt - System.currentTimeMillis();
+                if (wait > 0) {
+                    Thread.sleep(wait);
+                }
+                out.write(("event: match\ndata: " + matchJson() + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } else if (path.endsWith("/status")) {
+                statusRequests.incrementAndGet();
+                if (System.currentTimeMillis() >= matchAt) {
+                    respond(out, 200, matchJson());
+                } else {
+                    respond(out, 202, "{\"message\":\"Waiting for opponent\"}");
+                }
+            } else {
+                respond(out, 404, "{\"message\":\"Not Found\"}");
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client đã đóng kết nối
+        }
+    }
+
+    private static String matchJson() {
+        return new JSONObject()
+                .put("message", "Match Found!")
+                .put("color", "white")
+                .put("opponent", new JSONObject().put("ip", "127.0.0.1").put("port", 9000))
+                .toString();
+    }
+
+    private static void respond(OutputStream out, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        out.write(("HTTP/1.1 " + status + " X\r\nContent-Type: application/json\r\nContent-Length: "
+                + body.length + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(body);
+        out.flush();
+    }
+}
@@ -0,0 +1,111 @@
+package com.chess_client.bench;
+
+import com.chess_client.archive.ArchivedGame;
+import com.chess_client.archive.GameArchive;
+import com.chess_client.archive.PositionIndex;
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.models.Zobrist;
+import com.chess_client.services.GameLogic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Đo tốc độ build và tra cứu của PositionIndex trên một archive tạm chứa các ván
+ * sinh ngẫu nhiên (seed cố định).
+ *
+ * Chạy: java ... com.chess_client.bench.PositionIndexBenchmark [số ván] [số nước mỗi ván]
+ */
+public class PositionIndexBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        Path dir = Files.createTempDirectory("position-index-bench");
+        Random random = new Random(42);
+
+        // 1. Sinh ván ngẫu nhiên (12 nước đầu chọn trong ít lựa chọn để các ván có khai cuộc chung)
+        List<Long> sampleKeys = new ArrayList<>();
+        long start = System.nanoTime();
+        try (GameArchive archive = GameArchive.open(dir)) {
+            for (int i = 0; i < games; i++) {
+                List<Move> moves = randomGame(random, plies, sampleKeys, i % 16 == 0);
+                archive.append(ArchivedGame.fromMoves(i, "bench-" + i, "Benchmark", "A", "B", Piece.Color.WHITE,
+                        ArchivedGame.Result.values()[random.nextInt(3)], null, moves));
+            }
+            System.out.printf("Sinh %d ván: %.1f s%n", games, (System.nanoTime() - start) / 1e9);
+
+            // 2. Build index từ đầu
+            try (PositionIndex index = PositionIndex.open(dir)) {
+                start = System.nanoTime();
+                index.update(archive);
+                index.flush();
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Build: %d ván, %d dòng trong %.2f s (%.0f ván/s, %.0f thế cờ/s)%n",
+                        games, index.getTableRows(), seconds, games / seconds, games * (plies + 1.0) / seconds);
+
+                // 3. Tra cứu: nửa khóa có thật, nửa khóa ngẫu nhiên (không có trong bảng)
+                int lookups = 200_000;
+                long[] keys = new long[lookups];
+                for (int i = 0; i < lookups; i++) {
+                    keys[i] = i % 2 == 0 ? sampleKeys.get(random.nextInt(sampleKeys.size())) : random.nextLong();
+                }
+                for (int i = 0; i < lookups; i++) {
+                    index.lookup(keys[i], 5); // warm-up
+                }
+                long[] latencies = new long[lookups];
+                long found = 0;
+                for (int i = 0; i < lookups; i++) {
+                    long t = System.nanoTime();
+                    found += index.lookup(keys[i], 5).getGames();
+                    latencies[i] = System.nanoTime() - t;
+                }
+                Arrays.sort(latencies);
+                System.out.printf("Tra cứu: p50 %.2f µs, p99 %.2f µs, max %.2f µs (tổng ván khớp %d)%n",
+                        latencies[lookups / 2] / 1e3, latencies[lookups * 99 / 100] / 1e3,
+                        latencies[lookups - 1] / 1e3, found);
+
+                // 4. Thêm tăng dần một ván (trường hợp kết thúc một ván trên màn hình game)
+                archive.append(ArchivedGame.fromMoves(games, "bench-last", "Benchmark", "A", "B",
+                        Piece.Color.WHITE, ArchivedGame.Result.DRAW, null, randomGame(random, plies, null, false)));
+                start = System.nanoTime();
+                index.update(archive);
+                System.out.printf("Thêm 1 ván: %.2f ms%n", (System.nanoTime() - start) / 1e6);
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static List<Move> randomGame(Random random, int plies, List<Long> sampleKeys, boolean sample) {
+        Board board = new Board();
+        GameLogic logic = new GameLogic(board);
+        List<Move> moves = new ArrayList<>(plies);
+        Piece.Color side = Piece.Color.WHITE;
+        for (int ply = 0; ply < plies; ply++) {
+            List<Move> valid = logic.getAllValidMoves(side);
+            if (valid.isEmpty() || !logic.hasKing(side)) {
+                break;
+            }
+            int choices = ply < 12 ? Math.min(3, valid.size()) : valid.size();
+            Move move = valid.get(random.nextInt(choices));
+            if (sample && sampleKeys != null) {
+                sampleKeys.add(Zobrist.hash(board));
+            }
+            board.movePiece(move);
+            moves.add(move);
+            side = side == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+        }
+        return moves;
+    }
+}
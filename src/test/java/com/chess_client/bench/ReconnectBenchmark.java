@@ -0,0 +1,219 @@
+package com.chess_client.bench;
+
+import com.chess_client.models.Move;
+import com.chess_client.network.PeerClient;
+import com.chess_client.network.PeerNetworkHandler;
+import com.chess_client.network.PeerReconnector;
+import com.chess_client.network.PeerServer;
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đo thời gian kết nối lại và số tin nhắn phải gửi lại khi kết nối P2P bị rớt giữa ván.
+ *
+ * Hai PeerNetworkHandler nói chuyện qua một proxy TCP nội bộ; proxy định kỳ cắt mọi
+ * kết nối (RST) để giả lập Wi-Fi chập chờn. Cả hai bên liên tục gửi nước đi (đánh số
+ * theo thứ tự) và kiểm tra nhận đủ, đúng thứ tự, không trùng.
+ *
+ * Chạy (cần JavaFX vì callback chạy qua Platform.runLater):
+ * java ... com.chess_client.bench.ReconnectBenchmark [số nước mỗi bên] [số lần cắt]
+ */
+public class ReconnectBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int cuts = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Platform.startup(() -> {
+        });
+
+        PeerServer server = new PeerServer();
+        int serverPort = server.start(0);
+        CuttingProxy proxy = new CuttingProxy(serverPort);
+
+        Socket clientSocket = new PeerClient().connectToOpponent("127.0.0.1", proxy.getPort());
+        Socket serverSocket = server.waitForOpponent();
+
+        PeerNetworkHandler client = new PeerNetworkHandler();
+        PeerNetworkHandler host = new PeerNetworkHandler();
+        Receiver clientReceiver = new Receiver(client, moves);
+        Receiver hostReceiver = new Receiver(host, moves);
+        client.setPeerSocket(clientSocket, PeerReconnector.connecting("127.0.0.1", proxy.getPort()));
+        host.setPeerSocket(serverSocket, PeerReconnector.accepting(server));
+
+        long start = System.nanoTime();
+        Thread hostSender = new Thread(() -> sendMoves(host, moves), "bench-host-sender");
+        hostSender.start();
+        Thread cutter = new Thread(() -> {
+            for (int i = 0; i < cuts; i++) {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                proxy.cutAll();
+            }
+        }, "bench-cutter");
+        cutter.start();
+        sendMoves(client, moves);
+        hostSender.join();
+        cutter.join();
+
+        boolean complete = clientReceiver.await(60) && hostReceiver.await(60);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Gửi %d nước mỗi bên trong %.2f s, cắt kết nối %d lần%n", moves, seconds, proxy.getCuts());
+        report("Bên kết nối", client, clientReceiver);
+        report("Bên chờ", host, hostReceiver);
+        System.out.println(complete ? "Nhận đủ, đúng thứ tự" : "THIẾU tin nhắn sau 60 s");
+
+        client.close();
+        host.close();
+        proxy.close();
+        Platform.exit();
+    }
+
+    private static void sendMoves(PeerNetworkHandler handler, int count) {
+        for (int i = 0; i < count; i++) {
+            int code = i % 4096;
+            handler.sendMove(new Move((code & 0x3F) / 8, (code & 0x3F) % 8, (code >> 6) / 8, (code >> 6) % 8, null));
+            if (i % 100 == 0) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void report(String name, PeerNetworkHandler handler, Receiver receiver) {
+        int reconnects = handler.getReconnectCount();
+        System.out.printf("  %-12s kết nối lại %d lần (trung bình %.1f ms, lần cuối %d ms), gửi lại %d tin, "
+                + "bỏ %d tin trùng, nhận %d nước (%d sai thứ tự)%n",
+                name, reconnects, reconnects == 0 ? 0.0 : (double) handler.getTotalReconnectMillis() / reconnects,
+                handler.getLastReconnectMillis(), handler.getReplayedMessages(), handler.getDuplicateMessages(),
+                receiver.received.get(), receiver.outOfOrder.get());
+    }
+
+    /**
+     * Đếm nước nhận được và kiểm tra thứ tự.
+     */
+    private static class Receiver {
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Receiver(PeerNetworkHandler handler, int expected) {
+            handler.setOnMoveReceived((fromRow, fromCol, toRow, toCol) -> {
+                int index = received.getAndIncrement();
+                int code = (fromRow * 8 + fromCol) | (toRow * 8 + toCol) << 6;
+                if (code != index % 4096) {
+                    outOfOrder.incrementAndGet();
+                }
+                if (index + 1 == expected) {
+                    done.countDown();
+                }
+            });
+        }
+
+        boolean await(int seconds) throws InterruptedException {
+            return done.await(seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Proxy TCP chuyển tiếp tới server thật; cutAll() đóng đột ngột mọi kết nối.
+     */
+    private static class CuttingProxy {
+        private final ServerSocket listener;
+        private final int targetPort;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private final AtomicInteger cuts = new AtomicInteger();
+
+        CuttingProxy(int targetPort) throws IOException {
+            this.targetPort = targetPort;
+            this.listener = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::acceptLoop, "bench-proxy");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return listener.getLocalPort();
+        }
+
+        int getCuts() {
+            return cuts.get();
+        }
+
+        private void acceptLoop() {
+            while (!listener.isClosed()) {
+                try {
+                    Socket inbound = listener.accept();
+                    Socket outbound = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                    sockets.add(inbound);
+                    sockets.add(outbound);
+                    pump(inbound, outbound);
+                    pump(outbound, inbound);
+                } catch (IOException e) {
+                    if (!listener.isClosed()) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+
+        private void pump(Socket from, Socket to) {
+            Thread thread = new Thread(() -> {
+                byte[] buffer = new byte[16 * 1024];
+                try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                    int n;
+                    while ((n = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, n);
+                    }
+                } catch (IOException e) {
+                    // Kết nối bị cắt
+                }
+                abort(from);
+                abort(to);
+            }, "bench-proxy-pump");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void cutAll() {
+            cuts.incrementAndGet();
+            // Chỉ xóa các socket đã cắt: kết nối mới có thể được tạo ngay trong lúc cắt
+            List<Socket> snapshot = List.copyOf(sockets);
+            for (Socket socket : snapshot) {
+                abort(socket);
+            }
+            sockets.removeAll(snapshot);
+        }
+
+        private static void abort(Socket socket) {
+            try {
+                socket.setSoLinger(true, 0); // đóng bằng RST, dữ liệu đang chờ bị bỏ
+                socket.close();
+            } catch (IOException e) {
+                // Bỏ qua
+            }
+        }
+
+        void close() throws IOException {
+            cutAll();
+            listener.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.chess_client.bench;
+
+import com.chess_client.network.InboundDispatcher;
+import com.chess_client.network.PeerClient;
+import com.chess_client.network.PeerEventLoop;
+import com.chess_client.network.PeerServer;
+import com.chess_client.network.SpectatorBroadcaster;
+import com.chess_client.network.SpectatorClient;
+import com.chess_client.network.TransportProfile;
+
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đo chi phí phát một nước đi tới N người xem (SpectatorBroadcaster) qua loopback.
+ *
+ * Với mỗi N: mở N người xem mô phỏng (SpectatorClient trên một event loop riêng, không
+ * cần JavaFX) cùng vài người xem "chậm" không bao giờ đọc, phát M nước đi rồi báo thời
+ * gian fan-out mỗi nước (trên thread event loop của bên phát), thời gian tính trên mỗi
+ * người xem, và số người xem chậm bị ngắt. Chi phí mỗi người xem nên gần như không đổi
+ * khi N tăng.
+ *
+ * Chạy: java ... com.chess_client.bench.SpectatorBenchmark [số nước] [N1,N2,...]
+ */
+public class SpectatorBenchmark {
+
+    private static final int SLOW_SPECTATORS = 3;
+    // Buffer socket nhỏ để người xem không đọc làm đầy hàng đợi sớm
+    private static final int SMALL_BUFFER = 4 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        String[] counts = (args.length > 1 ? args[1] : "1,10,100,300,500").split(",");
+
+        PeerEventLoop spectatorLoop = PeerEventLoop.create("bench-spectators");
+        for (String count : counts) {
+            run(Integer.parseInt(count.trim()), moves, spectatorLoop);
+        }
+        spectatorLoop.shutdown();
+    }
+
+    private static void run(int spectators, int moves, PeerEventLoop spectatorLoop) throws Exception {
+        TransportProfile profile = new TransportProfile(true, false, SMALL_BUFFER, 0);
+        PeerEventLoop broadcastLoop = PeerEventLoop.create("bench-broadcast");
+        SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(new PeerServer(profile), broadcastLoop);
+        int port = broadcaster.start(0);
+
+        List<SpectatorClient> clients = new ArrayList<>();
+        InboundDispatcher direct = new InboundDispatcher(Runnable::run);
+        for (int i = 0; i < spectators; i++) {
+            SpectatorClient client = new SpectatorClient(direct);
+            client.connect(new PeerClient().connectToOpponent("127.0.0.1", port), spectatorLoop);
+            clients.add(client);
+        }
+        List<SocketChannel> slow = new ArrayList<>();
+        for (int i = 0; i < SLOW_SPECTATORS; i++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, SMALL_BUFFER);
+            channel.connect(new InetSocketAddress("127.0.0.1", port));
+            slow.add(channel); // không bao giờ đọc
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (broadcaster.getSpectatorCount() < spectators + SLOW_SPECTATORS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < moves; i++) {
+            broadcaster.broadcastMove(i % 4096);
+        }
+        long expected = (long) spectators * moves;
+        while (received(clients) < expected && System.currentTimeMillis() < deadline + 60_000) {
+            Thread.sleep(5);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        // Người xem chậm bị ngắt sau hai lần kiểm tra định kỳ (~2 s)
+        long dropDeadline = System.currentTimeMillis() + 3_000;
+        while (broadcaster.getDroppedSpectators() < SLOW_SPECTATORS && System.currentTimeMillis() < dropDeadline) {
+            Thread.sleep(10);
+        }
+
+        double p50 = broadcaster.getFanOutTime().getPercentileMillis(50) * 1000;
+        double p99 = broadcaster.getFanOutTime().getPercentileMillis(99) * 1000;
+        System.out.printf("%4d người xem: fan-out mỗi nước p50 %.1f µs, p99 %.1f µs (%.0f ns/người xem), "
+                + "giao %d/%d tin trong %.2f s, ngắt %d/%d người xem chậm%n",
+                spectators, p50, p99, p50 * 1000 / (spectators + SLOW_SPECTATORS), received(clients), expected,
+                seconds, broadcaster.getDroppedSpectators(), SLOW_SPECTATORS);
+
+        for (SpectatorClient client : clients) {
+            client.close();
+        }
+        for (SocketChannel channel : slow) {
+            channel.close();
+        }
+        broadcaster.close();
+        Thread.sleep(200);
+        broadcastLoop.shutdown();
+    }
+
+    private static long received(List<SpectatorClient> clients) {
+        long total = 0;
+        for (SpectatorClient client : clients) {
+            total += client.getReceivedMessages();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,131 @@
+package com.chess_client.bench;
+
+import com.chess_client.network.WireProtocol;
+import org.json.JSONObject;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * So sánh giao thức P2P nhị phân (WireProtocol) với đường JSON cũ: tốc độ mã hóa,
+ * giải mã và số byte trung bình mỗi tin nhắn trên đường truyền (tính cả phần chia frame:
+ * '\n' với JSON, 4 byte độ dài với nhị phân).
+ *
+ * Tin nhắn mẫu giống một ván thật: phần lớn là nước đi, thỉnh thoảng chat/action.
+ *
+ * Chạy: java ... com.chess_client.bench.WireProtocolBenchmark [số tin nhắn] [số vòng]
+ */
+public class WireProtocolBenchmark {
+
+    private static final String[] ACTIONS = { "resign", "offer_draw", "accept_draw", "reject_draw" };
+    private static final String[] CHATS = { "gg", "Nước hay!", "Bạn đi nhanh quá", "hòa nhé?" };
+
+    public static void main(String[] args) throws ProtocolException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        // type: 0 = move, 1 = chat, 2 = action
+        Random random = new Random(42);
+        int[] types = new int[count];
+        int[] codes = new int[count];
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++) {
+            int r = random.nextInt(100);
+            types[i] = r < 90 ? 0 : r < 98 ? 1 : 2;
+            codes[i] = random.nextInt(64) | random.nextInt(64) << 6;
+            texts[i] = types[i] == 1 ? CHATS[random.nextInt(CHATS.length)] : ACTIONS[random.nextInt(ACTIONS.length)];
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("Vòng " + round + (round == 1 ? " (khởi động JIT)" : ""));
+            runJson(types, codes, texts);
+            runBinary(types, codes, texts);
+        }
+    }
+
+    private static void runJson(int[] types, int[] codes, String[] texts) {
+        int count = types.length;
+        byte[][] encoded = new byte[count][];
+        long bytes = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            JSONObject json = new JSONObject();
+            switch (types[i]) {
+                case 0 -> {
+                    json.put("type", "move");
+                    json.put("fromRow", (codes[i] & 0x3F) / 8);
+                    json.put("fromCol", (codes[i] & 0x3F) % 8);
+                    json.put("toRow", ((codes[i] >> 6) & 0x3F) / 8);
+                    json.put("toCol", ((codes[i] >> 6) & 0x3F) % 8);
+                }
+                case 1 -> {
+                    json.put("type", "chat");
+                    json.put("message", texts[i]);
+                }
+                default -> {
+                    json.put("type", "game_action");
+                    json.put("action", texts[i]);
+                }
+            }
+            encoded[i] = json.toString().getBytes(StandardCharsets.UTF_8);
+            bytes += encoded[i].length + 1; // + '\n'
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            JSONObject json = new JSONObject(new String(encoded[i], StandardCharsets.UTF_8));
+            switch (json.optString("type")) {
+                case "move" -> checksum += json.getInt("fromRow") + json.getInt("fromCol")
+                        + json.getInt("toRow") + json.getInt("toCol");
+                case "chat" -> checksum += json.getString("message").length();
+                case "game_action" -> checksum += json.getString("action").length();
+            }
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        report("JSON", count, bytes, encodeNanos, decodeNanos, checksum);
+    }
+
+    private static void runBinary(int[] types, int[] codes, String[] texts) throws ProtocolException {
+        int count = types.length;
+        byte[][] encoded = new byte[count][];
+        long bytes = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            encoded[i] = switch (types[i]) {
+                case 0 -> WireProtocol.encodeMove(i, codes[i]);
+                case 1 -> WireProtocol.encodeChat(i, texts[i]);
+                default -> WireProtocol.encodeGameAction(i, texts[i]);
+            };
+            bytes += encoded[i].length + 4; // + tiền tố độ dài
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            WireProtocol.Message message = WireProtocol.decode(ByteBuffer.wrap(encoded[i]));
+            if (message.getType() == WireProtocol.TYPE_MOVE) {
+                int from = message.getMoveCode() & 0x3F;
+                int to = (message.getMoveCode() >> 6) & 0x3F;
+                checksum += from / 8 + from % 8 + to / 8 + to % 8;
+            } else {
+                checksum += message.getText().length();
+            }
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        report("Nhị phân", count, bytes, encodeNanos, decodeNanos, checksum);
+    }
+
+    private static void report(String name, int count, long bytes, long encodeNanos, long decodeNanos, long checksum) {
+        System.out.printf("  %-9s mã hóa %6.2f triệu tin/s, giải mã %6.2f triệu tin/s, %5.1f byte/tin (checksum %d)%n",
+                name, count * 1e3 / encodeNanos, count * 1e3 / decodeNanos, (double) bytes / count, checksum);
+    }
+}
@@ -0,0 +1,94 @@
+package com.chess_client.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FenTest {
+
+    @Test
+    void startPositionRoundTrips() {
+        assertRoundTrip(Fen.START_POSITION);
+        assertEquals(Fen.START_POSITION, new Board().toFen());
+    }
+
+    @Test
+    void partialCastlingRightsRoundTrip() {
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w Kq - 0 1");
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R b Qk - 3 20");
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1");
+    }
+
+    @Test
+    void castlingRightWithoutRookIsDropped() {
+        Board board = Board.fromFen("4k3/8/8/8/8/8/8/4K2R w KQ - 0 1");
+        assertEquals("4k3/8/8/8/8/8/8/4K2R w K - 0 1", board.toFen());
+    }
+
+    @Test
+    void enPassantSquareRoundTrips() {
+        assertRoundTrip("rnbqkbnr/pppp1ppp/8/8/3Pp3/8/PPP1PPPP/RNBQKBNR b KQkq d3 0 2");
+        assertRoundTrip("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3");
+    }
+
+    @Test
+    void enPassantSquareWithoutPawnIsDropped() {
+        Board board = Board.fromFen("4k3/8/8/8/8/8/8/4K3 w - e6 0 1");
+        assertNull(board.getLastMove());
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", board.toFen());
+    }
+
+    @Test
+    void countersDefaultWhenMissing() {
+        Board board = Board.fromFen("4k3/8/8/8/8/8/8/4K3 b - -");
+        assertEquals(Piece.Color.BLACK, board.getSideToMove());
+        assertEquals(0, board.getHalfmoveClock());
+        assertEquals(1, board.getFullmoveNumber());
+    }
+
+    @Test
+    void loadReusesBoard() {
+        Board board = Board.fromFen(Fen.START_POSITION);
+        Fen.load(board, "8/8/8/8/8/8/8/K6k w - - 50 100");
+        assertEquals("8/8/8/8/8/8/8/K6k w - - 50 100", Fen.toFen(board));
+    }
+
+    @Test
+    void invalidFenIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen(null));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k4/8/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/4K2X w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/4K3 x - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/4K3 w X - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/4K3 w - e4 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/4K3 w - - x 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1 extra"));
+    }
+
+    @Test
+    void eachSideNeedsExactlyOneKing() {
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("8/8/8/8/8/8/8/8 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/8 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/3KK3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromFen("3kk3/8/8/8/8/8/8/4K3 w - - 0 1"));
+    }
+
+    @Test
+    void invalidFenLeavesBoardUntouched() {
+        Board board = Board.fromFen("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3");
+        String before = board.toFen();
+        Move lastMove = board.getLastMove();
+        assertThrows(IllegalArgumentException.class, () -> Fen.load(board, "8/8/8/8/8/8/8/K7 b - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.load(board, "4k3/8/8/8/8/8/8/4K3 w - - x 1"));
+        assertEquals(before, board.toFen());
+        assertSame(lastMove, board.getLastMove());
+    }
+
+    private static void assertRoundTrip(String fen) {
+        assertEquals(fen, Board.fromFen(fen).toFen());
+    }
+}
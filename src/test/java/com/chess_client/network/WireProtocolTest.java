@@ -0,0 +1,112 @@
+package com.chess_client.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WireProtocolTest {
+
+    private static final long[] BOUNDARIES = {
+            0, 1, 127, 128, 16_383, 16_384, 2_097_151, 2_097_152,
+            Integer.MAX_VALUE, 1L << 32, 1L << 56, Long.MAX_VALUE, -1, Long.MIN_VALUE
+    };
+
+    @Test
+    void varintSizesAtBoundaries() {
+        assertEquals(1, WireProtocol.varintSize(0));
+        assertEquals(1, WireProtocol.varintSize(127));
+        assertEquals(2, WireProtocol.varintSize(128));
+        assertEquals(2, WireProtocol.varintSize(16_383));
+        assertEquals(3, WireProtocol.varintSize(16_384));
+        assertEquals(5, WireProtocol.varintSize(Integer.MAX_VALUE));
+        assertEquals(9, WireProtocol.varintSize(Long.MAX_VALUE));
+        assertEquals(10, WireProtocol.varintSize(-1));
+    }
+
+    @Test
+    void varintRoundTripsAtBoundaries() throws Exception {
+        for (long value : BOUNDARIES) {
+            ByteBuffer buffer = ByteBuffer.allocate(WireProtocol.varintSize(value));
+            WireProtocol.putVarint(buffer, value);
+            assertEquals(0, buffer.remaining(), "varintSize sai với " + value);
+            buffer.flip();
+            assertEquals(value, WireProtocol.getVarint(buffer));
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    @Test
+    void truncatedVarintIsRejected() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] { (byte) 0x80, (byte) 0x80 });
+        assertThrows(ProtocolException.class, () -> WireProtocol.getVarint(buffer));
+    }
+
+    @Test
+    void overlongVarintIsRejected() {
+        byte[] bytes = new byte[11];
+        Arrays.fill(bytes, (byte) 0x80);
+        assertThrows(ProtocolException.class, () -> WireProtocol.getVarint(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    void moveRoundTripsWithLargeSeq() throws Exception {
+        for (long seq : BOUNDARIES) {
+            WireProtocol.Message message = decode(WireProtocol.encodeMove(seq, 0xFFFF));
+            assertEquals(WireProtocol.TYPE_MOVE, message.getType());
+            assertEquals(seq, message.getSeq());
+            assertEquals(0xFFFF, message.getMoveCode());
+        }
+    }
+
+    @Test
+    void chatAndActionsRoundTrip() throws Exception {
+        WireProtocol.Message chat = decode(WireProtocol.encodeChat(128, "xin chào ♞"));
+        assertEquals(WireProtocol.TYPE_CHAT, chat.getType());
+        assertEquals(128, chat.getSeq());
+        assertEquals("xin chào ♞", chat.getText());
+
+        WireProtocol.Message known = decode(WireProtocol.encodeGameAction(3, "offer_draw"));
+        assertEquals("offer_draw", known.getText());
+        assertEquals(1 + 1 + 1, WireProtocol.encodeGameAction(3, "offer_draw").length);
+
+        WireProtocol.Message custom = decode(WireProtocol.encodeGameAction(4, "takeback"));
+        assertEquals("takeback", custom.getText());
+    }
+
+    @Test
+    void controlMessagesRoundTrip() throws Exception {
+        assertEquals(16_384, decode(WireProtocol.encodeAck(16_384)).getSeq());
+        assertEquals(WireProtocol.TYPE_BYE, decode(WireProtocol.encodeBye()).getType());
+
+        WireProtocol.Message pong = decode(WireProtocol.encodePong(7, Long.MIN_VALUE));
+        assertEquals(WireProtocol.TYPE_PONG, pong.getType());
+        assertEquals(7, pong.getSeq());
+        assertEquals(Long.MIN_VALUE, pong.getTimestamp());
+    }
+
+    @Test
+    void decodeLeavesPayloadPositionUntouched() throws Exception {
+        ByteBuffer payload = ByteBuffer.wrap(WireProtocol.encodeMove(300, 42));
+        WireProtocol.decode(payload);
+        assertEquals(0, payload.position());
+    }
+
+    @Test
+    void malformedFramesAreRejected() {
+        assertThrows(ProtocolException.class, () -> decode(new byte[0]));
+        assertThrows(ProtocolException.class, () -> decode(new byte[] { WireProtocol.TYPE_MOVE, 0, 1 }));
+        assertThrows(ProtocolException.class, () -> decode(new byte[] { WireProtocol.TYPE_GAME_ACTION, 0 }));
+        assertThrows(ProtocolException.class, () -> decode(new byte[] { WireProtocol.TYPE_GAME_ACTION, 0, 99 }));
+        assertThrows(ProtocolException.class, () -> decode(new byte[] { WireProtocol.TYPE_PING, 0, 1, 2 }));
+        assertThrows(ProtocolException.class, () -> decode(new byte[] { 99, 0 }));
+    }
+
+    private static WireProtocol.Message decode(byte[] frame) throws ProtocolException {
+        return WireProtocol.decode(ByteBuffer.wrap(frame));
+    }
+}
@@ -0,0 +1,91 @@
+package com.chess_client.pgn;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PgnReaderTest {
+
+    private static final String GAME = """
+            [Event "Test \\"quoted\\""]
+            [White "Alice"]
+            [Black "Bob"]
+            [Result "1-0"]
+
+            1. e4 {king pawn} e5 2. Nf3 ; comment to end of line
+            Nc6 (2... d6 3. d4 (3. Bc4 Be7) exd4) 3. Bb5!? $1 a6 1-0
+            """;
+
+    @Test
+    void tagsAreParsed() {
+        PgnGame game = PgnReader.parse(GAME);
+        assertEquals("Test \"quoted\"", game.getTag("Event"));
+        assertEquals("Alice", game.getTag("White"));
+        assertEquals("Bob", game.getTag("Black"));
+        assertEquals(PgnGame.WHITE_WINS, game.getResult());
+        assertNull(game.getTag("Site"));
+    }
+
+    @Test
+    void commentsVariationsAndNagsAreSkipped() {
+        PgnGame game = PgnReader.parse(GAME);
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6"), game.getMoves());
+        assertEquals(6, game.toMoves().size());
+    }
+
+    @Test
+    void resultTokenOverridesMissingTag() {
+        PgnGame game = PgnReader.parse("1. e4 e5 1/2-1/2");
+        assertEquals(PgnGame.DRAW, game.getResult());
+        assertEquals(List.of("e4", "e5"), game.getMoves());
+    }
+
+    @Test
+    void blackMoveNumbersAndZeroCastlingAreHandled() {
+        PgnGame game = PgnReader.parse("[FEN \"r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1\"]\n\n1... 0-0-0 2. O-O *");
+        assertEquals(List.of("0-0-0", "O-O"), game.getMoves());
+        assertEquals(2, game.toMoves().size());
+    }
+
+    @Test
+    void streamSplitsGamesOnTagLines() throws Exception {
+        String text = "﻿" + GAME + "\n[White \"Carol\"]\n\n1. d4 d5 0-1\n%escaped line\n";
+        try (PgnReader reader = new PgnReader(new StringReader(text))) {
+            PgnGame first = reader.next();
+            PgnGame second = reader.next();
+            assertEquals("Alice", first.getTag("White"));
+            assertEquals("Carol", second.getTag("White"));
+            assertEquals(List.of("d4", "d5"), second.getMoves());
+            assertEquals(PgnGame.BLACK_WINS, second.getResult());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void writerOutputReadsBack() throws Exception {
+        PgnGame game = PgnReader.parse(GAME);
+        PgnGame back = PgnReader.parse(PgnWriter.toPgn(game));
+        // Writer bổ sung đủ bảy tag bắt buộc (Site, Date, Round = "?")
+        game.getTags().forEach((name, value) -> assertEquals(value, back.getTag(name)));
+        assertEquals("?", back.getTag("Site"));
+        assertEquals(game.getMoves(), back.getMoves());
+        assertEquals(game.getResult(), back.getResult());
+    }
+
+    @Test
+    void parallelReadSeesEveryGame() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append("[Round \"").append(i).append("\"]\n\n1. e4 e5 *\n\n");
+        }
+        ConcurrentLinkedQueue<PgnGame> games = new ConcurrentLinkedQueue<>();
+        long parsed = PgnReader.readParallel(new StringReader(text.toString()), 4, games::add);
+        assertEquals(50, parsed);
+        assertEquals(50, games.size());
+    }
+}
@@ -0,0 +1,135 @@
+package com.chess_client.pgn;
+
+import com.chess_client.models.Board;
+import com.chess_client.models.Move;
+import com.chess_client.models.Piece;
+import com.chess_client.services.GameLogic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SanTest {
+
+    @Test
+    void simpleMovesRoundTrip() {
+        Board board = new Board();
+        assertRoundTrip(board, "e4");
+        assertRoundTrip(board, "e5");
+        assertRoundTrip(board, "Nf3");
+        assertRoundTrip(board, "Nc6");
+        assertRoundTrip(board, "Bb5");
+        assertRoundTrip(board, "a6");
+        assertRoundTrip(board, "Bxc6");
+        assertRoundTrip(board, "dxc6");
+    }
+
+    @Test
+    void castlingBothSidesRoundTrips() {
+        Board board = Board.fromFen("r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w KQkq - 0 1");
+        Move kingSide = assertRoundTrip(board, "O-O");
+        assertTrue(kingSide.isCastling());
+        Move queenSide = assertRoundTrip(board, "O-O-O");
+        assertTrue(queenSide.isCastling());
+        assertEquals("2kr3r/pppppppp/8/8/8/8/PPPPPPPP/R4RK1 w - - 2 2", board.toFen());
+    }
+
+    @Test
+    void castlingWithZerosIsAccepted() {
+        Board board = Board.fromFen("r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w KQkq - 0 1");
+        Move move = San.parse(board, new GameLogic(board), "0-0");
+        assertTrue(move.isCastling());
+        assertEquals("O-O", San.toSan(board, new GameLogic(board), move));
+    }
+
+    @Test
+    void castlingWithoutRightsIsRejected() {
+        Board board = Board.fromFen("r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w kq - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, new GameLogic(board), "O-O"));
+    }
+
+    @Test
+    void enPassantRoundTrips() {
+        Board board = Board.fromFen("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3");
+        Move move = assertRoundTrip(board, "exd6");
+        assertTrue(move.isEnPassant());
+        assertEquals(null, board.getPiece(3, 3));
+        assertEquals(Piece.Type.PAWN, board.getPiece(2, 3).getType());
+    }
+
+    @Test
+    void promotionRoundTrips() {
+        Board board = Board.fromFen("8/P6k/8/8/8/8/8/K7 w - - 0 1");
+        Move move = assertRoundTrip(board, "a8=Q");
+        assertTrue(move.isPromotion());
+        assertEquals(Piece.Type.QUEEN, board.getPiece(0, 0).getType());
+    }
+
+    @Test
+    void promotionWithoutEqualsSignIsAccepted() {
+        Board board = Board.fromFen("8/P6k/8/8/8/8/8/K7 w - - 0 1");
+        Move move = San.parse(board, new GameLogic(board), "a8Q");
+        assertTrue(move.isPromotion());
+        assertEquals("a8=Q", San.toSan(board, new GameLogic(board), move));
+    }
+
+    @Test
+    void underpromotionIsRejected() {
+        Board board = Board.fromFen("8/P6k/8/8/8/8/8/K7 w - - 0 1");
+        GameLogic logic = new GameLogic(board);
+        for (String san : new String[] { "a8=N", "a8=R", "a8=B", "a8N", "a8R", "a8B", "a8=" }) {
+            assertThrows(IllegalArgumentException.class, () -> San.parse(board, logic, san), san);
+        }
+        assertEquals(Piece.Type.PAWN, board.getPiece(1, 0).getType());
+    }
+
+    @Test
+    void promotionSuffixOnOrdinaryMoveIsRejected() {
+        Board board = new Board();
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, new GameLogic(board), "e4=Q"));
+    }
+
+    @Test
+    void checkSuffixRoundTrips() {
+        Board check = Board.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        assertRoundTrip(check, "Ra8+");
+    }
+
+    @Test
+    void ambiguousMovesAreDisambiguated() {
+        Board files = Board.fromFen("4k3/8/8/8/4K3/8/8/R6R w - - 0 1");
+        assertRoundTrip(files, "Rad1");
+
+        Board ranks = Board.fromFen("4k3/R7/8/8/8/8/8/R3K3 w - - 0 1");
+        assertRoundTrip(ranks, "R1a4");
+    }
+
+    @Test
+    void ambiguousSanIsRejected() {
+        Board board = Board.fromFen("4k3/8/8/8/4K3/8/8/R6R w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, new GameLogic(board), "Rd1"));
+    }
+
+    @Test
+    void illegalSanIsRejected() {
+        Board board = new Board();
+        GameLogic logic = new GameLogic(board);
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, logic, ""));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, logic, "e5"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, logic, "Nf4"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, logic, "Ki9"));
+    }
+
+    /**
+     * Phân tích SAN, sinh lại SAN từ Move đó rồi đi nước trên board.
+     */
+    private static Move assertRoundTrip(Board board, String san) {
+        GameLogic logic = new GameLogic(board);
+        Move move = San.parse(board, logic, san);
+        assertEquals(san, San.toSan(board, logic, move));
+        board.movePiece(move);
+        return move;
+    }
+}
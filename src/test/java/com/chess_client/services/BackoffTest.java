@@ -0,0 +1,37 @@
+package com.chess_client.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackoffTest {
+
+    private final Backoff backoff = new Backoff(Duration.ofMillis(100), Duration.ofSeconds(3));
+
+    @Test
+    void delayDoublesWithinJitterBounds() {
+        long ceiling = 100;
+        for (int attempt = 0; attempt < 5; attempt++) {
+            assertBetween(ceiling / 2, ceiling, attempt);
+            ceiling *= 2;
+        }
+    }
+
+    @Test
+    void delayIsCappedAtMax() {
+        assertBetween(1500, 3000, 5);
+        assertBetween(1500, 3000, 30);
+        assertBetween(1500, 3000, 62);
+        assertBetween(1500, 3000, Integer.MAX_VALUE);
+    }
+
+    private void assertBetween(long min, long max, int attempt) {
+        for (int i = 0; i < 200; i++) {
+            long millis = backoff.delay(attempt).toMillis();
+            assertTrue(millis >= min && millis <= max,
+                    "lần thử " + attempt + ": " + millis + " ms ngoài [" + min + ", " + max + "]");
+        }
+    }
+}
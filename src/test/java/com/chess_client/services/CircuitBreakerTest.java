@@ -0,0 +1,107 @@
+package com.chess_client.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 100;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofMillis(OPEN_MILLIS),
+            Duration.ofMillis(4 * OPEN_MILLIS));
+
+    @Test
+    void opensAfterThresholdConsecutiveFailures() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getOpenedCount());
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        fail(2);
+        breaker.onSuccess();
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenLetsOneProbeThroughThenCloses() throws Exception {
+        fail(3);
+        Thread.sleep(OPEN_MILLIS + 30);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "chỉ một lời gọi thử được đi qua");
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeDoublesOpenTime() throws Exception {
+        fail(3);
+        Thread.sleep(OPEN_MILLIS + 30);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Thời gian mở lúc này là 2 * OPEN_MILLIS
+        Thread.sleep(OPEN_MILLIS + 30);
+        assertFalse(breaker.tryAcquire());
+        Thread.sleep(OPEN_MILLIS);
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void openTimeIsCappedAndResetOnClose() throws Exception {
+        fail(3);
+        // Thử lỗi liên tiếp: 100 -> 200 -> 400 -> 400 (tối đa)
+        long open = OPEN_MILLIS;
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(open + 30);
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+            open = Math.min(open * 2, 4 * OPEN_MILLIS);
+        }
+        Thread.sleep(4 * OPEN_MILLIS + 30);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // Đóng lại thì thời gian mở quay về ban đầu
+        fail(3);
+        Thread.sleep(OPEN_MILLIS + 30);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void ignoredProbeFreesTheSlot() throws Exception {
+        fail(3);
+        Thread.sleep(OPEN_MILLIS + 30);
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.chess_client.services;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonStreamTest {
+
+    private final List<JSONObject> items = new ArrayList<>();
+
+    @Test
+    void itemsAndRemainingFieldsAreRead() {
+        JSONObject rest = read("{\"pagination\": {\"page\": 2}, \"users\": [{\"id\": 1}, {\"id\": 2}], \"total\": 7}",
+                "users");
+        assertEquals(2, items.size());
+        assertEquals(1, items.get(0).getInt("id"));
+        assertEquals(2, items.get(1).getInt("id"));
+        assertEquals(2, rest.getJSONObject("pagination").getInt("page"));
+        assertEquals(7, rest.getInt("total"));
+        assertFalse(rest.has("users"));
+    }
+
+    @Test
+    void emptyArrayGivesNoItems() {
+        JSONObject rest = read("{ \"users\" : [ ] , \"total\": 0 }", "users");
+        assertTrue(items.isEmpty());
+        assertEquals(0, rest.getInt("total"));
+    }
+
+    @Test
+    void missingArrayKeyIsAnError() {
+        assertThrows(JSONException.class, () -> read("{\"total\": 0}", "users"));
+        assertThrows(JSONException.class, () -> read("{}", "users"));
+        assertTrue(items.isEmpty());
+    }
+
+    @Test
+    void nonObjectItemsAreSkipped() {
+        read("{\"users\": [1, \"x\", null, [{\"id\": 9}], {\"id\": 3}, true]}", "users");
+        assertEquals(1, items.size());
+        assertEquals(3, items.get(0).getInt("id"));
+    }
+
+    @Test
+    void arrayKeyThatIsNotAnArrayIsAnError() {
+        assertThrows(JSONException.class, () -> read("{\"users\": {\"id\": 1}}", "users"));
+    }
+
+    @Test
+    void malformedBodyIsAnError() {
+        assertThrows(JSONException.class, () -> read("[]", "users"));
+        assertThrows(JSONException.class, () -> read("{\"users\": [{\"id\": 1} {\"id\": 2}]}", "users"));
+        assertThrows(JSONException.class, () -> read("{\"users\": [] \"total\": 1}", "users"));
+    }
+
+    private JSONObject read(String json, String arrayKey) {
+        InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        return JsonStream.readArray(in, arrayKey, items::add);
+    }
+}
@@ -0,0 +1,214 @@
+package com.chess_client.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private ServerSocket server;
+    private final AtomicInteger served = new AtomicInteger();
+    private final AtomicInteger revalidations = new AtomicInteger();
+    private String url;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new ServerSocket(0);
+        url = "http://127.0.0.1:" + server.getLocalPort() + "/api/leaderboard";
+        Thread.ofVirtual().start(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    Thread.ofVirtual().start(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            boolean notModified = false;
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                notModified |= line.equalsIgnoreCase("If-None-Match: \"v1\"");
+            }
+            served.incrementAndGet();
+            OutputStream out = socket.getOutputStream();
+            if (notModified) {
+                revalidations.incrementAndGet();
+                out.write("HTTP/1.1 304 Not Modified\r\nETag: \"v1\"\r\nConnection: close\r\n\r\n"
+                        .getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                return;
+            }
+            byte[] body = "{\"players\":[]}".getBytes(StandardCharsets.UTF_8);
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nETag: \"v1\"\r\nContent-Length: "
+                    + body.length + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.write(body);
+            out.flush();
+        } catch (IOException e) {
+            // Client đã đóng kết nối
+        }
+    }
+
+    private HttpRequest get() {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    @Test
+    void freshResponseIsServedFromMemory() throws Exception {
+        ResponseCache cache = new ResponseCache(1024 * 1024, null).policy(url, Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            HttpResponse<String> response = cache.exchange(get()).get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.statusCode());
+            assertEquals("{\"players\":[]}", response.body());
+        }
+        assertEquals(1, served.get());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void noCacheRequestRevalidatesWithinTtl() throws Exception {
+        ResponseCache cache = new ResponseCache(1024 * 1024, null).policy(url, Duration.ofMinutes(1));
+        cache.exchange(get()).get(5, TimeUnit.SECONDS);
+
+        // Bấm làm mới: bản trong bộ nhớ còn hạn nhưng vẫn hỏi server, 304 dùng lại body
+        HttpRequest refresh = HttpRequest.newBuilder(URI.create(url)).header("Cache-Control", "no-cache").GET().build();
+        HttpResponse<String> response = cache.exchange(refresh).get(5, TimeUnit.SECONDS);
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"players\":[]}", response.body());
+        assertEquals(2, served.get());
+        assertEquals(1, revalidations.get());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void successfulPostClearsCache() throws Exception {
+        ResponseCache cache = new ResponseCache(1024 * 1024, null).policy(url, Duration.ofMinutes(1));
+        cache.exchange(get()).get(5, TimeUnit.SECONDS);
+        HttpRequest post = HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.noBody()).build();
+        assertEquals(200, cache.exchange(post).get(5, TimeUnit.SECONDS).statusCode());
+        cache.exchange(get()).get(5, TimeUnit.SECONDS);
+        assertEquals(3, served.get());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void clearForcesANewRequest() throws Exception {
+        ResponseCache cache = new ResponseCache(1024 * 1024, null).policy(url, Duration.ofMinutes(1));
+        cache.exchange(get()).get(5, TimeUnit.SECONDS);
+        cache.clear();
+        cache.exchange(get()).get(5, TimeUnit.SECONDS);
+        assertEquals(2, served.get());
+    }
+
+    @Test
+    void diskTierIsRevalidatedAfterRestart() throws Exception {
+        Path dir = Files.createTempDirectory("response-cache-test");
+        try {
+            ResponseCache first = new ResponseCache(1024 * 1024, dir).policy(url, Duration.ofMinutes(1));
+            first.exchange(get()).get(5, TimeUnit.SECONDS);
+
+            // Lần chạy sau: bộ nhớ trống, body lấy từ đĩa và được server xác nhận bằng 304
+            ResponseCache second = new ResponseCache(1024 * 1024, dir).policy(url, Duration.ofMinutes(1));
+            HttpResponse<String> response = second.exchange(get()).get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.statusCode());
+            assertEquals("{\"players\":[]}", response.body());
+            assertEquals(1, revalidations.get());
+            assertEquals(1, second.getRevalidatedCount());
+
+            // Sau khi xác nhận, bản trong bộ nhớ còn hạn: không hỏi server nữa
+            second.exchange(get()).get(5, TimeUnit.SECONDS);
+            assertEquals(2, served.get());
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * clear() (sau mỗi lần ghi, khi đăng xuất) chạy cùng lúc với nhiều GET: không được kẹt.
+     */
+    @Test
+    void clearRacingGetsDoesNotDeadlock() throws Exception {
+        ResponseCache cache = new ResponseCache(1024 * 1024, null).policy(url, Duration.ofMinutes(1));
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> getters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                getters.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        List<CompletableFuture<HttpResponse<String>>> batch = new ArrayList<>();
+                        for (int j = 0; j < 5; j++) {
+                            batch.add(cache.exchange(get()));
+                        }
+                        for (CompletableFuture<HttpResponse<String>> response : batch) {
+                            assertEquals(200, response.get(10, TimeUnit.SECONDS).statusCode());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> clearers = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                clearers.add(pool.submit(() -> {
+                    while (running.get()) {
+                        cache.clear();
+                        Thread.onSpinWait();
+                    }
+                }));
+            }
+            for (Future<?> getter : getters) {
+                getter.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            for (Future<?> clearer : clearers) {
+                clearer.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            pool.shutdownNow();
+        }
+        assertTrue(served.get() > 0);
+    }
+}
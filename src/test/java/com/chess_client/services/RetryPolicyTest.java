@@ -0,0 +1,48 @@
+package com.chess_client.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RetryPolicyTest {
+
+    private static final String GAMES = "http://localhost:3000/api/games";
+
+    private final RetryPolicy policy = new RetryPolicy(3).budget("POST", GAMES, "/end", 3);
+
+    @Test
+    void getUsesDefaultAttempts() {
+        assertEquals(3, policy.attemptsFor(request("GET", GAMES + "/42")));
+    }
+
+    @Test
+    void endGameIsRetried() {
+        assertEquals(3, policy.attemptsFor(request("POST", GAMES + "/42/end")));
+    }
+
+    @Test
+    void otherPostsUnderGamesAreSentOnce() {
+        assertEquals(1, policy.attemptsFor(request("POST", GAMES)));
+        assertEquals(1, policy.attemptsFor(request("POST", GAMES + "/42/moves")));
+        assertEquals(1, policy.attemptsFor(request("POST", GAMES + "/42/end/extra")));
+    }
+
+    @Test
+    void suffixOutsidePrefixIsNotRetried() {
+        assertEquals(1, policy.attemptsFor(request("POST", "http://localhost:3000/api/tournaments/7/end")));
+    }
+
+    @Test
+    void queryStringDoesNotHideSuffix() {
+        assertEquals(3, policy.attemptsFor(request("POST", GAMES + "/42/end?force=true")));
+    }
+
+    private static HttpRequest request(String method, String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+}
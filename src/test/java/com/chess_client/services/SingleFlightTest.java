@@ -0,0 +1,168 @@
+package com.chess_client.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> flights = new SingleFlight<>();
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> shared = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flights.join("k", () -> {
+            calls.incrementAndGet();
+            return shared;
+        });
+        CompletableFuture<String> second = flights.join("k", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("khác");
+        });
+
+        assertNotSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1, flights.getSuppressedCount());
+        shared.complete("kết quả");
+        assertEquals("kết quả", first.get(1, TimeUnit.SECONDS));
+        assertEquals("kết quả", second.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void finishedCallIsNotReused() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            flights.join("k", () -> CompletableFuture.completedFuture("lần " + calls.incrementAndGet()))
+                    .get(1, TimeUnit.SECONDS);
+        }
+        assertEquals(3, calls.get());
+        assertEquals(0, flights.getSuppressedCount());
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        AtomicInteger calls = new AtomicInteger();
+        flights.join("a", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        flights.join("b", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void failureReachesEveryWaiter() {
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.join("k", () -> shared);
+        CompletableFuture<String> second = flights.join("k", () -> shared);
+        shared.completeExceptionally(new IllegalStateException("lỗi"));
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    @Test
+    void supplierThrowingFailsTheCall() {
+        CompletableFuture<String> result = flights.join("k", () -> {
+            throw new IllegalStateException("lỗi");
+        });
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    void oneWaiterCancellingLeavesTheCallRunning() throws Exception {
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.join("k", () -> shared);
+        CompletableFuture<String> second = flights.join("k", () -> shared);
+
+        first.cancel(true);
+        assertFalse(shared.isCancelled());
+        shared.complete("kết quả");
+        assertEquals("kết quả", second.get(1, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, first::join);
+    }
+
+    @Test
+    void callIsCancelledWhenEveryWaiterCancels() {
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.join("k", () -> shared);
+        CompletableFuture<String> second = flights.join("k", () -> shared);
+
+        first.cancel(true);
+        second.cancel(true);
+        assertTrue(shared.isCancelled());
+
+        // Lời gọi sau bắt đầu việc mới
+        AtomicInteger calls = new AtomicInteger();
+        flights.join("k", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void forgetStartsANewCallButKeepsWaiters() throws Exception {
+        CompletableFuture<String> old = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.join("k", () -> old);
+        flights.forget();
+        CompletableFuture<String> fresh = flights.join("k", () -> CompletableFuture.completedFuture("mới"));
+
+        assertEquals("mới", fresh.get(1, TimeUnit.SECONDS));
+        old.complete("cũ");
+        assertEquals("cũ", first.get(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Lời gọi thật lấy một khóa khác (như ResponseCache) trong khi thread khác giữ khóa đó
+     * và gọi forget(): không được kẹt (deadlock).
+     */
+    @Test
+    void supplierRunsOutsideTheLock() throws Exception {
+        Object otherLock = new Object();
+        CountDownLatch inSupplier = new CountDownLatch(1);
+        CountDownLatch otherHoldsLock = new CountDownLatch(1);
+
+        Thread caller = Thread.ofPlatform().start(() -> flights.join("k", () -> {
+            inSupplier.countDown();
+            await(otherHoldsLock);
+            synchronized (otherLock) {
+                return CompletableFuture.completedFuture("xong");
+            }
+        }));
+        Thread clearer = Thread.ofPlatform().start(() -> {
+            await(inSupplier);
+            synchronized (otherLock) {
+                otherHoldsLock.countDown();
+                flights.forget();
+            }
+        });
+
+        caller.join(5_000);
+        clearer.join(5_000);
+        assertFalse(caller.isAlive(), "join() bị kẹt");
+        assertFalse(clearer.isAlive(), "forget() bị kẹt");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.chess_client.tasks;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackgroundTasksTest {
+
+    @Test
+    void scheduledTaskRunsAfterDelay() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        BackgroundTasks.schedule("test.scheduled", Duration.ofMillis(100), ran::countDown);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void scheduledTaskIsCountedWhileWaiting() throws Exception {
+        Future<?> timer = BackgroundTasks.schedule("test.waiting", Duration.ofMinutes(1), () -> { });
+        waitUntil(() -> BackgroundTasks.getInFlightTasks().stream().anyMatch(t -> t.startsWith("test.waiting")));
+        timer.cancel(true);
+        waitUntil(() -> BackgroundTasks.getInFlightTasks().stream().noneMatch(t -> t.startsWith("test.waiting")));
+    }
+
+    @Test
+    void cancelledScheduledTaskNeverRuns() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        Future<?> timer = BackgroundTasks.schedule("test.cancelled", Duration.ofMillis(200), () -> ran.set(true));
+        timer.cancel(true);
+        Thread.sleep(400);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void scopeCancelInterruptsItsTasks() throws Exception {
+        TaskScope scope = new TaskScope("test-scope");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        scope.run("wait", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scope.cancel();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(scope.isCancelled());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Hết thời gian chờ");
+            Thread.sleep(10);
+        }
+    }
+}